@@ -0,0 +1,127 @@
+package com.example.benchmarks;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.example.model.Money;
+
+/**
+ * Compares the fixed-point {@link Money} arithmetic with the {@link BigDecimal} arithmetic it
+ * replaced, on the operations the purchase path and the reports run per sale line: pricing
+ * a line, summing a basket, averaging, parsing typed prices and formatting totals.
+ * <pre>
+ * mvn -f ../demo install &amp;&amp; mvn package &amp;&amp; java -jar target/benchmarks.jar MoneyBenchmark
+ * </pre>
+ * <p>Each benchmark works through {@code lines} random sale lines with prices up to $1,000
+ * and quantities up to 20, so the scores are per basket of that size.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoneyBenchmark {
+
+    @Param({"16", "1024"})
+    private int lines;
+
+    private long[] priceCents;
+    private BigDecimal[] prices;
+    private int[] quantities;
+    private BigDecimal[] quantityDecimals;
+    private String[] priceTexts;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        priceCents = new long[lines];
+        prices = new BigDecimal[lines];
+        quantities = new int[lines];
+        quantityDecimals = new BigDecimal[lines];
+        priceTexts = new String[lines];
+        for (int i = 0; i < lines; i++) {
+            priceCents[i] = 1 + random.nextInt(100_000);
+            prices[i] = BigDecimal.valueOf(priceCents[i], Money.SCALE);
+            quantities[i] = 1 + random.nextInt(20);
+            quantityDecimals[i] = BigDecimal.valueOf(quantities[i]);
+            priceTexts[i] = prices[i].toPlainString();
+        }
+    }
+
+    @Benchmark
+    public long basketTotalMoney() {
+        long total = Money.ZERO;
+        for (int i = 0; i < lines; i++) {
+            total = Money.add(total, Money.times(priceCents[i], quantities[i]));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal basketTotalBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            total = total.add(prices[i].multiply(quantityDecimals[i]));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public void averagePriceMoney(Blackhole blackhole) {
+        for (int i = 0; i < lines; i++) {
+            blackhole.consume(Money.divide(Money.times(priceCents[i], quantities[i]), 3));
+        }
+    }
+
+    @Benchmark
+    public void averagePriceBigDecimal(Blackhole blackhole) {
+        BigDecimal three = BigDecimal.valueOf(3);
+        for (int i = 0; i < lines; i++) {
+            blackhole.consume(prices[i].multiply(quantityDecimals[i]).divide(three, Money.SCALE, RoundingMode.HALF_UP));
+        }
+    }
+
+    @Benchmark
+    public void parseMoney(Blackhole blackhole) {
+        for (int i = 0; i < lines; i++) {
+            blackhole.consume(Money.parse(priceTexts[i]));
+        }
+    }
+
+    @Benchmark
+    public void parseBigDecimal(Blackhole blackhole) {
+        for (int i = 0; i < lines; i++) {
+            blackhole.consume(new BigDecimal(priceTexts[i]).setScale(Money.SCALE, RoundingMode.HALF_UP));
+        }
+    }
+
+    @Benchmark
+    public void formatMoney(Blackhole blackhole) {
+        for (int i = 0; i < lines; i++) {
+            blackhole.consume(Money.format(priceCents[i]));
+        }
+    }
+
+    @Benchmark
+    public void formatBigDecimal(Blackhole blackhole) {
+        for (int i = 0; i < lines; i++) {
+            blackhole.consume(prices[i].toPlainString());
+        }
+    }
+}
@@ -1,34 +1,70 @@
 package com.example.controller;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.image.Image;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
-import javafx.util.Duration;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import com.example.util.Constants;
+import com.example.util.FxStallDetector;
 import com.example.util.Utility;
 import com.example.util.AppLogger;
+import com.example.util.TaskScheduler;
+import com.example.util.UiUpdateDispatcher;
 import com.example.model.DatabaseConnector;
+import com.example.model.DeletionEngine;
+import com.example.model.LocationInventory;
+import com.example.model.LocationStock;
+import com.example.model.Money;
+import com.example.model.PriceIndex;
+import com.example.model.PriceVersions;
+import com.example.model.ProductImages;
+import com.example.model.ReorderEngine;
+import com.example.model.ReportScheduler;
+import com.example.model.SalesColumnStore;
+import com.example.model.SalesKpis;
+import com.example.model.SalesLogQuery;
+import com.example.model.SnapshotArchive;
+import com.example.model.StockCheck;
+import com.example.model.StockLedger;
+import com.example.model.UserProvisioner;
 
 /**
  * The AdminPanel class handles the functionalities related to the admin interface.
@@ -39,9 +75,58 @@ public class AdminPanel {
     private final String username;
     private ListView<String> productListView;
     private ListView<String> salesLog;
+    private Button loadMoreSalesButton;
+    private SalesLogQuery salesLogQuery = SalesLogQuery.all();
+    private SalesLogQuery.SaleRow salesLogCursor;
     private ListView<String> lowStockList;
+    private ListView<String> reorderList;
     private ListView<String> salesTrendsList;
     private final Set<Integer> notifiedProducts = new HashSet<>();
+    private final UiUpdateDispatcher uiDispatcher = new UiUpdateDispatcher();
+    private UiUpdateDispatcher.ListBinding<Integer, String> lowStockRows;
+    private UiUpdateDispatcher.ListBinding<Integer, String> reorderRows;
+    private final SalesColumnStore salesStore = new SalesColumnStore();
+    private final ReorderEngine reorderEngine = StockCheck.engine();
+    private final ReportScheduler reportScheduler = ReportScheduler.shared();
+    private final DeletionEngine deletionEngine = DeletionEngine.shared();
+    private final DeletionEngine.DeletionListener deletionListener = this::showDeletionProgress;
+    private final Label productDeletionStatus = new Label();
+    private final Label salesDeletionStatus = new Label();
+    private final LocationInventory locationInventory = LocationInventory.shared();
+    private final ObservableList<LocationStock.Location> locationChoices = FXCollections.observableArrayList();
+    private boolean locationStockVisible;
+    private String locationStockTask;
+    private UiUpdateDispatcher.ListBinding<Integer, String> locationStockRows;
+    private CheckBox lowStockOnlyBox;
+    private TaskScheduler.Session session;
+    private UiUpdateDispatcher.ListBinding<String, String> taskRows;
+    private UiUpdateDispatcher.ListBinding<Integer, String> stallRows;
+    private Map<Integer, String> shownStalls = new LinkedHashMap<>();
+    private final Label stallSummaryLabel = new Label();
+    private final Label liveRateLabel = new Label();
+    private final Label liveWindowLabel = new Label();
+    private final Label liveCoverageLabel = new Label();
+    private UiUpdateDispatcher.ListBinding<Integer, String> liveProductRows;
+    private final Map<Integer, String> liveProductNames = new ConcurrentHashMap<>();
+
+    private static final String TASK_STOCK_CHECK = "stock-check";
+    private static final String TASK_VIEW = "task-view";
+    private static final String TASK_STALL_VIEW = "stall-view";
+    private static final String TASK_LIVE_SALES = "live-sales";
+    private static final String TASK_LOCATION_STOCK = "location-stock";
+    private static final String TASK_LOW_LOCATION_STOCK = "low-location-stock";
+
+    private static final String QUERY_TOP_REVENUE = "Top products by revenue";
+    private static final String QUERY_TOP_UNITS = "Top products by units";
+    private static final String QUERY_HOUR_OF_DAY = "Sales by hour of day";
+    private static final String QUERY_MOVING_AVERAGE = "Daily revenue (7-day moving average)";
+    private static final String PERIOD_DAY = "Last 24 hours";
+    private static final String PERIOD_WEEK = "Last 7 days";
+    private static final String PERIOD_MONTH = "Last 30 days";
+    private static final String PERIOD_YEAR = "Last 365 days";
+    private static final String PERIOD_ALL = "All time";
+    private static final String ALL_PRODUCTS = "All products";
+    private static final DateTimeFormatter SALE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     /**
      * Constructor for AdminPanel.
@@ -63,8 +148,7 @@ public class AdminPanel {
         stage.setTitle("Admin Dashboard - Welcome " + username);
 
         // Load the icon
-        Image icon = new Image(getClass().getResourceAsStream(Constants.ICON_PATH));
-        stage.getIcons().add(icon);
+        stage.getIcons().add(Utility.appIcon());
 
         HBox root = new HBox();
         root.setPrefSize(1000, 600);
@@ -75,11 +159,21 @@ public class AdminPanel {
         contentBox.setStyle("-fx-background-color: #ecf0f1;");
         root.getChildren().addAll(tabButtons, contentBox);
 
+        session = TaskScheduler.shared().openSession("admin " + username, stage);
+        stage.setOnHidden(e -> stopServices());
+        loadLocationChoices();
         VBox stockContent = createStockReportPanel();
         VBox productManagementContent = createProductManagementPanel();
         VBox productDeletionContent = createProductDeletionPanel();
         VBox salesLogContent = createSalesLogPanel();
         VBox salesTrendsContent = createSalesTrendPanel();
+        VBox liveSalesContent = createLiveSalesPanel();
+        VBox analyticsContent = createAnalyticsPanel();
+        VBox usersContent = createUserProvisioningPanel();
+        VBox reportsContent = createReportsPanel();
+        VBox stockHistoryContent = createStockHistoryPanel();
+        VBox pricingContent = createPricingPanel();
+        VBox tasksContent = createTasksPanel();
 
         contentBox.getChildren().setAll(stockContent);
 
@@ -88,7 +182,14 @@ public class AdminPanel {
         tabButtons.getChildren().get(2).setOnMouseClicked(e -> contentBox.getChildren().setAll(productDeletionContent));
         tabButtons.getChildren().get(3).setOnMouseClicked(e -> contentBox.getChildren().setAll(salesLogContent));
         tabButtons.getChildren().get(4).setOnMouseClicked(e -> contentBox.getChildren().setAll(salesTrendsContent));
-        tabButtons.getChildren().get(5).setOnMouseClicked(e -> confirmLogout(stage));
+        tabButtons.getChildren().get(5).setOnMouseClicked(e -> contentBox.getChildren().setAll(liveSalesContent));
+        tabButtons.getChildren().get(6).setOnMouseClicked(e -> contentBox.getChildren().setAll(analyticsContent));
+        tabButtons.getChildren().get(7).setOnMouseClicked(e -> contentBox.getChildren().setAll(usersContent));
+        tabButtons.getChildren().get(8).setOnMouseClicked(e -> contentBox.getChildren().setAll(reportsContent));
+        tabButtons.getChildren().get(9).setOnMouseClicked(e -> contentBox.getChildren().setAll(stockHistoryContent));
+        tabButtons.getChildren().get(10).setOnMouseClicked(e -> contentBox.getChildren().setAll(pricingContent));
+        tabButtons.getChildren().get(11).setOnMouseClicked(e -> contentBox.getChildren().setAll(tasksContent));
+        tabButtons.getChildren().get(12).setOnMouseClicked(e -> confirmLogout(stage));
 
         HBox.setHgrow(contentBox, Priority.ALWAYS);
 
@@ -98,9 +199,20 @@ public class AdminPanel {
         stage.setScene(scene);
         stage.show();
 
-        Timeline checkStockTimeline = new Timeline(new KeyFrame(Duration.seconds(5), e -> checkLowStock()));
-        checkStockTimeline.setCycleCount(Timeline.INDEFINITE);
-        checkStockTimeline.play();
+        uiDispatcher.start();
+        reportScheduler.start();
+        deletionEngine.addListener(deletionListener);
+        deletionEngine.start();
+        session.schedulePeriodic(TASK_STOCK_CHECK, Constants.STOCK_CHECK_INTERVAL_MILLIS, StockCheck::run, this::applyStockCheck);
+        session.schedulePeriodic(TASK_VIEW, Constants.TASK_VIEW_REFRESH_MILLIS, TaskScheduler.shared()::activeTasks, this::showTasks);
+        session.schedulePeriodic(TASK_STALL_VIEW, Constants.TASK_VIEW_REFRESH_MILLIS, FxStallDetector.shared()::recentStalls, this::showStalls);
+        session.schedulePeriodic(TASK_LIVE_SALES, Constants.KPI_REFRESH_MILLIS, SalesKpis.shared()::snapshot, this::showLiveSales);
+        stockContent.parentProperty().addListener((obs, oldParent, parent) -> {
+            locationStockVisible = parent != null;
+            updateLocationStockTask();
+        });
+        locationStockVisible = stockContent.getParent() != null;
+        updateLocationStockTask();
     }
 
     /**
@@ -120,6 +232,13 @@ public class AdminPanel {
         Button productDeletionButton = new Button("Delete Products");
         Button salesLogButton = new Button("Sales Log");
         Button salesTrendsButton = new Button("Sales Trends");
+        Button liveSalesButton = new Button("Live Sales");
+        Button analyticsButton = new Button("Analytics");
+        Button usersButton = new Button("Users");
+        Button reportsButton = new Button("Reports");
+        Button stockHistoryButton = new Button("Stock History");
+        Button pricingButton = new Button("Pricing");
+        Button tasksButton = new Button("Tasks");
         Button logoutButton = new Button("Log out");
 
         styleTabButton(stockButton);
@@ -127,9 +246,16 @@ public class AdminPanel {
         styleTabButton(productDeletionButton);
         styleTabButton(salesLogButton);
         styleTabButton(salesTrendsButton);
+        styleTabButton(liveSalesButton);
+        styleTabButton(analyticsButton);
+        styleTabButton(usersButton);
+        styleTabButton(reportsButton);
+        styleTabButton(stockHistoryButton);
+        styleTabButton(pricingButton);
+        styleTabButton(tasksButton);
         styleTabButton(logoutButton);
 
-        tabButtons.getChildren().addAll(stockButton, productManagementButton, productDeletionButton, salesLogButton, salesTrendsButton, logoutButton);
+        tabButtons.getChildren().addAll(stockButton, productManagementButton, productDeletionButton, salesLogButton, salesTrendsButton, liveSalesButton, analyticsButton, usersButton, reportsButton, stockHistoryButton, pricingButton, tasksButton, logoutButton);
         return tabButtons;
     }
 
@@ -173,6 +299,15 @@ public class AdminPanel {
         app.showLoginScreen();
     }
 
+    /**
+     * Stops the background work of this window. Runs when the stage is hidden, whether by
+     * logging out or by closing the window; the scheduler session closes at the same time.
+     */
+    private void stopServices() {
+        uiDispatcher.stop();
+        deletionEngine.removeListener(deletionListener);
+    }
+
     /**
      * Creates the stock report panel.
      *
@@ -182,7 +317,46 @@ public class AdminPanel {
         VBox vBox = new VBox(10);
         Label header = new Label("Detailed Stock Report");
         lowStockList = new ListView<>();
-        vBox.getChildren().addAll(header, lowStockList);
+        lowStockRows = uiDispatcher.bind(lowStockList.getItems());
+
+        Label reorderHeader = new Label("Reorder List (fewest days of cover first)");
+        reorderList = new ListView<>();
+        reorderRows = uiDispatcher.bind(reorderList.getItems());
+        TextField leadTimeField = new TextField(String.valueOf(reorderEngine.getLeadTimeDays()));
+        leadTimeField.setPromptText("Lead Time (days)");
+        Button applyLeadTimeButton = new Button("Apply Lead Time");
+
+        applyLeadTimeButton.setOnAction(e -> {
+            try {
+                double leadTime = Double.parseDouble(leadTimeField.getText());
+                if (leadTime < 0) {
+                    Utility.showAlert(Alert.AlertType.ERROR, "Input Error", "Lead time cannot be negative.");
+                    return;
+                }
+                reorderEngine.setLeadTimeDays(leadTime);
+                session.runNow(TASK_STOCK_CHECK);
+                AppLogger.logInfo("Apply Lead Time button clicked with lead time: " + leadTime);
+            } catch (NumberFormatException nfe) {
+                Utility.showAlert(Alert.AlertType.ERROR, "Input Error", "Lead time must be a valid number.");
+            }
+        });
+
+        HBox leadTimeBox = new HBox(10, new Label("Lead Time (days):"), leadTimeField, applyLeadTimeButton);
+
+        Label locationHeader = new Label("Stock by Location");
+        ListView<String> locationStockList = new ListView<>();
+        locationStockRows = uiDispatcher.bind(locationStockList.getItems());
+        lowStockOnlyBox = new CheckBox("Only products low at a location");
+        lowStockOnlyBox.setOnAction(e -> updateLocationStockTask());
+        Button refreshLocationsButton = new Button("Refresh");
+        refreshLocationsButton.setOnAction(e -> {
+            if (locationStockTask != null) {
+                session.runNow(locationStockTask);
+            }
+        });
+        HBox locationBox = new HBox(10, locationHeader, lowStockOnlyBox, refreshLocationsButton);
+
+        vBox.getChildren().addAll(header, lowStockList, reorderHeader, leadTimeBox, reorderList, locationBox, locationStockList);
         return vBox;
     }
 
@@ -199,6 +373,9 @@ public class AdminPanel {
         priceField.setPromptText("Product Price");
         TextField quantityField = new TextField();
         quantityField.setPromptText("Initial Quantity");
+        TextField skuField = new TextField();
+        skuField.setPromptText("SKU / Barcode (optional)");
+        ComboBox<LocationStock.Location> addLocationBox = createLocationBox();
         Button addButton = new Button("Add Product");
 
         addButton.setOnAction(e -> {
@@ -206,11 +383,20 @@ public class AdminPanel {
                 Utility.showAlert(Alert.AlertType.ERROR, "Input Error", "Please fill in all fields to add a product.");
             } else {
                 try {
-                    double price = Double.parseDouble(priceField.getText());
+                    long priceCents = Money.parse(priceField.getText());
                     int quantity = Integer.parseInt(quantityField.getText());
-                    addProduct(nameField.getText(), price, quantity);
-                    Utility.showAlert(Alert.AlertType.INFORMATION, "Added", "You successfully added " + nameField.getText() + " to products.");
-                    AppLogger.logInfo("Add Product button clicked with product: " + nameField.getText());
+                    if (priceCents < 0 || quantity < 0) {
+                        Utility.showAlert(Alert.AlertType.ERROR, "Input Error", "Price and quantity cannot be negative.");
+                        return;
+                    }
+                    if (addLocationBox.getValue() == null) {
+                        Utility.showAlert(Alert.AlertType.ERROR, "Input Error", "Please select the location receiving the stock.");
+                        return;
+                    }
+                    if (addProduct(nameField.getText(), skuField.getText().trim(), priceCents, quantity, addLocationBox.getValue().getLocationId())) {
+                        Utility.showAlert(Alert.AlertType.INFORMATION, "Added", "You successfully added " + nameField.getText() + " to products.");
+                        AppLogger.logInfo("Add Product button clicked with product: " + nameField.getText());
+                    }
                 } catch (NumberFormatException nfe) {
                     Utility.showAlert(Alert.AlertType.ERROR, "Input Error", "Price and quantity must be valid numbers.");
                 }
@@ -221,18 +407,20 @@ public class AdminPanel {
         productIdField.setPromptText("Product ID");
         TextField increaseAmountField = new TextField();
         increaseAmountField.setPromptText("Amount to Increase");
+        ComboBox<LocationStock.Location> increaseLocationBox = createLocationBox();
         Button increaseStockButton = new Button("Increase Stock");
 
         increaseStockButton.setOnAction(e -> {
-            if (productIdField.getText().isEmpty() || increaseAmountField.getText().isEmpty()) {
+            if (productIdField.getText().isEmpty() || increaseAmountField.getText().isEmpty() || increaseLocationBox.getValue() == null) {
                 Utility.showAlert(Alert.AlertType.ERROR, "Input Error", "Please fill in all fields to increase stock.");
             } else {
                 try {
                     int productId = Integer.parseInt(productIdField.getText());
                     int amount = Integer.parseInt(increaseAmountField.getText());
-                    boolean success = increaseStock(productId, amount);
+                    LocationStock.Location location = increaseLocationBox.getValue();
+                    boolean success = increaseStock(productId, location.getLocationId(), amount);
                     if (success) {
-                        Utility.showAlert(Alert.AlertType.INFORMATION, "Succeed", "You successfully added " + amount + " stock to Product ID: " + productId);
+                        Utility.showAlert(Alert.AlertType.INFORMATION, "Succeed", "You successfully added " + amount + " stock to Product ID: " + productId + " at " + location.getName());
                         AppLogger.logInfo("Increase Stock button clicked with Product ID: " + productId);
                     } else {
                         Utility.showAlert(Alert.AlertType.ERROR, "Error", "This ID does not exist.");
@@ -243,11 +431,97 @@ public class AdminPanel {
             }
         });
 
+        TextField skuProductIdField = new TextField();
+        skuProductIdField.setPromptText("Product ID");
+        TextField newSkuField = new TextField();
+        newSkuField.setPromptText("SKU / Barcode (empty to clear)");
+        Button assignSkuButton = new Button("Assign SKU");
+
+        assignSkuButton.setOnAction(e -> {
+            if (skuProductIdField.getText().isEmpty()) {
+                Utility.showAlert(Alert.AlertType.ERROR, "Input Error", "Please enter the ID of the product.");
+                return;
+            }
+            try {
+                int productId = Integer.parseInt(skuProductIdField.getText());
+                if (assignSku(productId, newSkuField.getText().trim())) {
+                    Utility.showAlert(Alert.AlertType.INFORMATION, "Succeed", "You successfully updated the SKU of Product ID: " + productId);
+                    AppLogger.logInfo("Assign SKU button clicked with Product ID: " + productId);
+                }
+            } catch (NumberFormatException nfe) {
+                Utility.showAlert(Alert.AlertType.ERROR, "Input Error", "ID must be a valid number.");
+            }
+        });
+
+        TextField imageProductIdField = new TextField();
+        imageProductIdField.setPromptText("Product ID");
+        Button chooseImageButton = new Button("Choose Image...");
+        Button removeImageButton = new Button("Remove Image");
+
+        chooseImageButton.setOnAction(e -> {
+            Integer productId = parseProductId(imageProductIdField.getText());
+            if (productId == null) {
+                return;
+            }
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Choose Product Image");
+            fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Images", "*.png", "*.jpg", "*.jpeg", "*.gif", "*.bmp"));
+            File file = fileChooser.showOpenDialog(null);
+            if (file != null && setProductImage(productId, file.toPath())) {
+                Utility.showAlert(Alert.AlertType.INFORMATION, "Succeed", "You successfully set the image of Product ID: " + productId);
+                AppLogger.logInfo("Choose Image button clicked with Product ID: " + productId + " and file: " + file.getAbsolutePath());
+            }
+        });
+
+        removeImageButton.setOnAction(e -> {
+            Integer productId = parseProductId(imageProductIdField.getText());
+            if (productId == null) {
+                return;
+            }
+            try {
+                if (ProductImages.remove(productId)) {
+                    productListView.refresh();
+                    Utility.showAlert(Alert.AlertType.INFORMATION, "Succeed", "You successfully removed the image of Product ID: " + productId);
+                    AppLogger.logInfo("Remove Image button clicked with Product ID: " + productId);
+                } else {
+                    Utility.showAlert(Alert.AlertType.ERROR, "Error", "This product has no image.");
+                }
+            } catch (IOException ex) {
+                AppLogger.logError("Error removing the image of product " + productId, ex);
+                Utility.showAlert(Alert.AlertType.ERROR, "Error", "The image could not be removed: " + ex.getMessage());
+            }
+        });
+
+        TextField locationNameField = new TextField();
+        locationNameField.setPromptText("Location Name");
+        ComboBox<String> locationKindBox = new ComboBox<>(FXCollections.observableArrayList("store", "warehouse"));
+        locationKindBox.setValue("store");
+        Button addLocationButton = new Button("Add Location");
+
+        addLocationButton.setOnAction(e -> {
+            String name = locationNameField.getText().trim();
+            if (name.isEmpty()) {
+                Utility.showAlert(Alert.AlertType.ERROR, "Input Error", "Please enter the name of the location.");
+                return;
+            }
+            if (addLocation(name, locationKindBox.getValue())) {
+                Utility.showAlert(Alert.AlertType.INFORMATION, "Added", "You successfully added the location " + name + ".");
+                AppLogger.logInfo("Add Location button clicked with location: " + name);
+                locationNameField.clear();
+            }
+        });
+
         vBox.getChildren().addAll(
             new Label("Add New Product:"),
-            nameField, priceField, quantityField, addButton,
+            nameField, priceField, quantityField, skuField, addLocationBox, addButton,
             new Label("Increase Stock for an Existing Product:"),
-            productIdField, increaseAmountField, increaseStockButton
+            productIdField, increaseAmountField, increaseLocationBox, increaseStockButton,
+            new Label("Assign a SKU to an Existing Product:"),
+            skuProductIdField, newSkuField, assignSkuButton,
+            new Label("Set the Image of an Existing Product:"),
+            new HBox(10, imageProductIdField, chooseImageButton, removeImageButton),
+            new Label("Add a Store or Warehouse:"),
+            new HBox(10, locationNameField, locationKindBox, addLocationButton)
         );
         return vBox;
     }
@@ -261,6 +535,7 @@ public class AdminPanel {
         VBox vBox = new VBox(10);
         Label header = new Label("Delete Products");
         productListView = new ListView<>();
+        productListView.setCellFactory(ProductImageCell.factory(item -> Integer.parseInt(item.substring(0, item.indexOf(':')))));
         loadProducts();
         Button deleteProductButton = new Button("Delete Selected Product");
 
@@ -274,7 +549,7 @@ public class AdminPanel {
                 AppLogger.logInfo("Delete Product button clicked");
             }
         });
-        vBox.getChildren().addAll(header, productListView, deleteProductButton);
+        vBox.getChildren().addAll(header, productListView, deleteProductButton, productDeletionStatus);
         return vBox;
     }
 
@@ -287,7 +562,69 @@ public class AdminPanel {
         VBox vBox = new VBox(10);
         Label header = new Label("Recent Purchases");
         salesLog = new ListView<>();
-        Button deleteButton = new Button("Delete Selected Log");
+        salesLog.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+
+        DatePicker fromPicker = new DatePicker();
+        fromPicker.setPromptText("From date");
+        DatePicker toPicker = new DatePicker();
+        toPicker.setPromptText("To date");
+        ComboBox<String> productFilter = new ComboBox<>();
+        productFilter.getStyleClass().add("comboBox");
+        productFilter.getItems().add(ALL_PRODUCTS);
+        productFilter.getSelectionModel().selectFirst();
+        productFilter.setOnShowing(e -> loadProductNames(productFilter));
+        TextField minQuantityField = new TextField();
+        minQuantityField.setPromptText("Min quantity");
+        minQuantityField.setPrefWidth(100);
+
+        Button filterButton = new Button("Apply Filters");
+        filterButton.setOnAction(e -> {
+            int minQuantity = 0;
+            if (!minQuantityField.getText().trim().isEmpty()) {
+                try {
+                    minQuantity = Integer.parseInt(minQuantityField.getText().trim());
+                } catch (NumberFormatException nfe) {
+                    Utility.showAlert(Alert.AlertType.ERROR, "Input Error", "Min quantity must be a valid number.");
+                    return;
+                }
+            }
+            LocalDate fromDate = fromPicker.getValue();
+            LocalDate toDate = toPicker.getValue();
+            if (fromDate != null && toDate != null && toDate.isBefore(fromDate)) {
+                Utility.showAlert(Alert.AlertType.ERROR, "Input Error", "The to date must not be before the from date.");
+                return;
+            }
+            int productId = 0;
+            String product = productFilter.getValue();
+            if (product != null && !ALL_PRODUCTS.equals(product)) {
+                productId = getProductIdByName(product);
+                if (productId == -1) {
+                    Utility.showAlert(Alert.AlertType.ERROR, "Error", "Product not found.");
+                    return;
+                }
+            }
+            salesLogQuery = new SalesLogQuery(fromDate == null ? null : fromDate.atStartOfDay(),
+                    toDate == null ? null : toDate.plusDays(1).atStartOfDay(), productId, minQuantity);
+            loadSales(salesLog);
+            AppLogger.logInfo("Apply sales log filters button clicked");
+        });
+
+        Button resetFilterButton = new Button("Reset");
+        resetFilterButton.setOnAction(e -> {
+            fromPicker.setValue(null);
+            toPicker.setValue(null);
+            productFilter.getSelectionModel().selectFirst();
+            minQuantityField.clear();
+            salesLogQuery = SalesLogQuery.all();
+            loadSales(salesLog);
+        });
+
+        HBox filterBox = new HBox(10, fromPicker, toPicker, productFilter, minQuantityField, filterButton, resetFilterButton);
+
+        loadMoreSalesButton = new Button("Load More");
+        loadMoreSalesButton.setOnAction(e -> loadMoreSales(salesLog));
+
+        Button deleteButton = new Button("Delete Selected Logs");
 
         deleteButton.setOnAction(e -> {
             if (salesLog.getItems().isEmpty()) {
@@ -295,7 +632,7 @@ public class AdminPanel {
             } else if (salesLog.getSelectionModel().getSelectedItem() == null) {
                 Utility.showAlert(Alert.AlertType.ERROR, "Error", "Please select a log to delete.");
             } else {
-                deleteSelectedLog();
+                deleteSelectedLogs();
                 AppLogger.logInfo("Delete sales button clicked");
             }
         });
@@ -324,12 +661,13 @@ public class AdminPanel {
         exportButton.setOnAction(e -> exportSalesLogsToCSV());
 
         HBox buttonBox = new HBox(10);
-        buttonBox.getChildren().addAll(deleteButton, clearAllButton, exportButton);
+        buttonBox.getChildren().addAll(loadMoreSalesButton, deleteButton, clearAllButton, exportButton);
         buttonBox.setPadding(new Insets(10, 0, 10, 0));
         buttonBox.setSpacing(10);
 
         loadSales(salesLog);
-        vBox.getChildren().addAll(header, salesLog, buttonBox);
+        VBox.setVgrow(salesLog, Priority.ALWAYS);
+        vBox.getChildren().addAll(header, filterBox, salesLog, buttonBox, salesDeletionStatus);
         return vBox;
     }
 
@@ -341,9 +679,13 @@ public class AdminPanel {
     private VBox createSalesTrendPanel() {
         VBox vBox = new VBox(10);
         Label header = new Label("Sales Trends Over Time");
+        VBox chartBox = new SalesTrendChart(salesStore).createPanel();
+        VBox.setVgrow(chartBox, Priority.ALWAYS);
+        Label totalsHeader = new Label("All-time Totals");
         salesTrendsList = new ListView<>();
+        salesTrendsList.setPrefHeight(150);
         loadSalesTrends(salesTrendsList);
-        vBox.getChildren().addAll(header, salesTrendsList);
+        vBox.getChildren().addAll(header, chartBox, totalsHeader, salesTrendsList);
         return vBox;
     }
 
@@ -354,13 +696,14 @@ public class AdminPanel {
      */
     private void loadSalesTrends(ListView<String> salesTrendsList) {
         ObservableList<String> salesData = FXCollections.observableArrayList();
-        String query = "SELECT p.name, SUM(s.quantity_sold) AS total_sold FROM Sales s JOIN Products p ON s.product_id = p.product_id GROUP BY p.name ORDER BY total_sold DESC";
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            ResultSet rs = stmt.executeQuery();
+        String query = "SELECT p.name, SUM(s.quantity_sold) AS total_sold, SUM(s.total_price) AS total_revenue FROM Sales s JOIN Products p ON s.product_id = p.product_id WHERE "
+                + DeletionEngine.visibleSales("s") + " GROUP BY p.name ORDER BY total_sold DESC";
+        try (Connection conn = DatabaseConnector.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
-                String trendInfo = String.format("Product: %s, Total Sold: %d",
-                        rs.getString("name"), rs.getInt("total_sold"));
+                String trendInfo = String.format("Product: %s, Total Sold: %d, Revenue: $%s",
+                        rs.getString("name"), rs.getInt("total_sold"), Money.format(Money.read(rs, "total_revenue")));
                 salesData.add(trendInfo);
             }
             salesTrendsList.setItems(salesData);
@@ -369,6 +712,787 @@ public class AdminPanel {
         }
     }
 
+    /**
+     * Creates the live sales panel, the rates and top products of the last minutes of every
+     * terminal from {@link SalesKpis}, refreshed every {@link Constants#KPI_REFRESH_MILLIS}.
+     *
+     * @return the VBox containing the live sales panel
+     */
+    private VBox createLiveSalesPanel() {
+        VBox vBox = new VBox(10);
+        Label header = new Label("Live Sales");
+        Label topHeader = new Label("Top Products (last " + Constants.KPI_WINDOW_MINUTES + " minutes)");
+        ListView<String> topProductList = new ListView<>();
+        liveProductRows = uiDispatcher.bind(topProductList.getItems());
+        VBox.setVgrow(topProductList, Priority.ALWAYS);
+        vBox.getChildren().addAll(header, liveRateLabel, liveWindowLabel, liveCoverageLabel, topHeader, topProductList);
+        return vBox;
+    }
+
+    /**
+     * Shows the live sales figures in the live sales panel. Product names are looked up in
+     * {@code Products} the first time a product reaches the top list. Runs on a scheduler
+     * thread.
+     *
+     * @param kpis the current figures
+     */
+    private void showLiveSales(SalesKpis.Snapshot kpis) {
+        List<Integer> unnamed = new ArrayList<>();
+        for (SalesKpis.TopProduct product : kpis.getTopProducts()) {
+            if (!liveProductNames.containsKey(product.getProductId())) {
+                unnamed.add(product.getProductId());
+            }
+        }
+        if (!unnamed.isEmpty()) {
+            loadLiveProductNames(unnamed);
+        }
+        Map<Integer, String> rows = new LinkedHashMap<>();
+        int rank = 1;
+        for (SalesKpis.TopProduct product : kpis.getTopProducts()) {
+            rows.put(product.getProductId(), String.format("%d. %s - %d units, $%s", rank++,
+                    liveProductNames.getOrDefault(product.getProductId(), "Product " + product.getProductId()),
+                    product.getUnits(), Money.format(product.getRevenueCents())));
+        }
+        if (kpis.getUntrackedRevenueCents() > 0) {
+            rows.put(0, "Other products - $" + Money.format(kpis.getUntrackedRevenueCents()));
+        }
+        liveProductRows.replaceAll(rows);
+
+        String rates = String.format("Last minute: $%s revenue, %d units, %d orders",
+                Money.format(kpis.getRevenuePerMinuteCents()), kpis.getUnitsPerMinute(), kpis.getOrdersPerMinute());
+        String window = String.format("Last %d minutes: $%s revenue, %d units, %d orders", Constants.KPI_WINDOW_MINUTES,
+                Money.format(kpis.getWindowRevenueCents()), kpis.getWindowUnits(), kpis.getWindowOrders());
+        String coverage = "Sales of this terminal as they happen and of the others by the minute, updated "
+                + kpis.getTakenAt().format(SALE_DATE_FORMAT);
+        uiDispatcher.update(TASK_LIVE_SALES, () -> {
+            liveRateLabel.setText(rates);
+            liveWindowLabel.setText(window);
+            liveCoverageLabel.setText(coverage);
+        });
+    }
+
+    /**
+     * Loads the names of products for the live sales panel, including deleted products.
+     *
+     * @param productIds the IDs of the products
+     */
+    private void loadLiveProductNames(List<Integer> productIds) {
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < productIds.size(); i++) {
+            placeholders.append(i == 0 ? "?" : ", ?");
+        }
+        String query = "SELECT product_id, name FROM Products WHERE product_id IN (" + placeholders + ")";
+        try (Connection conn = DatabaseConnector.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            for (int i = 0; i < productIds.size(); i++) {
+                stmt.setInt(i + 1, productIds.get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    liveProductNames.put(rs.getInt("product_id"), rs.getString("name"));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Creates the analytics panel.
+     *
+     * @return the VBox containing the analytics panel
+     */
+    private VBox createAnalyticsPanel() {
+        VBox vBox = new VBox(10);
+        Label header = new Label("Sales Analytics");
+
+        ComboBox<String> queryBox = new ComboBox<>();
+        queryBox.getStyleClass().add("comboBox");
+        queryBox.getItems().addAll(QUERY_TOP_REVENUE, QUERY_TOP_UNITS, QUERY_HOUR_OF_DAY, QUERY_MOVING_AVERAGE);
+        queryBox.getSelectionModel().selectFirst();
+
+        ComboBox<String> periodBox = new ComboBox<>();
+        periodBox.getStyleClass().add("comboBox");
+        periodBox.getItems().addAll(PERIOD_DAY, PERIOD_WEEK, PERIOD_MONTH, PERIOD_YEAR, PERIOD_ALL);
+        periodBox.getSelectionModel().select(PERIOD_WEEK);
+
+        TextField limitField = new TextField("10");
+        limitField.setPromptText("Top N");
+        limitField.setPrefWidth(70);
+
+        Label statusLabel = new Label("Sales are loaded into memory on the first query.");
+        ListView<String> resultsList = new ListView<>();
+        Button runButton = new Button("Run Query");
+
+        runButton.setOnAction(e -> {
+            int limit;
+            try {
+                limit = Integer.parseInt(limitField.getText());
+            } catch (NumberFormatException nfe) {
+                Utility.showAlert(Alert.AlertType.ERROR, "Input Error", "Top N must be a valid number.");
+                return;
+            }
+            if (limit <= 0) {
+                Utility.showAlert(Alert.AlertType.ERROR, "Input Error", "Top N must be greater than zero.");
+                return;
+            }
+            runButton.setDisable(true);
+            statusLabel.setText("Running query...");
+            runAnalyticsQuery(queryBox.getValue(), periodBox.getValue(), limit, resultsList, statusLabel, runButton);
+            AppLogger.logInfo("Run analytics query button clicked with query: " + queryBox.getValue());
+        });
+
+        HBox controls = new HBox(10, queryBox, periodBox, limitField, runButton);
+        VBox.setVgrow(resultsList, Priority.ALWAYS);
+        vBox.getChildren().addAll(header, controls, statusLabel, resultsList);
+        return vBox;
+    }
+
+    /**
+     * Refreshes the in-memory sales columns and evaluates an analytics query on a background thread.
+     *
+     * @param query       the query to evaluate
+     * @param period      the period the query covers
+     * @param limit       the number of rows for top-N queries
+     * @param resultsList the ListView to populate
+     * @param statusLabel the label showing timing information
+     * @param runButton   the button to re-enable once the query finishes
+     */
+    private void runAnalyticsQuery(String query, String period, int limit, ListView<String> resultsList, Label statusLabel, Button runButton) {
+        Thread worker = new Thread(() -> {
+            try {
+                long refreshStart = System.nanoTime();
+                int appended = salesStore.refresh();
+                long queryStart = System.nanoTime();
+                List<String> rows = evaluateAnalyticsQuery(query, period, limit);
+                long queryEnd = System.nanoTime();
+                String status = String.format("%,d sales in memory (%,d new, refreshed in %d ms), query took %d ms",
+                        salesStore.size(), appended, (queryStart - refreshStart) / 1_000_000, (queryEnd - queryStart) / 1_000_000);
+                Platform.runLater(() -> {
+                    resultsList.getItems().setAll(rows);
+                    statusLabel.setText(status);
+                    runButton.setDisable(false);
+                });
+            } catch (SQLException | RuntimeException ex) {
+                AppLogger.logError("Error running analytics query", ex);
+                Platform.runLater(() -> {
+                    statusLabel.setText("Query failed.");
+                    runButton.setDisable(false);
+                    Utility.showAlert(Alert.AlertType.ERROR, "Analytics Error", ex.getMessage());
+                });
+            }
+        }, "analytics-query");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Evaluates an analytics query against the in-memory sales columns.
+     *
+     * @param query  the query to evaluate
+     * @param period the period the query covers
+     * @param limit  the number of rows for top-N queries
+     * @return the formatted result rows
+     */
+    private List<String> evaluateAnalyticsQuery(String query, String period, int limit) {
+        Instant now = Instant.now();
+        long to = now.getEpochSecond() + 1;
+        long from;
+        switch (period) {
+            case PERIOD_DAY:
+                from = to - 86_400L;
+                break;
+            case PERIOD_WEEK:
+                from = to - 7 * 86_400L;
+                break;
+            case PERIOD_MONTH:
+                from = to - 30 * 86_400L;
+                break;
+            case PERIOD_YEAR:
+                from = to - 365 * 86_400L;
+                break;
+            default:
+                from = Math.min(salesStore.oldestSaleTime(), to - 1);
+                break;
+        }
+        int offsetSeconds = ZoneId.systemDefault().getRules().getOffset(now).getTotalSeconds();
+        SalesColumnStore.SalesFilter filter = new SalesColumnStore.SalesFilter(from, to, 0, 0);
+        List<String> rows = new ArrayList<>();
+
+        switch (query) {
+            case QUERY_TOP_REVENUE:
+            case QUERY_TOP_UNITS:
+                int rank = 1;
+                for (SalesColumnStore.ProductTotal total : salesStore.topProducts(filter, limit, QUERY_TOP_UNITS.equals(query))) {
+                    rows.add(String.format("%d. %s - Units: %d - Revenue: $%s",
+                            rank++, salesStore.productName(total.getProductId()), total.getUnits(), Money.format(total.getRevenueCents())));
+                }
+                break;
+            case QUERY_HOUR_OF_DAY:
+                long[][] hours = salesStore.hourOfDayProfile(filter, offsetSeconds);
+                for (int hour = 0; hour < 24; hour++) {
+                    rows.add(String.format("%02d:00 - Units: %d - Revenue: $%s", hour, hours[0][hour], Money.format(hours[1][hour])));
+                }
+                break;
+            default:
+                long[][] days = salesStore.dailyTotals(filter, offsetSeconds);
+                LocalDate firstDay = LocalDate.ofEpochDay(Math.floorDiv(from + offsetSeconds, 86_400L));
+                long windowSum = 0;
+                for (int day = 0; day < days[1].length; day++) {
+                    windowSum += days[1][day];
+                    if (day >= 7) {
+                        windowSum -= days[1][day - 7];
+                    }
+                    long average = Money.divide(windowSum, Math.min(day + 1, 7));
+                    rows.add(String.format("%s - Revenue: $%s - 7-day average: $%s",
+                            firstDay.plusDays(day), Money.format(days[1][day]), Money.format(average)));
+                }
+                break;
+        }
+        if (rows.isEmpty()) {
+            rows.add("No sales in the selected period.");
+        }
+        return rows;
+    }
+
+    /**
+     * Creates the user provisioning panel.
+     *
+     * @return the VBox containing the user provisioning panel
+     */
+    private VBox createUserProvisioningPanel() {
+        VBox vBox = new VBox(10);
+        Label header = new Label("Bulk User Import");
+        Label formatLabel = new Label("CSV lines of username,role,password where role is user or admin.");
+        Label statusLabel = new Label();
+        ListView<String> problemsList = new ListView<>();
+        Button importButton = new Button("Import Users from CSV");
+
+        importButton.setOnAction(e -> {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Import Users");
+            fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
+            File file = fileChooser.showOpenDialog(null);
+            if (file != null) {
+                importButton.setDisable(true);
+                statusLabel.setText("Importing users from " + file.getName() + "...");
+                problemsList.getItems().clear();
+                importUsers(file, statusLabel, problemsList, importButton);
+                AppLogger.logInfo("Import users button clicked with file: " + file.getAbsolutePath());
+            }
+        });
+
+        VBox.setVgrow(problemsList, Priority.ALWAYS);
+        vBox.getChildren().addAll(header, formatLabel, importButton, statusLabel, problemsList);
+        return vBox;
+    }
+
+    /**
+     * Provisions the users of a CSV file on a background thread.
+     *
+     * @param file         the CSV file
+     * @param statusLabel  the label showing the outcome
+     * @param problemsList the ListView listing skipped rows
+     * @param importButton the button to re-enable once the import finishes
+     */
+    private void importUsers(File file, Label statusLabel, ListView<String> problemsList, Button importButton) {
+        Thread worker = new Thread(() -> {
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                UserProvisioner.ProvisioningReport report = new UserProvisioner().provision(reader);
+                String status = String.format("Created %,d users, skipped %,d duplicates in %,d ms",
+                        report.getCreated(), report.getDuplicates(), report.getElapsedMillis());
+                AppLogger.logInfo(status);
+                Platform.runLater(() -> {
+                    statusLabel.setText(status);
+                    problemsList.getItems().setAll(report.getProblems());
+                    importButton.setDisable(false);
+                });
+            } catch (IOException | SQLException ex) {
+                AppLogger.logError("Error importing users", ex);
+                Platform.runLater(() -> {
+                    statusLabel.setText("Import failed.");
+                    importButton.setDisable(false);
+                    Utility.showAlert(Alert.AlertType.ERROR, "Import Error", ex.getMessage());
+                });
+            }
+        }, "user-import");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Creates the reports panel showing the scheduled report run history.
+     *
+     * @return the VBox containing the reports panel
+     */
+    private VBox createReportsPanel() {
+        VBox vBox = new VBox(10);
+        Label header = new Label("Scheduled Reports");
+        Label scheduleLabel = new Label(String.format(
+                "Stock valuation, top sellers, low stock and sales by day are written to %s daily at %02d:00 and weekly on %s.",
+                Constants.REPORT_DIR, Constants.REPORT_RUN_HOUR, Constants.REPORT_WEEKLY_DAY.charAt(0)
+                        + Constants.REPORT_WEEKLY_DAY.substring(1).toLowerCase()));
+        scheduleLabel.setWrapText(true);
+        ListView<String> runList = new ListView<>();
+
+        Button refreshButton = new Button("Refresh");
+        refreshButton.setOnAction(e -> loadReportRuns(runList));
+
+        Button runNowButton = new Button("Run Now");
+        runNowButton.setOnAction(e -> {
+            Alert confirmAlert = new Alert(Alert.AlertType.CONFIRMATION);
+            confirmAlert.setTitle("Confirm report run");
+            confirmAlert.setHeaderText(null);
+            confirmAlert.setContentText("Running reports during business hours slows down checkout. Run them now anyway?");
+            Optional<ButtonType> response = confirmAlert.showAndWait();
+            if (response.isPresent() && response.get() == ButtonType.OK) {
+                reportScheduler.runNow();
+                AppLogger.logInfo("Run reports now button clicked");
+            }
+        });
+
+        HBox buttonBox = new HBox(10, refreshButton, runNowButton);
+        loadReportRuns(runList);
+        VBox.setVgrow(runList, Priority.ALWAYS);
+
+        Label snapshotHeader = new Label("Snapshots");
+        Label snapshotLabel = new Label("Binary snapshots of users, products, stock, prices and sales are written to "
+                + Constants.SNAPSHOT_DIR + ". Restoring one replaces those tables with its contents.");
+        snapshotLabel.setWrapText(true);
+        Label snapshotStatusLabel = new Label();
+        ListView<String> snapshotList = new ListView<>();
+        snapshotList.setPrefHeight(150);
+        Button backupButton = new Button("Back Up Now");
+        Button restoreButton = new Button("Restore Selected");
+
+        backupButton.setOnAction(e -> {
+            backupButton.setDisable(true);
+            restoreButton.setDisable(true);
+            snapshotStatusLabel.setText("Writing snapshot...");
+            runSnapshot(() -> SnapshotArchive.backup(Paths.get(Constants.SNAPSHOT_DIR)), false,
+                    snapshotStatusLabel, snapshotList, backupButton, restoreButton);
+            AppLogger.logInfo("Back up now button clicked");
+        });
+
+        restoreButton.setOnAction(e -> {
+            String selected = snapshotList.getSelectionModel().getSelectedItem();
+            if (selected == null) {
+                Utility.showAlert(Alert.AlertType.ERROR, "Selection Error", "Please select a snapshot to restore.");
+                return;
+            }
+            Alert confirmAlert = new Alert(Alert.AlertType.CONFIRMATION);
+            confirmAlert.setTitle("Confirm restore");
+            confirmAlert.setHeaderText(null);
+            confirmAlert.setContentText("Restoring " + selected + " replaces all users, products, stock, prices and sales "
+                    + "with the snapshot. Checkout must be stopped on every terminal. Restore it now?");
+            Optional<ButtonType> response = confirmAlert.showAndWait();
+            if (response.isPresent() && response.get() == ButtonType.OK) {
+                backupButton.setDisable(true);
+                restoreButton.setDisable(true);
+                snapshotStatusLabel.setText("Restoring " + selected + "...");
+                runSnapshot(() -> SnapshotArchive.restore(Paths.get(Constants.SNAPSHOT_DIR, selected)), true,
+                        snapshotStatusLabel, snapshotList, backupButton, restoreButton);
+                AppLogger.logInfo("Restore snapshot button clicked for " + selected);
+            }
+        });
+
+        HBox snapshotButtonBox = new HBox(10, backupButton, restoreButton);
+        loadSnapshots(snapshotList);
+        vBox.getChildren().addAll(header, scheduleLabel, buttonBox, runList,
+                snapshotHeader, snapshotLabel, snapshotButtonBox, snapshotStatusLabel, snapshotList);
+        return vBox;
+    }
+
+    /**
+     * Writes or restores a snapshot on a background thread.
+     *
+     * @param action       writes or restores the snapshot
+     * @param restore      whether the action restores a snapshot
+     * @param statusLabel  the label showing the outcome
+     * @param snapshotList the ListView of snapshots to reload afterwards
+     * @param buttons      the buttons to re-enable once the action finishes
+     */
+    private void runSnapshot(Callable<SnapshotArchive.Summary> action, boolean restore, Label statusLabel,
+                             ListView<String> snapshotList, Button... buttons) {
+        Thread worker = new Thread(() -> {
+            try {
+                SnapshotArchive.Summary summary = action.call();
+                String status = String.format("%s %s: %,d rows, %,d KB in %,d ms", restore ? "Restored" : "Wrote", summary.getDirectory().getFileName(),
+                        summary.getRows(), summary.getBytes() / 1024, summary.getElapsedMillis());
+                Platform.runLater(() -> {
+                    statusLabel.setText(status);
+                    loadSnapshots(snapshotList);
+                    for (Button button : buttons) {
+                        button.setDisable(false);
+                    }
+                    if (restore) {
+                        deletionEngine.resume();
+                        Utility.showAlert(Alert.AlertType.INFORMATION, "Restore Complete",
+                                status + ". Restart the application on every terminal so cached stock and prices are reloaded.");
+                    }
+                });
+            } catch (Exception ex) {
+                AppLogger.logError("Snapshot failed", ex);
+                Platform.runLater(() -> {
+                    statusLabel.setText("Snapshot failed.");
+                    for (Button button : buttons) {
+                        button.setDisable(false);
+                    }
+                    Utility.showAlert(Alert.AlertType.ERROR, "Snapshot Error", ex.getMessage());
+                });
+            }
+        }, "snapshot");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Lists the complete snapshots in the snapshot directory.
+     *
+     * @param snapshotList the ListView to populate
+     */
+    private void loadSnapshots(ListView<String> snapshotList) {
+        List<String> names = new ArrayList<>();
+        try {
+            for (Path snapshot : SnapshotArchive.list(Paths.get(Constants.SNAPSHOT_DIR))) {
+                names.add(snapshot.getFileName().toString());
+            }
+            snapshotList.getItems().setAll(names);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Loads the report run history and populates the run list view.
+     *
+     * @param runList the ListView to populate
+     */
+    private void loadReportRuns(ListView<String> runList) {
+        List<String> runs = new ArrayList<>();
+        try {
+            for (ReportScheduler.ReportRun run : reportScheduler.recentRuns(Constants.REPORT_HISTORY_SIZE)) {
+                String info = String.format("%s - %s %s: %s, %d rows, %s",
+                        run.getStartedAt().format(SALE_DATE_FORMAT), run.getPeriod(), run.getReport(), run.getStatus(),
+                        run.getRowCount(), run.getMessage() == null ? run.getFilePath() : run.getMessage());
+                runs.add(info);
+            }
+            runList.getItems().setAll(runs);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Creates the stock history panel with point-in-time stock and the stock movement ledger.
+     *
+     * @return the VBox containing the stock history panel
+     */
+    private VBox createStockHistoryPanel() {
+        VBox vBox = new VBox(10);
+        Label header = new Label("Stock History");
+
+        DatePicker atDatePicker = new DatePicker(LocalDate.now());
+        TextField atTimeField = new TextField("23:59");
+        atTimeField.setPromptText("HH:mm");
+        atTimeField.setPrefWidth(70);
+        Button showStockButton = new Button("Show Stock");
+        ListView<String> stockAtList = new ListView<>();
+
+        showStockButton.setOnAction(e -> {
+            if (atDatePicker.getValue() == null) {
+                Utility.showAlert(Alert.AlertType.ERROR, "Input Error", "Please pick a date.");
+                return;
+            }
+            try {
+                LocalDateTime at = atDatePicker.getValue().atTime(LocalTime.parse(atTimeField.getText().trim()));
+                loadStockAt(at, stockAtList);
+                AppLogger.logInfo("Show Stock button clicked for " + at);
+            } catch (DateTimeParseException dtpe) {
+                Utility.showAlert(Alert.AlertType.ERROR, "Input Error", "Time must be in HH:mm format.");
+            }
+        });
+
+        TextField movementProductField = new TextField();
+        movementProductField.setPromptText("Product ID (empty for all)");
+        Button showMovementsButton = new Button("Show Movements");
+        ListView<String> movementList = new ListView<>();
+
+        showMovementsButton.setOnAction(e -> {
+            try {
+                String text = movementProductField.getText().trim();
+                int productId = text.isEmpty() ? 0 : Integer.parseInt(text);
+                loadStockMovements(productId, movementList);
+                AppLogger.logInfo("Show Movements button clicked with Product ID: " + text);
+            } catch (NumberFormatException nfe) {
+                Utility.showAlert(Alert.AlertType.ERROR, "Input Error", "ID must be a valid number.");
+            }
+        });
+
+        Button snapshotButton = new Button("Take Snapshot Now");
+        snapshotButton.setOnAction(e -> {
+            reportScheduler.snapshotNow();
+            AppLogger.logInfo("Take Snapshot Now button clicked");
+        });
+
+        HBox stockAtBox = new HBox(10, new Label("Stock at:"), atDatePicker, atTimeField, showStockButton, snapshotButton);
+        HBox movementBox = new HBox(10, new Label("Movements:"), movementProductField, showMovementsButton);
+        loadStockMovements(0, movementList);
+        vBox.getChildren().addAll(header, stockAtBox, stockAtList, movementBox, movementList);
+        return vBox;
+    }
+
+    /**
+     * Loads every product's stock at a point in time and populates the list view.
+     *
+     * @param at          the point in time
+     * @param stockAtList the ListView to populate
+     */
+    private void loadStockAt(LocalDateTime at, ListView<String> stockAtList) {
+        List<String> rows = new ArrayList<>();
+        try (Connection conn = DatabaseConnector.getReadConnection()) {
+            for (StockLedger.StockLevel level : StockLedger.stockAt(conn, at)) {
+                String name = level.getName() == null ? "(purged)" : level.getName();
+                rows.add(level.getProductId() + ": " + name + " - Qty: " + level.getQuantity());
+            }
+            stockAtList.getItems().setAll(rows);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Loads the most recent stock movements and populates the list view.
+     *
+     * @param productId    the ID of the product, or 0 for all products
+     * @param movementList the ListView to populate
+     */
+    private void loadStockMovements(int productId, ListView<String> movementList) {
+        List<String> rows = new ArrayList<>();
+        try (Connection conn = DatabaseConnector.getReadConnection()) {
+            for (StockLedger.Movement movement : StockLedger.recentMovements(conn, productId, Constants.STOCK_MOVEMENT_HISTORY_SIZE)) {
+                String name = movement.getName() == null ? "(purged)" : movement.getName();
+                rows.add(String.format("%s - %s %s: %+d", movement.getMovedAt().format(SALE_DATE_FORMAT),
+                        movement.getKind().name().toLowerCase(), movement.getProductId() + " " + name, movement.getChange()));
+            }
+            movementList.getItems().setAll(rows);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Creates the pricing panel for scheduling price versions and promotions.
+     *
+     * @return the VBox containing the pricing panel
+     */
+    private VBox createPricingPanel() {
+        VBox vBox = new VBox(10);
+        Label header = new Label("Pricing");
+
+        TextField productIdField = new TextField();
+        productIdField.setPromptText("Product ID");
+        TextField priceField = new TextField();
+        priceField.setPromptText("Price");
+        TextField labelField = new TextField();
+        labelField.setPromptText("Label (optional)");
+        DatePicker fromDatePicker = new DatePicker(LocalDate.now());
+        TextField fromTimeField = new TextField(LocalTime.now().withSecond(0).withNano(0).toString());
+        fromTimeField.setPromptText("HH:mm");
+        fromTimeField.setPrefWidth(70);
+        DatePicker toDatePicker = new DatePicker();
+        toDatePicker.setPromptText("No end");
+        TextField toTimeField = new TextField("23:59");
+        toTimeField.setPromptText("HH:mm");
+        toTimeField.setPrefWidth(70);
+        Button scheduleButton = new Button("Schedule Price");
+        Button showVersionsButton = new Button("Show Versions");
+        ListView<String> versionList = new ListView<>();
+
+        scheduleButton.setOnAction(e -> {
+            if (fromDatePicker.getValue() == null) {
+                Utility.showAlert(Alert.AlertType.ERROR, "Input Error", "Please pick the date the price takes effect.");
+                return;
+            }
+            try {
+                int productId = Integer.parseInt(productIdField.getText().trim());
+                long priceCents = Money.parse(priceField.getText());
+                LocalDateTime from = fromDatePicker.getValue().atTime(LocalTime.parse(fromTimeField.getText().trim()));
+                LocalDateTime to = toDatePicker.getValue() == null ? null
+                        : toDatePicker.getValue().atTime(LocalTime.parse(toTimeField.getText().trim()));
+                if (priceCents < 0) {
+                    Utility.showAlert(Alert.AlertType.ERROR, "Input Error", "Price cannot be negative.");
+                } else if (to != null && !to.isAfter(from)) {
+                    Utility.showAlert(Alert.AlertType.ERROR, "Input Error", "The end must be after the start.");
+                } else if (schedulePrice(productId, priceCents, from, to, labelField.getText().trim())) {
+                    Utility.showAlert(Alert.AlertType.INFORMATION, "Success", "Price scheduled successfully!");
+                    labelField.clear();
+                    loadPriceVersions(productId, versionList);
+                }
+                AppLogger.logInfo("Schedule Price button clicked for Product ID: " + productId);
+            } catch (NumberFormatException nfe) {
+                Utility.showAlert(Alert.AlertType.ERROR, "Input Error", "ID must be a valid number and price a valid amount.");
+            } catch (DateTimeParseException dtpe) {
+                Utility.showAlert(Alert.AlertType.ERROR, "Input Error", "Time must be in HH:mm format.");
+            }
+        });
+
+        showVersionsButton.setOnAction(e -> {
+            try {
+                loadPriceVersions(Integer.parseInt(productIdField.getText().trim()), versionList);
+                AppLogger.logInfo("Show Versions button clicked with Product ID: " + productIdField.getText());
+            } catch (NumberFormatException nfe) {
+                Utility.showAlert(Alert.AlertType.ERROR, "Input Error", "ID must be a valid number.");
+            }
+        });
+
+        HBox productBox = new HBox(10, productIdField, priceField, labelField);
+        HBox fromBox = new HBox(10, new Label("From:"), fromDatePicker, fromTimeField);
+        HBox toBox = new HBox(10, new Label("Until:"), toDatePicker, toTimeField);
+        HBox buttonBox = new HBox(10, scheduleButton, showVersionsButton);
+        vBox.getChildren().addAll(header, productBox, fromBox, toBox, buttonBox, versionList);
+        return vBox;
+    }
+
+    /**
+     * Schedules a price version for an existing product and makes it visible to this
+     * process's price index right away.
+     *
+     * @param productId  the ID of the product
+     * @param priceCents the price in cents
+     * @param from       the time the price takes effect
+     * @param to         the time the price stops applying, or null for open-ended
+     * @param label      a label such as a promotion name, or an empty string
+     * @return true if the version was scheduled
+     */
+    private boolean schedulePrice(int productId, long priceCents, LocalDateTime from, LocalDateTime to, String label) {
+        try (Connection conn = DatabaseConnector.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT product_id FROM Products WHERE product_id = ? AND deleted_at IS NULL")) {
+                stmt.setInt(1, productId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        Utility.showAlert(Alert.AlertType.ERROR, "Error", "This ID does not exist.");
+                        return false;
+                    }
+                }
+            }
+            PriceVersions.schedule(conn, productId, priceCents, from, to, label);
+            PriceIndex.shared().refresh(conn);
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            Utility.showAlert(Alert.AlertType.ERROR, "Pricing error", e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Loads the scheduled price versions of a product and populates the list view.
+     *
+     * @param productId   the ID of the product
+     * @param versionList the ListView to populate
+     */
+    private void loadPriceVersions(int productId, ListView<String> versionList) {
+        List<String> rows = new ArrayList<>();
+        try (Connection conn = DatabaseConnector.getReadConnection()) {
+            for (PriceVersions.Version version : PriceVersions.history(conn, productId, Constants.PRICE_VERSION_HISTORY_SIZE)) {
+                String until = version.getTo() == null ? "open-ended" : "until " + version.getTo().format(SALE_DATE_FORMAT);
+                String label = version.getLabel() == null ? "" : " (" + version.getLabel() + ")";
+                rows.add(version.getVersionId() + ": $" + Money.format(version.getPriceCents()) + label
+                        + " - from " + version.getFrom().format(SALE_DATE_FORMAT) + ", " + until);
+            }
+            versionList.getItems().setAll(rows);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Creates the tasks panel, a live view of the background tasks of every open window.
+     *
+     * @return the VBox containing the tasks panel
+     */
+    private VBox createTasksPanel() {
+        VBox vBox = new VBox(10);
+        Label header = new Label("Background Tasks");
+        ListView<String> taskList = new ListView<>();
+        taskList.setPrefHeight(150);
+        taskRows = uiDispatcher.bind(taskList.getItems());
+
+        Label stallHeader = new Label("UI Stalls");
+        ListView<String> stallList = new ListView<>();
+        stallRows = uiDispatcher.bind(stallList.getItems());
+        TextArea stackArea = new TextArea();
+        stackArea.setEditable(false);
+        stackArea.setPrefRowCount(8);
+        stallList.getSelectionModel().selectedItemProperty().addListener((obs, oldValue, selected) -> {
+            if (selected == null) {
+                return;
+            }
+            FxStallDetector.Stall stall = FxStallDetector.shared().find(Integer.parseInt(selected.substring(1, selected.indexOf(' '))));
+            StringBuilder stack = new StringBuilder();
+            if (stall != null) {
+                stack.append(stall.getOperation()).append('\n');
+                for (StackTraceElement element : stall.getStackTrace()) {
+                    stack.append("    at ").append(element).append('\n');
+                }
+            }
+            stackArea.setText(stack.toString());
+        });
+
+        Button dumpButton = new Button("Dump to File");
+        dumpButton.setOnAction(e -> {
+            try {
+                Path file = FxStallDetector.shared().dump(Paths.get(Constants.FX_STALL_DIR));
+                Utility.showAlert(Alert.AlertType.INFORMATION, "UI Stalls", "Stalls written to " + file);
+                AppLogger.logInfo("Dump UI stalls button clicked, wrote " + file);
+            } catch (IOException ex) {
+                AppLogger.logError("Error writing UI stalls", ex);
+                Utility.showAlert(Alert.AlertType.ERROR, "UI Stalls", "The stalls could not be written: " + ex.getMessage());
+            }
+        });
+
+        VBox.setVgrow(stallList, Priority.ALWAYS);
+        vBox.getChildren().addAll(header, taskList, stallHeader, stallSummaryLabel, dumpButton, stallList, stackArea);
+        return vBox;
+    }
+
+    /**
+     * Shows the recorded FX thread stalls in the tasks panel. The list is only replaced when
+     * a stall was added or ended, so the selected stall stays selected. Runs on a scheduler
+     * thread.
+     *
+     * @param stalls the stalls, newest first
+     */
+    private void showStalls(List<FxStallDetector.Stall> stalls) {
+        Map<Integer, String> rows = new LinkedHashMap<>();
+        for (FxStallDetector.Stall stall : stalls) {
+            rows.put(stall.getNumber(), stall.toString());
+        }
+        if (!rows.equals(shownStalls)) {
+            stallRows.replaceAll(rows);
+            shownStalls = rows;
+        }
+        String summary = FxStallDetector.shared().summary();
+        uiDispatcher.update(TASK_STALL_VIEW, () -> stallSummaryLabel.setText(summary));
+    }
+
+    /**
+     * Shows the scheduled tasks in the tasks panel. Runs on a scheduler thread.
+     *
+     * @param tasks the scheduled tasks
+     */
+    private void showTasks(List<TaskScheduler.TaskInfo> tasks) {
+        Map<String, String> rows = new LinkedHashMap<>();
+        for (TaskScheduler.TaskInfo task : tasks) {
+            String lastRun = task.getLastRun() == null ? "not run yet"
+                    : "last run " + task.getLastRun().format(SALE_DATE_FORMAT) + " (" + task.getLastDurationMillis() + " ms)";
+            rows.put(task.getKey() + "@" + task.getPeriodMillis(), String.format("%s - every %d ms - %s - runs: %d, failures: %d - sessions: %s",
+                    task.getKey(), task.getPeriodMillis(), lastRun, task.getRuns(), task.getFailures(), String.join(", ", task.getSessions())));
+        }
+        taskRows.replaceAll(rows);
+    }
+
     /**
      * Logs user actions.
      *
@@ -383,12 +1507,12 @@ public class AdminPanel {
      */
     private void loadProducts() {
         ObservableList<String> products = FXCollections.observableArrayList();
-        String sql = "SELECT product_id, name, price, quantity FROM Products ORDER BY name";
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            ResultSet rs = stmt.executeQuery();
+        String sql = "SELECT product_id, name, price, quantity FROM Products WHERE deleted_at IS NULL ORDER BY name";
+        try (Connection conn = DatabaseConnector.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
-                products.add(rs.getInt("product_id") + ": " + rs.getString("name") + " - $" + rs.getDouble("price") + " - Qty: " + rs.getInt("quantity"));
+                products.add(rs.getInt("product_id") + ": " + rs.getString("name") + " - $" + Money.format(Money.read(rs, "price")) + " - Qty: " + rs.getInt("quantity"));
             }
             productListView.setItems(products);
         } catch (SQLException e) {
@@ -403,13 +1527,10 @@ public class AdminPanel {
         String selected = productListView.getSelectionModel().getSelectedItem();
         if (selected != null && !selected.isEmpty()) {
             int productId = Integer.parseInt(selected.split(":")[0]);
-            try (Connection conn = DatabaseConnector.getConnection();
-                 PreparedStatement stmt = conn.prepareStatement("DELETE FROM Products WHERE product_id = ?")) {
-                stmt.setInt(1, productId);
-                int affectedRows = stmt.executeUpdate();
-                if (affectedRows > 0) {
+            try {
+                if (deletionEngine.deleteProduct(productId)) {
+                    salesStore.invalidate();
                     loadProducts();
-                    removeSalesTrend(productId);
                     loadSalesTrends(salesTrendsList);
                 }
             } catch (SQLException e) {
@@ -423,36 +1544,135 @@ public class AdminPanel {
      * Adds a new product to the database.
      *
      * @param name     the name of the product
-     * @param price    the price of the product
+     * @param sku      the SKU or barcode of the product, or an empty string for none
+     * @param priceCents the price of the product in cents
      * @param quantity the quantity of the product
+     * @param locationId the ID of the location receiving the initial quantity
+     * @return true if the product was added
      */
-    private void addProduct(String name, double price, int quantity) {
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement stmt = conn.prepareStatement("INSERT INTO Products (name, price, quantity) VALUES (?, ?, ?)")) {
-            stmt.setString(1, name);
-            stmt.setDouble(2, price);
-            stmt.setInt(3, quantity);
-            stmt.executeUpdate();
+    private boolean addProduct(String name, String sku, long priceCents, int quantity, int locationId) {
+        try (Connection conn = DatabaseConnector.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO Products (name, price, quantity, sku) VALUES (?, ?, 0, ?)", Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setString(1, name);
+                Money.write(stmt, 2, priceCents);
+                stmt.setString(3, sku.isEmpty() ? null : sku);
+                stmt.executeUpdate();
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        int productId = keys.getInt(1);
+                        LocationStock.put(conn, productId, locationId, quantity);
+                        PriceVersions.schedule(conn, productId, priceCents, null, null, null);
+                        if (quantity != 0) {
+                            StockLedger.record(conn, productId, StockLedger.Kind.ADJUSTMENT, quantity);
+                        }
+                    }
+                }
+            }
+            conn.commit();
             loadProducts();
+            return true;
+        } catch (SQLIntegrityConstraintViolationException e) {
+            Utility.showAlert(Alert.AlertType.ERROR, "Duplicate SKU", "Another product already uses the SKU " + sku + ".");
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        return false;
     }
 
     /**
-     * Increases the stock of an existing product.
+     * Sets or clears the SKU of an existing product.
      *
      * @param productId the ID of the product
-     * @param amount    the amount to increase
-     * @return true if the stock was successfully increased, false otherwise
+     * @param sku       the new SKU, or an empty string to clear it
+     * @return true if the SKU was updated
      */
-    private boolean increaseStock(int productId, int amount) {
+    private boolean assignSku(int productId, String sku) {
         try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement stmt = conn.prepareStatement("UPDATE Products SET quantity = quantity + ? WHERE product_id = ?")) {
-            stmt.setInt(1, amount);
+             PreparedStatement stmt = conn.prepareStatement("UPDATE Products SET sku = ? WHERE product_id = ? AND deleted_at IS NULL")) {
+            stmt.setString(1, sku.isEmpty() ? null : sku);
             stmt.setInt(2, productId);
-            int rowsUpdated = stmt.executeUpdate();
-            return rowsUpdated > 0;
+            if (stmt.executeUpdate() > 0) {
+                return true;
+            }
+            Utility.showAlert(Alert.AlertType.ERROR, "Error", "This ID does not exist.");
+        } catch (SQLIntegrityConstraintViolationException e) {
+            Utility.showAlert(Alert.AlertType.ERROR, "Duplicate SKU", "Another product already uses the SKU " + sku + ".");
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    /**
+     * Parses the product ID typed into a field, telling the admin if it is not a number.
+     *
+     * @param text the text of the field
+     * @return the product ID, or null if the text is not a valid ID
+     */
+    private Integer parseProductId(String text) {
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException nfe) {
+            Utility.showAlert(Alert.AlertType.ERROR, "Input Error", "ID must be a valid number.");
+            return null;
+        }
+    }
+
+    /**
+     * Stores an image file as the image of an existing product. The image is decoded later,
+     * in the background, when a product list shows the product.
+     *
+     * @param productId the ID of the product
+     * @param file      the image file
+     * @return true if the image was stored, false otherwise
+     */
+    private boolean setProductImage(int productId, Path file) {
+        try (Connection conn = DatabaseConnector.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT product_id FROM Products WHERE product_id = ? AND deleted_at IS NULL")) {
+            stmt.setInt(1, productId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    Utility.showAlert(Alert.AlertType.ERROR, "Error", "This ID does not exist.");
+                    return false;
+                }
+            }
+            ProductImages.store(productId, file);
+            productListView.refresh();
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } catch (IOException ex) {
+            AppLogger.logError("Error storing the image of product " + productId, ex);
+            Utility.showAlert(Alert.AlertType.ERROR, "Error", "The image could not be stored: " + ex.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Increases the stock of an existing product at a location.
+     *
+     * @param productId  the ID of the product
+     * @param locationId the ID of the location receiving the stock
+     * @param amount     the amount to increase
+     * @return true if the stock was successfully increased, false otherwise
+     */
+    private boolean increaseStock(int productId, int locationId, int amount) {
+        try (Connection conn = DatabaseConnector.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT product_id FROM Products WHERE product_id = ? AND deleted_at IS NULL FOR UPDATE")) {
+                stmt.setInt(1, productId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                }
+            }
+            LocationStock.put(conn, productId, locationId, amount);
+            StockLedger.record(conn, productId, StockLedger.Kind.RESTOCK, amount);
+            conn.commit();
+            return true;
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
@@ -460,38 +1680,168 @@ public class AdminPanel {
     }
 
     /**
-     * Loads the sales logs and populates the sales log list view.
+     * Adds a store or warehouse and offers it in the location choices.
+     *
+     * @param name the name of the location
+     * @param kind either store or warehouse
+     * @return true if the location was added
+     */
+    private boolean addLocation(String name, String kind) {
+        try (Connection conn = DatabaseConnector.getConnection()) {
+            LocationStock.addLocation(conn, name, kind);
+            loadLocationChoices();
+            return true;
+        } catch (SQLIntegrityConstraintViolationException e) {
+            Utility.showAlert(Alert.AlertType.ERROR, "Duplicate Location", "A location named " + name + " already exists.");
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    /**
+     * Loads the locations offered when adding or restocking products.
+     */
+    private void loadLocationChoices() {
+        try (Connection conn = DatabaseConnector.getConnection()) {
+            locationChoices.setAll(LocationStock.loadLocations(conn));
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Creates a combo box over the location choices, preselecting this terminal's location.
+     *
+     * @return the combo box
+     */
+    private ComboBox<LocationStock.Location> createLocationBox() {
+        ComboBox<LocationStock.Location> box = new ComboBox<>(locationChoices);
+        box.setPromptText("Location");
+        for (LocationStock.Location location : locationChoices) {
+            if (location.getLocationId() == Constants.DEFAULT_LOCATION_ID) {
+                box.setValue(location);
+            }
+        }
+        return box;
+    }
+
+    /**
+     * Refreshes the stock by location view periodically while the stock tab is shown, for the
+     * selected filter, and stops refreshing it while another tab is. Each location is queried
+     * in parallel by the {@link LocationInventory}.
+     */
+    private void updateLocationStockTask() {
+        String task = !locationStockVisible ? null
+                : lowStockOnlyBox.isSelected() ? TASK_LOW_LOCATION_STOCK : TASK_LOCATION_STOCK;
+        if (Objects.equals(task, locationStockTask)) {
+            return;
+        }
+        if (locationStockTask != null) {
+            session.cancel(locationStockTask);
+        }
+        locationStockTask = task;
+        if (task != null) {
+            boolean lowOnly = task.equals(TASK_LOW_LOCATION_STOCK);
+            session.schedulePeriodic(task, Constants.STOCK_CHECK_INTERVAL_MILLIS,
+                    () -> locationInventory.aggregate(lowOnly), this::showLocationStock);
+        }
+    }
+
+    /**
+     * Shows the stock by location. Runs on a scheduler thread; the rows are posted to the UI
+     * dispatcher.
+     *
+     * @param summary the stock of the products shown, by location
+     */
+    private void showLocationStock(LocationInventory.Summary summary) {
+        List<LocationStock.Location> locations = summary.getLocations();
+        Map<Integer, String> rows = new LinkedHashMap<>();
+        for (LocationInventory.ProductStock product : summary.getProducts()) {
+            StringBuilder row = new StringBuilder();
+            row.append(product.getProductId()).append(": ").append(product.getName())
+                    .append(" - Total: ").append(product.getTotal()).append(" (");
+            for (int i = 0; i < locations.size(); i++) {
+                row.append(i > 0 ? ", " : "").append(locations.get(i).getName()).append(": ").append(product.getQuantityAt(i));
+            }
+            row.append(')');
+            if (!product.getLowAt().isEmpty()) {
+                row.append(" - LOW at ").append(String.join(", ", product.getLowAt()));
+            }
+            rows.put(product.getProductId(), row.toString());
+        }
+        locationStockRows.replaceAll(rows);
+    }
+
+    /**
+     * Loads the first page of sales logs matching the current filters.
      *
      * @param salesLog the ListView to populate
      */
     private void loadSales(ListView<String> salesLog) {
-        ObservableList<String> salesData = FXCollections.observableArrayList();
-        String query = "SELECT sale_id, p.name, s.quantity_sold, s.sale_date FROM Sales s JOIN Products p ON s.product_id = p.product_id ORDER BY s.sale_date DESC";
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            ResultSet rs = stmt.executeQuery();
+        salesLogCursor = null;
+        salesLog.getItems().clear();
+        loadMoreSales(salesLog);
+    }
+
+    /**
+     * Appends the next page of sales logs matching the current filters.
+     *
+     * @param salesLog the ListView to populate
+     */
+    private void loadMoreSales(ListView<String> salesLog) {
+        try (Connection conn = DatabaseConnector.getReadConnection()) {
+            SalesLogQuery.Page page = salesLogQuery.fetch(conn, salesLogCursor, Constants.SALES_LOG_PAGE_SIZE);
+            List<String> salesData = new ArrayList<>();
+            for (SalesLogQuery.SaleRow sale : page.getRows()) {
+                salesData.add(String.format("%d: Product: %s, Quantity Sold: %d, Sale Date: %s, Total: $%s",
+                        sale.getSaleId(), sale.getProductName(), sale.getQuantity(),
+                        sale.getSaleDate().format(SALE_DATE_FORMAT), Money.format(sale.getTotalCents())));
+            }
+            salesLog.getItems().addAll(salesData);
+            if (page.last() != null) {
+                salesLogCursor = page.last();
+            }
+            loadMoreSalesButton.setDisable(!page.hasMore());
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Loads the product names into a product filter.
+     *
+     * @param productFilter the ComboBox to populate
+     */
+    private void loadProductNames(ComboBox<String> productFilter) {
+        String selected = productFilter.getValue();
+        List<String> names = new ArrayList<>();
+        names.add(ALL_PRODUCTS);
+        try (Connection conn = DatabaseConnector.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT name FROM Products WHERE deleted_at IS NULL ORDER BY name");
+             ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
-                String saleInfo = String.format("%d: Product: %s, Quantity Sold: %d, Sale Date: %s",
-                        rs.getInt("sale_id"), rs.getString("name"), rs.getInt("quantity_sold"), rs.getString("sale_date"));
-                salesData.add(saleInfo);
+                names.add(rs.getString("name"));
             }
-            salesLog.setItems(salesData);
+            productFilter.getItems().setAll(names);
+            productFilter.setValue(selected);
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
     /**
-     * Deletes the selected log from the sales log list view.
+     * Deletes the selected logs from the sales log list view.
      */
-    private void deleteSelectedLog() {
-        String selected = salesLog.getSelectionModel().getSelectedItem();
-        if (selected != null) {
-            int saleId = Integer.parseInt(selected.split(":")[0]);
-            try (Connection conn = DatabaseConnector.getConnection();
-                 PreparedStatement stmt = conn.prepareStatement("DELETE FROM Sales WHERE sale_id = ?")) {
-                stmt.setInt(1, saleId);
-                stmt.executeUpdate();
+    private void deleteSelectedLogs() {
+        List<Integer> saleIds = new ArrayList<>();
+        for (String selected : salesLog.getSelectionModel().getSelectedItems()) {
+            saleIds.add(Integer.parseInt(selected.split(":")[0]));
+        }
+        if (!saleIds.isEmpty()) {
+            try {
+                deletionEngine.deleteSales(saleIds);
+                salesStore.invalidate();
                 loadSales(salesLog);
             } catch (SQLException e) {
                 e.printStackTrace();
@@ -503,9 +1853,9 @@ public class AdminPanel {
      * Clears all logs from the sales log list view.
      */
     private void clearAllLogs() {
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement stmt = conn.prepareStatement("DELETE FROM Sales")) {
-            stmt.executeUpdate();
+        try {
+            deletionEngine.clearSales();
+            salesStore.invalidate();
             loadSales(salesLog);
         } catch (SQLException e) {
             e.printStackTrace();
@@ -513,83 +1863,85 @@ public class AdminPanel {
     }
 
     /**
-     * Exports the sales logs to a CSV file.
+     * Shows the progress of a background purge under the product and sales log lists.
+     *
+     * @param description the deletion being purged
+     * @param purged      the number of sales rows purged so far
+     * @param total       the estimated number of rows to purge
+     * @param finished    whether the purge has completed
+     */
+    private void showDeletionProgress(String description, long purged, long total, boolean finished) {
+        String status = finished
+                ? String.format("Finished purging %s (%,d sales removed).", description, purged)
+                : String.format("Purging %s: %,d of %,d sales removed...", description, purged, total);
+        uiDispatcher.update(productDeletionStatus, () -> {
+            productDeletionStatus.setText(status);
+            salesDeletionStatus.setText(status);
+        });
+    }
+
+    /**
+     * Exports every sale matching the sales log filters to a CSV file on a background thread.
      */
     private void exportSalesLogsToCSV() {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Save Sales Logs");
         fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
         File file = fileChooser.showSaveDialog(null);
-        if (file != null) {
-            try (PrintWriter writer = new PrintWriter(file)) {
-                writer.println("Sale ID,Product Name,Quantity Sold,Sale Date");
-                ObservableList<String> salesData = salesLog.getItems();
-                for (String sale : salesData) {
-                    String[] data = sale.split(", ");
-                    String saleId = data[0].split(": ")[0];
-                    String productName = data[0].substring(data[0].indexOf(": ") + 2);
-                    String quantitySold = data[1].split(": ")[1];
-                    String saleDate = data[2].split(": ")[1];
-                    writer.println(saleId + "," + productName + "," + quantitySold + "," + saleDate);
-                }
-                Utility.showAlert(Alert.AlertType.INFORMATION, "Success", "Sales logs exported successfully to CSV.");
-                System.out.println("Sales logs exported successfully to " + file.getAbsolutePath());
-            } catch (IOException e) {
-                Utility.showAlert(Alert.AlertType.ERROR, "Export Error", "Error occurred while exporting sales logs: " + e.getMessage());
-                e.printStackTrace();
-            }
+        if (file == null) {
+            return;
         }
+        SalesLogQuery query = salesLogQuery;
+        Thread worker = new Thread(() -> {
+            try (Connection conn = DatabaseConnector.getReadConnection();
+                 BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+                long rows = query.export(conn, writer);
+                AppLogger.logInfo("Exported " + rows + " sales to " + file.getAbsolutePath());
+                Platform.runLater(() -> Utility.showAlert(Alert.AlertType.INFORMATION, "Success",
+                        String.format("Exported %,d sales to CSV.", rows)));
+            } catch (IOException | SQLException ex) {
+                AppLogger.logError("Error exporting sales logs", ex);
+                Platform.runLater(() -> Utility.showAlert(Alert.AlertType.ERROR, "Export Error",
+                        "Error occurred while exporting sales logs: " + ex.getMessage()));
+            }
+        }, "sales-export");
+        worker.setDaemon(true);
+        worker.start();
     }
 
     /**
-     * Checks for low stock and updates the low stock list view.
+     * Updates the low stock and reorder lists from a stock check. Runs on a scheduler thread;
+     * the rows are posted to the UI dispatcher.
+     *
+     * @param check the result of the stock check
      */
-    private void checkLowStock() {
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement stmt = conn.prepareStatement("SELECT product_id, name, quantity FROM Products")) {
-            ResultSet rs = stmt.executeQuery();
-            Set<Integer> currentLowStockIds = new HashSet<>();
-
-            while (rs.next()) {
-                int productId = rs.getInt("product_id");
-                String productName = rs.getString("name");
-                int quantity = rs.getInt("quantity");
-
-                if (quantity <= 3) {
-                    currentLowStockIds.add(productId);
-                    if (!notifiedProducts.contains(productId)) {
-                        String message = String.format("Low stock alert: %s - Only %d left in stock!", productName, quantity);
-                        Platform.runLater(() -> lowStockList.getItems().add(message));
-                        notifiedProducts.add(productId);
-                    }
-                }
+    private void applyStockCheck(StockCheck check) {
+        Set<Integer> currentLowStockIds = new HashSet<>();
+        for (StockCheck.LowStock item : check.getLowStock()) {
+            currentLowStockIds.add(item.getProductId());
+            if (!notifiedProducts.contains(item.getProductId())) {
+                String message = String.format("Low stock alert: %s - Only %d left in stock! (reorder point %d)",
+                        item.getName(), item.getQuantity(), item.getReorderPoint());
+                lowStockRows.put(item.getProductId(), message);
+                notifiedProducts.add(item.getProductId());
             }
+        }
 
-            notifiedProducts.retainAll(currentLowStockIds);
-            Platform.runLater(() -> lowStockList.getItems().removeIf(item -> {
-                String[] parts = item.split(" - Only ");
-                String namePart = parts[0].substring(parts[0].indexOf(':') + 2);
-                return !currentLowStockIds.contains(getProductIdByName(namePart));
-            }));
-
-        } catch (SQLException e) {
-            e.printStackTrace();
+        for (int productId : notifiedProducts) {
+            if (!currentLowStockIds.contains(productId)) {
+                lowStockRows.remove(productId);
+            }
         }
-    }
+        notifiedProducts.retainAll(currentLowStockIds);
 
-    /**
-     * Removes the sales trend for the specified product.
-     *
-     * @param productId the ID of the product
-     */
-    private void removeSalesTrend(int productId) {
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement stmt = conn.prepareStatement("DELETE FROM Sales WHERE product_id = ?")) {
-            stmt.setInt(1, productId);
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
+        Map<Integer, String> rows = new LinkedHashMap<>();
+        for (ReorderEngine.ReorderItem item : check.getReorderItems()) {
+            rows.put(item.getProductId(), String.format("%d: %s - Stock: %d - %.2f/day - Cover: %s - Reorder point: %d - Suggested order: %d",
+                    item.getProductId(), item.getName(), item.getStock(), item.getUnitsPerDay(),
+                    Double.isInfinite(item.getDaysOfCover()) ? "no recent sales" : String.format("%.1f days", item.getDaysOfCover()),
+                    item.getReorderPoint(), item.getSuggestedOrder()));
         }
+        reorderRows.replaceAll(rows);
     }
 
     /**
@@ -600,11 +1952,12 @@ public class AdminPanel {
      */
     private int getProductIdByName(String productName) {
         try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement stmt = conn.prepareStatement("SELECT product_id FROM Products WHERE name = ?")) {
+             PreparedStatement stmt = conn.prepareStatement("SELECT product_id FROM Products WHERE name = ? AND deleted_at IS NULL")) {
             stmt.setString(1, productName);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt("product_id");
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt("product_id");
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
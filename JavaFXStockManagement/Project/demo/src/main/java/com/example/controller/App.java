@@ -12,12 +12,13 @@ import javafx.scene.control.Hyperlink;
 import javafx.scene.control.Label;
 import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
-import javafx.scene.image.Image;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
 
 import java.awt.Desktop;
+import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -26,9 +27,11 @@ import java.sql.SQLException;
 import org.mindrot.jbcrypt.BCrypt;
 
 import com.example.util.Constants;
+import com.example.util.FxStallDetector;
 import com.example.util.Utility;
 import com.example.util.AppLogger;
 import com.example.model.DatabaseConnector;
+import com.example.model.SalesKpis;
 
 /**
  * The App class handles the main application logic for user login and registration.
@@ -40,9 +43,10 @@ public class App extends Application {
     public void start(Stage primaryStage) {
         this.primaryStage = primaryStage;
         primaryStage.setTitle("User Login/Register");
+        FxStallDetector.shared().start();
+        SalesKpis.shared().start();
 
-        Image icon = new Image(getClass().getResourceAsStream(Constants.ICON_PATH));
-        primaryStage.getIcons().add(icon);
+        primaryStage.getIcons().add(Utility.appIcon());
 
         showLoginScreen();
     }
@@ -236,10 +240,11 @@ public class App extends Application {
             String checkUserSql = "SELECT COUNT(*) FROM users WHERE username = ?";
             try (PreparedStatement checkUserStmt = conn.prepareStatement(checkUserSql)) {
                 checkUserStmt.setString(1, username);
-                ResultSet resultSet = checkUserStmt.executeQuery();
-                if (resultSet.next() && resultSet.getInt(1) > 0) {
-                    Utility.showAlert(Alert.AlertType.ERROR, "Registration Error", "Username already exists.");
-                    return;
+                try (ResultSet resultSet = checkUserStmt.executeQuery()) {
+                    if (resultSet.next() && resultSet.getInt(1) > 0) {
+                        Utility.showAlert(Alert.AlertType.ERROR, "Registration Error", "Username already exists.");
+                        return;
+                    }
                 }
             }
 
@@ -272,31 +277,35 @@ public class App extends Application {
             return;
         }
 
+        FxStallDetector.Operation operation = FxStallDetector.shared().begin("Log in " + username);
         try (Connection conn = DatabaseConnector.getConnection()) {
-            String sql = "SELECT password, role FROM users WHERE username = ?";
+            String sql = "SELECT id, password, role FROM users WHERE username = ?";
             try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
                 pstmt.setString(1, username);
-                ResultSet rs = pstmt.executeQuery();
-                if (rs.next()) {
-                    String storedPassword = rs.getString("password");
-                    String role = rs.getString("role");
-                    if (BCrypt.checkpw(password, storedPassword)) {
-                        primaryStage.close();
-                        if ("admin".equals(role)) {
-                            launchAdminPanel(username);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        String storedPassword = rs.getString("password");
+                        String role = rs.getString("role");
+                        if (BCrypt.checkpw(password, storedPassword)) {
+                            primaryStage.close();
+                            if ("admin".equals(role)) {
+                                launchAdminPanel(username);
+                            } else {
+                                launchUserPanel(rs.getInt("id"), username);
+                            }
                         } else {
-                            launchUserPanel(username);
+                            Utility.showAlert(Alert.AlertType.ERROR, "Login Failed", "Incorrect username or password.");
                         }
                     } else {
                         Utility.showAlert(Alert.AlertType.ERROR, "Login Failed", "Incorrect username or password.");
                     }
-                } else {
-                    Utility.showAlert(Alert.AlertType.ERROR, "Login Failed", "Incorrect username or password.");
                 }
             }
         } catch (SQLException ex) {
             AppLogger.logError("Error logging in user", ex);
             Utility.showAlert(Alert.AlertType.ERROR, "Login Error", "An error occurred while logging in: " + ex.getMessage());
+        } finally {
+            operation.close();
         }
     }
 
@@ -313,13 +322,30 @@ public class App extends Application {
     /**
      * Launches the user panel.
      *
+     * @param userId   the ID of the user
      * @param username the username of the user
      */
-    private void launchUserPanel(String username) {
-        UserPanel userPanel = new UserPanel(this, username);
+    private void launchUserPanel(int userId, String username) {
+        UserPanel userPanel = new UserPanel(this, userId, username);
         userPanel.start(new Stage());
     }
 
+    /**
+     * Writes the recorded FX thread stalls to {@link Constants#FX_STALL_DIR} when the
+     * application exits, so stalls on terminals in the field can be collected.
+     */
+    @Override
+    public void stop() {
+        FxStallDetector detector = FxStallDetector.shared();
+        if (detector.stallCount() > 0) {
+            try {
+                AppLogger.logInfo("Wrote FX thread stalls to " + detector.dump(Paths.get(Constants.FX_STALL_DIR)));
+            } catch (IOException e) {
+                AppLogger.logError("Error writing FX thread stalls", e);
+            }
+        }
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
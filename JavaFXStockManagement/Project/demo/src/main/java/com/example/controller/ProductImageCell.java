@@ -0,0 +1,73 @@
+package com.example.controller;
+
+import java.util.function.ToIntFunction;
+
+import com.example.model.ProductImages;
+import com.example.util.Constants;
+
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.StackPane;
+import javafx.util.Callback;
+
+/**
+ * The ProductImageCell class shows a product row with the product's thumbnail. Thumbnails
+ * come from {@link ProductImages#thumbnails()}: a cached one is shown at once, otherwise the
+ * cell shows an empty frame of the same size and fills it when the thumbnail is decoded, if
+ * the cell still shows the same product by then.
+ */
+public class ProductImageCell extends ListCell<String> {
+
+    private final ToIntFunction<String> productIdOf;
+    private final ImageView imageView = new ImageView();
+    private final StackPane frame = new StackPane(imageView);
+    private int productId;
+
+    /**
+     * Creates a cell.
+     *
+     * @param productIdOf finds the product ID of a row, or returns 0 if it has none
+     */
+    public ProductImageCell(ToIntFunction<String> productIdOf) {
+        this.productIdOf = productIdOf;
+        imageView.setFitWidth(Constants.THUMBNAIL_SIZE);
+        imageView.setFitHeight(Constants.THUMBNAIL_SIZE);
+        imageView.setPreserveRatio(true);
+        frame.setMinSize(Constants.THUMBNAIL_SIZE, Constants.THUMBNAIL_SIZE);
+        frame.setPrefSize(Constants.THUMBNAIL_SIZE, Constants.THUMBNAIL_SIZE);
+    }
+
+    /**
+     * Returns a cell factory for a product list.
+     *
+     * @param productIdOf finds the product ID of a row, or returns 0 if it has none
+     * @return the cell factory
+     */
+    public static Callback<ListView<String>, ListCell<String>> factory(ToIntFunction<String> productIdOf) {
+        return listView -> new ProductImageCell(productIdOf);
+    }
+
+    @Override
+    protected void updateItem(String item, boolean empty) {
+        super.updateItem(item, empty);
+        if (empty || item == null) {
+            productId = 0;
+            imageView.setImage(null);
+            setText(null);
+            setGraphic(null);
+            return;
+        }
+        setText(item);
+        setGraphic(frame);
+        int requested = productIdOf.applyAsInt(item);
+        productId = requested;
+        Image image = requested == 0 ? null : ProductImages.thumbnails().request(requested, loaded -> {
+            if (productId == requested) {
+                imageView.setImage(loaded);
+            }
+        });
+        imageView.setImage(image);
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.controller;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.control.*;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntSupplier;
+import com.example.model.Basket;
+import com.example.model.DatabaseConnector;
+import com.example.model.Money;
+import com.example.model.PurchaseService;
+import com.example.model.SkuIndex;
+import com.example.util.AppLogger;
+import com.example.util.Constants;
+import com.example.util.Utility;
+
+/**
+ * The RapidCheckoutPanel class takes input from a keyboard-wedge barcode scanner, which types
+ * the code followed by Enter. Each scan is resolved against an in-memory {@link SkuIndex} and
+ * added to a basket without touching the database; the basket is bought in one transaction
+ * when the cashier commits it. A scan may be prefixed with a quantity, as in {@code 3*4006381333931}.
+ * Bought baskets are taken off the index's stock; the index itself is only reloaded once it is
+ * older than {@link Constants#SKU_INDEX_RELOAD_SECONDS} or a basket ran short.
+ */
+public class RapidCheckoutPanel {
+
+    private final IntSupplier location;
+    private final int userId;
+    private final Runnable onCommitted;
+    private final Basket basket = new Basket();
+    private final ObservableList<String> basketRows = FXCollections.observableArrayList();
+    private final List<Integer> rowProductIds = new ArrayList<>();
+
+    private volatile SkuIndex index;
+    private TextField scanField;
+    private ListView<String> basketList;
+    private Label totalLabel;
+    private Label statusLabel;
+    private Button commitButton;
+    private HBox controls;
+
+    /**
+     * Constructor for RapidCheckoutPanel.
+     *
+     * @param location    supplies the ID of the location selling the products
+     * @param userId      the ID of the user buying the baskets
+     * @param onCommitted called on the FX thread after a basket has been bought
+     */
+    public RapidCheckoutPanel(IntSupplier location, int userId, Runnable onCommitted) {
+        this.location = location;
+        this.userId = userId;
+        this.onCommitted = onCommitted;
+    }
+
+    /**
+     * Creates the scan field, the basket and its controls, and starts loading the SKU index.
+     *
+     * @return the VBox containing the checkout panel
+     */
+    public VBox createPanel() {
+        scanField = new TextField();
+        scanField.setPromptText("Scan a barcode or type [quantity*]SKU and press Enter");
+        scanField.getStyleClass().add("text-field");
+        scanField.setOnAction(e -> handleScan(scanField.getText().trim()));
+
+        basketList = new ListView<>(basketRows);
+        basketList.getStyleClass().add("list-view");
+
+        totalLabel = new Label();
+        statusLabel = new Label("Loading SKU index...");
+
+        Button removeButton = new Button("Remove Line");
+        removeButton.getStyleClass().add("button");
+        removeButton.setOnAction(e -> removeSelectedLine());
+
+        Button clearButton = new Button("Clear Basket");
+        clearButton.getStyleClass().add("button");
+        clearButton.setOnAction(e -> {
+            basket.clear();
+            refreshBasket();
+            scanField.requestFocus();
+        });
+
+        commitButton = new Button("Commit Basket");
+        commitButton.getStyleClass().add("button");
+        commitButton.setOnAction(e -> commitBasket());
+
+        controls = new HBox(10, removeButton, clearButton, commitButton);
+        VBox vBox = new VBox(10, statusLabel, scanField, basketList, totalLabel, controls);
+        VBox.setVgrow(basketList, Priority.ALWAYS);
+
+        refreshBasket();
+        reloadIndex();
+        return vBox;
+    }
+
+    /**
+     * Moves the keyboard focus to the scan field so the scanner's input lands there.
+     */
+    public void focus() {
+        if (scanField != null) {
+            scanField.requestFocus();
+        }
+    }
+
+    /**
+     * Reloads the SKU index for the current location in the background, keeping the previous
+     * index until it is ready.
+     */
+    public void reloadIndex() {
+        int locationId = location.getAsInt();
+        Thread loader = new Thread(() -> {
+            try (Connection conn = DatabaseConnector.getReadConnection()) {
+                SkuIndex loaded = SkuIndex.load(conn, locationId);
+                index = loaded;
+                Platform.runLater(() -> statusLabel.setText(loaded.size() + " products with a SKU ready to scan"));
+            } catch (SQLException e) {
+                AppLogger.logError("Error loading the SKU index", e);
+                Platform.runLater(() -> statusLabel.setText("Could not load the SKU index: " + e.getMessage()));
+            }
+        }, "sku-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Resolves one scan and adds it to the basket. Runs entirely in memory, so it keeps up
+     * with the scanner; problems are shown in the status label instead of a dialog.
+     *
+     * @param input the scanned text
+     */
+    private void handleScan(String input) {
+        scanField.clear();
+        if (input.isEmpty()) {
+            return;
+        }
+        SkuIndex current = index;
+        if (current == null) {
+            statusLabel.setText("The SKU index is still loading, scan again in a moment");
+            return;
+        }
+        int quantity = 1;
+        String sku = input;
+        int star = input.indexOf('*');
+        if (star > 0) {
+            try {
+                quantity = Integer.parseInt(input.substring(0, star).trim());
+            } catch (NumberFormatException nfe) {
+                quantity = 0;
+            }
+            sku = input.substring(star + 1).trim();
+        }
+        if (quantity <= 0) {
+            statusLabel.setText("Invalid quantity in \"" + input + "\"");
+            return;
+        }
+        int slot = current.lookup(sku);
+        if (slot < 0) {
+            statusLabel.setText("Unknown SKU " + sku);
+            return;
+        }
+        int productId = current.productId(slot);
+        int wanted = basket.quantityOf(productId) + quantity;
+        if (wanted > current.stock(slot)) {
+            statusLabel.setText("Only " + current.stock(slot) + " of " + current.name(slot) + " in stock");
+            return;
+        }
+        basket.add(productId, current.name(slot), current.priceCents(slot), quantity);
+        statusLabel.setText("Added " + quantity + " x " + current.name(slot));
+        refreshBasket();
+    }
+
+    private void removeSelectedLine() {
+        int selected = basketList.getSelectionModel().getSelectedIndex();
+        if (selected < 0) {
+            Utility.showAlert(Alert.AlertType.ERROR, "No Line Selected", "Please select a line of the basket to remove.");
+            return;
+        }
+        basket.remove(rowProductIds.get(selected));
+        refreshBasket();
+        scanField.requestFocus();
+    }
+
+    private void refreshBasket() {
+        List<String> rows = new ArrayList<>();
+        rowProductIds.clear();
+        for (Basket.Line line : basket.lines()) {
+            rows.add(line.getQuantity() + " x " + line.getName() + " @ $" + Money.format(line.getPriceCents())
+                    + " = $" + Money.format(Money.times(line.getPriceCents(), line.getQuantity())));
+            rowProductIds.add(line.getProductId());
+        }
+        basketRows.setAll(rows);
+        totalLabel.setText("Total: $" + Money.format(basket.totalCents()));
+        commitButton.setDisable(basket.isEmpty());
+    }
+
+    /**
+     * Buys the basket on a background thread. If any product ran short in the meantime,
+     * nothing is bought and the basket stays as it is.
+     */
+    private void commitBasket() {
+        if (basket.isEmpty()) {
+            return;
+        }
+        List<Basket.Line> lines = basket.lines();
+        int locationId = index != null ? index.locationId() : location.getAsInt();
+        controls.setDisable(true);
+        scanField.setDisable(true);
+        statusLabel.setText("Committing basket...");
+        Thread committer = new Thread(() -> {
+            try (Connection conn = DatabaseConnector.getConnection()) {
+                PurchaseService.BasketResult result = PurchaseService.purchaseBasket(conn, lines, locationId, userId);
+                Platform.runLater(() -> finishCommit(result, locationId));
+            } catch (SQLException e) {
+                AppLogger.logError("Error committing the basket", e);
+                Platform.runLater(() -> {
+                    controls.setDisable(false);
+                    scanField.setDisable(false);
+                    refreshBasket();
+                    statusLabel.setText("Commit failed");
+                    Utility.showAlert(Alert.AlertType.ERROR, "Purchase Failed", e.getMessage());
+                });
+            }
+        }, "basket-commit");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    private void finishCommit(PurchaseService.BasketResult result, int locationId) {
+        List<Basket.Line> shortLines = result.getShortLines();
+        controls.setDisable(false);
+        scanField.setDisable(false);
+        SkuIndex current = index;
+        if (shortLines.isEmpty()) {
+            AppLogger.logInfo("Rapid checkout basket committed: " + basket.lines().size() + " lines, $" + Money.format(result.getChargedCents()));
+            statusLabel.setText("Basket bought for $" + Money.format(result.getChargedCents()));
+            if (current != null && current.locationId() == locationId) {
+                for (Basket.Line line : basket.lines()) {
+                    current.take(line.getProductId(), line.getQuantity());
+                }
+            }
+            basket.clear();
+            onCommitted.run();
+            if (current == null || current.ageSeconds() >= Constants.SKU_INDEX_RELOAD_SECONDS) {
+                reloadIndex();
+            }
+        } else {
+            List<String> names = new ArrayList<>();
+            for (Basket.Line line : shortLines) {
+                names.add(line.getName() + " (" + line.getQuantity() + " wanted)");
+            }
+            statusLabel.setText("Not enough stock, nothing was bought");
+            // The index held more stock than there was, so it missed sales made elsewhere.
+            reloadIndex();
+            Utility.showAlert(Alert.AlertType.ERROR, "Purchase Failed", "Not enough stock available for:\n" + String.join("\n", names));
+        }
+        refreshBasket();
+        scanField.requestFocus();
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.controller;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.*;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.util.Duration;
+import javafx.util.StringConverter;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import com.example.model.DatabaseConnector;
+import com.example.model.Money;
+import com.example.model.SalesColumnStore;
+import com.example.util.AppLogger;
+import com.example.util.Downsampler;
+import com.example.util.Utility;
+
+/**
+ * The SalesTrendChart class plots units or revenue over time for one product or all products.
+ * Sales are summed into time buckets in the in-memory column store at a few buckets per
+ * pixel and then reduced to the chart width with LTTB, so a multi-year history draws as fast
+ * as a single day. Zooming narrows the visible range and re-queries at the finer resolution.
+ */
+public class SalesTrendChart {
+
+    private static final String ALL_PRODUCTS = "All products";
+    private static final String METRIC_UNITS = "Units sold";
+    private static final String METRIC_REVENUE = "Revenue ($)";
+    private static final int BUCKETS_PER_POINT = 4;
+    private static final long MIN_BUCKET_SECONDS = 60;
+    private static final long MIN_VISIBLE_SECONDS = 3_600;
+    private static final double ZOOM_FACTOR = 0.5;
+
+    private final SalesColumnStore salesStore;
+    private final Map<String, Integer> productIds = new HashMap<>();
+    private final AtomicInteger generation = new AtomicInteger();
+    private final PauseTransition requeryDelay = new PauseTransition(Duration.millis(150));
+
+    private NumberAxis timeAxis;
+    private LineChart<Number, Number> chart;
+    private ComboBox<String> productBox;
+    private ComboBox<String> metricBox;
+    private Label statusLabel;
+    private long viewFrom;
+    private long viewTo;
+
+    /**
+     * Constructor for SalesTrendChart.
+     *
+     * @param salesStore the in-memory sales columns to query
+     */
+    public SalesTrendChart(SalesColumnStore salesStore) {
+        this.salesStore = salesStore;
+    }
+
+    /**
+     * Creates the chart together with its product, metric and zoom controls.
+     *
+     * @return the VBox containing the chart
+     */
+    public VBox createPanel() {
+        timeAxis = new NumberAxis();
+        timeAxis.setAutoRanging(false);
+        timeAxis.setTickLabelFormatter(new StringConverter<Number>() {
+            @Override
+            public String toString(Number epochSecond) {
+                DateTimeFormatter format = viewTo - viewFrom > 2 * 86_400L
+                        ? DateTimeFormatter.ofPattern("yyyy-MM-dd") : DateTimeFormatter.ofPattern("MM-dd HH:mm");
+                return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond.longValue()), ZoneId.systemDefault()).format(format);
+            }
+
+            @Override
+            public Number fromString(String text) {
+                return 0;
+            }
+        });
+        NumberAxis valueAxis = new NumberAxis();
+        chart = new LineChart<>(timeAxis, valueAxis);
+        chart.setAnimated(false);
+        chart.setCreateSymbols(false);
+        chart.setLegendVisible(false);
+        chart.setMinHeight(250);
+        chart.addEventHandler(ScrollEvent.SCROLL, this::zoomOnScroll);
+
+        productBox = new ComboBox<>();
+        productBox.getStyleClass().add("comboBox");
+        productBox.getItems().add(ALL_PRODUCTS);
+        productBox.getSelectionModel().selectFirst();
+        productBox.setOnShowing(e -> loadProductNames());
+        productBox.setOnAction(e -> requery());
+
+        metricBox = new ComboBox<>();
+        metricBox.getStyleClass().add("comboBox");
+        metricBox.getItems().addAll(METRIC_UNITS, METRIC_REVENUE);
+        metricBox.getSelectionModel().selectFirst();
+        metricBox.setOnAction(e -> requery());
+
+        Button zoomInButton = new Button("Zoom In");
+        zoomInButton.setOnAction(e -> zoom(ZOOM_FACTOR, 0.5));
+        Button zoomOutButton = new Button("Zoom Out");
+        zoomOutButton.setOnAction(e -> zoom(1 / ZOOM_FACTOR, 0.5));
+        Button resetButton = new Button("Full History");
+        resetButton.setOnAction(e -> showFullHistory());
+
+        statusLabel = new Label("Scroll over the chart to zoom.");
+        requeryDelay.setOnFinished(e -> requery());
+
+        HBox controls = new HBox(10, productBox, metricBox, zoomInButton, zoomOutButton, resetButton);
+        VBox vBox = new VBox(10, controls, chart, statusLabel);
+        VBox.setVgrow(chart, Priority.ALWAYS);
+        showFullHistory();
+        return vBox;
+    }
+
+    /**
+     * Shows everything from the oldest sale up to now.
+     */
+    private void showFullHistory() {
+        viewTo = Instant.now().getEpochSecond() + 1;
+        viewFrom = viewTo - 30 * 86_400L;
+        runQuery(true);
+    }
+
+    /**
+     * Re-queries the visible range at the resolution matching the current zoom level.
+     */
+    private void requery() {
+        runQuery(false);
+    }
+
+    private void zoomOnScroll(ScrollEvent event) {
+        if (event.getDeltaY() == 0) {
+            return;
+        }
+        double plotWidth = timeAxis.getWidth();
+        double anchor = plotWidth > 0 ? timeAxis.sceneToLocal(event.getSceneX(), event.getSceneY()).getX() / plotWidth : 0.5;
+        zoom(event.getDeltaY() > 0 ? ZOOM_FACTOR : 1 / ZOOM_FACTOR, Math.max(0, Math.min(1, anchor)));
+        event.consume();
+    }
+
+    /**
+     * Scales the visible range around an anchor and schedules a re-query. The axis is
+     * updated at once so zooming feels immediate; rapid scrolling is coalesced into a
+     * single query once it pauses.
+     *
+     * @param factor the factor to scale the visible span by
+     * @param anchor the position of the fixed point, from 0 (left edge) to 1 (right edge)
+     */
+    private void zoom(double factor, double anchor) {
+        long span = viewTo - viewFrom;
+        long newSpan = Math.max(MIN_VISIBLE_SECONDS, (long) (span * factor));
+        long center = viewFrom + (long) (span * anchor);
+        long newFrom = center - (long) (newSpan * anchor);
+        long newTo = newFrom + newSpan;
+        long now = Instant.now().getEpochSecond() + 1;
+        if (newTo > now) {
+            newFrom -= newTo - now;
+            newTo = now;
+        }
+        viewFrom = newFrom;
+        viewTo = newTo;
+        timeAxis.setLowerBound(viewFrom);
+        timeAxis.setUpperBound(viewTo);
+        timeAxis.setTickUnit(Math.max(1, (viewTo - viewFrom) / 8.0));
+        requeryDelay.playFromStart();
+    }
+
+    /**
+     * Buckets, downsamples and plots the visible range on a background thread. Results
+     * of a query that was superseded while running are dropped.
+     *
+     * @param fullHistory whether to first widen the range to the oldest loaded sale
+     */
+    private void runQuery(boolean fullHistory) {
+        int request = generation.incrementAndGet();
+        int productId = productIds.getOrDefault(productBox.getValue(), 0);
+        boolean revenue = METRIC_REVENUE.equals(metricBox.getValue());
+        int points = Math.max(100, (int) (chart.getWidth() > 0 ? chart.getWidth() : 800));
+        long visibleFrom = viewFrom;
+        long visibleTo = viewTo;
+        statusLabel.setText("Loading...");
+
+        Thread worker = new Thread(() -> {
+            try {
+                salesStore.refresh();
+                long started = System.nanoTime();
+                long from = visibleFrom;
+                long to = visibleTo;
+                if (fullHistory && salesStore.size() > 0) {
+                    from = Math.min(from, salesStore.oldestSaleTime());
+                }
+                long bucketSeconds = Math.max(MIN_BUCKET_SECONDS, (to - from) / ((long) points * BUCKETS_PER_POINT) + 1);
+                long[][] totals = salesStore.bucketTotals(new SalesColumnStore.SalesFilter(from, to, productId, 0), bucketSeconds);
+                long[] values = totals[revenue ? 1 : 0];
+
+                double[] x = new double[values.length];
+                double[] y = new double[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    x[i] = from + i * bucketSeconds + bucketSeconds / 2.0;
+                    y[i] = revenue ? Money.toDecimal(values[i]).doubleValue() : values[i];
+                }
+                int[] kept = Downsampler.largestTriangleThreeBuckets(x, y, points);
+                List<XYChart.Data<Number, Number>> data = new ArrayList<>(kept.length);
+                for (int index : kept) {
+                    data.add(new XYChart.Data<>(x[index], y[index]));
+                }
+                String status = String.format("%,d buckets of %s reduced to %,d points in %d ms. Scroll over the chart to zoom.",
+                        values.length, describe(bucketSeconds), kept.length, (System.nanoTime() - started) / 1_000_000);
+                long rangeFrom = from;
+                long rangeTo = to;
+                Platform.runLater(() -> {
+                    if (request != generation.get()) {
+                        return;
+                    }
+                    viewFrom = rangeFrom;
+                    viewTo = rangeTo;
+                    timeAxis.setLowerBound(rangeFrom);
+                    timeAxis.setUpperBound(rangeTo);
+                    timeAxis.setTickUnit(Math.max(1, (rangeTo - rangeFrom) / 8.0));
+                    XYChart.Series<Number, Number> series = new XYChart.Series<>();
+                    series.getData().setAll(data);
+                    chart.getData().setAll(Collections.singletonList(series));
+                    statusLabel.setText(status);
+                });
+            } catch (SQLException ex) {
+                AppLogger.logError("Error loading sales trend", ex);
+                Platform.runLater(() -> {
+                    statusLabel.setText("Loading failed.");
+                    Utility.showAlert(Alert.AlertType.ERROR, "Sales Trend Error", ex.getMessage());
+                });
+            }
+        }, "sales-trend-query");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Loads the product names and IDs into the product selector.
+     */
+    private void loadProductNames() {
+        String selected = productBox.getValue();
+        List<String> names = new ArrayList<>();
+        names.add(ALL_PRODUCTS);
+        productIds.clear();
+        try (Connection conn = DatabaseConnector.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT product_id, name FROM Products WHERE deleted_at IS NULL ORDER BY name");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                names.add(rs.getString("name"));
+                productIds.put(rs.getString("name"), rs.getInt("product_id"));
+            }
+            productBox.getItems().setAll(names);
+            productBox.setValue(selected);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static String describe(long seconds) {
+        if (seconds >= 86_400L) {
+            return String.format("%.1f days", seconds / 86_400.0);
+        }
+        if (seconds >= 3_600L) {
+            return String.format("%.1f hours", seconds / 3_600.0);
+        }
+        return String.format("%.1f minutes", seconds / 60.0);
+    }
+}
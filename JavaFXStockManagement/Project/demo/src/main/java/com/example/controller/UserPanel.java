@@ -4,9 +4,9 @@ import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.image.Image;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
@@ -16,28 +16,59 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import com.example.util.Constants;
+import com.example.util.FxStallDetector;
 import com.example.util.Utility;
 import com.example.util.AppLogger;
 import com.example.model.DatabaseConnector;
+import com.example.model.LocalStore;
+import com.example.model.LocationStock;
+import com.example.model.Money;
+import com.example.model.PriceIndex;
+import com.example.model.PurchaseService;
+import com.example.model.SalesLogQuery;
+import com.example.model.SyncService;
 
 /**
  * The UserPanel class handles the functionalities related to the user interface.
  */
 public class UserPanel {
     private final App app;
+    private final int userId;
     private final String username;
+    private ListView<String> productList;
+    private final Map<String, Integer> productIdsByName = new HashMap<>();
+    private final List<Node> productViewNodes = new ArrayList<>();
+    private RapidCheckoutPanel rapidCheckout;
+    private VBox rapidCheckoutView;
+    private LocalStore localStore;
+    private SyncService syncService;
+    private final Label syncStatusLabel = new Label();
+    private int locationId = Constants.DEFAULT_LOCATION_ID;
+    private Stage purchaseStage;
+    private ListView<String> purchaseList;
+    private Button loadMorePurchasesButton;
+    private SalesLogQuery.SaleRow purchaseCursor;
+
+    private static final DateTimeFormatter PURCHASE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     /**
      * Constructor for UserPanel.
      *
      * @param app      the application instance
+     * @param userId   the ID of the user
      * @param username the username of the user
      */
-    public UserPanel(App app, String username) {
+    public UserPanel(App app, int userId, String username) {
         this.app = app;
+        this.userId = userId;
         this.username = username;
     }
 
@@ -49,7 +80,11 @@ public class UserPanel {
     public void start(Stage stage) {
         stage.setTitle("User Dashboard - Welcome " + username);
 
-        ListView<String> productList = new ListView<>();
+        productList = new ListView<>();
+        productList.setCellFactory(ProductImageCell.factory(item -> productIdsByName.getOrDefault(item.split(" - ")[0], 0)));
+        if (Constants.OFFLINE_MODE) {
+            startOfflineMode();
+        }
         loadProducts(productList);
         productList.getStyleClass().add("list-view");
 
@@ -63,14 +98,62 @@ public class UserPanel {
         Button logoutButton = new Button("Log out");
         logoutButton.getStyleClass().addAll("button", "logout-button");
 
+        Button purchasesButton = new Button("My Purchases");
+        purchasesButton.getStyleClass().add("button");
+        purchasesButton.setOnAction(event -> {
+            showPurchaseHistory();
+            logUserAction("My Purchases button clicked");
+        });
+
         buyButton.setOnAction(event -> handleBuyAction(productList, quantityField));
         logoutButton.setOnAction(event -> handleLogoutAction(stage));
 
-        VBox sidebar = new VBox(20, buyButton, logoutButton);
+        ComboBox<LocationStock.Location> locationBox = new ComboBox<>();
+        locationBox.setMaxWidth(Double.MAX_VALUE);
+        loadLocations(locationBox);
+        // The local store only mirrors this terminal's location, so it cannot be switched offline.
+        locationBox.setDisable(localStore != null);
+        locationBox.setOnAction(event -> {
+            LocationStock.Location selected = locationBox.getValue();
+            if (selected != null && selected.getLocationId() != locationId) {
+                locationId = selected.getLocationId();
+                loadProducts(productList);
+                if (rapidCheckout != null) {
+                    rapidCheckout.reloadIndex();
+                }
+                logUserAction("Location changed to " + selected.getName());
+            }
+        });
+
+        VBox sidebar = new VBox(20, new VBox(5, new Label("Location:"), locationBox), buyButton, purchasesButton, logoutButton);
+        if (syncService != null) {
+            Button syncButton = new Button("Sync Now");
+            syncButton.getStyleClass().add("button");
+            syncButton.setOnAction(event -> {
+                syncStatusLabel.setText("Syncing...");
+                syncService.syncNow();
+                logUserAction("Sync button clicked");
+            });
+            sidebar.getChildren().add(2, syncButton);
+        }
         sidebar.setPadding(new Insets(20));
         sidebar.getStyleClass().add("sidebar");
 
         VBox mainContent = new VBox(20, productList, quantityField);
+        if (syncService != null) {
+            mainContent.getChildren().add(0, syncStatusLabel);
+        }
+
+        // Scanned baskets are bought straight against the central database, so rapid
+        // checkout is only offered when the panel is not working from the local store.
+        Button checkoutButton = new Button("Rapid Checkout");
+        checkoutButton.getStyleClass().add("button");
+        checkoutButton.setDisable(syncService != null);
+        checkoutButton.setOnAction(event -> {
+            toggleRapidCheckout(mainContent, buyButton, checkoutButton);
+            logUserAction("Rapid Checkout button clicked");
+        });
+        sidebar.getChildren().add(2, checkoutButton);
         mainContent.setPadding(new Insets(20));
         mainContent.getStyleClass().add("main-content");
         VBox.setVgrow(productList, Priority.ALWAYS);
@@ -79,8 +162,7 @@ public class UserPanel {
         layout.getStyleClass().add("user-panel");
         HBox.setHgrow(mainContent, Priority.ALWAYS);
 
-        Image icon = new Image(getClass().getResourceAsStream(Constants.ICON_PATH));
-        stage.getIcons().add(icon);
+        stage.getIcons().add(Utility.appIcon());
 
         Scene scene = new Scene(layout, 800, 600);
         scene.getStylesheets().add(getClass().getResource(Constants.USER_PANEL_STYLE_PATH).toExternalForm());
@@ -121,6 +203,37 @@ public class UserPanel {
         logUserAction("Buy button clicked");
     }
 
+    /**
+     * Switches the main content between the product list and the rapid checkout panel.
+     * The checkout panel is created on first use and keeps its basket while hidden.
+     *
+     * @param mainContent    the container of the main content
+     * @param buyButton      the button buying the selected product
+     * @param checkoutButton the button switching the view
+     */
+    private void toggleRapidCheckout(VBox mainContent, Button buyButton, Button checkoutButton) {
+        if (rapidCheckout != null && mainContent.getChildren().contains(rapidCheckoutView)) {
+            mainContent.getChildren().setAll(productViewNodes);
+            buyButton.setDisable(false);
+            checkoutButton.setText("Rapid Checkout");
+            loadProducts(productList);
+            return;
+        }
+        if (rapidCheckout == null) {
+            rapidCheckout = new RapidCheckoutPanel(() -> locationId, userId, () -> loadProducts(productList));
+            rapidCheckoutView = rapidCheckout.createPanel();
+            VBox.setVgrow(rapidCheckoutView, Priority.ALWAYS);
+        } else {
+            rapidCheckout.reloadIndex();
+        }
+        productViewNodes.clear();
+        productViewNodes.addAll(mainContent.getChildren());
+        mainContent.getChildren().setAll(rapidCheckoutView);
+        buyButton.setDisable(true);
+        checkoutButton.setText("Product List");
+        rapidCheckout.focus();
+    }
+
     /**
      * Handles the logout action when the logout button is clicked.
      *
@@ -148,6 +261,10 @@ public class UserPanel {
      * @param stage the current stage
      */
     private void logout(Stage stage) {
+        stopOfflineMode();
+        if (purchaseStage != null) {
+            purchaseStage.close();
+        }
         stage.close();
         app.showLoginScreen();
     }
@@ -158,16 +275,65 @@ public class UserPanel {
      * @param productList the list view to display the products
      */
     private void loadProducts(ListView<String> productList) {
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement stmt = conn.prepareStatement("SELECT name, price, quantity FROM Products WHERE quantity > 0")) {
-            ResultSet rs = stmt.executeQuery();
+        if (localStore != null) {
+            try {
+                ObservableList<String> items = FXCollections.observableArrayList();
+                productIdsByName.clear();
+                for (LocalStore.CatalogProduct product : localStore.loadProducts()) {
+                    productIdsByName.put(product.getName(), product.getProductId());
+                    items.add(product.getName() + " - Price: $" + Money.format(product.getPriceCents()) + " - Stock: " + product.getQuantity());
+                }
+                productList.setItems(items);
+            } catch (SQLException e) {
+                AppLogger.logError("Error loading products from the local store", e);
+            }
+            return;
+        }
+        FxStallDetector.Operation operation = FxStallDetector.shared().begin("Load products");
+        try (Connection conn = DatabaseConnector.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "SELECT p.product_id, p.name, p.price, ps.quantity FROM product_stock ps JOIN Products p ON p.product_id = ps.product_id "
+                             + "WHERE ps.location_id = ? AND ps.quantity > 0 AND p.deleted_at IS NULL")) {
+            stmt.setInt(1, locationId);
+            PriceIndex prices = PriceIndex.shared();
+            prices.refreshIfStale(conn);
             ObservableList<String> items = FXCollections.observableArrayList();
-            while (rs.next()) {
-                items.add(rs.getString("name") + " - Price: $" + rs.getDouble("price") + " - Stock: " + rs.getInt("quantity"));
+            productIdsByName.clear();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    productIdsByName.put(rs.getString("name"), rs.getInt("product_id"));
+                    long priceCents = prices.priceCents(rs.getInt("product_id"), Money.read(rs, "price"));
+                    items.add(rs.getString("name") + " - Price: $" + Money.format(priceCents) + " - Stock: " + rs.getInt("quantity"));
+                }
             }
             productList.setItems(items);
         } catch (SQLException e) {
             e.printStackTrace();
+        } finally {
+            operation.close();
+        }
+    }
+
+    /**
+     * Loads the locations and selects the current one.
+     *
+     * @param locationBox the combo box to populate
+     */
+    private void loadLocations(ComboBox<LocationStock.Location> locationBox) {
+        if (localStore != null) {
+            locationBox.setPromptText("Location " + locationId);
+            return;
+        }
+        try (Connection conn = DatabaseConnector.getReadConnection()) {
+            List<LocationStock.Location> locations = LocationStock.loadLocations(conn);
+            locationBox.getItems().setAll(locations);
+            for (LocationStock.Location location : locations) {
+                if (location.getLocationId() == locationId) {
+                    locationBox.setValue(location);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
         }
     }
 
@@ -178,84 +344,159 @@ public class UserPanel {
      * @param quantity the quantity to purchase
      */
     private void purchaseProduct(String selectedProduct, int quantity) {
+        if (localStore != null) {
+            purchaseProductLocally(selectedProduct, quantity);
+            return;
+        }
+        FxStallDetector.Operation operation = FxStallDetector.shared().begin("Purchase " + selectedProduct);
         try (Connection conn = DatabaseConnector.getConnection()) {
-            PreparedStatement updateStmt = conn.prepareStatement(
-                    "UPDATE Products SET quantity = quantity - ? WHERE name = ? AND quantity >= ?");
-            updateStmt.setInt(1, quantity);
-            updateStmt.setString(2, selectedProduct);
-            updateStmt.setInt(3, quantity);
-
-            int updatedRows = updateStmt.executeUpdate();
-            if (updatedRows > 0) {
-                recordSale(conn, selectedProduct, quantity);
-                Platform.runLater(() -> Utility.showAlert(Alert.AlertType.INFORMATION, "Purchase Successful", "You have successfully purchased " + quantity + " units of " + selectedProduct));
-            } else {
-                Platform.runLater(() -> Utility.showAlert(Alert.AlertType.ERROR, "Purchase Failed", "Not enough stock available."));
+            PurchaseService.Result result = PurchaseService.purchase(conn, selectedProduct, quantity, locationId, userId);
+            switch (result) {
+                case PURCHASED:
+                    Platform.runLater(() -> Utility.showAlert(Alert.AlertType.INFORMATION, "Purchase Successful", "You have successfully purchased " + quantity + " units of " + selectedProduct));
+                    break;
+                case PRODUCT_NOT_FOUND:
+                    Platform.runLater(() -> Utility.showAlert(Alert.AlertType.ERROR, "Purchase Failed", "Product not found."));
+                    break;
+                default:
+                    Platform.runLater(() -> Utility.showAlert(Alert.AlertType.ERROR, "Purchase Failed", "Not enough stock available."));
+                    break;
             }
         } catch (SQLException e) {
             e.printStackTrace();
+        } finally {
+            operation.close();
         }
     }
 
     /**
-     * Records the sale in the database.
+     * Purchases a product from the local store and queues the sale for synchronisation.
      *
-     * @param conn          the database connection
-     * @param productName   the name of the product
-     * @param quantity      the quantity sold
-     * @throws SQLException if an SQL error occurs
+     * @param selectedProduct the name of the selected product
+     * @param quantity the quantity to purchase
      */
-    private void recordSale(Connection conn, String productName, int quantity) throws SQLException {
-        int productId = findProductId(conn, productName);
-        if (productId == -1) {
-            Platform.runLater(() -> Utility.showAlert(Alert.AlertType.ERROR, "Purchase Failed", "Product not found."));
-            return;
+    private void purchaseProductLocally(String selectedProduct, int quantity) {
+        try {
+            if (localStore.purchase(selectedProduct, quantity, userId)) {
+                loadProducts(productList);
+                syncService.syncNow();
+                Utility.showAlert(Alert.AlertType.INFORMATION, "Purchase Successful", "You have successfully purchased " + quantity + " units of " + selectedProduct);
+            } else {
+                Utility.showAlert(Alert.AlertType.ERROR, "Purchase Failed", "Not enough stock available.");
+            }
+        } catch (SQLException e) {
+            AppLogger.logError("Error recording purchase in the local store", e);
+            Utility.showAlert(Alert.AlertType.ERROR, "Purchase Failed", e.getMessage());
         }
+    }
 
-        double price = findProductPrice(conn, productId);
+    /**
+     * Shows the user's purchases, newest first, in a window of its own. The first page is
+     * loaded right away and further pages on request, each after the last row shown.
+     */
+    private void showPurchaseHistory() {
+        if (purchaseStage == null) {
+            purchaseList = new ListView<>();
+            purchaseList.getStyleClass().add("list-view");
+            loadMorePurchasesButton = new Button("Load More");
+            loadMorePurchasesButton.getStyleClass().add("button");
+            loadMorePurchasesButton.setOnAction(event -> loadMorePurchases());
+
+            VBox content = new VBox(10, purchaseList, loadMorePurchasesButton);
+            content.setPadding(new Insets(20));
+            content.getStyleClass().add("main-content");
+            VBox.setVgrow(purchaseList, Priority.ALWAYS);
+
+            Scene scene = new Scene(content, 600, 500);
+            scene.getStylesheets().add(getClass().getResource(Constants.USER_PANEL_STYLE_PATH).toExternalForm());
+            purchaseStage = new Stage();
+            purchaseStage.setTitle("My Purchases - " + username);
+            purchaseStage.getIcons().add(Utility.appIcon());
+            purchaseStage.setScene(scene);
+        }
+        purchaseList.getItems().clear();
+        purchaseCursor = null;
+        loadMorePurchases();
+        purchaseStage.show();
+        purchaseStage.toFront();
+    }
 
-        PreparedStatement saleStmt = conn.prepareStatement(
-                "INSERT INTO Sales (product_id, quantity_sold, sale_date, total_price) VALUES (?, ?, NOW(), ?)");
-        saleStmt.setInt(1, productId);
-        saleStmt.setInt(2, quantity);
-        saleStmt.setDouble(3, price * quantity);
-        saleStmt.executeUpdate();
+    /**
+     * Loads the next page of the user's purchases and appends it to the purchase list.
+     */
+    private void loadMorePurchases() {
+        try (Connection conn = DatabaseConnector.getReadConnection()) {
+            SalesLogQuery.Page page = SalesLogQuery.forUser(userId).fetch(conn, purchaseCursor, Constants.PURCHASE_HISTORY_PAGE_SIZE);
+            List<String> purchases = new ArrayList<>();
+            for (SalesLogQuery.SaleRow sale : page.getRows()) {
+                purchases.add(String.format("%s - %s x %d - $%s", sale.getSaleDate().format(PURCHASE_DATE_FORMAT),
+                        sale.getProductName(), sale.getQuantity(), Money.format(sale.getTotalCents())));
+            }
+            purchaseList.getItems().addAll(purchases);
+            if (page.last() != null) {
+                purchaseCursor = page.last();
+            }
+            loadMorePurchasesButton.setDisable(!page.hasMore());
+        } catch (SQLException e) {
+            AppLogger.logError("Error loading purchase history", e);
+            Utility.showAlert(Alert.AlertType.ERROR, "Purchase History",
+                    "Your purchases could not be loaded from the central database: " + e.getMessage());
+        }
     }
 
     /**
-     * Finds the product ID by its name.
-     *
-     * @param conn          the database connection
-     * @param productName   the name of the product
-     * @return the product ID, or -1 if not found
-     * @throws SQLException if an SQL error occurs
+     * Opens the local store and starts background synchronisation with the central database.
+     * Falls back to working directly against the central database if the store cannot be opened.
      */
-    private int findProductId(Connection conn, String productName) throws SQLException {
-        PreparedStatement stmt = conn.prepareStatement("SELECT product_id FROM Products WHERE name = ?");
-        stmt.setString(1, productName);
-        ResultSet rs = stmt.executeQuery();
-        if (rs.next()) {
-            return rs.getInt("product_id");
+    private void startOfflineMode() {
+        try {
+            localStore = new LocalStore(Constants.LOCAL_DB_PATH);
+        } catch (SQLException e) {
+            AppLogger.logError("Error opening the local store, using the central database", e);
+            return;
         }
-        return -1;
+        syncStatusLabel.setText("Connecting to the central database...");
+        syncService = new SyncService(localStore, result -> Platform.runLater(() -> handleSyncResult(result)));
+        syncService.start();
     }
 
     /**
-     * Finds the product price by its ID.
+     * Shows the outcome of a sync round and refreshes the product list.
      *
-     * @param conn       the database connection
-     * @param productId  the product ID
-     * @return the product price
-     * @throws SQLException if an SQL error occurs
+     * @param result the outcome of the sync round
+     */
+    private void handleSyncResult(SyncService.SyncResult result) {
+        if (localStore == null) {
+            return;
+        }
+        if (result.isOnline()) {
+            syncStatusLabel.setText("Online - " + result.getPending() + " sales waiting to sync");
+        } else {
+            syncStatusLabel.setText("Offline - " + result.getPending() + " sales waiting to sync");
+        }
+        loadProducts(productList);
+        if (!result.getRejections().isEmpty()) {
+            Utility.showAlert(Alert.AlertType.WARNING, "Sales Rejected",
+                    "The central database did not have enough stock for:\n" + String.join("\n", result.getRejections()));
+        }
+    }
+
+    /**
+     * Stops synchronisation and closes the local store.
      */
-    private double findProductPrice(Connection conn, int productId) throws SQLException {
-        PreparedStatement stmt = conn.prepareStatement("SELECT price FROM Products WHERE product_id = ?");
-        stmt.setInt(1, productId);
-        ResultSet rs = stmt.executeQuery();
-        if (rs.next()) {
-            return rs.getDouble("price");
+    private void stopOfflineMode() {
+        if (syncService != null) {
+            syncService.stop();
+            syncService = null;
+        }
+        if (localStore != null) {
+            try {
+                localStore.close();
+            } catch (SQLException e) {
+                AppLogger.logError("Error closing the local store", e);
+            }
+            localStore = null;
         }
-        return 0;
     }
 
     /**
@@ -0,0 +1,116 @@
+package com.example.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Basket class accumulates scanned products until they are bought together.
+ * Scanning the same product again increases the quantity of its existing line.
+ */
+public class Basket {
+
+    private final Map<Integer, Line> lines = new LinkedHashMap<>();
+
+    /**
+     * Adds units of a product to the basket.
+     *
+     * @param productId  the ID of the product
+     * @param name       the name of the product
+     * @param priceCents the unit price in cents
+     * @param quantity   the number of units to add
+     * @return the line holding the product
+     */
+    public Line add(int productId, String name, long priceCents, int quantity) {
+        Line line = lines.get(productId);
+        if (line == null) {
+            line = new Line(productId, name, priceCents);
+            lines.put(productId, line);
+        }
+        line.quantity += quantity;
+        return line;
+    }
+
+    /**
+     * Removes the line of a product.
+     *
+     * @param productId the ID of the product
+     */
+    public void remove(int productId) {
+        lines.remove(productId);
+    }
+
+    /**
+     * Returns the lines in the order they were first scanned.
+     *
+     * @return the lines of the basket
+     */
+    public List<Line> lines() {
+        return new ArrayList<>(lines.values());
+    }
+
+    /**
+     * Returns the quantity of a product already in the basket.
+     *
+     * @param productId the ID of the product
+     * @return the quantity, or 0 if the product is not in the basket
+     */
+    public int quantityOf(int productId) {
+        Line line = lines.get(productId);
+        return line == null ? 0 : line.quantity;
+    }
+
+    /**
+     * Returns the total of the basket at the prices shown when scanning.
+     *
+     * @return the total in cents
+     */
+    public long totalCents() {
+        long total = Money.ZERO;
+        for (Line line : lines.values()) {
+            total = Money.add(total, Money.times(line.priceCents, line.quantity));
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+
+    public void clear() {
+        lines.clear();
+    }
+
+    /**
+     * One product in the basket.
+     */
+    public static final class Line {
+        private final int productId;
+        private final String name;
+        private final long priceCents;
+        private int quantity;
+
+        Line(int productId, String name, long priceCents) {
+            this.productId = productId;
+            this.name = name;
+            this.priceCents = priceCents;
+        }
+
+        public int getProductId() {
+            return productId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getPriceCents() {
+            return priceCents;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package com.example.model;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.example.util.AppLogger;
+
+/**
+ * The ConnectionPool class keeps a bounded set of physical JDBC connections open and hands
+ * them out as proxies whose {@code close()} returns the connection to the pool.
+ * Prepared statements are served from a {@link StatementRegistry} owned by the physical
+ * connection, and every statement and result set is tracked by the
+ * {@link ResourceLeakDetector} until it is closed.
+ */
+final class ConnectionPool {
+
+    private static final long VALIDATE_AFTER_IDLE_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final String url;
+    private final Properties properties;
+    private final int maxSize;
+    private final long waitNanos;
+    private final ArrayDeque<PhysicalConnection> idle = new ArrayDeque<>();
+    private int total;
+    private volatile Runnable writeListener = () -> { };
+
+    /**
+     * Constructor for ConnectionPool.
+     *
+     * @param url         the JDBC URL
+     * @param properties  the driver properties, including user and password
+     * @param maxSize     the maximum number of physical connections
+     * @param waitSeconds how long a caller waits for a free connection before failing
+     */
+    ConnectionPool(String url, Properties properties, int maxSize, long waitSeconds) {
+        this.url = url;
+        this.properties = properties;
+        this.maxSize = maxSize;
+        this.waitNanos = TimeUnit.SECONDS.toNanos(waitSeconds);
+    }
+
+    /**
+     * Registers a callback run whenever a borrower executes an update or a batch.
+     *
+     * @param listener the callback, run on the borrowing thread
+     */
+    void onWrite(Runnable listener) {
+        this.writeListener = listener;
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new one if none is idle.
+     *
+     * @return a pooled connection that must be closed to be returned
+     * @throws SQLException if no connection can be obtained
+     */
+    Connection borrow() throws SQLException {
+        while (true) {
+            PhysicalConnection physical = takeIdleOrReserve();
+            if (physical == null) {
+                Connection connection = null;
+                try {
+                    connection = DriverManager.getConnection(url, properties);
+                    physical = new PhysicalConnection(connection);
+                } catch (SQLException ex) {
+                    if (connection != null) {
+                        try {
+                            connection.close();
+                        } catch (SQLException closeEx) {
+                            ex.addSuppressed(closeEx);
+                        }
+                    }
+                    discard(null);
+                    throw ex;
+                }
+            } else if (System.nanoTime() - physical.releasedNanos > VALIDATE_AFTER_IDLE_NANOS && !physical.connection.isValid(2)) {
+                discard(physical);
+                continue;
+            }
+            return physical.lease();
+        }
+    }
+
+    private synchronized PhysicalConnection takeIdleOrReserve() throws SQLException {
+        long deadline = System.nanoTime() + waitNanos;
+        while (true) {
+            PhysicalConnection physical = idle.pollFirst();
+            if (physical != null) {
+                return physical;
+            }
+            if (total < maxSize) {
+                total++;
+                return null;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new SQLException("Timed out waiting for a free database connection");
+            }
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a database connection", ex);
+            }
+        }
+    }
+
+    private void release(PhysicalConnection physical) {
+        boolean healthy;
+        try {
+            if (!physical.connection.getAutoCommit()) {
+                physical.connection.rollback();
+                physical.connection.setAutoCommit(true);
+            }
+            if (physical.sessionChanged) {
+                physical.connection.setTransactionIsolation(physical.defaultIsolation);
+                physical.connection.setReadOnly(false);
+                physical.sessionChanged = false;
+            }
+            healthy = !physical.connection.isClosed();
+        } catch (SQLException ex) {
+            healthy = false;
+        }
+        if (!healthy) {
+            discard(physical);
+            return;
+        }
+        synchronized (this) {
+            physical.releasedNanos = System.nanoTime();
+            idle.addFirst(physical);
+            notifyAll();
+        }
+    }
+
+    private void discard(PhysicalConnection physical) {
+        if (physical != null) {
+            physical.registry.closeAll();
+            try {
+                physical.connection.close();
+            } catch (SQLException ex) {
+                AppLogger.logDebug("Failed to close discarded connection: " + ex.getMessage());
+            }
+        }
+        synchronized (this) {
+            total--;
+            notifyAll();
+        }
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * A physical connection and the prepared statements cached on it.
+     */
+    private final class PhysicalConnection {
+        final Connection connection;
+        final StatementRegistry registry = new StatementRegistry();
+        final int defaultIsolation;
+        volatile long releasedNanos = System.nanoTime();
+        volatile boolean sessionChanged;
+
+        PhysicalConnection(Connection connection) throws SQLException {
+            this.connection = connection;
+            this.defaultIsolation = connection.getTransactionIsolation();
+        }
+
+        Connection lease() {
+            Lease lease = new Lease(this);
+            lease.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, lease);
+            return lease.proxy;
+        }
+    }
+
+    /**
+     * One borrower's view of a physical connection.
+     */
+    private final class Lease implements InvocationHandler {
+        private final PhysicalConnection physical;
+        private final Set<StatementHandle> openStatements = new LinkedHashSet<>();
+        private Connection proxy;
+        private boolean closed;
+
+        Lease(PhysicalConnection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object self, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    close();
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "equals":
+                    return self == args[0];
+                case "hashCode":
+                    return System.identityHashCode(self);
+                case "toString":
+                    return "PooledConnection[" + physical.connection + "]";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Connection is closed");
+            }
+            if ("setTransactionIsolation".equals(method.getName()) || "setReadOnly".equals(method.getName())) {
+                // Undone on release, so the next borrower gets the pool's defaults.
+                physical.sessionChanged = true;
+            }
+            if ("prepareStatement".equals(method.getName()) && isCacheable(args)) {
+                String sql = (String) args[0];
+                PreparedStatement statement = physical.registry.acquire(sql, () -> (PreparedStatement) invokeQuietly(method, args));
+                return wrap(statement, PreparedStatement.class, sql, true);
+            }
+            Object result = invokeTarget(physical.connection, method, args);
+            if (result instanceof Statement) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                return wrap((Statement) result, method.getReturnType(), sql, false);
+            }
+            return result;
+        }
+
+        /**
+         * Only plain forward-only, read-only statements are shared through the cache.
+         */
+        private boolean isCacheable(Object[] args) {
+            if (args.length == 1) {
+                return true;
+            }
+            return args.length == 3
+                    && Integer.valueOf(ResultSet.TYPE_FORWARD_ONLY).equals(args[1])
+                    && Integer.valueOf(ResultSet.CONCUR_READ_ONLY).equals(args[2]);
+        }
+
+        private Object invokeQuietly(Method method, Object[] args) throws SQLException {
+            try {
+                return invokeTarget(physical.connection, method, args);
+            } catch (SQLException | RuntimeException ex) {
+                throw ex;
+            } catch (Throwable t) {
+                throw new SQLException(t);
+            }
+        }
+
+        private Object wrap(Statement statement, Class<?> type, String sql, boolean cached) {
+            StatementHandle handle = new StatementHandle(this, statement, sql, cached);
+            handle.proxy = (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{type}, handle);
+            openStatements.add(handle);
+            ResourceLeakDetector.track(handle, type.getSimpleName(), sql);
+            return handle.proxy;
+        }
+
+        Runnable writeListener() {
+            return writeListener;
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (StatementHandle handle : new ArrayList<>(openStatements)) {
+                handle.reclaim();
+            }
+            release(physical);
+        }
+    }
+
+    /**
+     * A borrower's statement. Closing a cached statement returns it to the registry;
+     * statements whose settings were changed are closed for real instead of being reused.
+     */
+    private static final class StatementHandle implements InvocationHandler {
+        private final Lease lease;
+        private final Statement target;
+        private final String sql;
+        private final boolean cached;
+        private final List<ResultSetHandle> openResults = new ArrayList<>();
+        private Statement proxy;
+        private boolean closed;
+        private boolean modified;
+
+        StatementHandle(Lease lease, Statement target, String sql, boolean cached) {
+            this.lease = lease;
+            this.target = target;
+            this.sql = sql;
+            this.cached = cached;
+        }
+
+        @Override
+        public Object invoke(Object self, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    close();
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "getConnection":
+                    return lease.proxy;
+                case "equals":
+                    return self == args[0];
+                case "hashCode":
+                    return System.identityHashCode(self);
+                case "toString":
+                    return "PooledStatement[" + sql + "]";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement is closed");
+            }
+            if (isSettingChange(name)) {
+                modified = true;
+            }
+            Object result = invokeTarget(target, method, args);
+            if (isWrite(name)) {
+                lease.writeListener().run();
+            }
+            if (result instanceof ResultSet) {
+                ResultSetHandle handle = new ResultSetHandle(this, (ResultSet) result);
+                handle.proxy = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class}, handle);
+                openResults.add(handle);
+                ResourceLeakDetector.track(handle, "ResultSet", sql);
+                return handle.proxy;
+            }
+            return result;
+        }
+
+        private static boolean isWrite(String name) {
+            return "executeUpdate".equals(name) || "executeLargeUpdate".equals(name)
+                    || "executeBatch".equals(name) || "executeLargeBatch".equals(name);
+        }
+
+        private static boolean isSettingChange(String name) {
+            switch (name) {
+                case "setFetchSize":
+                case "setFetchDirection":
+                case "setMaxRows":
+                case "setLargeMaxRows":
+                case "setMaxFieldSize":
+                case "setQueryTimeout":
+                case "setEscapeProcessing":
+                case "setCursorName":
+                case "setPoolable":
+                case "closeOnCompletion":
+                case "addBatch":
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (ResultSetHandle handle : new ArrayList<>(openResults)) {
+                handle.close();
+            }
+            ResourceLeakDetector.untrack(this);
+            lease.openStatements.remove(this);
+            if (cached && !modified) {
+                lease.physical.registry.release(sql, (PreparedStatement) target);
+            } else {
+                try {
+                    target.close();
+                } catch (SQLException ex) {
+                    AppLogger.logDebug("Failed to close statement: " + ex.getMessage());
+                }
+            }
+        }
+
+        /**
+         * Closes a statement its borrower forgot, reporting where it was opened.
+         */
+        void reclaim() {
+            for (ResultSetHandle handle : openResults) {
+                ResourceLeakDetector.reclaim(handle);
+            }
+            ResourceLeakDetector.reclaim(this);
+            close();
+        }
+    }
+
+    /**
+     * A borrower's result set; closing it stops leak tracking.
+     */
+    private static final class ResultSetHandle implements InvocationHandler {
+        private final StatementHandle statement;
+        private final ResultSet target;
+        private ResultSet proxy;
+        private boolean closed;
+
+        ResultSetHandle(StatementHandle statement, ResultSet target) {
+            this.statement = statement;
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object self, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    close();
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "getStatement":
+                    return statement.proxy;
+                case "equals":
+                    return self == args[0];
+                case "hashCode":
+                    return System.identityHashCode(self);
+                default:
+                    return invokeTarget(target, method, args);
+            }
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            ResourceLeakDetector.untrack(this);
+            statement.openResults.remove(this);
+            try {
+                target.close();
+            } catch (SQLException ex) {
+                AppLogger.logDebug("Failed to close result set: " + ex.getMessage());
+            }
+        }
+    }
+}
@@ -1,12 +1,79 @@
 package com.example.model;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import com.example.util.AppLogger;
 import com.example.util.Constants;
 
+/**
+ * The DatabaseConnector class hands out pooled connections to the application database.
+ * Closing a connection returns it to the pool, and prepared statements are cached per
+ * physical connection, so callers should keep preparing and closing statements as usual.
+ *
+ * <p>When {@code stock.dbReplicaUrl} is set, {@link #getReadConnection()} routes read-only
+ * work to that replica while it trails the primary by at most
+ * {@link Constants#REPLICA_MAX_LAG_SECONDS}. For the same period after this process writes
+ * to the primary, reads stay on the primary so users see their own changes. To try it with
+ * two local instances, start the application with e.g.
+ * {@code -Dstock.dbReplicaUrl=jdbc:mysql://localhost:3307/javafx_db}; stopping replication
+ * on the second instance sends reads back to the primary within a few seconds.</p>
+ */
 public class DatabaseConnector {
+    private static final ConnectionPool POOL = new ConnectionPool(Constants.DB_URL, connectionProperties(),
+            Constants.DB_POOL_SIZE, Constants.DB_POOL_WAIT_SECONDS);
+    private static final ConnectionPool REPLICA_POOL = Constants.DB_REPLICA_URL == null ? null
+            : new ConnectionPool(Constants.DB_REPLICA_URL, connectionProperties(), Constants.DB_POOL_SIZE, Constants.DB_POOL_WAIT_SECONDS);
+    private static final ReplicaLagMonitor LAG_MONITOR = Constants.DB_REPLICA_URL == null ? null
+            : new ReplicaLagMonitor(Constants.DB_URL, Constants.DB_REPLICA_URL, connectionProperties());
+    private static volatile long lastWriteMillis;
+
+    static {
+        if (LAG_MONITOR != null) {
+            POOL.onWrite(() -> lastWriteMillis = System.currentTimeMillis());
+            LAG_MONITOR.start();
+        }
+    }
+
+    /**
+     * Returns a connection to the primary, for writes and for reads that must see them.
+     *
+     * @return a pooled connection to the primary
+     * @throws SQLException if no connection can be obtained
+     */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(Constants.DB_URL, Constants.DB_USER, Constants.DB_PASSWORD);
+        return POOL.borrow();
+    }
+
+    /**
+     * Returns a connection for read-only work, from the replica when one is configured,
+     * caught up and this process has not written recently, otherwise from the primary.
+     *
+     * @return a pooled connection that must only be used for reads
+     * @throws SQLException if no connection can be obtained
+     */
+    public static Connection getReadConnection() throws SQLException {
+        if (REPLICA_POOL == null
+                || System.currentTimeMillis() - lastWriteMillis < TimeUnit.SECONDS.toMillis(Constants.REPLICA_MAX_LAG_SECONDS)
+                || !LAG_MONITOR.isReplicaFresh()) {
+            return POOL.borrow();
+        }
+        try {
+            return REPLICA_POOL.borrow();
+        } catch (SQLException ex) {
+            AppLogger.logWarning("Replica unavailable, reading from the primary: " + ex.getMessage());
+            return POOL.borrow();
+        }
+    }
+
+    private static Properties connectionProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("user", Constants.DB_USER);
+        properties.setProperty("password", Constants.DB_PASSWORD);
+        // Statements stay prepared on the server for as long as the pool caches them.
+        properties.setProperty("useServerPrepStmts", "true");
+        properties.setProperty("cachePrepStmts", "false");
+        return properties;
     }
 }
@@ -0,0 +1,397 @@
+package com.example.model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.example.util.AppLogger;
+import com.example.util.Constants;
+
+/**
+ * The DeletionEngine class removes products and sales without long locks on the sales table.
+ * A deletion first hides the rows with a cheap tombstone and records a job in
+ * {@code deletion_jobs}; a background thread then purges the rows in small batches keyed on
+ * {@code sale_id}, committing and pausing between batches so purchases are never blocked
+ * for long. Jobs checkpoint their last purged key, so an interrupted purge resumes where it
+ * stopped on the next start.
+ *
+ * <p>Tombstones are:</p>
+ * <ul>
+ *     <li>{@code sales.deleted_at} for individually deleted sales,</li>
+ *     <li>{@code products.deleted_at} for a deleted product, hiding its sales too,</li>
+ *     <li>the {@code max_sale_id} of a clear-all job, hiding every sale up to it.</li>
+ * </ul>
+ * <p>Queries reading sales apply {@link #visibleSales(String)} to honour them.</p>
+ *
+ * <p>There is one engine per process, shared by every admin window, so every job is purged
+ * by a single thread however many admin windows are open. Windows subscribe a
+ * {@link DeletionListener} for as long as they show progress.</p>
+ */
+public class DeletionEngine {
+
+    private static final String KIND_SALES = "sales";
+    private static final String KIND_PRODUCT = "product";
+    private static final String KIND_ALL_SALES = "all_sales";
+
+    private static final DeletionEngine SHARED = new DeletionEngine();
+
+    private final List<DeletionListener> listeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "deletion-engine");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    /**
+     * Receives purge progress, on the purge thread.
+     */
+    public interface DeletionListener {
+        void onProgress(String description, long purged, long total, boolean finished);
+    }
+
+    private boolean started;
+
+    private DeletionEngine() {
+    }
+
+    /**
+     * Returns the engine shared by every window of this process.
+     *
+     * @return the shared engine
+     */
+    public static DeletionEngine shared() {
+        return SHARED;
+    }
+
+    /**
+     * Adds a listener notified after every purged batch.
+     *
+     * @param listener the listener
+     */
+    public void addListener(DeletionListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added with {@link #addListener(DeletionListener)}.
+     *
+     * @param listener the listener
+     */
+    public void removeListener(DeletionListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns the SQL condition selecting the sales that have not been deleted.
+     *
+     * @param alias the alias or name of the sales table in the query
+     * @return the condition, suitable for a WHERE clause
+     */
+    public static String visibleSales(String alias) {
+        return alias + ".deleted_at IS NULL"
+                + " AND " + alias + ".sale_id > (SELECT COALESCE(MAX(max_sale_id), 0) FROM deletion_jobs)"
+                + " AND " + alias + ".product_id NOT IN (SELECT product_id FROM Products WHERE deleted_at IS NOT NULL)";
+    }
+
+    /**
+     * Resumes every unfinished purge, unless the engine is already running.
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        resume();
+    }
+
+    /**
+     * Queues every unfinished purge, e.g. after a snapshot restore replaced the jobs. A purge
+     * whose job was replaced stops at its next checkpoint.
+     */
+    public void resume() {
+        executor.execute(() -> {
+            try {
+                for (long jobId : pendingJobs()) {
+                    runJob(jobId);
+                }
+            } catch (SQLException ex) {
+                AppLogger.logError("Error resuming deletion jobs", ex);
+            }
+        });
+    }
+
+    /**
+     * Hides the given sales at once and purges them in the background.
+     *
+     * @param saleIds the IDs of the sales to delete
+     * @throws SQLException if an SQL error occurs
+     */
+    public void deleteSales(List<Integer> saleIds) throws SQLException {
+        try (Connection conn = DatabaseConnector.getConnection()) {
+            for (int from = 0; from < saleIds.size(); from += Constants.PURGE_BATCH_SIZE) {
+                List<Integer> chunk = saleIds.subList(from, Math.min(saleIds.size(), from + Constants.PURGE_BATCH_SIZE));
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "UPDATE Sales SET deleted_at = NOW() WHERE sale_id IN (" + placeholders(chunk.size()) + ")")) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setInt(i + 1, chunk.get(i));
+                    }
+                    stmt.executeUpdate();
+                }
+            }
+            submit(insertJob(conn, KIND_SALES, 0, 0));
+        }
+    }
+
+    /**
+     * Hides a product and its sales at once and purges them in the background.
+     *
+     * @param productId the ID of the product to delete
+     * @return false if the product does not exist or is already deleted
+     * @throws SQLException if an SQL error occurs
+     */
+    public boolean deleteProduct(int productId) throws SQLException {
+        try (Connection conn = DatabaseConnector.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE Products SET deleted_at = NOW() WHERE product_id = ? AND deleted_at IS NULL")) {
+                stmt.setInt(1, productId);
+                if (stmt.executeUpdate() == 0) {
+                    return false;
+                }
+            }
+            StockLedger.recordRemoval(conn, productId);
+            long jobId = insertJob(conn, KIND_PRODUCT, productId, 0);
+            conn.commit();
+            submit(jobId);
+            return true;
+        }
+    }
+
+    /**
+     * Hides every sale recorded so far at once and purges them in the background.
+     *
+     * @throws SQLException if an SQL error occurs
+     */
+    public void clearSales() throws SQLException {
+        try (Connection conn = DatabaseConnector.getConnection()) {
+            int maxSaleId = 0;
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT COALESCE(MAX(sale_id), 0) FROM Sales");
+                 ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    maxSaleId = rs.getInt(1);
+                }
+            }
+            submit(insertJob(conn, KIND_ALL_SALES, 0, maxSaleId));
+        }
+    }
+
+    private void submit(long jobId) {
+        executor.execute(() -> {
+            try {
+                runJob(jobId);
+            } catch (SQLException ex) {
+                AppLogger.logError("Error purging deleted rows for job " + jobId, ex);
+            }
+        });
+    }
+
+    private void runJob(long jobId) throws SQLException {
+        try (Connection conn = DatabaseConnector.getConnection()) {
+            String kind;
+            int targetId;
+            int maxSaleId;
+            int lastKey;
+            long purged;
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT kind, target_id, max_sale_id, last_key, deleted_rows FROM deletion_jobs WHERE job_id = ? AND completed_at IS NULL")) {
+                stmt.setLong(1, jobId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        return;
+                    }
+                    kind = rs.getString("kind");
+                    targetId = rs.getInt("target_id");
+                    maxSaleId = rs.getInt("max_sale_id");
+                    lastKey = rs.getInt("last_key");
+                    purged = rs.getLong("deleted_rows");
+                }
+            }
+            String description = describe(kind, targetId);
+            long total = purged + countRemaining(conn, kind, targetId, maxSaleId, lastKey);
+
+            while (true) {
+                List<Integer> batch = nextBatch(conn, kind, targetId, maxSaleId, lastKey);
+                if (batch.isEmpty()) {
+                    finishJob(conn, jobId, kind, targetId);
+                    notifyProgress(description, purged, total, true);
+                    AppLogger.logInfo("Purged " + purged + " rows for " + description);
+                    return;
+                }
+                conn.setAutoCommit(false);
+                try (PreparedStatement delete = conn.prepareStatement(
+                        "DELETE FROM Sales WHERE sale_id IN (" + placeholders(batch.size()) + ")");
+                     PreparedStatement checkpoint = conn.prepareStatement(
+                             "UPDATE deletion_jobs SET last_key = ?, deleted_rows = ? WHERE job_id = ? AND last_key = ? AND completed_at IS NULL")) {
+                    for (int i = 0; i < batch.size(); i++) {
+                        delete.setInt(i + 1, batch.get(i));
+                    }
+                    purged += delete.executeUpdate();
+                    checkpoint.setInt(1, batch.get(batch.size() - 1));
+                    checkpoint.setLong(2, purged);
+                    checkpoint.setLong(3, jobId);
+                    checkpoint.setInt(4, lastKey);
+                    if (checkpoint.executeUpdate() == 0) {
+                        // The job was finished elsewhere or replaced by a restore; its current state wins.
+                        conn.rollback();
+                        return;
+                    }
+                    lastKey = batch.get(batch.size() - 1);
+                    conn.commit();
+                } catch (SQLException ex) {
+                    conn.rollback();
+                    throw ex;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+                notifyProgress(description, purged, Math.max(total, purged), false);
+                try {
+                    Thread.sleep(Constants.PURGE_PAUSE_MILLIS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void notifyProgress(String description, long purged, long total, boolean finished) {
+        for (DeletionListener listener : listeners) {
+            listener.onProgress(description, purged, total, finished);
+        }
+    }
+
+    private List<Integer> nextBatch(Connection conn, String kind, int targetId, int maxSaleId, int lastKey) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        String sql = "SELECT sale_id FROM Sales WHERE " + jobCondition(kind) + " ORDER BY sale_id LIMIT ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = bindJobCondition(stmt, kind, targetId, maxSaleId, lastKey);
+            stmt.setInt(index, Constants.PURGE_BATCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    private long countRemaining(Connection conn, String kind, int targetId, int maxSaleId, int lastKey) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM Sales WHERE " + jobCondition(kind))) {
+            bindJobCondition(stmt, kind, targetId, maxSaleId, lastKey);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Returns the condition selecting the sales a job still has to purge. Each form is a
+     * range scan on the primary key or an index ending in it, so batches stay cheap.
+     */
+    private static String jobCondition(String kind) {
+        switch (kind) {
+            case KIND_PRODUCT:
+                return "product_id = ? AND sale_id > ?";
+            case KIND_ALL_SALES:
+                return "sale_id <= ? AND sale_id > ?";
+            default:
+                return "deleted_at IS NOT NULL AND sale_id > ?";
+        }
+    }
+
+    private static int bindJobCondition(PreparedStatement stmt, String kind, int targetId, int maxSaleId, int lastKey) throws SQLException {
+        int index = 1;
+        if (KIND_PRODUCT.equals(kind)) {
+            stmt.setInt(index++, targetId);
+        } else if (KIND_ALL_SALES.equals(kind)) {
+            stmt.setInt(index++, maxSaleId);
+        }
+        stmt.setInt(index++, lastKey);
+        return index;
+    }
+
+    private void finishJob(Connection conn, long jobId, String kind, int targetId) throws SQLException {
+        if (KIND_PRODUCT.equals(kind)) {
+            try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM Products WHERE product_id = ?")) {
+                stmt.setInt(1, targetId);
+                stmt.executeUpdate();
+            }
+        }
+        try (PreparedStatement stmt = conn.prepareStatement("UPDATE deletion_jobs SET completed_at = NOW() WHERE job_id = ?")) {
+            stmt.setLong(1, jobId);
+            stmt.executeUpdate();
+        }
+    }
+
+    private List<Long> pendingJobs() throws SQLException {
+        List<Long> jobs = new ArrayList<>();
+        try (Connection conn = DatabaseConnector.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT job_id FROM deletion_jobs WHERE completed_at IS NULL ORDER BY job_id");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                jobs.add(rs.getLong(1));
+            }
+        }
+        return jobs;
+    }
+
+    private static long insertJob(Connection conn, String kind, int targetId, int maxSaleId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO deletion_jobs (kind, target_id, max_sale_id) VALUES (?, ?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setString(1, kind);
+            if (targetId > 0) {
+                stmt.setInt(2, targetId);
+            } else {
+                stmt.setNull(2, Types.INTEGER);
+            }
+            if (maxSaleId > 0) {
+                stmt.setInt(3, maxSaleId);
+            } else {
+                stmt.setNull(3, Types.INTEGER);
+            }
+            stmt.executeUpdate();
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                keys.next();
+                return keys.getLong(1);
+            }
+        }
+    }
+
+    private static String describe(String kind, int targetId) {
+        switch (kind) {
+            case KIND_PRODUCT:
+                return "deleted product " + targetId;
+            case KIND_ALL_SALES:
+                return "cleared sales logs";
+            default:
+                return "deleted sales logs";
+        }
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "?" : ", ?");
+        }
+        return sb.toString();
+    }
+}
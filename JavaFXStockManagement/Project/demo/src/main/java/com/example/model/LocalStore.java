@@ -0,0 +1,356 @@
+package com.example.model;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The LocalStore class is the embedded SQLite database of an offline-capable terminal.
+ * It holds a copy of the catalog, which serves every read, and a queue of sales made
+ * locally that the {@link SyncService} pushes to the central database.
+ *
+ * <p>Local stock is always the last central stock minus the sales still pending, so a
+ * catalog pull never loses a local sale and a rejected sale gives its stock back.</p>
+ */
+public class LocalStore implements AutoCloseable {
+
+    public static final String STATUS_PENDING = "pending";
+    public static final String STATUS_SYNCED = "synced";
+    public static final String STATUS_REJECTED = "rejected";
+
+    private final Connection conn;
+    private final String terminalId;
+
+    /**
+     * Opens the local database, creating the file and schema if needed.
+     *
+     * @param path the path of the database file
+     * @throws SQLException if the database cannot be opened
+     */
+    public LocalStore(String path) throws SQLException {
+        File parent = new File(path).getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new SQLException("Cannot create directory for local database: " + parent);
+        }
+        conn = DriverManager.getConnection("jdbc:sqlite:" + path);
+        createSchema();
+        terminalId = loadTerminalId();
+    }
+
+    private void createSchema() throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA journal_mode = WAL");
+            stmt.execute("CREATE TABLE IF NOT EXISTS products (product_id INTEGER PRIMARY KEY, name TEXT NOT NULL, " +
+                    "price_cents INTEGER NOT NULL, quantity INTEGER NOT NULL)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS products_name ON products (name)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS pending_sales (local_id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    "product_id INTEGER NOT NULL, quantity INTEGER NOT NULL, sale_time INTEGER NOT NULL, " +
+                    "total_cents INTEGER NOT NULL, status TEXT NOT NULL DEFAULT 'pending', message TEXT, user_id INTEGER)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS pending_sales_status ON pending_sales (status, local_id)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS meta (meta_key TEXT PRIMARY KEY, meta_value TEXT NOT NULL)");
+            if (!hasColumn("pending_sales", "user_id")) {
+                // Stores created before sales were attributed to users.
+                stmt.execute("ALTER TABLE pending_sales ADD COLUMN user_id INTEGER");
+            }
+        }
+    }
+
+    private boolean hasColumn(String table, String column) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private String loadTerminalId() throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT meta_value FROM meta WHERE meta_key = 'terminal_id'");
+             ResultSet rs = stmt.executeQuery()) {
+            if (rs.next()) {
+                return rs.getString(1);
+            }
+        }
+        String id = UUID.randomUUID().toString();
+        try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO meta (meta_key, meta_value) VALUES ('terminal_id', ?)")) {
+            stmt.setString(1, id);
+            stmt.executeUpdate();
+        }
+        return id;
+    }
+
+    /**
+     * Returns the identifier of this terminal, generated once per local database.
+     *
+     * @return the terminal ID
+     */
+    public String getTerminalId() {
+        return terminalId;
+    }
+
+    /**
+     * Loads the products that are in stock locally.
+     *
+     * @return the products ordered by name
+     * @throws SQLException if an SQL error occurs
+     */
+    public synchronized List<CatalogProduct> loadProducts() throws SQLException {
+        List<CatalogProduct> products = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT product_id, name, price_cents, quantity FROM products WHERE quantity > 0 ORDER BY name");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                products.add(new CatalogProduct(rs.getInt("product_id"), rs.getString("name"), rs.getLong("price_cents"), rs.getInt("quantity")));
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Decrements local stock and queues the sale for the central database.
+     *
+     * @param productName the name of the product
+     * @param quantity    the quantity to purchase
+     * @param userId      the ID of the user buying the product, or 0 for none
+     * @return true if the sale was queued, false if there is not enough local stock
+     * @throws SQLException if an SQL error occurs or the product does not exist locally
+     */
+    public synchronized boolean purchase(String productName, int quantity, int userId) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            int productId;
+            long priceCents;
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT product_id, price_cents FROM products WHERE name = ?")) {
+                stmt.setString(1, productName);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new SQLException("Product not found: " + productName);
+                    }
+                    productId = rs.getInt("product_id");
+                    priceCents = rs.getLong("price_cents");
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE products SET quantity = quantity - ? WHERE product_id = ? AND quantity >= ?")) {
+                stmt.setInt(1, quantity);
+                stmt.setInt(2, productId);
+                stmt.setInt(3, quantity);
+                if (stmt.executeUpdate() == 0) {
+                    conn.rollback();
+                    return false;
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO pending_sales (product_id, quantity, sale_time, total_cents, user_id) VALUES (?, ?, ?, ?, ?)")) {
+                stmt.setInt(1, productId);
+                stmt.setInt(2, quantity);
+                stmt.setLong(3, System.currentTimeMillis() / 1000);
+                stmt.setLong(4, Money.times(priceCents, quantity));
+                if (userId == 0) {
+                    stmt.setNull(5, Types.INTEGER);
+                } else {
+                    stmt.setInt(5, userId);
+                }
+                stmt.executeUpdate();
+            }
+            conn.commit();
+            return true;
+        } catch (SQLException | RuntimeException ex) {
+            conn.rollback();
+            throw ex;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Returns the oldest sales still waiting to be pushed.
+     *
+     * @param limit the maximum number of sales
+     * @return the pending sales, oldest first
+     * @throws SQLException if an SQL error occurs
+     */
+    public synchronized List<PendingSale> pendingSales(int limit) throws SQLException {
+        List<PendingSale> sales = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT local_id, product_id, quantity, sale_time, total_cents, user_id FROM pending_sales WHERE status = 'pending' ORDER BY local_id LIMIT ?")) {
+            stmt.setInt(1, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    sales.add(new PendingSale(rs.getLong("local_id"), rs.getInt("product_id"), rs.getInt("quantity"),
+                            rs.getLong("sale_time"), rs.getLong("total_cents"), rs.getInt("user_id")));
+                }
+            }
+        }
+        return sales;
+    }
+
+    /**
+     * Returns the number of sales still waiting to be pushed.
+     *
+     * @return the number of pending sales
+     * @throws SQLException if an SQL error occurs
+     */
+    public synchronized int pendingCount() throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM pending_sales WHERE status = 'pending'");
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Records the outcome of pushing sales to the central database.
+     *
+     * @param localIds the local IDs of the sales
+     * @param status   {@link #STATUS_SYNCED} or {@link #STATUS_REJECTED}
+     * @param message  the reason for a rejection, may be null
+     * @throws SQLException if an SQL error occurs
+     */
+    public synchronized void markSales(List<Long> localIds, String status, String message) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("UPDATE pending_sales SET status = ?, message = ? WHERE local_id = ?")) {
+            for (long localId : localIds) {
+                stmt.setString(1, status);
+                stmt.setString(2, message);
+                stmt.setLong(3, localId);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Replaces the local catalog with the central one. Local stock is set to the central
+     * stock minus the local sales that have not been pushed yet.
+     *
+     * @param products the central catalog
+     * @throws SQLException if an SQL error occurs
+     */
+    public synchronized void replaceCatalog(List<CatalogProduct> products) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("DELETE FROM products");
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO products (product_id, name, price_cents, quantity) VALUES (?, ?, ?, ?)")) {
+                for (CatalogProduct product : products) {
+                    stmt.setInt(1, product.getProductId());
+                    stmt.setString(2, product.getName());
+                    stmt.setLong(3, product.getPriceCents());
+                    stmt.setInt(4, product.getQuantity());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("UPDATE products SET quantity = quantity - (SELECT COALESCE(SUM(s.quantity), 0) FROM pending_sales s " +
+                        "WHERE s.product_id = products.product_id AND s.status = 'pending')");
+            }
+            conn.commit();
+        } catch (SQLException | RuntimeException ex) {
+            conn.rollback();
+            throw ex;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws SQLException {
+        conn.close();
+    }
+
+    /**
+     * A product as seen by a terminal.
+     */
+    public static final class CatalogProduct {
+        private final int productId;
+        private final String name;
+        private final long priceCents;
+        private final int quantity;
+
+        public CatalogProduct(int productId, String name, long priceCents, int quantity) {
+            this.productId = productId;
+            this.name = name;
+            this.priceCents = priceCents;
+            this.quantity = quantity;
+        }
+
+        public int getProductId() {
+            return productId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getPriceCents() {
+            return priceCents;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+    }
+
+    /**
+     * A sale made on this terminal that has not reached the central database yet.
+     */
+    public static final class PendingSale {
+        private final long localId;
+        private final int productId;
+        private final int quantity;
+        private final long saleTime;
+        private final long totalCents;
+        private final int userId;
+
+        PendingSale(long localId, int productId, int quantity, long saleTime, long totalCents, int userId) {
+            this.localId = localId;
+            this.productId = productId;
+            this.quantity = quantity;
+            this.saleTime = saleTime;
+            this.totalCents = totalCents;
+            this.userId = userId;
+        }
+
+        public long getLocalId() {
+            return localId;
+        }
+
+        public int getProductId() {
+            return productId;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public long getSaleTime() {
+            return saleTime;
+        }
+
+        public long getTotalCents() {
+            return totalCents;
+        }
+
+        /**
+         * Returns the user who made the sale.
+         *
+         * @return the ID of the user, or 0 if the sale has no user
+         */
+        public int getUserId() {
+            return userId;
+        }
+    }
+}
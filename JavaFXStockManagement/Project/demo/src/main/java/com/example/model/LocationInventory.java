@@ -0,0 +1,344 @@
+package com.example.model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.example.util.Constants;
+import com.example.util.IntIntHashMap;
+
+/**
+ * The LocationInventory class builds the cross-location stock view. Each location's stock
+ * is read by its own query on its own connection, up to
+ * {@link Constants#LOCATION_QUERY_PARALLELISM} at a time, and the per-location columns are
+ * merged in memory into one row per product. Every query is a range scan of the
+ * {@code location_quantity} index, so adding locations adds parallel work rather than
+ * making a single cross-location GROUP BY slower.
+ *
+ * <p>When only low stock is wanted, each location's query instead starts from the range of
+ * that index at or below {@link Constants#LOW_STOCK_THRESHOLD} and joins the product's stock
+ * at every location and its name, so neither the catalog nor the full stock is read. One
+ * inventory is shared by every admin window of the process.</p>
+ */
+public final class LocationInventory {
+
+    private static final LocationInventory SHARED = new LocationInventory();
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final ExecutorService executor = Executors.newFixedThreadPool(Constants.LOCATION_QUERY_PARALLELISM, runnable -> {
+        Thread thread = new Thread(runnable, "location-stock-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private LocationInventory() {
+    }
+
+    /**
+     * Returns the inventory shared by every window of this process.
+     *
+     * @return the shared inventory
+     */
+    public static LocationInventory shared() {
+        return SHARED;
+    }
+
+    /**
+     * Reads the stock of every location in parallel and merges it per product.
+     *
+     * @param lowOnly whether to keep only the products low at some location
+     * @return the stock of every product that has not been deleted, or of those low at some
+     *         location, by location
+     * @throws SQLException if an SQL error occurs
+     */
+    public Summary aggregate(boolean lowOnly) throws SQLException {
+        List<LocationStock.Location> locations;
+        try (Connection conn = DatabaseConnector.getReadConnection()) {
+            locations = LocationStock.loadLocations(conn);
+        }
+        if (lowOnly) {
+            return aggregateLow(locations);
+        }
+        Future<ProductNames> namesFuture = executor.submit(LocationInventory::loadProductNames);
+        List<Future<Column>> columnFutures = new ArrayList<>();
+        for (LocationStock.Location location : locations) {
+            columnFutures.add(executor.submit(() -> loadColumn(location.getLocationId())));
+        }
+
+        ProductNames names = await(namesFuture);
+        int locationCount = locations.size();
+        int[] quantities = new int[names.count * locationCount];
+        boolean[] stocked = new boolean[names.count * locationCount];
+        for (int col = 0; col < locationCount; col++) {
+            Column column = await(columnFutures.get(col));
+            for (int i = 0; i < column.count; i++) {
+                int row = names.rows.get(column.productIds[i], -1);
+                if (row >= 0) {
+                    quantities[row * locationCount + col] = column.quantities[i];
+                    stocked[row * locationCount + col] = true;
+                }
+            }
+        }
+
+        List<ProductStock> products = new ArrayList<>(names.count);
+        for (int row = 0; row < names.count; row++) {
+            int from = row * locationCount;
+            int to = from + locationCount;
+            products.add(productStock(names.productIds[row], names.names[row], locations,
+                    Arrays.copyOfRange(quantities, from, to), Arrays.copyOfRange(stocked, from, to)));
+        }
+        return new Summary(locations, products);
+    }
+
+    private Summary aggregateLow(List<LocationStock.Location> locations) throws SQLException {
+        int locationCount = locations.size();
+        IntIntHashMap columns = new IntIntHashMap(locationCount);
+        List<Future<List<StockRow>>> rowFutures = new ArrayList<>();
+        for (int col = 0; col < locationCount; col++) {
+            int locationId = locations.get(col).getLocationId();
+            columns.put(locationId, col);
+            rowFutures.add(executor.submit(() -> loadLowRows(locationId)));
+        }
+
+        // A product low at several locations comes back from each of them with the same rows.
+        Map<Integer, String> names = new HashMap<>();
+        Map<Integer, int[]> quantities = new HashMap<>();
+        Map<Integer, boolean[]> stocked = new HashMap<>();
+        for (Future<List<StockRow>> future : rowFutures) {
+            for (StockRow row : await(future)) {
+                int col = columns.get(row.locationId, -1);
+                if (col < 0) {
+                    continue;
+                }
+                names.put(row.productId, row.name);
+                quantities.computeIfAbsent(row.productId, id -> new int[locationCount])[col] = row.quantity;
+                stocked.computeIfAbsent(row.productId, id -> new boolean[locationCount])[col] = true;
+            }
+        }
+
+        List<ProductStock> products = new ArrayList<>(names.size());
+        for (Map.Entry<Integer, String> entry : names.entrySet()) {
+            int productId = entry.getKey();
+            products.add(productStock(productId, entry.getValue(), locations, quantities.get(productId), stocked.get(productId)));
+        }
+        products.sort(Comparator.comparing(ProductStock::getName).thenComparingInt(ProductStock::getProductId));
+        return new Summary(locations, products);
+    }
+
+    private static ProductStock productStock(int productId, String name, List<LocationStock.Location> locations,
+                                             int[] perLocation, boolean[] stocked) {
+        List<String> lowAt = new ArrayList<>();
+        int total = 0;
+        for (int col = 0; col < perLocation.length; col++) {
+            total += perLocation[col];
+            if (stocked[col] && perLocation[col] <= Constants.LOW_STOCK_THRESHOLD) {
+                lowAt.add(locations.get(col).getName());
+            }
+        }
+        return new ProductStock(productId, name, total, perLocation, lowAt);
+    }
+
+    private static ProductNames loadProductNames() throws SQLException {
+        ProductNames names = new ProductNames();
+        try (Connection conn = DatabaseConnector.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT product_id, name FROM Products WHERE deleted_at IS NULL ORDER BY name");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                names.add(rs.getInt("product_id"), rs.getString("name"));
+            }
+        }
+        return names;
+    }
+
+    private static Column loadColumn(int locationId) throws SQLException {
+        Column column = new Column();
+        try (Connection conn = DatabaseConnector.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT product_id, quantity FROM product_stock WHERE location_id = ?")) {
+            stmt.setInt(1, locationId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    column.add(rs.getInt(1), rs.getInt(2));
+                }
+            }
+        }
+        return column;
+    }
+
+    private static List<StockRow> loadLowRows(int locationId) throws SQLException {
+        List<StockRow> rows = new ArrayList<>();
+        try (Connection conn = DatabaseConnector.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "SELECT s.product_id, p.name, s.location_id, s.quantity FROM product_stock l "
+                             + "JOIN product_stock s ON s.product_id = l.product_id "
+                             + "JOIN Products p ON p.product_id = l.product_id "
+                             + "WHERE l.location_id = ? AND l.quantity <= ? AND p.deleted_at IS NULL")) {
+            stmt.setInt(1, locationId);
+            stmt.setInt(2, Constants.LOW_STOCK_THRESHOLD);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new StockRow(rs.getInt(1), rs.getString(2), rs.getInt(3), rs.getInt(4)));
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static <T> T await(Future<T> future) throws SQLException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while reading location stock", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof SQLException) {
+                throw (SQLException) ex.getCause();
+            }
+            throw new SQLException(ex.getCause());
+        }
+    }
+
+    /**
+     * The products in display order, with their row in the merged table.
+     */
+    private static final class ProductNames {
+        final IntIntHashMap rows = new IntIntHashMap(1024);
+        int[] productIds = new int[1024];
+        String[] names = new String[1024];
+        int count;
+
+        void add(int productId, String name) {
+            if (count == productIds.length) {
+                productIds = Arrays.copyOf(productIds, count * 2);
+                names = Arrays.copyOf(names, count * 2);
+            }
+            productIds[count] = productId;
+            names[count] = name;
+            rows.put(productId, count++);
+        }
+    }
+
+    /**
+     * The stock of one location.
+     */
+    private static final class Column {
+        int[] productIds = new int[1024];
+        int[] quantities = new int[1024];
+        int count;
+
+        void add(int productId, int quantity) {
+            if (count == productIds.length) {
+                productIds = Arrays.copyOf(productIds, count * 2);
+                quantities = Arrays.copyOf(quantities, count * 2);
+            }
+            productIds[count] = productId;
+            quantities[count++] = quantity;
+        }
+    }
+
+    /**
+     * A product's stock at one location, with the product name.
+     */
+    private static final class StockRow {
+        final int productId;
+        final String name;
+        final int locationId;
+        final int quantity;
+
+        StockRow(int productId, String name, int locationId, int quantity) {
+            this.productId = productId;
+            this.name = name;
+            this.locationId = locationId;
+            this.quantity = quantity;
+        }
+    }
+
+    /**
+     * The merged stock view.
+     */
+    public static final class Summary {
+        private final List<LocationStock.Location> locations;
+        private final List<ProductStock> products;
+
+        Summary(List<LocationStock.Location> locations, List<ProductStock> products) {
+            this.locations = Collections.unmodifiableList(locations);
+            this.products = Collections.unmodifiableList(products);
+        }
+
+        public List<LocationStock.Location> getLocations() {
+            return locations;
+        }
+
+        /**
+         * Returns one entry per product, ordered by name.
+         *
+         * @return the products with their stock per location
+         */
+        public List<ProductStock> getProducts() {
+            return products;
+        }
+    }
+
+    /**
+     * A product's stock at every location.
+     */
+    public static final class ProductStock {
+        private final int productId;
+        private final String name;
+        private final int total;
+        private final int[] perLocation;
+        private final List<String> lowAt;
+
+        ProductStock(int productId, String name, int total, int[] perLocation, List<String> lowAt) {
+            this.productId = productId;
+            this.name = name;
+            this.total = total;
+            this.perLocation = perLocation;
+            this.lowAt = lowAt;
+        }
+
+        public int getProductId() {
+            return productId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        /**
+         * Returns the stock at a location.
+         *
+         * @param index the index of the location in {@link Summary#getLocations()}
+         * @return the quantity at that location
+         */
+        public int getQuantityAt(int index) {
+            return perLocation[index];
+        }
+
+        /**
+         * Returns the names of the locations that carry the product and are at or below
+         * {@link Constants#LOW_STOCK_THRESHOLD}.
+         *
+         * @return the location names, empty if no location is low
+         */
+        public List<String> getLowAt() {
+            return lowAt;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The LocationStock class moves stock in and out of {@code product_stock}, which holds the
+ * quantity of each product at each store or warehouse. {@code Products.quantity} is kept as
+ * the total over all locations in the same statement group, so code that only needs the
+ * total, such as reports and the reorder engine, does not have to aggregate.
+ *
+ * <p>Taking stock locks the {@code Products} rows exclusively before touching
+ * {@code product_stock}. Reading them with a shared lock first and updating the total
+ * afterwards would need a lock upgrade, which deadlocks two purchases of the same product.</p>
+ */
+public final class LocationStock {
+
+    private static final String TAKE = "UPDATE product_stock SET quantity = quantity - ? WHERE product_id = ? AND location_id = ? AND quantity >= ?";
+    private static final String ADJUST_TOTAL = "UPDATE Products SET quantity = quantity + ? WHERE product_id = ?";
+
+    private LocationStock() {
+    }
+
+    /**
+     * Takes stock of a product from a location if enough is there.
+     *
+     * @param conn       the database connection
+     * @param productId  the ID of the product
+     * @param locationId the ID of the location
+     * @param quantity   the quantity to take
+     * @return false if the location does not have enough stock or the product is deleted
+     * @throws SQLException if an SQL error occurs
+     */
+    public static boolean take(Connection conn, int productId, int locationId, int quantity) throws SQLException {
+        if (lockLive(conn, new int[] {productId}).isEmpty()) {
+            return false;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(TAKE)) {
+            stmt.setInt(1, quantity);
+            stmt.setInt(2, productId);
+            stmt.setInt(3, locationId);
+            stmt.setInt(4, quantity);
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
+        }
+        adjustTotal(conn, productId, -quantity);
+        return true;
+    }
+
+    /**
+     * Takes stock of several products from one location with one batch per statement.
+     * Deleted products and products without enough stock at the location are left unchanged.
+     * Rows are locked and updated in product ID order whatever the order of the arguments, so
+     * two transactions taking the same products always lock them in the same order and cannot
+     * deadlock each other.
+     *
+     * @param conn       the database connection
+     * @param locationId the ID of the location
+     * @param productIds the IDs of the products
+     * @param quantities the quantity to take of each product
+     * @return for each product, whether its stock was taken
+     * @throws SQLException if an SQL error occurs
+     */
+    public static boolean[] takeAll(Connection conn, int locationId, int[] productIds, int[] quantities) throws SQLException {
+        boolean[] taken = new boolean[productIds.length];
+        if (productIds.length == 0) {
+            return taken;
+        }
+        int[] order = lockOrder(productIds);
+        Set<Integer> live = lockLive(conn, productIds);
+        if (live.isEmpty()) {
+            return taken;
+        }
+        boolean[] updated = new boolean[productIds.length];
+        try (PreparedStatement stmt = conn.prepareStatement(TAKE)) {
+            for (int i : order) {
+                if (live.contains(productIds[i])) {
+                    stmt.setInt(1, quantities[i]);
+                    stmt.setInt(2, productIds[i]);
+                    stmt.setInt(3, locationId);
+                    stmt.setInt(4, quantities[i]);
+                    stmt.addBatch();
+                }
+            }
+            int[] counts = stmt.executeBatch();
+            int k = 0;
+            for (int i : order) {
+                if (live.contains(productIds[i])) {
+                    updated[i] = counts[k++] > 0;
+                }
+            }
+        }
+        boolean any = false;
+        try (PreparedStatement stmt = conn.prepareStatement(ADJUST_TOTAL)) {
+            for (int i : order) {
+                if (updated[i]) {
+                    taken[i] = true;
+                    any = true;
+                    stmt.setInt(1, -quantities[i]);
+                    stmt.setInt(2, productIds[i]);
+                    stmt.addBatch();
+                }
+            }
+            if (any) {
+                stmt.executeBatch();
+            }
+        }
+        return taken;
+    }
+
+    /**
+     * Locks the rows of the products that are not deleted, in product ID order, for the rest
+     * of the transaction.
+     *
+     * @return the IDs of the products that are not deleted
+     */
+    private static Set<Integer> lockLive(Connection conn, int[] productIds) throws SQLException {
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < productIds.length; i++) {
+            placeholders.append(i == 0 ? "?" : ", ?");
+        }
+        Set<Integer> live = new HashSet<>();
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT product_id FROM Products WHERE product_id IN ("
+                + placeholders + ") AND deleted_at IS NULL ORDER BY product_id FOR UPDATE")) {
+            for (int i = 0; i < productIds.length; i++) {
+                stmt.setInt(i + 1, productIds[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    live.add(rs.getInt(1));
+                }
+            }
+        }
+        return live;
+    }
+
+    /**
+     * Returns the indexes of the products sorted by product ID, keeping the argument order
+     * for repeated products.
+     */
+    private static int[] lockOrder(int[] productIds) {
+        long[] keys = new long[productIds.length];
+        for (int i = 0; i < productIds.length; i++) {
+            keys[i] = (long) productIds[i] << 32 | i;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[keys.length];
+        for (int k = 0; k < keys.length; k++) {
+            order[k] = (int) keys[k];
+        }
+        return order;
+    }
+
+    /**
+     * Adds stock of a product at a location, creating the location row if needed.
+     *
+     * @param conn       the database connection
+     * @param productId  the ID of the product
+     * @param locationId the ID of the location
+     * @param quantity   the quantity to add
+     * @throws SQLException if an SQL error occurs
+     */
+    public static void put(Connection conn, int productId, int locationId, int quantity) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO product_stock (product_id, location_id, quantity) VALUES (?, ?, ?) "
+                        + "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity)")) {
+            stmt.setInt(1, productId);
+            stmt.setInt(2, locationId);
+            stmt.setInt(3, quantity);
+            stmt.executeUpdate();
+        }
+        adjustTotal(conn, productId, quantity);
+    }
+
+    /**
+     * Changes the total stock of a product kept on {@code Products}.
+     *
+     * @param conn      the database connection
+     * @param productId the ID of the product
+     * @param change    the change in stock
+     * @throws SQLException if an SQL error occurs
+     */
+    private static void adjustTotal(Connection conn, int productId, int change) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(ADJUST_TOTAL)) {
+            stmt.setInt(1, change);
+            stmt.setInt(2, productId);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Loads all locations.
+     *
+     * @param conn the database connection
+     * @return the locations, ordered by ID
+     * @throws SQLException if an SQL error occurs
+     */
+    public static List<Location> loadLocations(Connection conn) throws SQLException {
+        List<Location> locations = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT location_id, name, kind FROM locations ORDER BY location_id");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                locations.add(new Location(rs.getInt("location_id"), rs.getString("name"), rs.getString("kind")));
+            }
+        }
+        return locations;
+    }
+
+    /**
+     * Adds a location.
+     *
+     * @param conn the database connection
+     * @param name the name of the location
+     * @param kind either {@code store} or {@code warehouse}
+     * @throws SQLException if an SQL error occurs, including a duplicate name
+     */
+    public static void addLocation(Connection conn, String name, String kind) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO locations (name, kind) VALUES (?, ?)")) {
+            stmt.setString(1, name);
+            stmt.setString(2, kind);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * A store or warehouse holding stock.
+     */
+    public static final class Location {
+        private final int locationId;
+        private final String name;
+        private final String kind;
+
+        Location(int locationId, String name, String kind) {
+            this.locationId = locationId;
+            this.name = name;
+            this.kind = kind;
+        }
+
+        public int getLocationId() {
+            return locationId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getKind() {
+            return kind;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * The Money class holds the fixed-point arithmetic used for prices and totals.
+ * Amounts are plain {@code long} values in minor units (cents), so they are immutable
+ * and never allocate in hot loops. {@link BigDecimal} is only used at the JDBC boundary.
+ *
+ * <p>Rounding rules: conversions from decimal text or {@code BigDecimal} round half up to
+ * the cent, which matches how MySQL stores values into {@code decimal(10,2)} columns.
+ * Division rounds half up as well. Every operation throws {@link ArithmeticException}
+ * on overflow instead of wrapping silently.</p>
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+    public static final long ZERO = 0L;
+    private static final long UNIT = 100L;
+
+    private Money() {
+    }
+
+    /**
+     * Parses a decimal amount such as "12", "12.5" or "12.345" into cents.
+     *
+     * @param text the amount to parse
+     * @return the amount in cents
+     * @throws NumberFormatException if the text is not a valid decimal amount
+     */
+    public static long parse(String text) {
+        try {
+            return fromDecimal(new BigDecimal(text.trim()));
+        } catch (ArithmeticException ex) {
+            throw new NumberFormatException("Amount out of range: " + text);
+        }
+    }
+
+    /**
+     * Converts a decimal amount into cents.
+     *
+     * @param amount the amount to convert, may be null
+     * @return the amount in cents, or zero when the amount is null
+     */
+    public static long fromDecimal(BigDecimal amount) {
+        if (amount == null) {
+            return ZERO;
+        }
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Converts cents into a decimal amount suitable for a {@code decimal(10,2)} column.
+     *
+     * @param cents the amount in cents
+     * @return the decimal amount
+     */
+    public static BigDecimal toDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    /**
+     * Reads a decimal column as cents.
+     *
+     * @param rs     the result set positioned on a row
+     * @param column the column label
+     * @return the amount in cents
+     * @throws SQLException if an SQL error occurs
+     */
+    public static long read(ResultSet rs, String column) throws SQLException {
+        return fromDecimal(rs.getBigDecimal(column));
+    }
+
+    /**
+     * Binds cents to a decimal statement parameter.
+     *
+     * @param stmt  the statement
+     * @param index the parameter index
+     * @param cents the amount in cents
+     * @throws SQLException if an SQL error occurs
+     */
+    public static void write(PreparedStatement stmt, int index, long cents) throws SQLException {
+        stmt.setBigDecimal(index, toDecimal(cents));
+    }
+
+    /**
+     * Adds two amounts.
+     *
+     * @param a the first amount in cents
+     * @param b the second amount in cents
+     * @return the sum in cents
+     */
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    /**
+     * Multiplies a unit price by a quantity.
+     *
+     * @param unitCents the unit price in cents
+     * @param quantity  the quantity
+     * @return the line total in cents
+     */
+    public static long times(long unitCents, long quantity) {
+        return Math.multiplyExact(unitCents, quantity);
+    }
+
+    /**
+     * Divides an amount, rounding half up to the cent. Used for averages.
+     *
+     * @param cents   the amount in cents
+     * @param divisor the divisor, must be positive
+     * @return the quotient in cents
+     */
+    public static long divide(long cents, long divisor) {
+        if (divisor <= 0) {
+            throw new ArithmeticException("Divisor must be positive: " + divisor);
+        }
+        long quotient = cents / divisor;
+        long remainder = cents % divisor;
+        if (Math.abs(remainder) * 2 >= divisor) {
+            quotient += cents < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+
+    /**
+     * Formats an amount with two decimals and no currency symbol, e.g. "-12.05".
+     *
+     * @param cents the amount in cents
+     * @return the formatted amount
+     */
+    public static String format(long cents) {
+        // Split before taking absolute values, since Math.abs(Long.MIN_VALUE) is negative.
+        long whole = Math.abs(cents / UNIT);
+        long fraction = Math.abs(cents % UNIT);
+        StringBuilder sb = new StringBuilder(24);
+        if (cents < 0) {
+            sb.append('-');
+        }
+        sb.append(whole).append('.');
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        return sb.append(fraction).toString();
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.example.util.Constants;
+import com.example.util.IntIntHashMap;
+
+/**
+ * The PriceIndex class keeps the effective price of every product in memory so checkout
+ * resolves a price with one hash lookup instead of a range query over {@code price_versions}.
+ *
+ * <p>A price version applies from its {@code effective_from} until its optional
+ * {@code effective_to}; when versions overlap, the one that started last wins, so a
+ * promotion overrides the list price for its duration. Only current and future versions
+ * are held. Every start and end time is queued as a boundary, and a lookup past the next
+ * boundary recomputes only the products whose boundary passed. New versions are pulled
+ * incrementally by version ID at most every {@link Constants#PRICE_INDEX_REFRESH_SECONDS}.</p>
+ */
+public final class PriceIndex {
+
+    private static final PriceIndex SHARED = new PriceIndex();
+
+    private final IntIntHashMap slots = new IntIntHashMap(1024);
+    private final Map<Integer, List<Version>> versionsByProduct = new HashMap<>();
+    private final PriorityQueue<Boundary> boundaries = new PriorityQueue<>();
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private Price[] effective = new Price[1024];
+    private int count;
+    private volatile int lastVersionId = -1;
+    private volatile long refreshedNanos;
+
+    /**
+     * Returns the index shared by the purchase paths of this process.
+     *
+     * @return the shared index
+     */
+    public static PriceIndex shared() {
+        return SHARED;
+    }
+
+    /**
+     * Pulls price versions added since the last refresh, unless that was less than
+     * {@link Constants#PRICE_INDEX_REFRESH_SECONDS} ago or another thread is already pulling
+     * them. The first call loads every current and future version, and waits for it if
+     * another thread is loading them.
+     *
+     * @param conn the database connection
+     * @throws SQLException if an SQL error occurs
+     */
+    public void refreshIfStale(Connection conn) throws SQLException {
+        if (isFresh()) {
+            return;
+        }
+        if (lastVersionId < 0) {
+            refreshLock.lock();
+        } else if (!refreshLock.tryLock()) {
+            return;
+        }
+        try {
+            if (!isFresh()) {
+                pull(conn);
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Pulls price versions added since the last refresh.
+     *
+     * @param conn the database connection
+     * @throws SQLException if an SQL error occurs
+     */
+    public void refresh(Connection conn) throws SQLException {
+        refreshLock.lock();
+        try {
+            pull(conn);
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private boolean isFresh() {
+        return lastVersionId >= 0 && System.nanoTime() - refreshedNanos < TimeUnit.SECONDS.toNanos(Constants.PRICE_INDEX_REFRESH_SECONDS);
+    }
+
+    /**
+     * Queries the new versions without holding the index, so lookups go on while the query
+     * runs, and then applies them in one step. Runs under the refresh lock.
+     */
+    private void pull(Connection conn) throws SQLException {
+        List<Version> added = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT version_id, product_id, price, effective_from, effective_to FROM price_versions "
+                        + "WHERE version_id > ? AND (effective_to IS NULL OR effective_to > NOW()) ORDER BY version_id")) {
+            stmt.setInt(1, Math.max(lastVersionId, 0));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp to = rs.getTimestamp("effective_to");
+                    added.add(new Version(rs.getInt("version_id"), rs.getInt("product_id"), Money.read(rs, "price"),
+                            rs.getTimestamp("effective_from").getTime(), to == null ? Long.MAX_VALUE : to.getTime()));
+                }
+            }
+        }
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            int last = Math.max(lastVersionId, 0);
+            for (Version version : added) {
+                versionsByProduct.computeIfAbsent(version.productId, id -> new ArrayList<>()).add(version);
+                if (version.from > now) {
+                    boundaries.add(new Boundary(version.from, version.productId));
+                }
+                if (version.to != Long.MAX_VALUE) {
+                    boundaries.add(new Boundary(version.to, version.productId));
+                }
+                last = version.versionId;
+            }
+            for (Version version : added) {
+                recompute(version.productId, now);
+            }
+            refreshedNanos = System.nanoTime();
+            lastVersionId = last;
+        }
+    }
+
+    /**
+     * Resolves the price version in effect for a product. The version and its price are read
+     * together, so a sale never records one version with the price of another.
+     *
+     * @param productId the ID of the product
+     * @return the version in effect, or null if the product has no current version
+     */
+    public synchronized Price find(int productId) {
+        advance();
+        int slot = slots.get(productId, -1);
+        return slot < 0 ? null : effective[slot];
+    }
+
+    /**
+     * Resolves the price in effect for a product.
+     *
+     * @param productId the ID of the product
+     * @param fallback  the price to use if the product has no current version
+     * @return the price in cents
+     */
+    public long priceCents(int productId, long fallback) {
+        Price price = find(productId);
+        return price == null ? fallback : price.getPriceCents();
+    }
+
+    /**
+     * Recomputes the products whose next price boundary has passed.
+     */
+    private void advance() {
+        long now = System.currentTimeMillis();
+        while (!boundaries.isEmpty() && boundaries.peek().time <= now) {
+            recompute(boundaries.poll().productId, now);
+        }
+    }
+
+    private void recompute(int productId, long now) {
+        List<Version> versions = versionsByProduct.get(productId);
+        Version current = null;
+        if (versions != null) {
+            for (Iterator<Version> it = versions.iterator(); it.hasNext(); ) {
+                Version version = it.next();
+                if (version.to <= now) {
+                    it.remove();
+                } else if (version.from <= now && (current == null || version.from > current.from
+                        || (version.from == current.from && version.versionId > current.versionId))) {
+                    current = version;
+                }
+            }
+            if (versions.isEmpty()) {
+                versionsByProduct.remove(productId);
+            }
+        }
+        effective[slotFor(productId)] = current == null ? null : new Price(current.versionId, current.priceCents);
+    }
+
+    private int slotFor(int productId) {
+        int slot = slots.get(productId, -1);
+        if (slot >= 0) {
+            return slot;
+        }
+        if (count == effective.length) {
+            effective = Arrays.copyOf(effective, count * 2);
+        }
+        slot = count++;
+        slots.put(productId, slot);
+        return slot;
+    }
+
+    /**
+     * The price version in effect for a product.
+     */
+    public static final class Price {
+        private final int versionId;
+        private final long priceCents;
+
+        Price(int versionId, long priceCents) {
+            this.versionId = versionId;
+            this.priceCents = priceCents;
+        }
+
+        public int getVersionId() {
+            return versionId;
+        }
+
+        public long getPriceCents() {
+            return priceCents;
+        }
+    }
+
+    /**
+     * A price version held in memory.
+     */
+    private static final class Version {
+        final int versionId;
+        final int productId;
+        final long priceCents;
+        final long from;
+        final long to;
+
+        Version(int versionId, int productId, long priceCents, long from, long to) {
+            this.versionId = versionId;
+            this.productId = productId;
+            this.priceCents = priceCents;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * A time at which the effective price of a product may change.
+     */
+    private static final class Boundary implements Comparable<Boundary> {
+        final long time;
+        final int productId;
+
+        Boundary(long time, int productId) {
+            this.time = time;
+            this.productId = productId;
+        }
+
+        @Override
+        public int compareTo(Boundary other) {
+            return Long.compare(time, other.time);
+        }
+    }
+}
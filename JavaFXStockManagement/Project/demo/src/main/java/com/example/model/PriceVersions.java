@@ -0,0 +1,128 @@
+package com.example.model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The PriceVersions class schedules and lists the price versions of a product in
+ * {@code price_versions}. Versions are never updated in place: a price change or promotion
+ * is a new version with its own effective period, and the {@link PriceIndex} decides which
+ * one applies at checkout.
+ */
+public final class PriceVersions {
+
+    private PriceVersions() {
+    }
+
+    /**
+     * Schedules a price version.
+     *
+     * @param conn       the database connection
+     * @param productId  the ID of the product
+     * @param priceCents the price in cents
+     * @param from       the time the price takes effect, or null for now
+     * @param to         the time the price stops applying, or null for open-ended
+     * @param label      a label such as a promotion name, or null
+     * @return the ID of the new version
+     * @throws SQLException if an SQL error occurs
+     */
+    public static int schedule(Connection conn, int productId, long priceCents, LocalDateTime from, LocalDateTime to, String label)
+            throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO price_versions (product_id, price, effective_from, effective_to, label) VALUES (?, ?, COALESCE(?, NOW()), ?, ?)",
+                PreparedStatement.RETURN_GENERATED_KEYS)) {
+            stmt.setInt(1, productId);
+            Money.write(stmt, 2, priceCents);
+            stmt.setTimestamp(3, from == null ? null : Timestamp.valueOf(from));
+            stmt.setTimestamp(4, to == null ? null : Timestamp.valueOf(to));
+            if (label == null || label.isEmpty()) {
+                stmt.setNull(5, Types.VARCHAR);
+            } else {
+                stmt.setString(5, label);
+            }
+            stmt.executeUpdate();
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                return keys.next() ? keys.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Loads the most recently scheduled versions of a product.
+     *
+     * @param conn      the database connection
+     * @param productId the ID of the product
+     * @param limit     the maximum number of versions
+     * @return the versions, newest first
+     * @throws SQLException if an SQL error occurs
+     */
+    public static List<Version> history(Connection conn, int productId, int limit) throws SQLException {
+        List<Version> versions = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT version_id, price, effective_from, effective_to, label FROM price_versions "
+                        + "WHERE product_id = ? ORDER BY effective_from DESC, version_id DESC LIMIT ?")) {
+            stmt.setInt(1, productId);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp to = rs.getTimestamp("effective_to");
+                    versions.add(new Version(rs.getInt("version_id"), Money.read(rs, "price"),
+                            rs.getTimestamp("effective_from").toLocalDateTime(), to == null ? null : to.toLocalDateTime(),
+                            rs.getString("label")));
+                }
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * One scheduled price of a product.
+     */
+    public static final class Version {
+        private final int versionId;
+        private final long priceCents;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+        private final String label;
+
+        Version(int versionId, long priceCents, LocalDateTime from, LocalDateTime to, String label) {
+            this.versionId = versionId;
+            this.priceCents = priceCents;
+            this.from = from;
+            this.to = to;
+            this.label = label;
+        }
+
+        public int getVersionId() {
+            return versionId;
+        }
+
+        public long getPriceCents() {
+            return priceCents;
+        }
+
+        public LocalDateTime getFrom() {
+            return from;
+        }
+
+        /**
+         * Returns the time the price stops applying.
+         *
+         * @return the end of the effective period, or null if it is open-ended
+         */
+        public LocalDateTime getTo() {
+            return to;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+
+import com.example.util.Constants;
+import com.example.util.ThumbnailCache;
+import com.example.util.ThumbnailLoader;
+
+/**
+ * The ProductImages class stores product images on local disk in
+ * {@link Constants#PRODUCT_IMAGE_DIR}, one file per product named after its ID, and serves
+ * their thumbnails to the product lists through a shared {@link ThumbnailLoader}. The images
+ * are kept out of the database so that product queries stay as small as they are.
+ */
+public final class ProductImages {
+
+    private static final String[] EXTENSIONS = {"png", "jpg", "jpeg", "gif", "bmp"};
+    private static final Path DIRECTORY = Paths.get(Constants.PRODUCT_IMAGE_DIR);
+    private static final ThumbnailLoader THUMBNAILS = createLoader();
+
+    private ProductImages() {
+    }
+
+    /**
+     * Returns the loader of product thumbnails shared by every product list.
+     *
+     * @return the shared loader
+     */
+    public static ThumbnailLoader thumbnails() {
+        return THUMBNAILS;
+    }
+
+    /**
+     * Finds the image file of a product.
+     *
+     * @param productId the ID of the product
+     * @return the image file, or null if the product has no image
+     */
+    public static Path find(int productId) {
+        for (String extension : EXTENSIONS) {
+            Path file = DIRECTORY.resolve(productId + "." + extension);
+            if (Files.isRegularFile(file)) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Copies an image file to be the image of a product, replacing its previous image.
+     *
+     * @param productId the ID of the product
+     * @param source    the image file, a PNG, JPEG, GIF or BMP
+     * @return the stored image file
+     * @throws IOException if the file cannot be copied
+     */
+    public static Path store(int productId, Path source) throws IOException {
+        String extension = extensionOf(source);
+        if (extension == null) {
+            throw new IOException("Unsupported image type: " + source.getFileName());
+        }
+        Files.createDirectories(DIRECTORY);
+        Path file = DIRECTORY.resolve(productId + "." + extension);
+        Path partial = DIRECTORY.resolve(productId + "." + extension + ".partial");
+        Files.copy(source, partial, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        for (String other : EXTENSIONS) {
+            if (!other.equals(extension)) {
+                Files.deleteIfExists(DIRECTORY.resolve(productId + "." + other));
+            }
+        }
+        THUMBNAILS.invalidate(productId);
+        return file;
+    }
+
+    /**
+     * Removes the image of a product.
+     *
+     * @param productId the ID of the product
+     * @return true if the product had an image
+     * @throws IOException if the file cannot be deleted
+     */
+    public static boolean remove(int productId) throws IOException {
+        boolean removed = false;
+        for (String extension : EXTENSIONS) {
+            removed |= Files.deleteIfExists(DIRECTORY.resolve(productId + "." + extension));
+        }
+        THUMBNAILS.invalidate(productId);
+        return removed;
+    }
+
+    private static String extensionOf(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        for (String extension : EXTENSIONS) {
+            if (name.endsWith("." + extension)) {
+                return extension;
+            }
+        }
+        return null;
+    }
+
+    private static ThumbnailLoader createLoader() {
+        ThumbnailCache cache = new ThumbnailCache(Constants.THUMBNAIL_CACHE_BYTES);
+        cache.trimOnMemoryPressure();
+        return new ThumbnailLoader("product-thumbnails", ProductImages::find, cache);
+    }
+}
@@ -0,0 +1,301 @@
+package com.example.model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.example.util.Constants;
+
+/**
+ * The PurchaseService class implements the purchase path shared by the user panel and the
+ * headless tools: a conditional stock decrement at the selling location followed by recording
+ * the sale and its stock movement in the {@link StockLedger}, all in one transaction. Baskets
+ * from rapid checkout are bought the same way with one batch per statement.
+ *
+ * <p>Prices are resolved through the shared {@link PriceIndex}, and every sale records the
+ * ID of the price version it was charged at. Products without a current version are charged
+ * their list price from {@code Products} and record no version.</p>
+ *
+ * <p>Sales record the ID of the user who made them, which backs each user's purchase
+ * history. Purchases without a signed-in user, such as those of the load generator, record
+ * no user.</p>
+ *
+ * <p>Committed orders are counted in {@link SalesKpis} for the live sales dashboard.</p>
+ */
+public class PurchaseService {
+
+    private static final String INSERT_SALE =
+            "INSERT INTO Sales (product_id, quantity_sold, sale_date, total_price, price_version_id, user_id) VALUES (?, ?, NOW(), ?, ?, ?)";
+
+    /**
+     * The outcome of a purchase attempt.
+     */
+    public enum Result {
+        PURCHASED,
+        INSUFFICIENT_STOCK,
+        PRODUCT_NOT_FOUND
+    }
+
+    /**
+     * The outcome of a basket purchase.
+     */
+    public static final class BasketResult {
+        private final List<Basket.Line> shortLines;
+        private final long chargedCents;
+
+        BasketResult(List<Basket.Line> shortLines, long chargedCents) {
+            this.shortLines = Collections.unmodifiableList(shortLines);
+            this.chargedCents = chargedCents;
+        }
+
+        /**
+         * Returns the lines that did not have enough stock.
+         *
+         * @return the short lines, empty if the basket was bought
+         */
+        public List<Basket.Line> getShortLines() {
+            return shortLines;
+        }
+
+        /**
+         * Returns the amount charged at the effective prices, which may differ from the
+         * prices shown while the basket was filled.
+         *
+         * @return the total charged in cents, 0 if nothing was bought
+         */
+        public long getChargedCents() {
+            return chargedCents;
+        }
+    }
+
+    /**
+     * Purchases a product by name from this terminal's location,
+     * {@link Constants#DEFAULT_LOCATION_ID}.
+     *
+     * @param conn        the database connection
+     * @param productName the name of the product
+     * @param quantity    the quantity to purchase
+     * @return the outcome of the purchase
+     * @throws SQLException if an SQL error occurs
+     */
+    public static Result purchase(Connection conn, String productName, int quantity) throws SQLException {
+        return purchase(conn, productName, quantity, Constants.DEFAULT_LOCATION_ID);
+    }
+
+    /**
+     * Purchases a product by name from a location without attributing the sale to a user.
+     *
+     * @param conn        the database connection
+     * @param productName the name of the product
+     * @param quantity    the quantity to purchase
+     * @param locationId  the ID of the location selling the product
+     * @return the outcome of the purchase
+     * @throws SQLException if an SQL error occurs
+     */
+    public static Result purchase(Connection conn, String productName, int quantity, int locationId) throws SQLException {
+        return purchase(conn, productName, quantity, locationId, 0);
+    }
+
+    /**
+     * Purchases a product by name from a location on behalf of a user.
+     *
+     * @param conn        the database connection
+     * @param productName the name of the product
+     * @param quantity    the quantity to purchase
+     * @param locationId  the ID of the location selling the product
+     * @param userId      the ID of the user buying the product, or 0 for none
+     * @return the outcome of the purchase
+     * @throws SQLException if an SQL error occurs
+     */
+    public static Result purchase(Connection conn, String productName, int quantity, int locationId, int userId) throws SQLException {
+        int productId = findProductId(conn, productName);
+        if (productId == -1) {
+            return Result.PRODUCT_NOT_FOUND;
+        }
+        PriceIndex.shared().refreshIfStale(conn);
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            if (!LocationStock.take(conn, productId, locationId, quantity)) {
+                conn.rollback();
+                return Result.INSUFFICIENT_STOCK;
+            }
+            long totalCents = recordSale(conn, productId, quantity, userId);
+            conn.commit();
+            SalesKpis kpis = SalesKpis.shared();
+            kpis.recordOrder();
+            kpis.recordSale(productId, quantity, totalCents);
+            return Result.PURCHASED;
+        } catch (SQLException ex) {
+            conn.rollback();
+            throw ex;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Buys every line of a basket from a location in one transaction. Stock is decremented
+     * with one batch of conditional updates; if any product is short, nothing is bought.
+     * Sales are recorded at the effective price with one batch of inserts.
+     *
+     * @param conn       the database connection
+     * @param lines      the lines of the basket to buy
+     * @param locationId the ID of the location selling the products
+     * @param userId     the ID of the user buying the basket, or 0 for none
+     * @return the amount charged, or the lines that did not have enough stock
+     * @throws SQLException if an SQL error occurs
+     */
+    public static BasketResult purchaseBasket(Connection conn, List<Basket.Line> lines, int locationId, int userId) throws SQLException {
+        if (lines.isEmpty()) {
+            return new BasketResult(Collections.emptyList(), 0);
+        }
+        int[] productIds = new int[lines.size()];
+        int[] quantities = new int[lines.size()];
+        int[] changes = new int[lines.size()];
+        long[] totals = new long[lines.size()];
+        for (int i = 0; i < lines.size(); i++) {
+            productIds[i] = lines.get(i).getProductId();
+            quantities[i] = lines.get(i).getQuantity();
+            changes[i] = -quantities[i];
+        }
+        PriceIndex prices = PriceIndex.shared();
+        prices.refreshIfStale(conn);
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            boolean[] taken = LocationStock.takeAll(conn, locationId, productIds, quantities);
+            List<Basket.Line> shortLines = new ArrayList<>();
+            for (int i = 0; i < lines.size(); i++) {
+                if (!taken[i]) {
+                    shortLines.add(lines.get(i));
+                }
+            }
+            if (!shortLines.isEmpty()) {
+                conn.rollback();
+                return new BasketResult(shortLines, 0);
+            }
+            try (PreparedStatement insert = conn.prepareStatement(INSERT_SALE)) {
+                for (int i = 0; i < lines.size(); i++) {
+                    Basket.Line line = lines.get(i);
+                    PriceIndex.Price price = prices.find(line.getProductId());
+                    long priceCents = price == null ? findProductPrice(conn, line.getProductId()) : price.getPriceCents();
+                    totals[i] = Money.times(priceCents, line.getQuantity());
+                    setSale(insert, line.getProductId(), line.getQuantity(), priceCents, price == null ? 0 : price.getVersionId(), userId);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            StockLedger.recordBatch(conn, StockLedger.Kind.PURCHASE, productIds, changes);
+            conn.commit();
+            SalesKpis kpis = SalesKpis.shared();
+            kpis.recordOrder();
+            long chargedCents = 0;
+            for (int i = 0; i < lines.size(); i++) {
+                kpis.recordSale(productIds[i], quantities[i], totals[i]);
+                chargedCents += totals[i];
+            }
+            return new BasketResult(Collections.emptyList(), chargedCents);
+        } catch (SQLException ex) {
+            conn.rollback();
+            throw ex;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Records the sale and its stock movement in the database.
+     *
+     * @param conn      the database connection
+     * @param productId the ID of the product
+     * @param quantity  the quantity sold
+     * @param userId    the ID of the user, or 0 for none
+     * @return the total price of the sale in cents
+     * @throws SQLException if an SQL error occurs
+     */
+    private static long recordSale(Connection conn, int productId, int quantity, int userId) throws SQLException {
+        PriceIndex.Price price = PriceIndex.shared().find(productId);
+        long priceCents = price == null ? findProductPrice(conn, productId) : price.getPriceCents();
+
+        try (PreparedStatement saleStmt = conn.prepareStatement(INSERT_SALE)) {
+            setSale(saleStmt, productId, quantity, priceCents, price == null ? 0 : price.getVersionId(), userId);
+            saleStmt.executeUpdate();
+        }
+        StockLedger.record(conn, productId, StockLedger.Kind.PURCHASE, -quantity);
+        return Money.times(priceCents, quantity);
+    }
+
+    /**
+     * Binds the parameters of {@link #INSERT_SALE}.
+     *
+     * @param stmt       the prepared insert
+     * @param productId  the ID of the product
+     * @param quantity   the quantity sold
+     * @param priceCents the unit price in cents
+     * @param versionId  the ID of the price version applied, or 0 for the list price
+     * @param userId     the ID of the user, or 0 for none
+     * @throws SQLException if an SQL error occurs
+     */
+    private static void setSale(PreparedStatement stmt, int productId, int quantity, long priceCents, int versionId, int userId)
+            throws SQLException {
+        stmt.setInt(1, productId);
+        stmt.setInt(2, quantity);
+        Money.write(stmt, 3, Money.times(priceCents, quantity));
+        if (versionId == 0) {
+            stmt.setNull(4, Types.INTEGER);
+        } else {
+            stmt.setInt(4, versionId);
+        }
+        if (userId == 0) {
+            stmt.setNull(5, Types.INTEGER);
+        } else {
+            stmt.setInt(5, userId);
+        }
+    }
+
+    /**
+     * Finds the product ID by its name.
+     *
+     * @param conn          the database connection
+     * @param productName   the name of the product
+     * @return the product ID, or -1 if not found
+     * @throws SQLException if an SQL error occurs
+     */
+    private static int findProductId(Connection conn, String productName) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT product_id FROM Products WHERE name = ? AND deleted_at IS NULL")) {
+            stmt.setString(1, productName);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt("product_id");
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the list price of a product by its ID.
+     *
+     * @param conn       the database connection
+     * @param productId  the product ID
+     * @return the product price in cents
+     * @throws SQLException if an SQL error occurs
+     */
+    private static long findProductPrice(Connection conn, int productId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT price FROM Products WHERE product_id = ?")) {
+            stmt.setInt(1, productId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return Money.read(rs, "price");
+                }
+            }
+        }
+        return Money.ZERO;
+    }
+}
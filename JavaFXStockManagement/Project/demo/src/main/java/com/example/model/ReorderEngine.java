@@ -0,0 +1,312 @@
+package com.example.model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.example.util.Constants;
+import com.example.util.IntIntHashMap;
+
+/**
+ * The ReorderEngine class keeps an exponentially weighted sales velocity per product and
+ * derives days of cover and a reorder point from it.
+ *
+ * <p>Velocity is an exponentially decayed rate: each sale adds {@code quantity * lambda}
+ * and the estimate decays by {@code exp(-lambda * elapsedDays)}, where lambda follows from
+ * {@link Constants#REORDER_VELOCITY_HALF_LIFE_DAYS}. Only the rate and its timestamp are
+ * stored, so a sale is an O(1) update. The engine is warmed once from an aggregate over
+ * recent sales and afterwards only reads sales it has not seen, tracked by
+ * {@link SaleIdGaps} so sales that commit late are still applied.</p>
+ */
+public class ReorderEngine {
+
+    private static final double SECONDS_PER_DAY = 86_400.0;
+
+    private final double lambda = Math.log(2) / Constants.REORDER_VELOCITY_HALF_LIFE_DAYS;
+    private final IntIntHashMap slots = new IntIntHashMap(1024);
+    private int[] productIds = new int[1024];
+    private String[] names = new String[1024];
+    private double[] velocity = new double[1024];
+    private long[] velocityTime = new long[1024];
+    private int[] stock = new int[1024];
+    private int[] seenGeneration = new int[1024];
+    private int count;
+    private int generation;
+    private final SaleIdGaps seenSales = new SaleIdGaps();
+    private boolean warmedUp;
+    private double leadTimeDays = Constants.REORDER_LEAD_TIME_DAYS;
+
+    /**
+     * Reads sales recorded since the last call and folds them into the velocities.
+     * The first call seeds every velocity from one aggregate query over recent sales.
+     *
+     * @param conn the database connection
+     * @return the number of sales applied
+     * @throws SQLException if an SQL error occurs
+     */
+    public synchronized int pollSales(Connection conn) throws SQLException {
+        if (!warmedUp) {
+            return warmUp(conn);
+        }
+        int applied = 0;
+        String query = "SELECT sale_id, product_id, UNIX_TIMESTAMP(sale_date) AS sale_time, quantity_sold, " +
+                "CASE WHEN " + DeletionEngine.visibleSales("Sales") + " THEN 1 ELSE 0 END AS visible " +
+                "FROM Sales WHERE " + seenSales.condition("Sales") + " ORDER BY sale_id";
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            seenSales.bind(stmt, 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    // Hidden sales are still observed, so they are not asked for again as gaps.
+                    seenSales.observe(rs.getInt("sale_id"));
+                    if (rs.getInt("visible") == 1) {
+                        recordSale(rs.getInt("product_id"), rs.getLong("sale_time"), rs.getInt("quantity_sold"));
+                        applied++;
+                    }
+                }
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Seeds the velocities from the sales up to {@link Constants#SALE_GAP_LIMIT} IDs below the
+     * highest one, then reads the rest one by one, so IDs still uncommitted among them are
+     * kept as gaps rather than skipped.
+     */
+    private int warmUp(Connection conn) throws SQLException {
+        int maxSaleId = 0;
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT COALESCE(MAX(sale_id), 0) FROM Sales");
+             ResultSet rs = stmt.executeQuery()) {
+            if (rs.next()) {
+                maxSaleId = rs.getInt(1);
+            }
+        }
+        int seededUpTo = Math.max(0, maxSaleId - Constants.SALE_GAP_LIMIT);
+        long now = System.currentTimeMillis() / 1000;
+        int seeded = 0;
+        String query = "SELECT product_id, SUM(quantity_sold * EXP(-? * (? - UNIX_TIMESTAMP(sale_date)) / 86400)) AS decayed " +
+                "FROM Sales WHERE sale_id <= ? AND sale_date >= FROM_UNIXTIME(?) AND " + DeletionEngine.visibleSales("Sales") + " GROUP BY product_id";
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setDouble(1, lambda);
+            stmt.setLong(2, now);
+            stmt.setInt(3, seededUpTo);
+            stmt.setLong(4, now - (long) (Constants.REORDER_WARMUP_DAYS * SECONDS_PER_DAY));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int slot = slotFor(rs.getInt("product_id"));
+                    velocity[slot] = rs.getDouble("decayed") * lambda;
+                    velocityTime[slot] = now;
+                    seeded++;
+                }
+            }
+        }
+        seenSales.reset(seededUpTo);
+        warmedUp = true;
+        return seeded + pollSales(conn);
+    }
+
+    /**
+     * Folds one sale into the velocity of its product.
+     *
+     * @param productId the ID of the product
+     * @param saleTime  the sale time in epoch seconds
+     * @param quantity  the quantity sold
+     */
+    public synchronized void recordSale(int productId, long saleTime, int quantity) {
+        int slot = slotFor(productId);
+        long last = velocityTime[slot];
+        if (saleTime >= last) {
+            velocity[slot] = velocity[slot] * decay(saleTime - last) + quantity * lambda;
+            velocityTime[slot] = saleTime;
+        } else {
+            velocity[slot] += quantity * lambda * decay(last - saleTime);
+        }
+    }
+
+    /**
+     * Starts a new stock scan. Products not updated during the scan are treated as
+     * deleted and left out of the reorder list.
+     */
+    public synchronized void beginStockScan() {
+        generation++;
+    }
+
+    /**
+     * Records the current stock of a product during a stock scan.
+     *
+     * @param productId the ID of the product
+     * @param name      the name of the product
+     * @param quantity  the quantity in stock
+     */
+    public synchronized void updateStock(int productId, String name, int quantity) {
+        int slot = slotFor(productId);
+        names[slot] = name;
+        stock[slot] = quantity;
+        seenGeneration[slot] = generation;
+    }
+
+    /**
+     * Sets the supplier lead time used for reorder points.
+     *
+     * @param days the lead time in days
+     */
+    public synchronized void setLeadTimeDays(double days) {
+        this.leadTimeDays = days;
+    }
+
+    public synchronized double getLeadTimeDays() {
+        return leadTimeDays;
+    }
+
+    /**
+     * Returns whether a product's stock is at or below its reorder point.
+     *
+     * @param productId the ID of the product
+     * @return true if the product should be reordered
+     */
+    public synchronized boolean needsReorder(int productId) {
+        int slot = slots.get(productId, -1);
+        return slot >= 0 && stock[slot] <= reorderPoint(slot, nowSeconds());
+    }
+
+    /**
+     * Returns the reorder point of a product.
+     *
+     * @param productId the ID of the product
+     * @return the stock level at which the product should be reordered
+     */
+    public synchronized int reorderPoint(int productId) {
+        int slot = slots.get(productId, -1);
+        return slot >= 0 ? reorderPoint(slot, nowSeconds()) : Constants.LOW_STOCK_THRESHOLD;
+    }
+
+    /**
+     * Ranks the products at or below their reorder point, fewest days of cover first.
+     *
+     * @param limit the maximum number of products to return
+     * @return the ranked reorder list
+     */
+    public synchronized List<ReorderItem> reorderList(int limit) {
+        long now = nowSeconds();
+        Comparator<ReorderItem> byCover = Comparator.comparingDouble(ReorderItem::getDaysOfCover);
+        PriorityQueue<ReorderItem> heap = new PriorityQueue<>(byCover.reversed());
+        for (int slot = 0; slot < count; slot++) {
+            if (seenGeneration[slot] != generation) {
+                continue;
+            }
+            int point = reorderPoint(slot, now);
+            if (stock[slot] > point) {
+                continue;
+            }
+            double rate = velocityAt(slot, now);
+            double cover = stock[slot] <= 0 ? 0 : rate > 0 ? stock[slot] / rate : Double.POSITIVE_INFINITY;
+            int suggestedOrder = point + (int) Math.ceil(rate * leadTimeDays) - stock[slot];
+            ReorderItem item = new ReorderItem(productIds[slot], names[slot], stock[slot], rate, cover, point, suggestedOrder);
+            if (heap.size() < limit) {
+                heap.add(item);
+            } else if (cover < heap.peek().getDaysOfCover()) {
+                heap.poll();
+                heap.add(item);
+            }
+        }
+        List<ReorderItem> ranked = new ArrayList<>(heap);
+        ranked.sort(byCover);
+        return ranked;
+    }
+
+    private int reorderPoint(int slot, long now) {
+        double demand = velocityAt(slot, now) * (leadTimeDays + Constants.REORDER_SAFETY_DAYS);
+        return Math.max(Constants.LOW_STOCK_THRESHOLD, (int) Math.ceil(demand));
+    }
+
+    private double velocityAt(int slot, long now) {
+        return velocity[slot] * decay(Math.max(0, now - velocityTime[slot]));
+    }
+
+    private double decay(long elapsedSeconds) {
+        return Math.exp(-lambda * elapsedSeconds / SECONDS_PER_DAY);
+    }
+
+    private int slotFor(int productId) {
+        int slot = slots.get(productId, -1);
+        if (slot >= 0) {
+            return slot;
+        }
+        if (count == productIds.length) {
+            int capacity = count * 2;
+            productIds = Arrays.copyOf(productIds, capacity);
+            names = Arrays.copyOf(names, capacity);
+            velocity = Arrays.copyOf(velocity, capacity);
+            velocityTime = Arrays.copyOf(velocityTime, capacity);
+            stock = Arrays.copyOf(stock, capacity);
+            seenGeneration = Arrays.copyOf(seenGeneration, capacity);
+        }
+        slot = count++;
+        productIds[slot] = productId;
+        velocityTime[slot] = nowSeconds();
+        seenGeneration[slot] = -1;
+        slots.put(productId, slot);
+        return slot;
+    }
+
+    private static long nowSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    /**
+     * A product that has reached its reorder point.
+     */
+    public static final class ReorderItem {
+        private final int productId;
+        private final String name;
+        private final int stock;
+        private final double unitsPerDay;
+        private final double daysOfCover;
+        private final int reorderPoint;
+        private final int suggestedOrder;
+
+        ReorderItem(int productId, String name, int stock, double unitsPerDay, double daysOfCover, int reorderPoint, int suggestedOrder) {
+            this.productId = productId;
+            this.name = name;
+            this.stock = stock;
+            this.unitsPerDay = unitsPerDay;
+            this.daysOfCover = daysOfCover;
+            this.reorderPoint = reorderPoint;
+            this.suggestedOrder = suggestedOrder;
+        }
+
+        public int getProductId() {
+            return productId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getStock() {
+            return stock;
+        }
+
+        public double getUnitsPerDay() {
+            return unitsPerDay;
+        }
+
+        public double getDaysOfCover() {
+            return daysOfCover;
+        }
+
+        public int getReorderPoint() {
+            return reorderPoint;
+        }
+
+        public int getSuggestedOrder() {
+            return suggestedOrder;
+        }
+    }
+}
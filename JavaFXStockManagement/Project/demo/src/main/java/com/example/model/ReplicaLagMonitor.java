@@ -0,0 +1,142 @@
+package com.example.model;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.example.util.AppLogger;
+import com.example.util.Constants;
+
+/**
+ * The ReplicaLagMonitor class measures how far the read replica trails the primary with a
+ * heartbeat: every interval it writes the current time to {@code replica_heartbeat} on the
+ * primary and reads the row back from the replica. The difference is the replication lag,
+ * independent of the replication technology and of the database server clocks.
+ *
+ * <p>It uses its own two connections rather than the pools, so the heartbeat writes do not
+ * count as application writes for read-your-writes routing. If the heartbeat cannot be
+ * written or read, the replica is treated as stale.</p>
+ */
+final class ReplicaLagMonitor {
+
+    private final String primaryUrl;
+    private final String replicaUrl;
+    private final Properties properties;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-lag-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Connection primary;
+    private Connection replica;
+    private volatile long lagMillis = Long.MAX_VALUE;
+    private volatile long measuredAtMillis;
+    private boolean staleLogged;
+
+    /**
+     * Constructor for ReplicaLagMonitor.
+     *
+     * @param primaryUrl the JDBC URL of the primary
+     * @param replicaUrl the JDBC URL of the replica
+     * @param properties the driver properties, including user and password
+     */
+    ReplicaLagMonitor(String primaryUrl, String replicaUrl, Properties properties) {
+        this.primaryUrl = primaryUrl;
+        this.replicaUrl = replicaUrl;
+        this.properties = properties;
+    }
+
+    /**
+     * Starts measuring at {@link Constants#REPLICA_HEARTBEAT_MILLIS} intervals.
+     */
+    void start() {
+        executor.scheduleWithFixedDelay(this::measure, 0, Constants.REPLICA_HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns whether the last measurement is recent and below the maximum lag.
+     *
+     * @return true if reads may go to the replica
+     */
+    boolean isReplicaFresh() {
+        long age = System.currentTimeMillis() - measuredAtMillis;
+        return age <= 3 * Constants.REPLICA_HEARTBEAT_MILLIS
+                && lagMillis <= TimeUnit.SECONDS.toMillis(Constants.REPLICA_MAX_LAG_SECONDS);
+    }
+
+    /**
+     * Returns the last measured lag.
+     *
+     * @return the lag in milliseconds, or {@code Long.MAX_VALUE} if unknown
+     */
+    long lagMillis() {
+        return lagMillis;
+    }
+
+    private void measure() {
+        long now = System.currentTimeMillis();
+        try {
+            if (primary == null || !primary.isValid(1)) {
+                primary = DriverManager.getConnection(primaryUrl, properties);
+            }
+            try (PreparedStatement stmt = primary.prepareStatement(
+                    "INSERT INTO replica_heartbeat (id, beat_millis) VALUES (1, ?) ON DUPLICATE KEY UPDATE beat_millis = VALUES(beat_millis)")) {
+                stmt.setLong(1, now);
+                stmt.executeUpdate();
+            }
+            if (replica == null || !replica.isValid(1)) {
+                replica = DriverManager.getConnection(replicaUrl, properties);
+            }
+            long beat = -1;
+            try (PreparedStatement stmt = replica.prepareStatement("SELECT beat_millis FROM replica_heartbeat WHERE id = 1");
+                 ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    beat = rs.getLong(1);
+                }
+            }
+            // The newest beat the replica has applied tells how old its view of the primary is.
+            lagMillis = beat < 0 ? Long.MAX_VALUE : Math.max(0, now - beat);
+            measuredAtMillis = System.currentTimeMillis();
+            logStaleness();
+        } catch (SQLException ex) {
+            lagMillis = Long.MAX_VALUE;
+            measuredAtMillis = now;
+            closeQuietly();
+            if (!staleLogged) {
+                AppLogger.logWarning("Replica heartbeat failed, reading from the primary: " + ex.getMessage());
+                staleLogged = true;
+            }
+        }
+    }
+
+    private void logStaleness() {
+        boolean stale = !isReplicaFresh();
+        if (stale && !staleLogged) {
+            AppLogger.logWarning("Replica lag " + (lagMillis == Long.MAX_VALUE ? "unknown" : lagMillis + " ms")
+                    + " exceeds the limit, reading from the primary");
+        } else if (!stale && staleLogged) {
+            AppLogger.logInfo("Replica caught up (lag " + lagMillis + " ms), reading from the replica again");
+        }
+        staleLogged = stale;
+    }
+
+    private void closeQuietly() {
+        for (Connection conn : new Connection[]{primary, replica}) {
+            if (conn != null) {
+                try {
+                    conn.close();
+                } catch (SQLException ignored) {
+                    // Reopened on the next measurement.
+                }
+            }
+        }
+        primary = null;
+        replica = null;
+    }
+}
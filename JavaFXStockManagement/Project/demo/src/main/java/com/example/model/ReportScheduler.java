@@ -0,0 +1,344 @@
+package com.example.model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.example.util.AppLogger;
+import com.example.util.Constants;
+
+/**
+ * The ReportScheduler class generates the stock and sales reports on a background thread
+ * outside business hours. The daily run covers the previous day; on the weekly report day
+ * the same reports are also produced for the previous seven days.
+ *
+ * <p>Each report streams its query results row by row into a CSV file under
+ * {@link Constants#REPORT_DIR}, so memory use does not grow with the report size. Files are
+ * written under a temporary name and moved into place once complete. Every run is recorded
+ * in the {@code report_runs} table. The nightly run also takes the {@link StockLedger}
+ * snapshot that point-in-time stock queries start from and purges the expired
+ * {@link SalesKpis} figures.</p>
+ *
+ * <p>There is one scheduler per process, shared by every admin window, so opening several
+ * admin windows does not run the reports more than once.</p>
+ */
+public class ReportScheduler {
+
+    /**
+     * The reports produced by every run.
+     */
+    public enum Report {
+        STOCK_VALUATION("stock-valuation",
+                "SELECT product_id, name, quantity, price, quantity * price AS stock_value FROM Products WHERE deleted_at IS NULL ORDER BY name"),
+        TOP_SELLERS("top-sellers",
+                "SELECT p.product_id, p.name, SUM(s.quantity_sold) AS units_sold, SUM(s.total_price) AS revenue "
+                        + "FROM Sales s JOIN Products p ON s.product_id = p.product_id "
+                        + "WHERE s.sale_date >= ? AND s.sale_date < ? AND " + DeletionEngine.visibleSales("s") + " "
+                        + "GROUP BY p.product_id, p.name ORDER BY units_sold DESC LIMIT 100"),
+        LOW_STOCK("low-stock",
+                "SELECT product_id, name, quantity FROM Products WHERE quantity <= ? AND deleted_at IS NULL ORDER BY quantity, name"),
+        SALES_BY_DAY("sales-by-day",
+                "SELECT DATE(sale_date) AS day, COUNT(*) AS sales, SUM(quantity_sold) AS units_sold, SUM(total_price) AS revenue "
+                        + "FROM Sales WHERE sale_date >= ? AND sale_date < ? AND " + DeletionEngine.visibleSales("Sales")
+                        + " GROUP BY DATE(sale_date) ORDER BY day");
+
+        private final String fileName;
+        private final String sql;
+
+        Report(String fileName, String sql) {
+            this.fileName = fileName;
+            this.sql = sql;
+        }
+    }
+
+    private static final ReportScheduler SHARED = new ReportScheduler();
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "report-scheduler");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private boolean started;
+
+    private ReportScheduler() {
+    }
+
+    /**
+     * Returns the scheduler shared by every window of this process.
+     *
+     * @return the shared scheduler
+     */
+    public static ReportScheduler shared() {
+        return SHARED;
+    }
+
+    /**
+     * Schedules the next nightly run, unless the scheduler is already running. Each run
+     * schedules the one after it, so the runs stay at the configured local time across
+     * daylight saving changes. The scheduler runs until the process exits.
+     */
+    public synchronized void start() {
+        if (!started) {
+            started = true;
+            scheduleNextRun();
+        }
+    }
+
+    /**
+     * Runs the daily reports for today so far as soon as the report thread is free.
+     */
+    public void runNow() {
+        executor.execute(() -> runReports("adhoc", LocalDate.now().atStartOfDay(), LocalDateTime.now()));
+    }
+
+    /**
+     * Loads the most recent report runs.
+     *
+     * @param limit the maximum number of runs
+     * @return the runs, newest first
+     * @throws SQLException if an SQL error occurs
+     */
+    public List<ReportRun> recentRuns(int limit) throws SQLException {
+        List<ReportRun> runs = new ArrayList<>();
+        String sql = "SELECT report, period, started_at, finished_at, row_count, file_path, status, message "
+                + "FROM report_runs ORDER BY run_id DESC LIMIT ?";
+        try (Connection conn = DatabaseConnector.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp finished = rs.getTimestamp("finished_at");
+                    runs.add(new ReportRun(rs.getString("report"), rs.getString("period"),
+                            rs.getTimestamp("started_at").toLocalDateTime(),
+                            finished == null ? null : finished.toLocalDateTime(), rs.getLong("row_count"),
+                            rs.getString("file_path"), rs.getString("status"), rs.getString("message")));
+                }
+            }
+        }
+        return runs;
+    }
+
+    private void scheduleNextRun() {
+        ZonedDateTime now = ZonedDateTime.now();
+        ZonedDateTime next = now.toLocalDate().atTime(Constants.REPORT_RUN_HOUR, 0).atZone(now.getZone());
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+        long delay = Duration.between(now, next).toMillis();
+        executor.schedule(this::runScheduled, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void runScheduled() {
+        try {
+            takeStockSnapshot();
+            purgeSalesKpis();
+            LocalDate today = LocalDate.now();
+            runReports("daily", today.minusDays(1).atStartOfDay(), today.atStartOfDay());
+            if (today.getDayOfWeek() == DayOfWeek.valueOf(Constants.REPORT_WEEKLY_DAY)) {
+                runReports("weekly", today.minusDays(7).atStartOfDay(), today.atStartOfDay());
+            }
+        } finally {
+            scheduleNextRun();
+        }
+    }
+
+    /**
+     * Takes a stock snapshot as soon as the report thread is free.
+     */
+    public void snapshotNow() {
+        executor.execute(this::takeStockSnapshot);
+    }
+
+    private void takeStockSnapshot() {
+        try (Connection conn = DatabaseConnector.getConnection()) {
+            int products = StockLedger.takeSnapshot(conn);
+            AppLogger.logInfo("Stock snapshot taken for " + products + " products");
+        } catch (SQLException ex) {
+            AppLogger.logError("Error taking the stock snapshot", ex);
+        }
+    }
+
+    private void purgeSalesKpis() {
+        try (Connection conn = DatabaseConnector.getConnection()) {
+            int rows = SalesKpis.purge(conn);
+            AppLogger.logInfo("Purged " + rows + " expired live sales rows");
+        } catch (SQLException ex) {
+            AppLogger.logError("Error purging the live sales figures", ex);
+        }
+    }
+
+    private void runReports(String period, LocalDateTime from, LocalDateTime to) {
+        Path directory = Paths.get(Constants.REPORT_DIR, period);
+        for (Report report : Report.values()) {
+            Path file = directory.resolve(from.toLocalDate() + "-" + report.fileName + ".csv");
+            LocalDateTime started = LocalDateTime.now();
+            long rows = 0;
+            String status = "completed";
+            String message = null;
+            try {
+                rows = writeReport(report, from, to, file);
+                AppLogger.logInfo("Report " + file + " written with " + rows + " rows");
+            } catch (SQLException | IOException ex) {
+                status = "failed";
+                message = ex.getMessage();
+                AppLogger.logError("Error generating report " + file, ex);
+            }
+            recordRun(report, period, started, rows, file, status, message);
+        }
+    }
+
+    /**
+     * Streams the rows of a report into a CSV file.
+     *
+     * @return the number of rows written
+     */
+    private long writeReport(Report report, LocalDateTime from, LocalDateTime to, Path file) throws SQLException, IOException {
+        Files.createDirectories(file.getParent());
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        long rows = 0;
+        try (Connection conn = DatabaseConnector.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(report.sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            if (report == Report.LOW_STOCK) {
+                stmt.setInt(1, Constants.LOW_STOCK_THRESHOLD);
+            } else if (report != Report.STOCK_VALUATION) {
+                stmt.setTimestamp(1, Timestamp.valueOf(from));
+                stmt.setTimestamp(2, Timestamp.valueOf(to));
+            }
+            try (ResultSet rs = stmt.executeQuery();
+                 BufferedWriter writer = Files.newBufferedWriter(partial, StandardCharsets.UTF_8)) {
+                ResultSetMetaData meta = rs.getMetaData();
+                int columns = meta.getColumnCount();
+                for (int i = 1; i <= columns; i++) {
+                    writer.write((i > 1 ? "," : "") + csv(meta.getColumnLabel(i)));
+                }
+                writer.newLine();
+                while (rs.next()) {
+                    for (int i = 1; i <= columns; i++) {
+                        writer.write((i > 1 ? "," : "") + csv(rs.getString(i)));
+                    }
+                    writer.newLine();
+                    rows++;
+                }
+            }
+        } catch (SQLException | IOException ex) {
+            Files.deleteIfExists(partial);
+            throw ex;
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return rows;
+    }
+
+    private void recordRun(Report report, String period, LocalDateTime started, long rows, Path file, String status, String message) {
+        String sql = "INSERT INTO report_runs (report, period, started_at, finished_at, row_count, file_path, status, message) "
+                + "VALUES (?, ?, ?, NOW(), ?, ?, ?, ?)";
+        try (Connection conn = DatabaseConnector.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, report.fileName);
+            stmt.setString(2, period);
+            stmt.setTimestamp(3, Timestamp.valueOf(started));
+            stmt.setLong(4, rows);
+            stmt.setString(5, file.toString());
+            stmt.setString(6, status);
+            stmt.setString(7, message == null ? null : message.substring(0, Math.min(255, message.length())));
+            stmt.executeUpdate();
+        } catch (SQLException ex) {
+            AppLogger.logError("Error recording report run", ex);
+        }
+    }
+
+    /**
+     * Quotes a value for a CSV field if it contains a separator, quote or line break.
+     *
+     * @param value the value, may be null
+     * @return the field
+     */
+    static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    /**
+     * One recorded report run.
+     */
+    public static final class ReportRun {
+        private final String report;
+        private final String period;
+        private final LocalDateTime startedAt;
+        private final LocalDateTime finishedAt;
+        private final long rowCount;
+        private final String filePath;
+        private final String status;
+        private final String message;
+
+        ReportRun(String report, String period, LocalDateTime startedAt, LocalDateTime finishedAt, long rowCount,
+                  String filePath, String status, String message) {
+            this.report = report;
+            this.period = period;
+            this.startedAt = startedAt;
+            this.finishedAt = finishedAt;
+            this.rowCount = rowCount;
+            this.filePath = filePath;
+            this.status = status;
+            this.message = message;
+        }
+
+        public String getReport() {
+            return report;
+        }
+
+        public String getPeriod() {
+            return period;
+        }
+
+        public LocalDateTime getStartedAt() {
+            return startedAt;
+        }
+
+        public LocalDateTime getFinishedAt() {
+            return finishedAt;
+        }
+
+        public long getRowCount() {
+            return rowCount;
+        }
+
+        public String getFilePath() {
+            return filePath;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.example.util.AppLogger;
+import com.example.util.Constants;
+
+/**
+ * The ResourceLeakDetector class tracks statements and result sets handed out by the
+ * connection pool and reports the ones that stay open longer than
+ * {@link Constants#STATEMENT_LEAK_THRESHOLD_SECONDS}, together with the stack trace of
+ * the code that opened them.
+ *
+ * <p>Capturing a stack trace is the expensive part of tracking, so it is only done for one
+ * in {@link Constants#STATEMENT_LEAK_TRACE_SAMPLE} resources, or for every resource with
+ * {@code -Dstock.leakTraces=true}. Leaks of the other resources are still reported with
+ * their SQL and thread.</p>
+ */
+final class ResourceLeakDetector {
+
+    private static final Map<Object, Allocation> OUTSTANDING = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService REAPER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "jdbc-leak-detector");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        long interval = Math.max(1, Constants.STATEMENT_LEAK_THRESHOLD_SECONDS / 2);
+        REAPER.scheduleWithFixedDelay(ResourceLeakDetector::reportLeaks, interval, interval, TimeUnit.SECONDS);
+    }
+
+    private ResourceLeakDetector() {
+    }
+
+    /**
+     * Starts tracking a resource.
+     *
+     * @param handle the resource handle
+     * @param kind   a short description such as "PreparedStatement"
+     * @param sql    the SQL the resource belongs to, may be null
+     */
+    static void track(Object handle, String kind, String sql) {
+        OUTSTANDING.put(handle, new Allocation(kind, sql));
+    }
+
+    /**
+     * Stops tracking a resource that was closed by its owner.
+     *
+     * @param handle the resource handle
+     */
+    static void untrack(Object handle) {
+        OUTSTANDING.remove(handle);
+    }
+
+    /**
+     * Stops tracking a resource that its owner never closed and that is being closed
+     * on its behalf, logging where it was opened.
+     *
+     * @param handle the resource handle
+     */
+    static void reclaim(Object handle) {
+        Allocation allocation = OUTSTANDING.remove(handle);
+        if (allocation != null && !allocation.reported) {
+            AppLogger.logWarning(allocation.kind + " was not closed before its connection was released: " + allocation.sql, allocation.site);
+        }
+    }
+
+    private static void reportLeaks() {
+        long now = System.nanoTime();
+        long threshold = TimeUnit.SECONDS.toNanos(Constants.STATEMENT_LEAK_THRESHOLD_SECONDS);
+        for (Allocation allocation : OUTSTANDING.values()) {
+            if (!allocation.reported && now - allocation.createdNanos > threshold) {
+                allocation.reported = true;
+                AppLogger.logWarning(String.format("%s open for more than %d s (opened on thread %s): %s",
+                        allocation.kind, Constants.STATEMENT_LEAK_THRESHOLD_SECONDS, allocation.threadName, allocation.sql), allocation.site);
+            }
+        }
+    }
+
+    /**
+     * Where and when a resource was opened.
+     */
+    private static final class Allocation {
+        final String kind;
+        final String sql;
+        final String threadName = Thread.currentThread().getName();
+        final long createdNanos = System.nanoTime();
+        final Throwable site = captureSite();
+        volatile boolean reported;
+
+        Allocation(String kind, String sql) {
+            this.kind = kind;
+            this.sql = sql;
+        }
+
+        private static Throwable captureSite() {
+            if (Constants.STATEMENT_LEAK_TRACES || ThreadLocalRandom.current().nextInt(Math.max(1, Constants.STATEMENT_LEAK_TRACE_SAMPLE)) == 0) {
+                return new Throwable("Opened here");
+            }
+            return new UnsampledSite();
+        }
+    }
+
+    /**
+     * Stands in for the opening stack of a resource whose stack was not sampled, without
+     * capturing one.
+     */
+    private static final class UnsampledSite extends Throwable {
+        private static final long serialVersionUID = 1L;
+
+        UnsampledSite() {
+            super("Opening stack not sampled; run with -Dstock.leakTraces=true to capture it", null, false, false);
+        }
+    }
+}
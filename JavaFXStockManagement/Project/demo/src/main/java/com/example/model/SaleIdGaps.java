@@ -0,0 +1,135 @@
+package com.example.model;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import com.example.util.Constants;
+
+/**
+ * The SaleIdGaps class tracks which sales an incremental reader of {@code Sales} has seen.
+ * Sale IDs are taken from the auto-increment counter when a sale is inserted, not when it
+ * commits, so a sale can become visible after a sale with a higher ID; a reader that only
+ * asks for IDs above the highest one it has seen would skip it for good.
+ *
+ * <p>Every ID missing below the high-water mark is therefore kept as a gap and asked for
+ * again by {@link #condition(String)} until it shows up, or until it is older than
+ * {@link Constants#SALE_GAP_RETENTION_SECONDS}, by when its transaction has rolled back or
+ * the ID was never used. Only the {@link Constants#SALE_GAP_LIMIT} highest gaps are kept,
+ * so the holes left by purged sales cost a bounded amount. Not thread-safe; readers call it
+ * under their own lock.</p>
+ */
+public final class SaleIdGaps {
+
+    private static final int MIN_GAP_PARAMETERS = 8;
+
+    private final TreeMap<Integer, Long> gaps = new TreeMap<>();
+    private int highWater;
+    private int gapParameters;
+
+    /**
+     * Returns the highest sale ID seen.
+     *
+     * @return the high-water mark, 0 if no sale was seen
+     */
+    public int highWater() {
+        return highWater;
+    }
+
+    /**
+     * Forgets every gap and continues after a sale ID, e.g. after loading every sale up to it.
+     *
+     * @param saleId the new high-water mark
+     */
+    public void reset(int saleId) {
+        gaps.clear();
+        highWater = saleId;
+    }
+
+    /**
+     * Records a sale read from the table. Sales above the high-water mark leave the IDs they
+     * skipped as gaps; sales below it fill their gap.
+     *
+     * @param saleId the ID of the sale
+     */
+    public void observe(int saleId) {
+        if (saleId <= highWater) {
+            gaps.remove(saleId);
+            return;
+        }
+        long now = System.nanoTime();
+        for (int id = Math.max(highWater + 1, saleId - Constants.SALE_GAP_LIMIT); id < saleId; id++) {
+            gaps.put(id, now);
+        }
+        highWater = saleId;
+        while (gaps.size() > Constants.SALE_GAP_LIMIT) {
+            gaps.pollFirstEntry();
+        }
+    }
+
+    /**
+     * Returns the number of gaps still asked for.
+     *
+     * @return the number of gaps
+     */
+    public int size() {
+        return gaps.size();
+    }
+
+    /**
+     * Returns the SQL condition selecting the sales above the high-water mark and the open
+     * gaps, dropping the gaps that have expired first. The high-water mark and the gaps are
+     * parameters bound by {@link #bind(PreparedStatement, int)}; the gap list is padded to a
+     * power of two of at least {@value #MIN_GAP_PARAMETERS}, so the statement text takes only a
+     * handful of forms and stays in the statement caches.
+     *
+     * @param alias the alias or name of the sales table in the query
+     * @return the condition, suitable for a WHERE clause
+     */
+    public String condition(String alias) {
+        long expiredBefore = System.nanoTime() - TimeUnit.SECONDS.toNanos(Constants.SALE_GAP_RETENTION_SECONDS);
+        Iterator<Map.Entry<Integer, Long>> iterator = gaps.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue() - expiredBefore < 0) {
+                iterator.remove();
+            }
+        }
+        gapParameters = gaps.isEmpty() ? 0 : Math.max(MIN_GAP_PARAMETERS, Integer.highestOneBit(gaps.size() - 1) << 1);
+        StringBuilder condition = new StringBuilder("(").append(alias).append(".sale_id > ?");
+        if (gapParameters > 0) {
+            condition.append(" OR ").append(alias).append(".sale_id IN (?");
+            for (int i = 1; i < gapParameters; i++) {
+                condition.append(", ?");
+            }
+            condition.append(')');
+        }
+        return condition.append(')').toString();
+    }
+
+    /**
+     * Binds the parameters of the condition last returned by {@link #condition(String)}. The
+     * unused gap parameters repeat the highest gap.
+     *
+     * @param stmt  the statement holding the condition
+     * @param index the index of the condition's first parameter
+     * @return the index of the parameter after the condition
+     * @throws SQLException if an SQL error occurs
+     */
+    public int bind(PreparedStatement stmt, int index) throws SQLException {
+        stmt.setInt(index++, highWater);
+        if (gapParameters > 0) {
+            int id = 0;
+            Iterator<Integer> ids = gaps.keySet().iterator();
+            for (int i = 0; i < gapParameters; i++) {
+                if (ids.hasNext()) {
+                    id = ids.next();
+                }
+                stmt.setInt(index++, id);
+            }
+        }
+        return index;
+    }
+}
@@ -0,0 +1,512 @@
+package com.example.model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The SalesColumnStore class keeps the sales table in memory as primitive column arrays
+ * and answers ad-hoc aggregate queries over it with parallel fork-join scans.
+ * Rows are only ever appended, so readers work on an immutable snapshot of the columns.
+ * Refreshes read the sales above the highest ID loaded so far plus the gaps below it
+ * tracked by {@link SaleIdGaps}, so sales that commit out of ID order are not skipped.
+ */
+public class SalesColumnStore {
+
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    private static final int MIN_SCAN_CHUNK = 1 << 15;
+    private static final long SECONDS_PER_DAY = 86_400L;
+
+    private final Object appendLock = new Object();
+    private int[] productIds = new int[INITIAL_CAPACITY];
+    private long[] saleTimes = new long[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private long[] totalCents = new long[INITIAL_CAPACITY];
+    private int size;
+    private final SaleIdGaps loadedSales = new SaleIdGaps();
+    private volatile Columns columns = new Columns(productIds, saleTimes, quantities, totalCents, 0);
+    private volatile Map<Integer, String> productNames = new HashMap<>();
+
+    /**
+     * Appends every sale recorded since the last refresh and reloads the product names.
+     *
+     * @return the number of sales appended
+     * @throws SQLException if an SQL error occurs
+     */
+    public int refresh() throws SQLException {
+        synchronized (appendLock) {
+            int appended = 0;
+            try (Connection conn = DatabaseConnector.getReadConnection()) {
+                // Hidden sales are read too, only to tell them apart from gaps.
+                String query = "SELECT sale_id, product_id, UNIX_TIMESTAMP(sale_date) AS sale_time, quantity_sold, " +
+                        "CAST(ROUND(total_price * 100) AS SIGNED) AS total_cents, " +
+                        "CASE WHEN " + DeletionEngine.visibleSales("Sales") + " THEN 1 ELSE 0 END AS visible " +
+                        "FROM Sales WHERE " + loadedSales.condition("Sales") + " ORDER BY sale_id";
+                try (PreparedStatement stmt = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    stmt.setFetchSize(Integer.MIN_VALUE);
+                    loadedSales.bind(stmt, 1);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            loadedSales.observe(rs.getInt(1));
+                            if (rs.getInt(6) == 1) {
+                                append(rs.getInt(2), rs.getLong(3), rs.getInt(4), rs.getLong(5));
+                                appended++;
+                            }
+                        }
+                    }
+                }
+                productNames = loadProductNames(conn);
+            }
+            columns = new Columns(productIds, saleTimes, quantities, totalCents, size);
+            return appended;
+        }
+    }
+
+    /**
+     * Drops every loaded sale so the next refresh reloads the table from scratch.
+     * Needed after sales rows are deleted, since the columns are append-only. The columns
+     * are replaced rather than reused, since scans still running read the old ones.
+     */
+    public void invalidate() {
+        synchronized (appendLock) {
+            productIds = new int[INITIAL_CAPACITY];
+            saleTimes = new long[INITIAL_CAPACITY];
+            quantities = new int[INITIAL_CAPACITY];
+            totalCents = new long[INITIAL_CAPACITY];
+            size = 0;
+            loadedSales.reset(0);
+            columns = new Columns(productIds, saleTimes, quantities, totalCents, 0);
+        }
+    }
+
+    /**
+     * Returns the number of sales currently held in memory.
+     *
+     * @return the number of loaded sales
+     */
+    public int size() {
+        return columns.size;
+    }
+
+    /**
+     * Returns the name of a product as of the last refresh.
+     *
+     * @param productId the ID of the product
+     * @return the product name, or a placeholder if the product no longer exists
+     */
+    public String productName(int productId) {
+        String name = productNames.get(productId);
+        return name != null ? name : "#" + productId;
+    }
+
+    /**
+     * Returns the products with the highest revenue or unit totals inside the filter.
+     *
+     * @param filter  the filter restricting the scanned sales
+     * @param limit   the maximum number of products to return
+     * @param byUnits true to rank by units sold, false to rank by revenue
+     * @return the top products, best first
+     */
+    public List<ProductTotal> topProducts(SalesFilter filter, int limit, boolean byUnits) {
+        ProductTotals totals = scan(new Aggregation<ProductTotals>() {
+            @Override
+            public ProductTotals scan(Columns c, int from, int to) {
+                ProductTotals acc = new ProductTotals();
+                for (int i = from; i < to; i++) {
+                    if (filter.matches(c.productIds[i], c.saleTimes[i], c.quantities[i])) {
+                        acc.add(c.productIds[i], c.quantities[i], c.totalCents[i]);
+                    }
+                }
+                return acc;
+            }
+
+            @Override
+            public ProductTotals merge(ProductTotals left, ProductTotals right) {
+                return left.mergeInto(right);
+            }
+        });
+        return totals.top(limit, byUnits
+                ? Comparator.comparingLong(ProductTotal::getUnits)
+                : Comparator.comparingLong(ProductTotal::getRevenueCents));
+    }
+
+    /**
+     * Sums units and revenue per hour of the day inside the filter.
+     *
+     * @param filter       the filter restricting the scanned sales
+     * @param offsetSeconds the time zone offset used to derive the local hour
+     * @return a two-row array holding units and revenue in cents for hours 0 to 23
+     */
+    public long[][] hourOfDayProfile(SalesFilter filter, int offsetSeconds) {
+        return scan(new Aggregation<long[][]>() {
+            @Override
+            public long[][] scan(Columns c, int from, int to) {
+                long[][] acc = new long[2][24];
+                for (int i = from; i < to; i++) {
+                    if (filter.matches(c.productIds[i], c.saleTimes[i], c.quantities[i])) {
+                        int hour = (int) (Math.floorMod(c.saleTimes[i] + offsetSeconds, SECONDS_PER_DAY) / 3600);
+                        acc[0][hour] += c.quantities[i];
+                        acc[1][hour] += c.totalCents[i];
+                    }
+                }
+                return acc;
+            }
+
+            @Override
+            public long[][] merge(long[][] left, long[][] right) {
+                return addInto(left, right);
+            }
+        });
+    }
+
+    /**
+     * Sums units and revenue per calendar day between the filter bounds.
+     * The filter must have a lower bound; the day index is relative to it.
+     *
+     * @param filter        the filter restricting the scanned sales
+     * @param offsetSeconds the time zone offset used to derive the local day
+     * @return a two-row array holding units and revenue in cents for each day
+     */
+    public long[][] dailyTotals(SalesFilter filter, int offsetSeconds) {
+        long firstDay = Math.floorDiv(filter.getFromEpoch() + offsetSeconds, SECONDS_PER_DAY);
+        long lastDay = Math.floorDiv(filter.getToEpoch() - 1 + offsetSeconds, SECONDS_PER_DAY);
+        int days = (int) Math.max(1, lastDay - firstDay + 1);
+        return scan(new Aggregation<long[][]>() {
+            @Override
+            public long[][] scan(Columns c, int from, int to) {
+                long[][] acc = new long[2][days];
+                for (int i = from; i < to; i++) {
+                    if (filter.matches(c.productIds[i], c.saleTimes[i], c.quantities[i])) {
+                        int day = (int) (Math.floorDiv(c.saleTimes[i] + offsetSeconds, SECONDS_PER_DAY) - firstDay);
+                        if (day >= 0 && day < days) {
+                            acc[0][day] += c.quantities[i];
+                            acc[1][day] += c.totalCents[i];
+                        }
+                    }
+                }
+                return acc;
+            }
+
+            @Override
+            public long[][] merge(long[][] left, long[][] right) {
+                return addInto(left, right);
+            }
+        });
+    }
+
+    /**
+     * Sums units and revenue into fixed-width time buckets starting at the filter's lower bound.
+     *
+     * @param filter        the filter restricting the scanned sales
+     * @param bucketSeconds the width of each bucket in seconds
+     * @return a two-row array holding units and revenue in cents for each bucket
+     */
+    public long[][] bucketTotals(SalesFilter filter, long bucketSeconds) {
+        long origin = filter.getFromEpoch();
+        int buckets = (int) Math.max(1, (filter.getToEpoch() - origin + bucketSeconds - 1) / bucketSeconds);
+        return scan(new Aggregation<long[][]>() {
+            @Override
+            public long[][] scan(Columns c, int from, int to) {
+                long[][] acc = new long[2][buckets];
+                for (int i = from; i < to; i++) {
+                    if (filter.matches(c.productIds[i], c.saleTimes[i], c.quantities[i])) {
+                        int bucket = (int) ((c.saleTimes[i] - origin) / bucketSeconds);
+                        acc[0][bucket] += c.quantities[i];
+                        acc[1][bucket] += c.totalCents[i];
+                    }
+                }
+                return acc;
+            }
+
+            @Override
+            public long[][] merge(long[][] left, long[][] right) {
+                return addInto(left, right);
+            }
+        });
+    }
+
+    /**
+     * Returns the epoch second of the oldest loaded sale, or 0 when nothing is loaded.
+     *
+     * @return the oldest sale time
+     */
+    public long oldestSaleTime() {
+        Columns c = columns;
+        if (c.size == 0) {
+            return 0;
+        }
+        return scan(new Aggregation<long[]>() {
+            @Override
+            public long[] scan(Columns cols, int from, int to) {
+                long min = Long.MAX_VALUE;
+                for (int i = from; i < to; i++) {
+                    min = Math.min(min, cols.saleTimes[i]);
+                }
+                return new long[]{min};
+            }
+
+            @Override
+            public long[] merge(long[] left, long[] right) {
+                left[0] = Math.min(left[0], right[0]);
+                return left;
+            }
+        })[0];
+    }
+
+    /**
+     * Runs an aggregation over the current snapshot in the common fork-join pool.
+     */
+    private <R> R scan(Aggregation<R> aggregation) {
+        Columns snapshot = columns;
+        int chunk = Math.max(MIN_SCAN_CHUNK, snapshot.size / (ForkJoinPool.getCommonPoolParallelism() * 4 + 1));
+        return ForkJoinPool.commonPool().invoke(new ScanTask<>(snapshot, aggregation, 0, snapshot.size, chunk));
+    }
+
+    private void append(int productId, long saleTime, int quantity, long cents) {
+        if (size == productIds.length) {
+            int capacity = productIds.length * 2;
+            productIds = Arrays.copyOf(productIds, capacity);
+            saleTimes = Arrays.copyOf(saleTimes, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            totalCents = Arrays.copyOf(totalCents, capacity);
+        }
+        productIds[size] = productId;
+        saleTimes[size] = saleTime;
+        quantities[size] = quantity;
+        totalCents[size] = cents;
+        size++;
+    }
+
+    private static Map<Integer, String> loadProductNames(Connection conn) throws SQLException {
+        Map<Integer, String> names = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT product_id, name FROM Products");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                names.put(rs.getInt("product_id"), rs.getString("name"));
+            }
+        }
+        return names;
+    }
+
+    private static long[][] addInto(long[][] left, long[][] right) {
+        for (int row = 0; row < left.length; row++) {
+            for (int i = 0; i < left[row].length; i++) {
+                left[row][i] += right[row][i];
+            }
+        }
+        return left;
+    }
+
+    /**
+     * Immutable view of the first {@code size} rows of the column arrays.
+     */
+    private static final class Columns {
+        final int[] productIds;
+        final long[] saleTimes;
+        final int[] quantities;
+        final long[] totalCents;
+        final int size;
+
+        Columns(int[] productIds, long[] saleTimes, int[] quantities, long[] totalCents, int size) {
+            this.productIds = productIds;
+            this.saleTimes = saleTimes;
+            this.quantities = quantities;
+            this.totalCents = totalCents;
+            this.size = size;
+        }
+    }
+
+    /**
+     * A partial aggregate computed over a row range and combined with its sibling.
+     */
+    private interface Aggregation<R> {
+        R scan(Columns columns, int from, int to);
+
+        R merge(R left, R right);
+    }
+
+    private static final class ScanTask<R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+
+        private final Columns columns;
+        private final Aggregation<R> aggregation;
+        private final int from;
+        private final int to;
+        private final int chunk;
+
+        ScanTask(Columns columns, Aggregation<R> aggregation, int from, int to, int chunk) {
+            this.columns = columns;
+            this.aggregation = aggregation;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from <= chunk) {
+                return aggregation.scan(columns, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            ScanTask<R> left = new ScanTask<>(columns, aggregation, from, mid, chunk);
+            left.fork();
+            R right = new ScanTask<>(columns, aggregation, mid, to, chunk).compute();
+            return aggregation.merge(left.join(), right);
+        }
+    }
+
+    /**
+     * Restricts a scan to a time range, an optional product and a minimum quantity.
+     */
+    public static final class SalesFilter {
+        private final long fromEpoch;
+        private final long toEpoch;
+        private final int productId;
+        private final int minQuantity;
+
+        /**
+         * Constructor for SalesFilter.
+         *
+         * @param fromEpoch   the inclusive lower bound in epoch seconds
+         * @param toEpoch     the exclusive upper bound in epoch seconds
+         * @param productId   the product to restrict to, or 0 for all products
+         * @param minQuantity the minimum quantity sold per sale
+         */
+        public SalesFilter(long fromEpoch, long toEpoch, int productId, int minQuantity) {
+            this.fromEpoch = fromEpoch;
+            this.toEpoch = toEpoch;
+            this.productId = productId;
+            this.minQuantity = minQuantity;
+        }
+
+        public long getFromEpoch() {
+            return fromEpoch;
+        }
+
+        public long getToEpoch() {
+            return toEpoch;
+        }
+
+        boolean matches(int saleProductId, long saleTime, int quantity) {
+            return saleTime >= fromEpoch && saleTime < toEpoch
+                    && (productId == 0 || saleProductId == productId)
+                    && quantity >= minQuantity;
+        }
+    }
+
+    /**
+     * Units and revenue accumulated for a single product.
+     */
+    public static final class ProductTotal {
+        private final int productId;
+        private final long units;
+        private final long revenueCents;
+
+        ProductTotal(int productId, long units, long revenueCents) {
+            this.productId = productId;
+            this.units = units;
+            this.revenueCents = revenueCents;
+        }
+
+        public int getProductId() {
+            return productId;
+        }
+
+        public long getUnits() {
+            return units;
+        }
+
+        public long getRevenueCents() {
+            return revenueCents;
+        }
+    }
+
+    /**
+     * Open-addressing map from product ID to unit and revenue totals, used as a
+     * per-chunk accumulator so scans do not box keys or allocate per row.
+     * Product ID 0 marks an empty slot, which is safe because IDs start at 1.
+     */
+    private static final class ProductTotals {
+        private int[] keys = new int[64];
+        private long[] units = new long[64];
+        private long[] cents = new long[64];
+        private int count;
+
+        void add(int productId, long unitDelta, long centDelta) {
+            int mask = keys.length - 1;
+            int slot = mix(productId) & mask;
+            while (keys[slot] != 0 && keys[slot] != productId) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == 0) {
+                keys[slot] = productId;
+                count++;
+            }
+            units[slot] += unitDelta;
+            cents[slot] += centDelta;
+            if (count * 2 > keys.length) {
+                grow();
+            }
+        }
+
+        ProductTotals mergeInto(ProductTotals other) {
+            ProductTotals target = count >= other.count ? this : other;
+            ProductTotals source = target == this ? other : this;
+            for (int i = 0; i < source.keys.length; i++) {
+                if (source.keys[i] != 0) {
+                    target.add(source.keys[i], source.units[i], source.cents[i]);
+                }
+            }
+            return target;
+        }
+
+        List<ProductTotal> top(int limit, Comparator<ProductTotal> order) {
+            PriorityQueue<ProductTotal> heap = new PriorityQueue<>(order);
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == 0) {
+                    continue;
+                }
+                ProductTotal total = new ProductTotal(keys[i], units[i], cents[i]);
+                if (heap.size() < limit) {
+                    heap.add(total);
+                } else if (order.compare(total, heap.peek()) > 0) {
+                    heap.poll();
+                    heap.add(total);
+                }
+            }
+            List<ProductTotal> result = new ArrayList<>(heap);
+            result.sort(order.reversed());
+            return result;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            long[] oldUnits = units;
+            long[] oldCents = cents;
+            keys = new int[oldKeys.length * 2];
+            units = new long[oldKeys.length * 2];
+            cents = new long[oldKeys.length * 2];
+            count = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    add(oldKeys[i], oldUnits[i], oldCents[i]);
+                }
+            }
+        }
+
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,436 @@
+package com.example.model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.example.util.AppLogger;
+import com.example.util.Constants;
+import com.example.util.RollingCounter;
+import com.example.util.RollingKeyedCounter;
+
+/**
+ * The SalesKpis class keeps the live sales figures of the admin dashboard, so the dashboard
+ * never queries {@code Sales}. The purchase paths record every committed order and line in
+ * memory after the commit, in constant time without locking or allocating: orders, units and
+ * revenue in one-second buckets, and units and revenue per product in one-minute buckets.
+ *
+ * <p>A background thread adds each complete minute of this process's figures to
+ * {@code sales_minute}, outside any purchase transaction, so the dashboard also sees the
+ * other terminals. A minute's row with product ID 0 holds its totals, and the row with
+ * product ID -1 the sales of products that did not fit in the minute's table of
+ * {@link Constants#KPI_PRODUCT_SLOTS} products. The dashboard combines the minutes this
+ * process has flushed, read from the table at most every
+ * {@link Constants#KPI_SHARED_REFRESH_MILLIS}, with its own figures since. The window covers
+ * the current minute and the {@link Constants#KPI_WINDOW_MINUTES} minus one before it, and
+ * the rates the last complete minute. Minutes follow each terminal's clock, and the sales of
+ * other terminals show once they have flushed their minute. Rows older than
+ * {@link Constants#KPI_RETENTION_HOURS} are purged nightly.</p>
+ */
+public final class SalesKpis {
+
+    private static final SalesKpis SHARED = new SalesKpis();
+
+    private static final int ORDERS = 0;
+    private static final int UNITS = 1;
+    private static final int REVENUE = 2;
+    private static final int PRODUCT_UNITS = 0;
+    private static final int PRODUCT_REVENUE = 1;
+    private static final int TOTALS_ROW = 0;
+    private static final int UNTRACKED_ROW = -1;
+    private static final long MINUTE_MILLIS = 60_000;
+    private static final long WINDOW_MILLIS = Constants.KPI_WINDOW_MINUTES * MINUTE_MILLIS;
+    /** How long after a minute ends its figures are flushed, for purchases recorded late. */
+    private static final long FLUSH_GRACE_MILLIS = 2000;
+    private static final String ADD =
+            "INSERT INTO sales_minute (minute_start, product_id, orders, units, revenue) VALUES (?, ?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE orders = orders + VALUES(orders), units = units + VALUES(units), "
+                    + "revenue = revenue + VALUES(revenue)";
+
+    private final RollingCounter totals = new RollingCounter((int) (WINDOW_MILLIS / 1000) + 1, 1000, 3);
+    private final RollingKeyedCounter products =
+            new RollingKeyedCounter(Constants.KPI_WINDOW_MINUTES + 1, MINUTE_MILLIS, Constants.KPI_PRODUCT_SLOTS, 2);
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sales-kpi-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile long flushedUpTo = minuteOf(System.currentTimeMillis());
+    private boolean started;
+    private Flushed flushed;
+
+    private SalesKpis() {
+    }
+
+    /**
+     * Returns the figures of the purchase paths of this process.
+     *
+     * @return the shared figures
+     */
+    public static SalesKpis shared() {
+        return SHARED;
+    }
+
+    /**
+     * Starts flushing complete minutes every {@link Constants#KPI_FLUSH_MILLIS}. Starting a
+     * started flusher does nothing.
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        flusher.scheduleWithFixedDelay(this::flush, Constants.KPI_FLUSH_MILLIS, Constants.KPI_FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records one committed order, a single purchase or a basket.
+     */
+    public void recordOrder() {
+        totals.add(System.currentTimeMillis(), ORDERS, 1);
+    }
+
+    /**
+     * Records one committed sale line.
+     *
+     * @param productId  the ID of the product sold
+     * @param quantity   the quantity sold
+     * @param totalCents the total price of the line in cents
+     */
+    public void recordSale(int productId, int quantity, long totalCents) {
+        long now = System.currentTimeMillis();
+        totals.add(now, UNITS, quantity);
+        totals.add(now, REVENUE, totalCents);
+        products.add(now, productId, PRODUCT_UNITS, quantity);
+        products.add(now, productId, PRODUCT_REVENUE, totalCents);
+    }
+
+    /**
+     * Reads the current rates, window totals and top products of every terminal.
+     *
+     * @return the figures as of now
+     * @throws SQLException if an SQL error occurs
+     */
+    public synchronized Snapshot snapshot() throws SQLException {
+        long now = System.currentTimeMillis();
+        long upTo = flushedUpTo;
+        if (flushed == null || flushed.upTo != upTo || now - flushed.loadedAt >= Constants.KPI_SHARED_REFRESH_MILLIS) {
+            flushed = Flushed.load(upTo, now);
+        }
+        long currentMinute = minuteOf(now);
+        long windowStart = currentMinute - WINDOW_MILLIS + MINUTE_MILLIS;
+        long windowEnd = currentMinute + MINUTE_MILLIS;
+
+        Snapshot snapshot = new Snapshot();
+        snapshot.takenAt = LocalDateTime.now();
+        long[] rate = flushed.totals(currentMinute - MINUTE_MILLIS, currentMinute, TOTALS_ROW);
+        long[] window = flushed.totals(windowStart, windowEnd, TOTALS_ROW);
+        long liveFrom = Math.max(upTo, windowStart);
+        long rateFrom = Math.max(upTo, currentMinute - MINUTE_MILLIS);
+        if (rateFrom < currentMinute) {
+            rate[ORDERS] += totals.sumBetween(rateFrom, currentMinute, ORDERS);
+            rate[UNITS] += totals.sumBetween(rateFrom, currentMinute, UNITS);
+            rate[REVENUE] += totals.sumBetween(rateFrom, currentMinute, REVENUE);
+        }
+        window[ORDERS] += totals.sumBetween(liveFrom, now, ORDERS);
+        window[UNITS] += totals.sumBetween(liveFrom, now, UNITS);
+        window[REVENUE] += totals.sumBetween(liveFrom, now, REVENUE);
+        snapshot.ordersPerMinute = rate[ORDERS];
+        snapshot.unitsPerMinute = rate[UNITS];
+        snapshot.revenuePerMinuteCents = rate[REVENUE];
+        snapshot.windowOrders = window[ORDERS];
+        snapshot.windowUnits = window[UNITS];
+        snapshot.windowRevenueCents = window[REVENUE];
+        snapshot.untrackedRevenueCents = flushed.totals(windowStart, windowEnd, UNTRACKED_ROW)[REVENUE]
+                + products.overflowBetween(liveFrom, windowEnd, PRODUCT_REVENUE);
+
+        // The flushed ranking may lack a product that only the live minutes lift into the top.
+        Map<Integer, long[]> ranked = new HashMap<>(flushed.topProducts);
+        for (RollingKeyedCounter.Entry entry : products.sumsBetween(liveFrom, windowEnd)) {
+            long[] sums = ranked.computeIfAbsent(entry.getKey(), id -> new long[2]);
+            sums[PRODUCT_UNITS] += entry.get(PRODUCT_UNITS);
+            sums[PRODUCT_REVENUE] += entry.get(PRODUCT_REVENUE);
+        }
+        List<TopProduct> topProducts = new ArrayList<>(ranked.size());
+        for (Map.Entry<Integer, long[]> entry : ranked.entrySet()) {
+            topProducts.add(new TopProduct(entry.getKey(), entry.getValue()[PRODUCT_UNITS], entry.getValue()[PRODUCT_REVENUE]));
+        }
+        topProducts.sort((a, b) -> Long.compare(b.revenueCents, a.revenueCents));
+        snapshot.topProducts = Collections.unmodifiableList(
+                topProducts.size() > Constants.KPI_TOP_PRODUCTS ? topProducts.subList(0, Constants.KPI_TOP_PRODUCTS) : topProducts);
+        return snapshot;
+    }
+
+    /**
+     * Deletes the figures older than {@link Constants#KPI_RETENTION_HOURS}.
+     *
+     * @param conn the database connection
+     * @return the number of rows deleted
+     * @throws SQLException if an SQL error occurs
+     */
+    public static int purge(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM sales_minute WHERE minute_start < NOW() - INTERVAL ? HOUR")) {
+            stmt.setInt(1, Constants.KPI_RETENTION_HOURS);
+            return stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Adds every complete minute not flushed yet to {@code sales_minute}, one transaction per
+     * minute. Minutes the ring no longer holds whole are skipped; a failed minute is retried
+     * on the next run.
+     */
+    private void flush() {
+        long now = System.currentTimeMillis();
+        long oldest = minuteOf(now) - WINDOW_MILLIS + MINUTE_MILLIS;
+        if (flushedUpTo < oldest) {
+            AppLogger.logWarning("Live sales figures from " + new Timestamp(flushedUpTo) + " were not flushed in time");
+            flushedUpTo = oldest;
+        }
+        Connection conn = null;
+        try {
+            while (flushedUpTo + MINUTE_MILLIS + FLUSH_GRACE_MILLIS <= now) {
+                long minute = flushedUpTo;
+                List<long[]> rows = minuteRows(minute);
+                if (!rows.isEmpty()) {
+                    if (conn == null) {
+                        conn = DatabaseConnector.getConnection();
+                    }
+                    writeMinute(conn, minute, rows);
+                }
+                flushedUpTo = minute + MINUTE_MILLIS;
+            }
+        } catch (SQLException ex) {
+            AppLogger.logError("Error flushing the live sales figures", ex);
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.close();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects one minute's rows as product ID, orders, units and revenue in cents.
+     */
+    private List<long[]> minuteRows(long minute) {
+        long end = minute + MINUTE_MILLIS;
+        List<long[]> rows = new ArrayList<>();
+        long orders = totals.sumBetween(minute, end, ORDERS);
+        long units = totals.sumBetween(minute, end, UNITS);
+        if (orders == 0 && units == 0) {
+            return rows;
+        }
+        rows.add(new long[]{TOTALS_ROW, orders, units, totals.sumBetween(minute, end, REVENUE)});
+        for (RollingKeyedCounter.Entry entry : products.sumsBetween(minute, end)) {
+            rows.add(new long[]{entry.getKey(), 0, entry.get(PRODUCT_UNITS), entry.get(PRODUCT_REVENUE)});
+        }
+        long untrackedUnits = products.overflowBetween(minute, end, PRODUCT_UNITS);
+        if (untrackedUnits > 0) {
+            rows.add(new long[]{UNTRACKED_ROW, 0, untrackedUnits, products.overflowBetween(minute, end, PRODUCT_REVENUE)});
+        }
+        return rows;
+    }
+
+    private static void writeMinute(Connection conn, long minute, List<long[]> rows) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (PreparedStatement stmt = conn.prepareStatement(ADD)) {
+            Timestamp minuteStart = new Timestamp(minute);
+            for (long[] row : rows) {
+                stmt.setTimestamp(1, minuteStart);
+                stmt.setInt(2, (int) row[0]);
+                stmt.setLong(3, row[1]);
+                stmt.setLong(4, row[2]);
+                Money.write(stmt, 5, row[3]);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            conn.commit();
+        } catch (SQLException ex) {
+            conn.rollback();
+            throw ex;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static long minuteOf(long millis) {
+        return millis - Math.floorMod(millis, MINUTE_MILLIS);
+    }
+
+    /**
+     * The figures of every terminal for the minutes this process had flushed when they were
+     * read.
+     */
+    private static final class Flushed {
+        private final long upTo;
+        private final long loadedAt;
+        private final List<long[]> minutes = new ArrayList<>();
+        private final Map<Integer, long[]> topProducts = new HashMap<>();
+
+        private Flushed(long upTo, long loadedAt) {
+            this.upTo = upTo;
+            this.loadedAt = loadedAt;
+        }
+
+        /**
+         * Reads the totals rows of the window by minute and the products with the most
+         * revenue over it. Twice the shown number of products is kept, for the live minutes
+         * to be ranked against.
+         */
+        static Flushed load(long upTo, long now) throws SQLException {
+            Flushed flushed = new Flushed(upTo, now);
+            Timestamp from = new Timestamp(minuteOf(now) - WINDOW_MILLIS + MINUTE_MILLIS);
+            Timestamp to = new Timestamp(upTo);
+            try (Connection conn = DatabaseConnector.getReadConnection()) {
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "SELECT minute_start, product_id, orders, units, revenue FROM sales_minute "
+                                + "WHERE minute_start >= ? AND minute_start < ? AND product_id <= ?")) {
+                    stmt.setTimestamp(1, from);
+                    stmt.setTimestamp(2, to);
+                    stmt.setInt(3, TOTALS_ROW);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            flushed.minutes.add(new long[]{rs.getTimestamp("minute_start").getTime(), rs.getInt("product_id"),
+                                    rs.getLong("orders"), rs.getLong("units"), Money.read(rs, "revenue")});
+                        }
+                    }
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "SELECT product_id, SUM(units) AS units, SUM(revenue) AS revenue FROM sales_minute "
+                                + "WHERE minute_start >= ? AND minute_start < ? AND product_id > ? "
+                                + "GROUP BY product_id ORDER BY revenue DESC LIMIT ?")) {
+                    stmt.setTimestamp(1, from);
+                    stmt.setTimestamp(2, to);
+                    stmt.setInt(3, TOTALS_ROW);
+                    stmt.setInt(4, Constants.KPI_TOP_PRODUCTS * 2);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            flushed.topProducts.put(rs.getInt("product_id"), new long[]{rs.getLong("units"), Money.read(rs, "revenue")});
+                        }
+                    }
+                }
+            }
+            return flushed;
+        }
+
+        /**
+         * Sums the orders, units and revenue of one kind of row over the minutes of a range.
+         */
+        long[] totals(long fromMillis, long toMillis, int productId) {
+            long[] sums = new long[3];
+            for (long[] minute : minutes) {
+                if (minute[1] == productId && minute[0] >= fromMillis && minute[0] < toMillis) {
+                    sums[ORDERS] += minute[2];
+                    sums[UNITS] += minute[3];
+                    sums[REVENUE] += minute[4];
+                }
+            }
+            return sums;
+        }
+    }
+
+    /**
+     * The live figures at one moment.
+     */
+    public static final class Snapshot {
+        private LocalDateTime takenAt;
+        private long ordersPerMinute;
+        private long unitsPerMinute;
+        private long revenuePerMinuteCents;
+        private long windowOrders;
+        private long windowUnits;
+        private long windowRevenueCents;
+        private List<TopProduct> topProducts = Collections.emptyList();
+        private long untrackedRevenueCents;
+
+        public LocalDateTime getTakenAt() {
+            return takenAt;
+        }
+
+        public long getOrdersPerMinute() {
+            return ordersPerMinute;
+        }
+
+        public long getUnitsPerMinute() {
+            return unitsPerMinute;
+        }
+
+        public long getRevenuePerMinuteCents() {
+            return revenuePerMinuteCents;
+        }
+
+        public long getWindowOrders() {
+            return windowOrders;
+        }
+
+        public long getWindowUnits() {
+            return windowUnits;
+        }
+
+        public long getWindowRevenueCents() {
+            return windowRevenueCents;
+        }
+
+        /**
+         * Returns the products with the most revenue in the window.
+         *
+         * @return the top products, largest revenue first
+         */
+        public List<TopProduct> getTopProducts() {
+            return topProducts;
+        }
+
+        /**
+         * Returns the revenue of products that did not fit in a minute's table of
+         * {@link Constants#KPI_PRODUCT_SLOTS} products and are missing from the ranking.
+         *
+         * @return the untracked revenue in cents
+         */
+        public long getUntrackedRevenueCents() {
+            return untrackedRevenueCents;
+        }
+    }
+
+    /**
+     * A product's sales over the window.
+     */
+    public static final class TopProduct {
+        private final int productId;
+        private final long units;
+        private final long revenueCents;
+
+        TopProduct(int productId, long units, long revenueCents) {
+            this.productId = productId;
+            this.units = units;
+            this.revenueCents = revenueCents;
+        }
+
+        public int getProductId() {
+            return productId;
+        }
+
+        public long getUnits() {
+            return units;
+        }
+
+        public long getRevenueCents() {
+            return revenueCents;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The SalesLogQuery class pages through the sales log with the filters pushed down to SQL.
+ * Pages are fetched with a keyset on (sale_date, sale_id) rather than an offset, so every
+ * page is a short range scan on one of the covering indexes {@code sales_date_covering},
+ * {@code sales_product_covering} or, for one user's purchases, {@code sales_user_covering}.
+ */
+public class SalesLogQuery {
+
+    private static final DateTimeFormatter CSV_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final int productId;
+    private final int minQuantity;
+    private final int userId;
+
+    /**
+     * Constructor for SalesLogQuery.
+     *
+     * @param from        the earliest sale date (inclusive), or null for no lower bound
+     * @param to          the latest sale date (exclusive), or null for no upper bound
+     * @param productId   the product to show, or 0 for every product
+     * @param minQuantity the minimum quantity sold, or 0 for any quantity
+     */
+    public SalesLogQuery(LocalDateTime from, LocalDateTime to, int productId, int minQuantity) {
+        this(from, to, productId, minQuantity, 0);
+    }
+
+    private SalesLogQuery(LocalDateTime from, LocalDateTime to, int productId, int minQuantity, int userId) {
+        this.from = from;
+        this.to = to;
+        this.productId = productId;
+        this.minQuantity = minQuantity;
+        this.userId = userId;
+    }
+
+    /**
+     * Returns a query without any filters.
+     *
+     * @return the unfiltered query
+     */
+    public static SalesLogQuery all() {
+        return new SalesLogQuery(null, null, 0, 0);
+    }
+
+    /**
+     * Returns a query for the purchases of one user.
+     *
+     * @param userId the ID of the user
+     * @return the query
+     */
+    public static SalesLogQuery forUser(int userId) {
+        return new SalesLogQuery(null, null, 0, 0, userId);
+    }
+
+    /**
+     * Fetches the page of sales following a row, newest first.
+     *
+     * @param conn     the database connection
+     * @param after    the last row of the previous page, or null for the first page
+     * @param pageSize the maximum number of rows
+     * @return the page
+     * @throws SQLException if an SQL error occurs
+     */
+    public Page fetch(Connection conn, SaleRow after, int pageSize) throws SQLException {
+        List<Object> parameters = new ArrayList<>();
+        StringBuilder sql = select(parameters);
+        if (after != null) {
+            sql.append(" AND (s.sale_date < ? OR (s.sale_date = ? AND s.sale_id < ?))");
+            Timestamp afterDate = Timestamp.valueOf(after.getSaleDate());
+            parameters.add(afterDate);
+            parameters.add(afterDate);
+            parameters.add(after.getSaleId());
+        }
+        sql.append(" ORDER BY s.sale_date DESC, s.sale_id DESC LIMIT ?");
+        parameters.add(pageSize + 1);
+
+        List<SaleRow> rows = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            bind(stmt, parameters);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(readRow(rs));
+                }
+            }
+        }
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows.remove(pageSize);
+        }
+        return new Page(rows, hasMore);
+    }
+
+    /**
+     * Writes every sale matching the query as CSV, newest first. The rows are streamed from
+     * the server one at a time, so the export does not depend on how many pages are loaded
+     * and never holds the whole log in memory.
+     *
+     * @param conn   the database connection
+     * @param writer the destination of the CSV lines
+     * @return the number of sales written
+     * @throws SQLException if an SQL error occurs
+     * @throws IOException  if the CSV cannot be written
+     */
+    public long export(Connection conn, BufferedWriter writer) throws SQLException, IOException {
+        List<Object> parameters = new ArrayList<>();
+        StringBuilder sql = select(parameters).append(" ORDER BY s.sale_date DESC, s.sale_id DESC");
+        long rows = 0;
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            bind(stmt, parameters);
+            try (ResultSet rs = stmt.executeQuery()) {
+                writer.write("Sale ID,Product Name,Quantity Sold,Sale Date,Total Price");
+                writer.newLine();
+                while (rs.next()) {
+                    SaleRow sale = readRow(rs);
+                    writer.write(sale.getSaleId() + "," + ReportScheduler.csv(sale.getProductName())
+                            + "," + sale.getQuantity() + "," + sale.getSaleDate().format(CSV_DATE_FORMAT)
+                            + "," + Money.format(sale.getTotalCents()));
+                    writer.newLine();
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Builds the select over the visible sales with the filters of this query, adding their
+     * values to the parameters.
+     */
+    private StringBuilder select(List<Object> parameters) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT s.sale_id, s.product_id, p.name, s.quantity_sold, s.sale_date, s.total_price "
+                        + "FROM Sales s JOIN Products p ON s.product_id = p.product_id WHERE " + DeletionEngine.visibleSales("s"));
+        if (from != null) {
+            sql.append(" AND s.sale_date >= ?");
+            parameters.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND s.sale_date < ?");
+            parameters.add(Timestamp.valueOf(to));
+        }
+        if (productId > 0) {
+            sql.append(" AND s.product_id = ?");
+            parameters.add(productId);
+        }
+        if (minQuantity > 0) {
+            sql.append(" AND s.quantity_sold >= ?");
+            parameters.add(minQuantity);
+        }
+        if (userId > 0) {
+            sql.append(" AND s.user_id = ?");
+            parameters.add(userId);
+        }
+        return sql;
+    }
+
+    private static void bind(PreparedStatement stmt, List<Object> parameters) throws SQLException {
+        for (int i = 0; i < parameters.size(); i++) {
+            stmt.setObject(i + 1, parameters.get(i));
+        }
+    }
+
+    private static SaleRow readRow(ResultSet rs) throws SQLException {
+        return new SaleRow(rs.getInt("sale_id"), rs.getInt("product_id"), rs.getString("name"),
+                rs.getInt("quantity_sold"), rs.getTimestamp("sale_date").toLocalDateTime(),
+                Money.read(rs, "total_price"));
+    }
+
+    /**
+     * One row of the sales log.
+     */
+    public static final class SaleRow {
+        private final int saleId;
+        private final int productId;
+        private final String productName;
+        private final int quantity;
+        private final LocalDateTime saleDate;
+        private final long totalCents;
+
+        SaleRow(int saleId, int productId, String productName, int quantity, LocalDateTime saleDate, long totalCents) {
+            this.saleId = saleId;
+            this.productId = productId;
+            this.productName = productName;
+            this.quantity = quantity;
+            this.saleDate = saleDate;
+            this.totalCents = totalCents;
+        }
+
+        public int getSaleId() {
+            return saleId;
+        }
+
+        public int getProductId() {
+            return productId;
+        }
+
+        public String getProductName() {
+            return productName;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public LocalDateTime getSaleDate() {
+            return saleDate;
+        }
+
+        public long getTotalCents() {
+            return totalCents;
+        }
+    }
+
+    /**
+     * A page of sales and whether more rows follow it.
+     */
+    public static final class Page {
+        private final List<SaleRow> rows;
+        private final boolean hasMore;
+
+        Page(List<SaleRow> rows, boolean hasMore) {
+            this.rows = Collections.unmodifiableList(rows);
+            this.hasMore = hasMore;
+        }
+
+        public List<SaleRow> getRows() {
+            return rows;
+        }
+
+        public boolean hasMore() {
+            return hasMore;
+        }
+
+        /**
+         * Returns the last row of the page, to fetch the next page after.
+         *
+         * @return the last row, or null if the page is empty
+         */
+        public SaleRow last() {
+            return rows.isEmpty() ? null : rows.get(rows.size() - 1);
+        }
+    }
+}
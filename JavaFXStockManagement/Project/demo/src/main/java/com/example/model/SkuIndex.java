@@ -0,0 +1,205 @@
+package com.example.model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.example.util.LongIntHashMap;
+
+/**
+ * The SkuIndex class is an in-memory snapshot of the products that have a SKU, so a scanner
+ * can be served without a database round trip per scan.
+ *
+ * <p>Numeric barcodes such as EAN-13 and UPC-A are parsed into a long and looked up in a
+ * primitive hash map. The code length is folded into the key so that codes differing only in
+ * leading zeros stay distinct. Alphanumeric SKUs fall back to a regular hash map. A lookup
+ * returns a slot into parallel arrays holding the product fields.</p>
+ *
+ * <p>The products are fixed once loaded; their stock is only a hint, kept current by
+ * {@link #take(int, int)} for the baskets bought through the index and otherwise as old as
+ * the snapshot. The purchase itself is checked against the database when the basket is
+ * committed. Not thread-safe; the stock is read and taken on one thread.</p>
+ */
+public class SkuIndex {
+
+    private static final int MAX_NUMERIC_DIGITS = 17;
+
+    private final int locationId;
+    private final long loadedNanos = System.nanoTime();
+    private final LongIntHashMap numericSlots;
+    private final LongIntHashMap productSlots;
+    private final Map<String, Integer> textSlots = new HashMap<>();
+    private int[] productIds;
+    private String[] names;
+    private String[] skus;
+    private long[] priceCents;
+    private int[] stock;
+    private int count;
+
+    private SkuIndex(int locationId, int expectedSize) {
+        this.locationId = locationId;
+        int capacity = Math.max(16, expectedSize);
+        numericSlots = new LongIntHashMap(capacity);
+        productSlots = new LongIntHashMap(capacity);
+        productIds = new int[capacity];
+        names = new String[capacity];
+        skus = new String[capacity];
+        priceCents = new long[capacity];
+        stock = new int[capacity];
+    }
+
+    /**
+     * Loads every product that has a SKU and has not been deleted, with its effective price
+     * and its stock at a location.
+     *
+     * @param conn       the database connection
+     * @param locationId the ID of the location selling the products
+     * @return the loaded index
+     * @throws SQLException if an SQL error occurs
+     */
+    public static SkuIndex load(Connection conn, int locationId) throws SQLException {
+        int expected = 0;
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM Products WHERE sku IS NOT NULL AND deleted_at IS NULL");
+             ResultSet rs = stmt.executeQuery()) {
+            if (rs.next()) {
+                expected = rs.getInt(1);
+            }
+        }
+        SkuIndex index = new SkuIndex(locationId, expected);
+        PriceIndex prices = PriceIndex.shared();
+        prices.refreshIfStale(conn);
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT p.product_id, p.name, p.sku, p.price, COALESCE(ps.quantity, 0) AS quantity FROM Products p "
+                        + "LEFT JOIN product_stock ps ON ps.product_id = p.product_id AND ps.location_id = ? "
+                        + "WHERE p.sku IS NOT NULL AND p.deleted_at IS NULL")) {
+            stmt.setInt(1, locationId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int productId = rs.getInt("product_id");
+                    index.add(productId, rs.getString("name"), rs.getString("sku"),
+                            prices.priceCents(productId, Money.read(rs, "price")), rs.getInt("quantity"));
+                }
+            }
+        }
+        return index;
+    }
+
+    private void add(int productId, String name, String sku, long price, int quantity) {
+        if (count == productIds.length) {
+            int capacity = count * 2;
+            productIds = Arrays.copyOf(productIds, capacity);
+            names = Arrays.copyOf(names, capacity);
+            skus = Arrays.copyOf(skus, capacity);
+            priceCents = Arrays.copyOf(priceCents, capacity);
+            stock = Arrays.copyOf(stock, capacity);
+        }
+        int slot = count++;
+        productIds[slot] = productId;
+        names[slot] = name;
+        skus[slot] = sku;
+        priceCents[slot] = price;
+        stock[slot] = quantity;
+        productSlots.put(productId, slot);
+        long key = numericKey(sku);
+        if (key != 0) {
+            numericSlots.put(key, slot);
+        } else {
+            textSlots.put(sku, slot);
+        }
+    }
+
+    /**
+     * Finds the product with a SKU.
+     *
+     * @param sku the scanned SKU or barcode
+     * @return the slot of the product, or -1 if the SKU is unknown
+     */
+    public int lookup(String sku) {
+        long key = numericKey(sku);
+        if (key != 0) {
+            return numericSlots.get(key, -1);
+        }
+        Integer slot = textSlots.get(sku);
+        return slot == null ? -1 : slot;
+    }
+
+    public int productId(int slot) {
+        return productIds[slot];
+    }
+
+    public String name(int slot) {
+        return names[slot];
+    }
+
+    public String sku(int slot) {
+        return skus[slot];
+    }
+
+    public long priceCents(int slot) {
+        return priceCents[slot];
+    }
+
+    public int stock(int slot) {
+        return stock[slot];
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Takes a quantity bought at the index's location off a product's stock.
+     *
+     * @param productId the ID of the product
+     * @param quantity  the quantity bought
+     */
+    public void take(int productId, int quantity) {
+        int slot = productSlots.get(productId, -1);
+        if (slot >= 0) {
+            stock[slot] = Math.max(0, stock[slot] - quantity);
+        }
+    }
+
+    /**
+     * Returns how long ago the index was loaded.
+     *
+     * @return the age of the index in seconds
+     */
+    public long ageSeconds() {
+        return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - loadedNanos);
+    }
+
+    /**
+     * Returns the location whose stock the index holds.
+     *
+     * @return the ID of the location
+     */
+    public int locationId() {
+        return locationId;
+    }
+
+    /**
+     * Encodes an all-digit SKU as a non-zero long, or returns 0 if it is not numeric.
+     */
+    private static long numericKey(String sku) {
+        int length = sku.length();
+        if (length == 0 || length > MAX_NUMERIC_DIGITS) {
+            return 0;
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            char c = sku.charAt(i);
+            if (c < '0' || c > '9') {
+                return 0;
+            }
+            value = value * 10 + (c - '0');
+        }
+        // 17 digits stay below 2^57, leaving room for the length in the low five bits.
+        return (value << 5) | length;
+    }
+}
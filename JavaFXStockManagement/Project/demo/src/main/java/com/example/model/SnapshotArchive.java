@@ -0,0 +1,929 @@
+package com.example.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.example.util.AppLogger;
+import com.example.util.Constants;
+
+/**
+ * The SnapshotArchive class backs up the application data to a binary snapshot and restores
+ * it, which is much faster on both ends than producing and replaying an SQL dump such as
+ * {@code javafx_db.sql}. A snapshot is a directory with one GZIP-compressed file per table
+ * and a manifest holding the row count and CRC-32 of each file. The manifest is written last,
+ * so a directory without one is an incomplete snapshot and cannot be restored.
+ *
+ * <p>A table file starts with the table definition and column types, followed by the rows.
+ * Numbers, dates and times are stored as variable-length differences to the previous row, so
+ * sequential IDs and chronological timestamps take a byte or two before compression. Tables
+ * are written in parallel; every writer starts a consistent-snapshot transaction while the
+ * tables are briefly locked against writes, so all files describe the same point in time
+ * while sales continue during the backup.</p>
+ *
+ * <p>Restoring checks every file against the manifest before touching the database. It then
+ * recreates the tables with only their primary keys, loads the rows in parallel with
+ * multi-row inserts and adds the secondary indexes and foreign keys at the end, so each index
+ * is built once instead of row by row. A restore replaces every table in the snapshot,
+ * including the user accounts; other tables are left alone. The deletion jobs are part of
+ * the snapshot because their tombstones decide which sales are visible; restoring a snapshot
+ * taken without them clears the jobs, so none of them hides or purges the restored sales.</p>
+ */
+public final class SnapshotArchive {
+
+    private static final List<String> TABLES = Arrays.asList("users", "locations", "Products", "product_stock",
+            "price_versions", "Sales", "deletion_jobs", "stock_movements", "stock_snapshots");
+    private static final int MAGIC = 0x534E4150;
+    private static final int FORMAT_VERSION = 1;
+    private static final String MANIFEST = "manifest.properties";
+    private static final String FILE_SUFFIX = ".snap.gz";
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static final byte INTEGER = 'I';
+    private static final byte DECIMAL = 'D';
+    private static final byte DATE_TIME = 'T';
+    private static final byte DATE = 'A';
+    private static final byte TEXT = 'S';
+    private static final byte ROW = 1;
+    private static final byte END = 0;
+
+    private SnapshotArchive() {
+    }
+
+    /**
+     * Writes a snapshot of the application tables to a new directory.
+     *
+     * @param parent the directory to create the snapshot in
+     * @return the new snapshot
+     * @throws SQLException if an SQL error occurs
+     * @throws IOException  if the snapshot cannot be written
+     */
+    public static Summary backup(Path parent) throws SQLException, IOException {
+        long start = System.nanoTime();
+        Path directory = parent.resolve("snapshot-" + LocalDateTime.now().format(NAME_FORMAT));
+        Files.createDirectories(directory);
+        ConcurrentLinkedQueue<String> pending = new ConcurrentLinkedQueue<>();
+        int writers = Math.min(Constants.SNAPSHOT_PARALLELISM, TABLES.size());
+        ExecutorService executor = newExecutor("snapshot-backup", writers);
+        List<Future<List<TableSummary>>> futures = new ArrayList<>();
+        List<TableSummary> tables = new ArrayList<>();
+        try {
+            try (Connection lock = DatabaseConnector.getConnection()) {
+                pending.addAll(largestFirst(lock));
+                CountDownLatch started = new CountDownLatch(writers);
+                try (Statement stmt = lock.createStatement()) {
+                    stmt.execute("LOCK TABLES " + String.join(" READ, ", TABLES) + " READ");
+                    try {
+                        for (int w = 0; w < writers; w++) {
+                            futures.add(executor.submit(() -> writeTables(directory, pending, started)));
+                        }
+                        awaitStarted(started);
+                    } finally {
+                        stmt.execute("UNLOCK TABLES");
+                    }
+                }
+            }
+            for (Future<List<TableSummary>> future : futures) {
+                tables.addAll(await(future));
+            }
+            writeManifest(directory, tables);
+        } catch (SQLException | IOException | RuntimeException ex) {
+            executor.shutdownNow();
+            deleteQuietly(directory);
+            throw ex;
+        } finally {
+            executor.shutdown();
+        }
+        tables.sort(Comparator.comparingInt(t -> TABLES.indexOf(t.getTable())));
+        Summary summary = new Summary(directory, tables, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        AppLogger.logInfo("Wrote snapshot " + directory + ": " + summary.getRows() + " rows, " + summary.getBytes() + " bytes in "
+                + summary.getElapsedMillis() + " ms");
+        return summary;
+    }
+
+    /**
+     * Checks every file of a snapshot against its manifest without touching the database.
+     *
+     * @param directory the snapshot directory
+     * @return the snapshot
+     * @throws IOException if a file is missing, damaged or does not match the manifest
+     */
+    public static Summary verify(Path directory) throws IOException {
+        long start = System.nanoTime();
+        List<TableFile> files = verifyFiles(directory);
+        List<TableSummary> tables = new ArrayList<>();
+        for (TableFile file : files) {
+            tables.add(file.summary);
+        }
+        return new Summary(directory, tables, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Replaces the tables in a snapshot with its contents. Every file is verified first, so
+     * a damaged snapshot leaves the database untouched.
+     *
+     * @param directory the snapshot directory
+     * @return the restored snapshot
+     * @throws SQLException if an SQL error occurs
+     * @throws IOException  if the snapshot is incomplete or damaged
+     */
+    public static Summary restore(Path directory) throws SQLException, IOException {
+        long start = System.nanoTime();
+        List<TableFile> files = verifyFiles(directory);
+        try (Connection conn = DatabaseConnector.getConnection()) {
+            withForeignKeyChecksOff(conn, () -> {
+                try (Statement stmt = conn.createStatement()) {
+                    boolean hasJobs = false;
+                    for (TableFile file : files) {
+                        stmt.execute("DROP TABLE IF EXISTS " + file.summary.table);
+                        stmt.execute(file.definition.create);
+                        hasJobs |= file.summary.table.equalsIgnoreCase("deletion_jobs");
+                    }
+                    if (!hasJobs) {
+                        stmt.execute("DELETE FROM deletion_jobs");
+                    }
+                }
+            });
+        }
+        runPerTable(files, "snapshot-restore", file -> {
+            try (Connection conn = DatabaseConnector.getConnection()) {
+                withForeignKeyChecksOff(conn, () -> loadTable(conn, file));
+            }
+        });
+        runPerTable(files, "snapshot-index", file -> {
+            if (file.definition.alter == null) {
+                return;
+            }
+            try (Connection conn = DatabaseConnector.getConnection()) {
+                withForeignKeyChecksOff(conn, () -> {
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute(file.definition.alter);
+                    }
+                });
+            }
+        });
+        List<TableSummary> tables = new ArrayList<>();
+        for (TableFile file : files) {
+            tables.add(file.summary);
+        }
+        Summary summary = new Summary(directory, tables, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        AppLogger.logInfo("Restored snapshot " + directory + ": " + summary.getRows() + " rows in " + summary.getElapsedMillis() + " ms");
+        return summary;
+    }
+
+    /**
+     * Lists the complete snapshots in a directory.
+     *
+     * @param parent the directory holding the snapshots
+     * @return the snapshot directories, newest first
+     * @throws IOException if the directory cannot be read
+     */
+    public static List<Path> list(Path parent) throws IOException {
+        if (!Files.isDirectory(parent)) {
+            return Collections.emptyList();
+        }
+        List<Path> snapshots = new ArrayList<>();
+        try (Stream<Path> children = Files.list(parent)) {
+            children.filter(child -> Files.isRegularFile(child.resolve(MANIFEST))).forEach(snapshots::add);
+        }
+        snapshots.sort(Comparator.comparing(Path::getFileName).reversed());
+        return snapshots;
+    }
+
+    private static List<String> largestFirst(Connection conn) throws SQLException {
+        Map<String, Long> estimates = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT TABLE_NAME, TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE()");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                estimates.put(rs.getString(1).toLowerCase(Locale.ROOT), rs.getLong(2));
+            }
+        }
+        List<String> tables = new ArrayList<>(TABLES);
+        tables.sort(Comparator.comparingLong((String t) -> estimates.getOrDefault(t.toLowerCase(Locale.ROOT), 0L)).reversed());
+        return tables;
+    }
+
+    /**
+     * Starts a consistent-snapshot transaction, signals that it has started and writes
+     * tables from the shared queue until it is empty.
+     */
+    private static List<TableSummary> writeTables(Path directory, ConcurrentLinkedQueue<String> pending, CountDownLatch started)
+            throws SQLException, IOException {
+        List<TableSummary> written = new ArrayList<>();
+        try (Connection conn = DatabaseConnector.getConnection()) {
+            try {
+                conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("START TRANSACTION WITH CONSISTENT SNAPSHOT, READ ONLY");
+                }
+            } finally {
+                started.countDown();
+            }
+            try {
+                String table;
+                while ((table = pending.poll()) != null) {
+                    written.add(writeTable(conn, directory, table));
+                }
+            } finally {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("COMMIT");
+                }
+            }
+        }
+        return written;
+    }
+
+    private static TableSummary writeTable(Connection conn, Path directory, String table) throws SQLException, IOException {
+        String ddl;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SHOW CREATE TABLE " + table)) {
+            rs.next();
+            ddl = rs.getString(2);
+        }
+        Path file = directory.resolve(fileName(table));
+        CRC32 crc = new CRC32();
+        long rows = 0;
+        try (Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = stmt.executeQuery("SELECT * FROM " + table);
+                 DataOutputStream out = openOutput(file, crc)) {
+                Column[] columns = Column.describe(rs.getMetaData());
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                writeText(out, table);
+                writeText(out, ddl);
+                out.writeShort(columns.length);
+                for (Column column : columns) {
+                    writeText(out, column.name);
+                    out.writeByte(column.kind);
+                    out.writeInt(column.sqlType);
+                    out.writeByte(column.scale);
+                }
+                byte[] nulls = new byte[(columns.length + 7) / 8];
+                while (rs.next()) {
+                    Arrays.fill(nulls, (byte) 0);
+                    for (int i = 0; i < columns.length; i++) {
+                        if (!columns[i].read(rs, i + 1)) {
+                            nulls[i >> 3] |= 1 << (i & 7);
+                        }
+                    }
+                    out.writeByte(ROW);
+                    out.write(nulls);
+                    for (int i = 0; i < columns.length; i++) {
+                        if ((nulls[i >> 3] & 1 << (i & 7)) == 0) {
+                            columns[i].write(out);
+                        }
+                    }
+                    rows++;
+                }
+                out.writeByte(END);
+            }
+        }
+        return new TableSummary(table, rows, Files.size(file), crc.getValue());
+    }
+
+    private static void writeManifest(Path directory, List<TableSummary> tables) throws IOException {
+        Properties manifest = new Properties();
+        manifest.setProperty("format", Integer.toString(FORMAT_VERSION));
+        manifest.setProperty("created", LocalDateTime.now().toString());
+        List<String> names = new ArrayList<>();
+        for (String table : TABLES) {
+            for (TableSummary summary : tables) {
+                if (summary.table.equals(table)) {
+                    names.add(table);
+                    manifest.setProperty(table + ".rows", Long.toString(summary.rows));
+                    manifest.setProperty(table + ".crc32", Long.toString(summary.crc32));
+                }
+            }
+        }
+        manifest.setProperty("tables", String.join(",", names));
+        Path partial = directory.resolve(MANIFEST + ".part");
+        try (OutputStream out = Files.newOutputStream(partial)) {
+            manifest.store(out, "Stock management snapshot");
+        }
+        Files.move(partial, directory.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads every file of a snapshot in parallel and compares it with the manifest.
+     *
+     * @return the files in the order of the manifest
+     */
+    private static List<TableFile> verifyFiles(Path directory) throws IOException {
+        Path manifestFile = directory.resolve(MANIFEST);
+        if (!Files.isRegularFile(manifestFile)) {
+            throw new IOException(directory + " is not a complete snapshot: " + MANIFEST + " is missing");
+        }
+        Properties manifest = new Properties();
+        try (InputStream in = Files.newInputStream(manifestFile)) {
+            manifest.load(in);
+        }
+        if (!Integer.toString(FORMAT_VERSION).equals(manifest.getProperty("format"))) {
+            throw new IOException("Unsupported snapshot format " + manifest.getProperty("format"));
+        }
+        List<TableFile> files = new ArrayList<>();
+        for (String table : manifest.getProperty("tables", "").split(",")) {
+            if (!table.isEmpty()) {
+                files.add(new TableFile(directory.resolve(fileName(table)),
+                        Long.parseLong(manifest.getProperty(table + ".rows")), Long.parseLong(manifest.getProperty(table + ".crc32"))));
+            }
+        }
+        try {
+            runPerTable(files, "snapshot-verify", file -> readTable(file, null));
+        } catch (SQLException ex) {
+            throw new IOException("Could not verify " + directory, ex);
+        }
+        return files;
+    }
+
+    /**
+     * Decodes a table file, passing its rows to the loader if one is given, and checks its
+     * row count and checksum. Fills in the file's definition and summary.
+     */
+    private static void readTable(TableFile file, Loader loader) throws IOException, SQLException {
+        CRC32 crc = new CRC32();
+        long rows = 0;
+        String table;
+        try (DataInputStream in = openInput(file.path, crc)) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException(file.path + " is not a snapshot file of this version");
+            }
+            table = readText(in);
+            file.definition = new Definition(readText(in));
+            Column[] columns = new Column[in.readUnsignedShort()];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = new Column(readText(in), in.readByte(), in.readInt(), in.readByte());
+            }
+            if (loader != null) {
+                loader.begin(table, columns);
+            }
+            byte[] nulls = new byte[(columns.length + 7) / 8];
+            Object[] row = new Object[columns.length];
+            byte marker;
+            while ((marker = in.readByte()) == ROW) {
+                in.readFully(nulls);
+                for (int i = 0; i < columns.length; i++) {
+                    row[i] = (nulls[i >> 3] & 1 << (i & 7)) == 0 ? columns[i].decode(in) : null;
+                }
+                if (loader != null) {
+                    loader.add(row);
+                }
+                rows++;
+            }
+            if (marker != END) {
+                throw new IOException(file.path + " is damaged: unexpected marker " + marker);
+            }
+        }
+        if (rows != file.expectedRows || crc.getValue() != file.expectedCrc) {
+            throw new IOException(file.path + " does not match the manifest: " + rows + " rows, checksum " + crc.getValue()
+                    + ", expected " + file.expectedRows + " rows, checksum " + file.expectedCrc);
+        }
+        if (loader != null) {
+            loader.finish();
+        }
+        file.summary = new TableSummary(table, rows, Files.size(file.path), crc.getValue());
+    }
+
+    private static void loadTable(Connection conn, TableFile file) throws SQLException {
+        try {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("SET SESSION unique_checks = 0");
+            }
+            conn.setAutoCommit(false);
+            Loader loader = new Loader(conn);
+            try {
+                readTable(file, loader);
+            } finally {
+                loader.close();
+            }
+            conn.commit();
+        } catch (IOException ex) {
+            conn.rollback();
+            throw new SQLException("Could not read " + file.path, ex);
+        } catch (SQLException ex) {
+            conn.rollback();
+            throw ex;
+        } finally {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("SET SESSION unique_checks = 1");
+            }
+        }
+    }
+
+    private static void withForeignKeyChecksOff(Connection conn, SqlAction action) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("SET SESSION foreign_key_checks = 0");
+        }
+        try {
+            action.run();
+        } finally {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("SET SESSION foreign_key_checks = 1");
+            }
+        }
+    }
+
+    private static void runPerTable(List<TableFile> files, String name, TableAction action) throws SQLException, IOException {
+        ExecutorService executor = newExecutor(name, Math.min(Constants.SNAPSHOT_PARALLELISM, Math.max(1, files.size())));
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (TableFile file : files) {
+                futures.add(executor.submit(() -> {
+                    action.run(file);
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                await(future);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ExecutorService newExecutor(String name, int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static void awaitStarted(CountDownLatch started) throws SQLException {
+        try {
+            started.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while starting the snapshot", ex);
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws SQLException, IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the snapshot", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof SQLException) {
+                throw (SQLException) ex.getCause();
+            }
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new SQLException(ex.getCause());
+        }
+    }
+
+    private static String fileName(String table) {
+        return table.toLowerCase(Locale.ROOT) + FILE_SUFFIX;
+    }
+
+    private static DataOutputStream openOutput(Path file, CRC32 crc) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(
+                new CheckedOutputStream(new GZIPOutputStream(Files.newOutputStream(file), BUFFER_SIZE), crc), BUFFER_SIZE));
+    }
+
+    private static DataInputStream openInput(Path file, CRC32 crc) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            throw new IOException(file + " is missing");
+        }
+        return new DataInputStream(new BufferedInputStream(
+                new CheckedInputStream(new GZIPInputStream(Files.newInputStream(file), BUFFER_SIZE), crc), BUFFER_SIZE));
+    }
+
+    private static void deleteQuietly(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException ex) {
+                    AppLogger.logError("Could not delete " + path, ex);
+                }
+            });
+        } catch (IOException ex) {
+            AppLogger.logError("Could not delete incomplete snapshot " + directory, ex);
+        }
+    }
+
+    private static void writeText(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[(int) readVarLong(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a zigzag-encoded variable-length number: seven bits per byte, small magnitudes
+     * of either sign first.
+     */
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.writeByte((int) (zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        out.writeByte((int) zigzag);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long zigzag = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift > 63) {
+                throw new IOException("Malformed number in snapshot");
+            }
+            b = in.readByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    /**
+     * A column of a table file. Numeric kinds are written as the difference to the last
+     * non-null value of the column.
+     */
+    private static final class Column {
+        final String name;
+        final byte kind;
+        final int sqlType;
+        final int scale;
+        long previous;
+        long number;
+        String text;
+
+        Column(String name, byte kind, int sqlType, int scale) {
+            this.name = name;
+            this.kind = kind;
+            this.sqlType = sqlType;
+            this.scale = scale;
+        }
+
+        static Column[] describe(ResultSetMetaData meta) throws SQLException {
+            Column[] columns = new Column[meta.getColumnCount()];
+            for (int i = 0; i < columns.length; i++) {
+                int type = meta.getColumnType(i + 1);
+                byte kind;
+                switch (type) {
+                    case Types.TINYINT:
+                    case Types.SMALLINT:
+                    case Types.INTEGER:
+                    case Types.BIGINT:
+                        kind = INTEGER;
+                        break;
+                    case Types.DECIMAL:
+                    case Types.NUMERIC:
+                        kind = meta.getPrecision(i + 1) <= 18 ? DECIMAL : TEXT;
+                        break;
+                    case Types.TIMESTAMP:
+                        kind = DATE_TIME;
+                        break;
+                    case Types.DATE:
+                        kind = DATE;
+                        break;
+                    default:
+                        kind = TEXT;
+                        break;
+                }
+                columns[i] = new Column(meta.getColumnName(i + 1), kind, type, Math.max(0, meta.getScale(i + 1)));
+            }
+            return columns;
+        }
+
+        /**
+         * Reads the column of the current row.
+         *
+         * @return false if the value is null
+         */
+        boolean read(ResultSet rs, int index) throws SQLException {
+            switch (kind) {
+                case INTEGER:
+                    number = rs.getLong(index);
+                    return !rs.wasNull();
+                case DECIMAL:
+                    BigDecimal decimal = rs.getBigDecimal(index);
+                    if (decimal == null) {
+                        return false;
+                    }
+                    number = decimal.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+                    return true;
+                case DATE_TIME:
+                    LocalDateTime dateTime = rs.getObject(index, LocalDateTime.class);
+                    if (dateTime == null) {
+                        return false;
+                    }
+                    number = dateTime.toEpochSecond(ZoneOffset.UTC);
+                    return true;
+                case DATE:
+                    LocalDate date = rs.getObject(index, LocalDate.class);
+                    if (date == null) {
+                        return false;
+                    }
+                    number = date.toEpochDay();
+                    return true;
+                default:
+                    text = rs.getString(index);
+                    return text != null;
+            }
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            if (kind == TEXT) {
+                writeText(out, text);
+            } else {
+                writeVarLong(out, number - previous);
+                previous = number;
+            }
+        }
+
+        Object decode(DataInputStream in) throws IOException {
+            if (kind == TEXT) {
+                return readText(in);
+            }
+            long value = previous + readVarLong(in);
+            previous = value;
+            switch (kind) {
+                case DECIMAL:
+                    return new BigDecimal(BigInteger.valueOf(value), scale);
+                case DATE_TIME:
+                    return LocalDateTime.ofEpochSecond(value, 0, ZoneOffset.UTC);
+                case DATE:
+                    return LocalDate.ofEpochDay(value);
+                default:
+                    return value;
+            }
+        }
+    }
+
+    /**
+     * A table definition split into the statement that creates the table with its primary
+     * key and the statement that adds its other indexes and constraints afterwards.
+     */
+    private static final class Definition {
+        final String create;
+        final String alter;
+
+        Definition(String ddl) {
+            String[] lines = ddl.split("\n");
+            String header = lines[0];
+            String tableName = header.substring(header.indexOf('`'), header.lastIndexOf('`') + 1);
+            List<String> kept = new ArrayList<>();
+            List<String> deferred = new ArrayList<>();
+            for (int i = 1; i < lines.length - 1; i++) {
+                String line = lines[i].trim();
+                if (line.endsWith(",")) {
+                    line = line.substring(0, line.length() - 1);
+                }
+                if (line.startsWith("KEY ") || line.startsWith("UNIQUE KEY ") || line.startsWith("FULLTEXT KEY ")
+                        || line.startsWith("SPATIAL KEY ") || line.startsWith("CONSTRAINT ")) {
+                    deferred.add(line);
+                } else {
+                    kept.add(line);
+                }
+            }
+            create = header + "\n  " + String.join(",\n  ", kept) + "\n" + lines[lines.length - 1];
+            alter = deferred.isEmpty() ? null : "ALTER TABLE " + tableName + " ADD " + String.join(", ADD ", deferred);
+        }
+    }
+
+    /**
+     * Inserts decoded rows with multi-row statements of {@link Constants#SNAPSHOT_INSERT_ROWS}
+     * rows, committing every {@link Constants#SNAPSHOT_COMMIT_ROWS} rows.
+     */
+    private static final class Loader {
+        private final Connection conn;
+        private final List<Object[]> pending = new ArrayList<>();
+        private Column[] columns;
+        private String insertPrefix;
+        private String rowPlaceholders;
+        private PreparedStatement fullInsert;
+        private long uncommitted;
+
+        Loader(Connection conn) {
+            this.conn = conn;
+        }
+
+        void begin(String table, Column[] columns) throws SQLException {
+            this.columns = columns;
+            StringBuilder names = new StringBuilder();
+            StringBuilder placeholders = new StringBuilder("(");
+            for (int i = 0; i < columns.length; i++) {
+                names.append(i == 0 ? "" : ", ").append('`').append(columns[i].name).append('`');
+                placeholders.append(i == 0 ? "?" : ", ?");
+            }
+            insertPrefix = "INSERT INTO " + table + " (" + names + ") VALUES ";
+            rowPlaceholders = placeholders.append(')').toString();
+            fullInsert = conn.prepareStatement(insertSql(Constants.SNAPSHOT_INSERT_ROWS));
+        }
+
+        void add(Object[] row) throws SQLException {
+            pending.add(row.clone());
+            if (pending.size() == Constants.SNAPSHOT_INSERT_ROWS) {
+                flush(fullInsert);
+            }
+        }
+
+        void finish() throws SQLException {
+            if (!pending.isEmpty()) {
+                try (PreparedStatement stmt = conn.prepareStatement(insertSql(pending.size()))) {
+                    flush(stmt);
+                }
+            }
+        }
+
+        void close() throws SQLException {
+            if (fullInsert != null) {
+                fullInsert.close();
+            }
+        }
+
+        private String insertSql(int rows) {
+            StringBuilder sql = new StringBuilder(insertPrefix);
+            for (int r = 0; r < rows; r++) {
+                sql.append(r == 0 ? "" : ", ").append(rowPlaceholders);
+            }
+            return sql.toString();
+        }
+
+        private void flush(PreparedStatement stmt) throws SQLException {
+            int index = 1;
+            for (Object[] row : pending) {
+                for (int i = 0; i < columns.length; i++) {
+                    if (row[i] == null) {
+                        stmt.setNull(index++, columns[i].sqlType);
+                    } else {
+                        stmt.setObject(index++, row[i]);
+                    }
+                }
+            }
+            stmt.executeUpdate();
+            uncommitted += pending.size();
+            pending.clear();
+            if (uncommitted >= Constants.SNAPSHOT_COMMIT_ROWS) {
+                conn.commit();
+                uncommitted = 0;
+            }
+        }
+    }
+
+    /**
+     * A table file of a snapshot being verified or restored.
+     */
+    private static final class TableFile {
+        final Path path;
+        final long expectedRows;
+        final long expectedCrc;
+        Definition definition;
+        TableSummary summary;
+
+        TableFile(Path path, long expectedRows, long expectedCrc) {
+            this.path = path;
+            this.expectedRows = expectedRows;
+            this.expectedCrc = expectedCrc;
+        }
+    }
+
+    private interface SqlAction {
+        void run() throws SQLException;
+    }
+
+    private interface TableAction {
+        void run(TableFile file) throws SQLException, IOException;
+    }
+
+    /**
+     * The result of writing, verifying or restoring a snapshot.
+     */
+    public static final class Summary {
+        private final Path directory;
+        private final List<TableSummary> tables;
+        private final long elapsedMillis;
+
+        Summary(Path directory, List<TableSummary> tables, long elapsedMillis) {
+            this.directory = directory;
+            this.tables = Collections.unmodifiableList(tables);
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public Path getDirectory() {
+            return directory;
+        }
+
+        public List<TableSummary> getTables() {
+            return tables;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public long getRows() {
+            long rows = 0;
+            for (TableSummary table : tables) {
+                rows += table.rows;
+            }
+            return rows;
+        }
+
+        /**
+         * Returns the compressed size of the snapshot.
+         *
+         * @return the total size of the table files in bytes
+         */
+        public long getBytes() {
+            long bytes = 0;
+            for (TableSummary table : tables) {
+                bytes += table.bytes;
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * One table of a snapshot.
+     */
+    public static final class TableSummary {
+        private final String table;
+        private final long rows;
+        private final long bytes;
+        private final long crc32;
+
+        TableSummary(String table, long rows, long bytes, long crc32) {
+            this.table = table;
+            this.rows = rows;
+            this.bytes = bytes;
+            this.crc32 = crc32;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getCrc32() {
+            return crc32;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.model;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.util.AppLogger;
+import com.example.util.Constants;
+
+/**
+ * The StatementRegistry class caches the prepared statements of one physical connection,
+ * keyed by SQL. A statement is removed from the cache while it is in use, so a second
+ * request for the same SQL before the first is closed simply prepares a fresh one.
+ * The least recently used statements are closed once the cache exceeds
+ * {@link Constants#STATEMENT_CACHE_SIZE}.
+ */
+final class StatementRegistry {
+
+    private final Map<String, PreparedStatement> idle = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+            if (size() > Constants.STATEMENT_CACHE_SIZE) {
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * Supplies a newly prepared statement on a cache miss.
+     */
+    interface Preparer {
+        PreparedStatement prepare() throws SQLException;
+    }
+
+    /**
+     * Takes the cached statement for a key out of the cache, or prepares a new one.
+     *
+     * @param key      the cache key, normally the SQL text
+     * @param preparer prepares the statement on a cache miss
+     * @return a statement owned by the caller until it is released
+     * @throws SQLException if the statement cannot be prepared
+     */
+    synchronized PreparedStatement acquire(String key, Preparer preparer) throws SQLException {
+        PreparedStatement cached = idle.remove(key);
+        if (cached != null) {
+            return cached;
+        }
+        return preparer.prepare();
+    }
+
+    /**
+     * Returns a statement to the cache after clearing its parameters.
+     *
+     * @param key       the cache key the statement was acquired with
+     * @param statement the statement
+     */
+    synchronized void release(String key, PreparedStatement statement) {
+        try {
+            statement.clearParameters();
+        } catch (SQLException ex) {
+            closeQuietly(statement);
+            return;
+        }
+        PreparedStatement previous = idle.put(key, statement);
+        if (previous != null && previous != statement) {
+            closeQuietly(previous);
+        }
+    }
+
+    /**
+     * Closes every cached statement.
+     */
+    synchronized void closeAll() {
+        List<PreparedStatement> statements = new ArrayList<>(idle.values());
+        idle.clear();
+        for (PreparedStatement statement : statements) {
+            closeQuietly(statement);
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ex) {
+            AppLogger.logDebug("Failed to close cached statement: " + ex.getMessage());
+        }
+    }
+}
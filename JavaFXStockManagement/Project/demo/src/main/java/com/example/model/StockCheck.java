@@ -0,0 +1,107 @@
+package com.example.model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.example.util.Constants;
+
+/**
+ * The StockCheck class is the result of one periodic low-stock check: the products below
+ * their reorder point and the reorder list. All admin windows of a process share one
+ * {@link ReorderEngine}, so the check can run once for every open window.
+ */
+public final class StockCheck {
+
+    private static final ReorderEngine ENGINE = new ReorderEngine();
+
+    private final List<LowStock> lowStock;
+    private final List<ReorderEngine.ReorderItem> reorderItems;
+
+    private StockCheck(List<LowStock> lowStock, List<ReorderEngine.ReorderItem> reorderItems) {
+        this.lowStock = Collections.unmodifiableList(lowStock);
+        this.reorderItems = Collections.unmodifiableList(reorderItems);
+    }
+
+    /**
+     * Returns the reorder engine shared by every stock check.
+     *
+     * @return the shared engine
+     */
+    public static ReorderEngine engine() {
+        return ENGINE;
+    }
+
+    /**
+     * Folds new sales into the shared engine, scans the current stock and collects the
+     * products that need reordering.
+     *
+     * @return the result of the check
+     * @throws SQLException if an SQL error occurs
+     */
+    public static StockCheck run() throws SQLException {
+        List<LowStock> lowStock = new ArrayList<>();
+        try (Connection conn = DatabaseConnector.getReadConnection()) {
+            ENGINE.pollSales(conn);
+            ENGINE.beginStockScan();
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT product_id, name, quantity FROM Products WHERE deleted_at IS NULL");
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int productId = rs.getInt("product_id");
+                    String name = rs.getString("name");
+                    int quantity = rs.getInt("quantity");
+                    ENGINE.updateStock(productId, name, quantity);
+                    if (ENGINE.needsReorder(productId)) {
+                        lowStock.add(new LowStock(productId, name, quantity, ENGINE.reorderPoint(productId)));
+                    }
+                }
+            }
+        }
+        return new StockCheck(lowStock, ENGINE.reorderList(Constants.REORDER_LIST_SIZE));
+    }
+
+    public List<LowStock> getLowStock() {
+        return lowStock;
+    }
+
+    public List<ReorderEngine.ReorderItem> getReorderItems() {
+        return reorderItems;
+    }
+
+    /**
+     * A product at or below its reorder point.
+     */
+    public static final class LowStock {
+        private final int productId;
+        private final String name;
+        private final int quantity;
+        private final int reorderPoint;
+
+        LowStock(int productId, String name, int quantity, int reorderPoint) {
+            this.productId = productId;
+            this.name = name;
+            this.quantity = quantity;
+            this.reorderPoint = reorderPoint;
+        }
+
+        public int getProductId() {
+            return productId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public int getReorderPoint() {
+            return reorderPoint;
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package com.example.model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.util.Constants;
+
+/**
+ * The StockLedger class records every change to a product's stock as an append-only row in
+ * {@code stock_movements} and answers what the stock was at any point in time.
+ *
+ * <p>Movements are written on the same connection as the stock update they describe, so
+ * callers running a transaction get both or neither. Periodic snapshots in
+ * {@code stock_snapshots} hold every product's stock as of a given movement; a point-in-time
+ * query starts from the newest snapshot before the requested time and only adds the
+ * movements recorded after it, instead of replaying the whole ledger.</p>
+ */
+public final class StockLedger {
+
+    /**
+     * The reason for a stock movement.
+     */
+    public enum Kind {
+        PURCHASE,
+        RESTOCK,
+        ADJUSTMENT,
+        DELETE,
+        /**
+         * Reconciles a product's ledger with its stock the first time it is snapshotted,
+         * covering stock that existed before movements were recorded.
+         */
+        OPENING;
+
+        String column() {
+            return name().toLowerCase();
+        }
+    }
+
+    private static final String INSERT_MOVEMENT =
+            "INSERT INTO stock_movements (product_id, kind, quantity_change, moved_at) VALUES (?, ?, ?, NOW())";
+
+    private StockLedger() {
+    }
+
+    /**
+     * Records one stock movement.
+     *
+     * @param conn      the database connection used for the stock update
+     * @param productId the ID of the product
+     * @param kind      the reason for the movement
+     * @param change    the change in stock, negative for stock leaving
+     * @throws SQLException if an SQL error occurs
+     */
+    public static void record(Connection conn, int productId, Kind kind, int change) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_MOVEMENT)) {
+            stmt.setInt(1, productId);
+            stmt.setString(2, kind.column());
+            stmt.setInt(3, change);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Records several movements of the same kind in one batch.
+     *
+     * @param conn       the database connection used for the stock updates
+     * @param kind       the reason for the movements
+     * @param productIds the IDs of the products
+     * @param changes    the change in stock of each product, negative for stock leaving
+     * @throws SQLException if an SQL error occurs
+     */
+    public static void recordBatch(Connection conn, Kind kind, int[] productIds, int[] changes) throws SQLException {
+        if (productIds.length == 0) {
+            return;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_MOVEMENT)) {
+            for (int i = 0; i < productIds.length; i++) {
+                stmt.setInt(1, productIds[i]);
+                stmt.setString(2, kind.column());
+                stmt.setInt(3, changes[i]);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Records the removal of a product's remaining stock when the product is deleted.
+     *
+     * @param conn      the database connection used for the deletion
+     * @param productId the ID of the product
+     * @throws SQLException if an SQL error occurs
+     */
+    public static void recordRemoval(Connection conn, int productId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO stock_movements (product_id, kind, quantity_change, moved_at) "
+                        + "SELECT product_id, 'delete', -quantity, NOW() FROM Products WHERE product_id = ? AND quantity <> 0")) {
+            stmt.setInt(1, productId);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Writes a snapshot of every product's stock as of the newest settled movement.
+     *
+     * <p>The snapshot is derived from the previous snapshot plus the movements since, so it
+     * agrees with the ledger by construction. Movements younger than
+     * {@link Constants#STOCK_SNAPSHOT_SETTLE_SECONDS} are left for the next snapshot, because
+     * a transaction that is still open may hold a lower movement ID. Products without an
+     * opening movement get one for the difference between their current stock and the sum
+     * of their movements, which is the stock they had before the ledger started, dated at
+     * their creation or first movement, whichever is earlier, so point-in-time queries see it
+     * from then on. The openings are computed with a plain consistent read and inserted
+     * afterwards, so no locks are held on the products or the ledger while reading them. An
+     * opening is never chosen as the snapshot's last movement, since its date lies in the
+     * past; the next snapshot picks it up. The snapshot rows are read the same way before
+     * they are written.</p>
+     *
+     * @param conn the database connection
+     * @return the number of products in the snapshot, or 0 if nothing moved since the last one
+     * @throws SQLException if an SQL error occurs
+     */
+    public static int takeSnapshot(Connection conn) throws SQLException {
+        recordOpenings(conn);
+
+        long previous = queryLong(conn, "SELECT COALESCE(MAX(last_movement_id), 0) FROM stock_snapshots", 0);
+        long upTo = 0;
+        Timestamp takenAt = null;
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT movement_id, moved_at FROM stock_movements WHERE moved_at <= NOW() - INTERVAL ? SECOND AND kind <> 'opening' "
+                        + "ORDER BY movement_id DESC LIMIT 1")) {
+            stmt.setLong(1, Constants.STOCK_SNAPSHOT_SETTLE_SECONDS);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    upTo = rs.getLong("movement_id");
+                    takenAt = rs.getTimestamp("moved_at");
+                }
+            }
+        }
+        if (upTo <= previous) {
+            return 0;
+        }
+
+        String sql = "SELECT k.product_id, COALESCE(s.quantity, 0) + COALESCE(d.delta, 0) AS quantity FROM ("
+                + "  SELECT product_id FROM stock_snapshots WHERE last_movement_id = ? "
+                + "  UNION SELECT product_id FROM stock_movements WHERE movement_id > ? AND movement_id <= ?) k "
+                + "LEFT JOIN stock_snapshots s ON s.product_id = k.product_id AND s.last_movement_id = ? "
+                + "LEFT JOIN (SELECT product_id, SUM(quantity_change) AS delta FROM stock_movements "
+                + "  WHERE movement_id > ? AND movement_id <= ? GROUP BY product_id) d ON d.product_id = k.product_id "
+                + "WHERE COALESCE(s.quantity, 0) + COALESCE(d.delta, 0) <> 0 "
+                + "   OR k.product_id IN (SELECT product_id FROM Products WHERE deleted_at IS NULL)";
+        List<int[]> levels = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, previous);
+            stmt.setLong(2, previous);
+            stmt.setLong(3, upTo);
+            stmt.setLong(4, previous);
+            stmt.setLong(5, previous);
+            stmt.setLong(6, upTo);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    levels.add(new int[]{rs.getInt("product_id"), rs.getInt("quantity")});
+                }
+            }
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT IGNORE INTO stock_snapshots (last_movement_id, product_id, taken_at, quantity) VALUES (?, ?, ?, ?)")) {
+            for (int[] level : levels) {
+                stmt.setLong(1, upTo);
+                stmt.setInt(2, level[0]);
+                stmt.setTimestamp(3, takenAt);
+                stmt.setInt(4, level[1]);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+        return levels.size();
+    }
+
+    private static void recordOpenings(Connection conn) throws SQLException {
+        List<int[]> openings = new ArrayList<>();
+        List<Timestamp> openedAt = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT p.product_id, p.quantity - COALESCE(SUM(m.quantity_change), 0) AS opening, "
+                        + "COALESCE(LEAST(p.created_at, MIN(m.moved_at)), p.created_at) AS opened_at FROM Products p "
+                        + "LEFT JOIN stock_movements m ON m.product_id = p.product_id "
+                        + "WHERE p.deleted_at IS NULL "
+                        + "AND NOT EXISTS (SELECT 1 FROM stock_movements o WHERE o.product_id = p.product_id AND o.kind = 'opening') "
+                        + "GROUP BY p.product_id, p.quantity, p.created_at");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                openings.add(new int[]{rs.getInt("product_id"), rs.getInt("opening")});
+                openedAt.add(rs.getTimestamp("opened_at"));
+            }
+        }
+        if (openings.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO stock_movements (product_id, kind, quantity_change, moved_at) VALUES (?, 'opening', ?, ?)")) {
+            for (int i = 0; i < openings.size(); i++) {
+                stmt.setInt(1, openings.get(i)[0]);
+                stmt.setInt(2, openings.get(i)[1]);
+                stmt.setTimestamp(3, openedAt.get(i));
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Computes every product's stock at a point in time from the nearest earlier snapshot
+     * and the movements recorded after it.
+     *
+     * @param conn the database connection
+     * @param at   the point in time
+     * @return the stock of every product known at that time, by product name
+     * @throws SQLException if an SQL error occurs
+     */
+    public static List<StockLevel> stockAt(Connection conn, LocalDateTime at) throws SQLException {
+        Timestamp time = Timestamp.valueOf(at);
+        long base;
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT COALESCE(MAX(last_movement_id), 0) FROM stock_snapshots WHERE taken_at <= ?")) {
+            stmt.setTimestamp(1, time);
+            try (ResultSet rs = stmt.executeQuery()) {
+                base = rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+
+        String sql = "SELECT k.product_id, p.name, COALESCE(s.quantity, 0) + COALESCE(d.delta, 0) AS quantity FROM ("
+                + "  SELECT product_id FROM stock_snapshots WHERE last_movement_id = ? "
+                + "  UNION SELECT product_id FROM stock_movements WHERE movement_id > ? AND moved_at <= ?) k "
+                + "LEFT JOIN stock_snapshots s ON s.product_id = k.product_id AND s.last_movement_id = ? "
+                + "LEFT JOIN (SELECT product_id, SUM(quantity_change) AS delta FROM stock_movements "
+                + "  WHERE movement_id > ? AND moved_at <= ? GROUP BY product_id) d ON d.product_id = k.product_id "
+                + "LEFT JOIN Products p ON p.product_id = k.product_id "
+                + "ORDER BY p.name, k.product_id";
+        List<StockLevel> levels = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, base);
+            stmt.setLong(2, base);
+            stmt.setTimestamp(3, time);
+            stmt.setLong(4, base);
+            stmt.setLong(5, base);
+            stmt.setTimestamp(6, time);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    levels.add(new StockLevel(rs.getInt("product_id"), rs.getString("name"), rs.getInt("quantity")));
+                }
+            }
+        }
+        return levels;
+    }
+
+    /**
+     * Loads the most recent movements, optionally for one product.
+     *
+     * @param conn      the database connection
+     * @param productId the ID of the product, or 0 for all products
+     * @param limit     the maximum number of movements
+     * @return the movements, newest first
+     * @throws SQLException if an SQL error occurs
+     */
+    public static List<Movement> recentMovements(Connection conn, int productId, int limit) throws SQLException {
+        String sql = "SELECT m.movement_id, m.product_id, p.name, m.kind, m.quantity_change, m.moved_at "
+                + "FROM stock_movements m LEFT JOIN Products p ON p.product_id = m.product_id "
+                + (productId > 0 ? "WHERE m.product_id = ? " : "")
+                + "ORDER BY m.movement_id DESC LIMIT ?";
+        List<Movement> movements = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            if (productId > 0) {
+                stmt.setInt(index++, productId);
+            }
+            stmt.setInt(index, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    movements.add(new Movement(rs.getLong("movement_id"), rs.getInt("product_id"), rs.getString("name"),
+                            Kind.valueOf(rs.getString("kind").toUpperCase()), rs.getInt("quantity_change"),
+                            rs.getTimestamp("moved_at").toLocalDateTime()));
+                }
+            }
+        }
+        return movements;
+    }
+
+    private static long queryLong(Connection conn, String sql, long defaultValue) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : defaultValue;
+        }
+    }
+
+    /**
+     * A product's stock at a point in time.
+     */
+    public static final class StockLevel {
+        private final int productId;
+        private final String name;
+        private final int quantity;
+
+        StockLevel(int productId, String name, int quantity) {
+            this.productId = productId;
+            this.name = name;
+            this.quantity = quantity;
+        }
+
+        public int getProductId() {
+            return productId;
+        }
+
+        /**
+         * Returns the product name, or null if the product has since been purged.
+         *
+         * @return the name of the product
+         */
+        public String getName() {
+            return name;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+    }
+
+    /**
+     * One row of the stock movement ledger.
+     */
+    public static final class Movement {
+        private final long movementId;
+        private final int productId;
+        private final String name;
+        private final Kind kind;
+        private final int change;
+        private final LocalDateTime movedAt;
+
+        Movement(long movementId, int productId, String name, Kind kind, int change, LocalDateTime movedAt) {
+            this.movementId = movementId;
+            this.productId = productId;
+            this.name = name;
+            this.kind = kind;
+            this.change = change;
+            this.movedAt = movedAt;
+        }
+
+        public long getMovementId() {
+            return movementId;
+        }
+
+        public int getProductId() {
+            return productId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public int getChange() {
+            return change;
+        }
+
+        public LocalDateTime getMovedAt() {
+            return movedAt;
+        }
+    }
+}
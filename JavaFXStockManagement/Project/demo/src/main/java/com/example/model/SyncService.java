@@ -0,0 +1,265 @@
+package com.example.model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.example.util.AppLogger;
+import com.example.util.Constants;
+
+/**
+ * The SyncService class keeps a terminal's {@link LocalStore} in step with the central
+ * database on a background thread. Each round pushes pending sales in batches and then
+ * pulls the catalog.
+ *
+ * <p>Central stock wins conflicts: a pushed sale is only recorded if the conditional stock
+ * decrement succeeds on the central database, otherwise it is marked rejected locally and
+ * its stock is given back by the following catalog pull. Every pushed sale carries a
+ * {@code sync_ref} of terminal ID and local ID, so a round interrupted after the central
+ * commit is not applied twice.</p>
+ */
+public class SyncService {
+
+    private final LocalStore localStore;
+    private final SyncListener listener;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "terminal-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Receives the outcome of every sync round, on the sync thread.
+     */
+    public interface SyncListener {
+        void onSync(SyncResult result);
+    }
+
+    /**
+     * Constructor for SyncService.
+     *
+     * @param localStore the terminal's local store
+     * @param listener   the listener notified after every round
+     */
+    public SyncService(LocalStore localStore, SyncListener listener) {
+        this.localStore = localStore;
+        this.listener = listener;
+    }
+
+    /**
+     * Starts periodic synchronisation, beginning immediately.
+     */
+    public void start() {
+        executor.scheduleWithFixedDelay(this::syncOnce, 0, Constants.SYNC_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Requests a sync round as soon as the sync thread is free.
+     */
+    public void syncNow() {
+        executor.execute(this::syncOnce);
+    }
+
+    /**
+     * Stops synchronisation. A round in progress is allowed to finish.
+     */
+    public void stop() {
+        executor.shutdown();
+    }
+
+    private void syncOnce() {
+        List<String> rejections = new ArrayList<>();
+        int pushed = 0;
+        String error = null;
+        try {
+            List<LocalStore.PendingSale> batch;
+            while (!(batch = localStore.pendingSales(Constants.SYNC_BATCH_SIZE)).isEmpty()) {
+                pushed += pushBatch(batch, rejections);
+                if (batch.size() < Constants.SYNC_BATCH_SIZE) {
+                    break;
+                }
+            }
+            localStore.replaceCatalog(pullCatalog());
+        } catch (SQLException ex) {
+            error = ex.getMessage();
+            AppLogger.logWarning("Terminal sync failed, working offline: " + ex.getMessage());
+        }
+        int pending;
+        try {
+            pending = localStore.pendingCount();
+        } catch (SQLException ex) {
+            pending = -1;
+        }
+        listener.onSync(new SyncResult(error == null, pushed, pending, rejections, error));
+    }
+
+    private int pushBatch(List<LocalStore.PendingSale> batch, List<String> rejections) throws SQLException {
+        List<Long> synced = new ArrayList<>();
+        List<Long> rejected = new ArrayList<>();
+        List<LocalStore.PendingSale> sold = new ArrayList<>();
+        try (Connection central = DatabaseConnector.getConnection()) {
+            central.setAutoCommit(false);
+            Set<String> alreadyApplied = findAppliedRefs(central, batch);
+            List<LocalStore.PendingSale> toApply = new ArrayList<>();
+            for (LocalStore.PendingSale sale : batch) {
+                if (alreadyApplied.contains(syncRef(sale))) {
+                    synced.add(sale.getLocalId());
+                } else {
+                    toApply.add(sale);
+                }
+            }
+
+            try (PreparedStatement insert = central.prepareStatement(
+                    "INSERT INTO Sales (product_id, quantity_sold, sale_date, total_price, sync_ref, user_id) VALUES (?, ?, FROM_UNIXTIME(?), ?, ?, ?)")) {
+                int[] productIds = new int[toApply.size()];
+                int[] quantities = new int[toApply.size()];
+                for (int i = 0; i < toApply.size(); i++) {
+                    productIds[i] = toApply.get(i).getProductId();
+                    quantities[i] = toApply.get(i).getQuantity();
+                }
+                boolean[] taken = LocationStock.takeAll(central, Constants.DEFAULT_LOCATION_ID, productIds, quantities);
+                int inserted = 0;
+                for (int i = 0; i < toApply.size(); i++) {
+                    LocalStore.PendingSale sale = toApply.get(i);
+                    if (taken[i]) {
+                        insert.setInt(1, sale.getProductId());
+                        insert.setInt(2, sale.getQuantity());
+                        insert.setLong(3, sale.getSaleTime());
+                        Money.write(insert, 4, sale.getTotalCents());
+                        insert.setString(5, syncRef(sale));
+                        if (sale.getUserId() == 0) {
+                            insert.setNull(6, Types.INTEGER);
+                        } else {
+                            insert.setInt(6, sale.getUserId());
+                        }
+                        insert.addBatch();
+                        inserted++;
+                        synced.add(sale.getLocalId());
+                        sold.add(sale);
+                    } else {
+                        rejected.add(sale.getLocalId());
+                        rejections.add(String.format("Sale #%d (%d units of product %d)", sale.getLocalId(), sale.getQuantity(), sale.getProductId()));
+                    }
+                }
+                if (inserted > 0) {
+                    insert.executeBatch();
+                    int[] soldIds = new int[inserted];
+                    int[] changes = new int[inserted];
+                    for (int i = 0, j = 0; i < toApply.size(); i++) {
+                        if (taken[i]) {
+                            soldIds[j] = productIds[i];
+                            changes[j++] = -quantities[i];
+                        }
+                    }
+                    StockLedger.recordBatch(central, StockLedger.Kind.PURCHASE, soldIds, changes);
+                }
+            }
+            central.commit();
+        }
+        SalesKpis kpis = SalesKpis.shared();
+        for (LocalStore.PendingSale sale : sold) {
+            kpis.recordOrder();
+            kpis.recordSale(sale.getProductId(), sale.getQuantity(), sale.getTotalCents());
+        }
+        localStore.markSales(synced, LocalStore.STATUS_SYNCED, null);
+        if (!rejected.isEmpty()) {
+            localStore.markSales(rejected, LocalStore.STATUS_REJECTED, "Not enough stock in the central database");
+        }
+        return synced.size();
+    }
+
+    private Set<String> findAppliedRefs(Connection central, List<LocalStore.PendingSale> batch) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT sync_ref FROM Sales WHERE sync_ref IN (");
+        for (int i = 0; i < batch.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(')');
+        Set<String> refs = new HashSet<>();
+        try (PreparedStatement stmt = central.prepareStatement(sql.toString())) {
+            for (int i = 0; i < batch.size(); i++) {
+                stmt.setString(i + 1, syncRef(batch.get(i)));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    refs.add(rs.getString(1));
+                }
+            }
+        }
+        return refs;
+    }
+
+    private List<LocalStore.CatalogProduct> pullCatalog() throws SQLException {
+        List<LocalStore.CatalogProduct> products = new ArrayList<>();
+        PriceIndex prices = PriceIndex.shared();
+        try (Connection central = DatabaseConnector.getConnection()) {
+            // Offline sales are charged at the catalog price, so it must be the effective one.
+            prices.refreshIfStale(central);
+            try (PreparedStatement stmt = central.prepareStatement(
+                     "SELECT p.product_id, p.name, p.price, COALESCE(ps.quantity, 0) AS quantity FROM Products p "
+                             + "LEFT JOIN product_stock ps ON ps.product_id = p.product_id AND ps.location_id = ? WHERE p.deleted_at IS NULL")) {
+                stmt.setInt(1, Constants.DEFAULT_LOCATION_ID);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        int productId = rs.getInt("product_id");
+                        products.add(new LocalStore.CatalogProduct(productId, rs.getString("name"),
+                                prices.priceCents(productId, Money.read(rs, "price")), rs.getInt("quantity")));
+                    }
+                }
+            }
+        }
+        return products;
+    }
+
+    private String syncRef(LocalStore.PendingSale sale) {
+        return localStore.getTerminalId() + ":" + sale.getLocalId();
+    }
+
+    /**
+     * The outcome of one sync round.
+     */
+    public static final class SyncResult {
+        private final boolean online;
+        private final int pushed;
+        private final int pending;
+        private final List<String> rejections;
+        private final String error;
+
+        SyncResult(boolean online, int pushed, int pending, List<String> rejections, String error) {
+            this.online = online;
+            this.pushed = pushed;
+            this.pending = pending;
+            this.rejections = Collections.unmodifiableList(rejections);
+            this.error = error;
+        }
+
+        public boolean isOnline() {
+            return online;
+        }
+
+        public int getPushed() {
+            return pushed;
+        }
+
+        public int getPending() {
+            return pending;
+        }
+
+        public List<String> getRejections() {
+            return rejections;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+/**
+ * The UserProvisioner class creates users in bulk from CSV lines of
+ * {@code username,role,password}. Passwords are hashed with BCrypt in parallel on a
+ * fork-join pool while earlier chunks are already being inserted with batched statements.
+ * Duplicates and invalid rows are reported and skipped without aborting the import.
+ */
+public class UserProvisioner {
+
+    private static final int CHUNK_SIZE = 256;
+    private static final int LOOKUP_CHUNK_SIZE = 500;
+
+    /**
+     * Reads and provisions every user in a CSV file. A header line starting with
+     * "username" is skipped.
+     *
+     * @param reader the CSV content
+     * @return the provisioning report
+     * @throws IOException  if the CSV cannot be read
+     * @throws SQLException if an SQL error occurs
+     */
+    public ProvisioningReport provision(BufferedReader reader) throws IOException, SQLException {
+        long started = System.nanoTime();
+        ProvisioningReport report = new ProvisioningReport();
+        List<NewUser> users = parse(reader, report);
+
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try (Connection conn = DatabaseConnector.getConnection()) {
+            users = removeExisting(conn, users, report);
+
+            List<ForkJoinTask<?>> hashing = new ArrayList<>();
+            for (int from = 0; from < users.size(); from += CHUNK_SIZE) {
+                hashing.add(pool.submit(new HashTask(users, from, Math.min(users.size(), from + CHUNK_SIZE))));
+            }
+            conn.setAutoCommit(false);
+            for (int chunk = 0; chunk < hashing.size(); chunk++) {
+                hashing.get(chunk).join();
+                int from = chunk * CHUNK_SIZE;
+                insertChunk(conn, users.subList(from, Math.min(users.size(), from + CHUNK_SIZE)), report);
+            }
+            conn.commit();
+        } finally {
+            pool.shutdown();
+        }
+        report.elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        return report;
+    }
+
+    private List<NewUser> parse(BufferedReader reader, ProvisioningReport report) throws IOException {
+        List<NewUser> users = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty() || (lineNumber == 1 && line.trim().toLowerCase().startsWith("username"))) {
+                continue;
+            }
+            String[] fields = line.split(",", 3);
+            if (fields.length < 3) {
+                report.problems.add("Line " + lineNumber + ": expected username,role,password");
+                continue;
+            }
+            String username = fields[0].trim();
+            String role = fields[1].trim().toLowerCase();
+            String password = fields[2].trim();
+            if (username.isEmpty() || password.isEmpty()) {
+                report.problems.add("Line " + lineNumber + ": username and password must be filled");
+            } else if (username.length() > 50) {
+                report.problems.add("Line " + lineNumber + ": username is longer than 50 characters");
+            } else if (!"user".equals(role) && !"admin".equals(role)) {
+                report.problems.add("Line " + lineNumber + ": role must be user or admin");
+            } else if (!seen.add(username.toLowerCase())) {
+                report.problems.add("Line " + lineNumber + ": duplicate username " + username + " in file");
+                report.duplicates++;
+            } else {
+                users.add(new NewUser(username, role, password));
+            }
+        }
+        return users;
+    }
+
+    private List<NewUser> removeExisting(Connection conn, List<NewUser> users, ProvisioningReport report) throws SQLException {
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < users.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<NewUser> chunk = users.subList(from, Math.min(users.size(), from + LOOKUP_CHUNK_SIZE));
+            StringBuilder sql = new StringBuilder("SELECT username FROM users WHERE username IN (");
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(')');
+            try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setString(i + 1, chunk.get(i).username);
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        existing.add(rs.getString(1).toLowerCase());
+                    }
+                }
+            }
+        }
+        List<NewUser> remaining = new ArrayList<>();
+        for (NewUser user : users) {
+            if (existing.contains(user.username.toLowerCase())) {
+                report.problems.add("Username " + user.username + " already exists");
+                report.duplicates++;
+            } else {
+                remaining.add(user);
+            }
+        }
+        return remaining;
+    }
+
+    private void insertChunk(Connection conn, List<NewUser> chunk, ProvisioningReport report) throws SQLException {
+        String sql = "INSERT INTO users (username, password, role) VALUES (?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (NewUser user : chunk) {
+                stmt.setString(1, user.username);
+                stmt.setString(2, user.hashedPassword);
+                stmt.setString(3, user.role);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            conn.commit();
+            report.created += chunk.size();
+            return;
+        } catch (BatchUpdateException ex) {
+            conn.rollback();
+        }
+        // Someone registered one of these names since the lookup; insert row by row to isolate it.
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (NewUser user : chunk) {
+                stmt.setString(1, user.username);
+                stmt.setString(2, user.hashedPassword);
+                stmt.setString(3, user.role);
+                try {
+                    stmt.executeUpdate();
+                    report.created++;
+                } catch (SQLIntegrityConstraintViolationException duplicate) {
+                    report.problems.add("Username " + user.username + " already exists");
+                    report.duplicates++;
+                }
+            }
+            conn.commit();
+        }
+    }
+
+    /**
+     * Hashes the passwords of a range of users, splitting the range across workers.
+     */
+    private static final class HashTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<NewUser> users;
+        private final int from;
+        private final int to;
+
+        HashTask(List<NewUser> users, int from, int to) {
+            this.users = users;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 4) {
+                for (int i = from; i < to; i++) {
+                    NewUser user = users.get(i);
+                    user.hashedPassword = BCrypt.hashpw(user.password, BCrypt.gensalt());
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new HashTask(users, from, mid), new HashTask(users, mid, to));
+        }
+    }
+
+    private static final class NewUser {
+        final String username;
+        final String role;
+        final String password;
+        volatile String hashedPassword;
+
+        NewUser(String username, String role, String password) {
+            this.username = username;
+            this.role = role;
+            this.password = password;
+        }
+    }
+
+    /**
+     * The outcome of a bulk import.
+     */
+    public static final class ProvisioningReport {
+        private int created;
+        private int duplicates;
+        private long elapsedMillis;
+        private final List<String> problems = new ArrayList<>();
+
+        public int getCreated() {
+            return created;
+        }
+
+        public int getDuplicates() {
+            return duplicates;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public List<String> getProblems() {
+            return problems;
+        }
+    }
+}
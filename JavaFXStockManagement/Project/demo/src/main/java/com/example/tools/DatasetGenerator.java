@@ -0,0 +1,625 @@
+package com.example.tools;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.model.DatabaseConnector;
+import com.example.util.ZipfSampler;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+/**
+ * Headless generator that fills the schema with a synthetic dataset for benchmarks and
+ * capacity tests: products with stock at several locations, their price versions and
+ * promotions, and a sales history with its stock movements.
+ *
+ * <p>Product popularity follows a Zipf distribution. Daily sales volume follows a weekly
+ * pattern, a yearly peak before Christmas and a slow growth trend, and sales within a day
+ * follow opening-hour peaks. Every value is derived from the seed, with one random stream
+ * for the catalog and one per day of sales, so the same seed and volumes give the same
+ * dataset regardless of the number of threads. Sales are written in chronological ID
+ * order, like a live system, by several threads with multi-row inserts and unique and
+ * foreign key checks disabled for the session.</p>
+ *
+ * <p>With {@code --users}, that many shopper accounts are created, all with the password
+ * {@code shopper}, and every sale is attributed to one of them. Shopper activity follows the
+ * same Zipf skew as product popularity, so the first shoppers have very long histories.</p>
+ *
+ * <p>New rows are appended after the existing ones. Run it against a dedicated database,
+ * with a connection pool larger than the number of threads:</p>
+ * <pre>
+ * java -Dstock.dbUrl=jdbc:mysql://localhost:3306/javafx_scale -Dstock.dbPoolSize=16 \
+ *      com.example.tools.DatasetGenerator --products 100000 --sales 50000000 --days 730 --threads 8
+ * </pre>
+ */
+public class DatasetGenerator {
+
+    private static final double[] HOUR_WEIGHTS = {
+            0, 0, 0, 0, 0, 0, 0, 0.2, 0.6, 1.0, 1.3, 1.6, 2.0, 1.8, 1.4, 1.3, 1.5, 1.9, 2.1, 1.7, 1.0, 0.5, 0, 0
+    };
+    private static final int PROGRESS_INTERVAL = 1_000_000;
+
+    private int products = 10_000;
+    private long sales = 1_000_000;
+    private int days = 365;
+    private int locations = 3;
+    private int users;
+    private double skew = 1.0;
+    private double promotionShare = 0.05;
+    private int maxQuantity = 4;
+    private int batchSize = 1000;
+    private int threads = 4;
+    private boolean movements = true;
+    private long seed = 42;
+
+    private LocalDate firstDay;
+    private int firstProductId;
+    private long firstSaleId;
+    private long firstMovementId;
+    private int firstVersionId;
+    private int firstUserId;
+    private int[] locationIds;
+    private long[] priceCents;
+    private int[] stock;
+    private int[] promotionStart;
+    private int[] promotionEnd;
+    private int[] promotionVersionId;
+    private long[] promotionPriceCents;
+    private int[] productByRank;
+    private final AtomicLong salesWritten = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        generate(args);
+        System.exit(0);
+    }
+
+    /**
+     * Generates a dataset as {@link #main} does, for tools that need data before they run.
+     *
+     * @param args the generator options
+     * @throws SQLException if an SQL error occurs
+     * @throws InterruptedException if interrupted while waiting for the writers
+     */
+    static void generate(String[] args) throws SQLException, InterruptedException {
+        DatasetGenerator generator = new DatasetGenerator();
+        generator.parseArguments(args);
+        generator.run();
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--products":
+                    products = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--sales":
+                    sales = Long.parseLong(args[i + 1]);
+                    break;
+                case "--days":
+                    days = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--locations":
+                    locations = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--users":
+                    users = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--skew":
+                    skew = Double.parseDouble(args[i + 1]);
+                    break;
+                case "--promotions":
+                    promotionShare = Double.parseDouble(args[i + 1]);
+                    break;
+                case "--max-quantity":
+                    maxQuantity = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--batch":
+                    batchSize = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--movements":
+                    movements = Boolean.parseBoolean(args[i + 1]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (products <= 0 || days <= 0 || locations <= 0 || batchSize <= 0 || threads <= 0) {
+            throw new IllegalArgumentException("Products, days, locations, batch and threads must be positive");
+        }
+        if (users < 0) {
+            throw new IllegalArgumentException("Users must not be negative");
+        }
+    }
+
+    private void run() throws SQLException, InterruptedException {
+        long started = System.nanoTime();
+        firstDay = LocalDate.now().minusDays(days);
+        try (Connection conn = DatabaseConnector.getConnection()) {
+            firstProductId = (int) nextId(conn, "SELECT COALESCE(MAX(product_id), 0) + 1 FROM Products");
+            firstSaleId = nextId(conn, "SELECT COALESCE(MAX(sale_id), 0) + 1 FROM Sales");
+            firstMovementId = nextId(conn, "SELECT COALESCE(MAX(movement_id), 0) + 1 FROM stock_movements");
+            firstVersionId = (int) nextId(conn, "SELECT COALESCE(MAX(version_id), 0) + 1 FROM price_versions");
+            firstUserId = (int) nextId(conn, "SELECT COALESCE(MAX(id), 0) + 1 FROM users");
+            locationIds = ensureLocations(conn);
+            System.out.printf("Generating %d products at %d locations and %d sales over %d days (seed %d)%n",
+                    products, locationIds.length, sales, days, seed);
+            generateCatalog(conn);
+            writeUsers(conn);
+        }
+        System.out.printf("Catalog written in %.1f s%n", (System.nanoTime() - started) / 1e9);
+
+        long[] sold = generateSales();
+        System.out.printf("Sales written in %.1f s%n", (System.nanoTime() - started) / 1e9);
+
+        try (Connection conn = DatabaseConnector.getConnection()) {
+            if (movements) {
+                writeOpeningStock(conn, sold);
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ANALYZE TABLE users, Products, product_stock, price_versions, Sales, stock_movements");
+            }
+        }
+        System.out.printf("Done in %.1f s%n", (System.nanoTime() - started) / 1e9);
+    }
+
+    /**
+     * Makes sure the requested number of locations exists, adding synthetic stores.
+     *
+     * @param conn the database connection
+     * @return the IDs of the first {@code locations} locations
+     * @throws SQLException if an SQL error occurs
+     */
+    private int[] ensureLocations(Connection conn) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT location_id FROM locations ORDER BY location_id");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO locations (name, kind) VALUES (?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = ids.size(); i < locations; i++) {
+                stmt.setString(1, (i % 4 == 3 ? "Synthetic Warehouse " : "Synthetic Store ") + (i + 1));
+                stmt.setString(2, i % 4 == 3 ? "warehouse" : "store");
+                stmt.executeUpdate();
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    keys.next();
+                    ids.add(keys.getInt(1));
+                }
+            }
+        }
+        int[] result = new int[locations];
+        for (int i = 0; i < locations; i++) {
+            result[i] = ids.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Writes the products, their stock at every location and their price versions. A share
+     * of the products gets a one-week promotion at 20% off somewhere in the period.
+     *
+     * @param conn the database connection
+     * @throws SQLException if an SQL error occurs
+     */
+    private void generateCatalog(Connection conn) throws SQLException {
+        SplittableRandom random = new SplittableRandom(seed);
+        priceCents = new long[products];
+        stock = new int[products];
+        promotionStart = new int[products];
+        promotionEnd = new int[products];
+        promotionVersionId = new int[products];
+        promotionPriceCents = new long[products];
+        int[][] stockAt = new int[products][locationIds.length];
+        int promotions = 0;
+        for (int i = 0; i < products; i++) {
+            long cents = Math.round(100 * Math.exp(Math.log(8) + 0.9 * gaussian(random)));
+            priceCents[i] = Math.max(0, cents / 100) * 100 + 99;
+            for (int l = 0; l < locationIds.length; l++) {
+                stockAt[i][l] = random.nextDouble() < 0.05 ? random.nextInt(3) : 5 + random.nextInt(200);
+                stock[i] += stockAt[i][l];
+            }
+            promotionStart[i] = -1;
+            if (days > 7 && random.nextDouble() < promotionShare) {
+                promotionStart[i] = random.nextInt(days - 7);
+                promotionEnd[i] = promotionStart[i] + 7;
+                promotionVersionId[i] = firstVersionId + products + promotions++;
+                promotionPriceCents[i] = priceCents[i] * 80 / 100;
+            }
+        }
+        productByRank = new int[products];
+        for (int i = 0; i < products; i++) {
+            productByRank[i] = i;
+        }
+        for (int i = products - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = productByRank[i];
+            productByRank[i] = productByRank[j];
+            productByRank[j] = swap;
+        }
+
+        String opening = "'" + firstDay + " 00:00:00'";
+        withBulkSession(conn, () -> {
+            try (MultiRowInsert insert = new MultiRowInsert(conn,
+                    "INSERT INTO Products (product_id, name, price, quantity, created_at, sku) VALUES ", batchSize)) {
+                for (int i = 0; i < products; i++) {
+                    int productId = firstProductId + i;
+                    StringBuilder row = insert.row();
+                    row.append(productId).append(",'Product ").append(productId).append("',");
+                    appendCents(row, priceCents[i]);
+                    row.append(',').append(stock[i]).append(',').append(opening).append(",'").append(20_000_000_000L + productId).append('\'');
+                    insert.endRow();
+                }
+            }
+            try (MultiRowInsert insert = new MultiRowInsert(conn,
+                    "INSERT INTO product_stock (product_id, location_id, quantity) VALUES ", batchSize)) {
+                for (int i = 0; i < products; i++) {
+                    for (int l = 0; l < locationIds.length; l++) {
+                        insert.row().append(firstProductId + i).append(',').append(locationIds[l]).append(',').append(stockAt[i][l]);
+                        insert.endRow();
+                    }
+                }
+            }
+            try (MultiRowInsert insert = new MultiRowInsert(conn,
+                    "INSERT INTO price_versions (version_id, product_id, price, effective_from, effective_to, label, created_at) VALUES ", batchSize)) {
+                for (int i = 0; i < products; i++) {
+                    StringBuilder row = insert.row().append(firstVersionId + i).append(',').append(firstProductId + i).append(',');
+                    appendCents(row, priceCents[i]);
+                    row.append(',').append(opening).append(",NULL,NULL,").append(opening);
+                    insert.endRow();
+                }
+                for (int i = 0; i < products; i++) {
+                    if (promotionStart[i] >= 0) {
+                        String from = "'" + firstDay.plusDays(promotionStart[i]) + " 00:00:00'";
+                        StringBuilder row = insert.row().append(promotionVersionId[i]).append(',').append(firstProductId + i).append(',');
+                        appendCents(row, promotionPriceCents[i]);
+                        row.append(',').append(from).append(",'").append(firstDay.plusDays(promotionEnd[i])).append(" 00:00:00','Promotion',").append(from);
+                        insert.endRow();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes the shopper accounts. They share one password hash, as hashing is slow by design.
+     *
+     * @param conn the database connection
+     * @throws SQLException if an SQL error occurs
+     */
+    private void writeUsers(Connection conn) throws SQLException {
+        if (users == 0) {
+            return;
+        }
+        String hash = BCrypt.hashpw("shopper", BCrypt.gensalt());
+        withBulkSession(conn, () -> {
+            try (MultiRowInsert insert = new MultiRowInsert(conn, "INSERT INTO users (id, username, password, role) VALUES ", batchSize)) {
+                for (int i = 0; i < users; i++) {
+                    int userId = firstUserId + i;
+                    insert.row().append(userId).append(",'shopper-").append(userId).append("','").append(hash).append("','user'");
+                    insert.endRow();
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes the sales history, and a purchase movement for every sale, with one thread per
+     * share of the days. Each day's sales get a contiguous range of IDs in time order.
+     *
+     * @return the units sold of each product
+     * @throws SQLException if an SQL error occurs
+     * @throws InterruptedException if interrupted while waiting for the writers
+     */
+    private long[] generateSales() throws SQLException, InterruptedException {
+        double[] weights = new double[days];
+        double total = 0;
+        for (int d = 0; d < days; d++) {
+            weights[d] = dayWeight(firstDay.plusDays(d), d);
+            total += weights[d];
+        }
+        int[] dayCounts = new int[days];
+        long[] dayFirstSale = new long[days + 1];
+        double cumulative = 0;
+        for (int d = 0; d < days; d++) {
+            cumulative += weights[d];
+            dayFirstSale[d + 1] = Math.round(sales * cumulative / total);
+            dayCounts[d] = (int) (dayFirstSale[d + 1] - dayFirstSale[d]);
+        }
+        double[] hourCumulative = new double[HOUR_WEIGHTS.length];
+        double hourSum = 0;
+        for (int h = 0; h < HOUR_WEIGHTS.length; h++) {
+            hourSum += HOUR_WEIGHTS[h];
+            hourCumulative[h] = hourSum;
+        }
+        for (int h = 0; h < HOUR_WEIGHTS.length; h++) {
+            hourCumulative[h] /= hourSum;
+        }
+        ZipfSampler popularity = new ZipfSampler(products, skew);
+        ZipfSampler shoppers = users > 0 ? new ZipfSampler(users, skew) : null;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int w = 0; w < threads; w++) {
+            int worker = w;
+            futures.add(pool.submit(() -> {
+                long[] sold = new long[products];
+                try (Connection conn = DatabaseConnector.getConnection()) {
+                    withBulkSession(conn, () -> {
+                        for (int d = worker; d < days; d += threads) {
+                            writeDay(conn, d, dayCounts[d], dayFirstSale[d], hourCumulative, popularity, shoppers, sold);
+                        }
+                    });
+                }
+                return sold;
+            }));
+        }
+        pool.shutdown();
+        long[] sold = new long[products];
+        try {
+            for (Future<long[]> future : futures) {
+                long[] part = future.get();
+                for (int i = 0; i < products; i++) {
+                    sold[i] += part[i];
+                }
+            }
+        } catch (ExecutionException ex) {
+            pool.shutdownNow();
+            if (ex.getCause() instanceof SQLException) {
+                throw (SQLException) ex.getCause();
+            }
+            throw new SQLException(ex.getCause());
+        }
+        return sold;
+    }
+
+    private void writeDay(Connection conn, int day, int count, long firstSale, double[] hourCumulative,
+                          ZipfSampler popularity, ZipfSampler shoppers, long[] sold) throws SQLException {
+        SplittableRandom random = new SplittableRandom(seed ^ (day + 1) * 0x9E3779B97F4A7C15L);
+        int[] seconds = new int[count];
+        for (int i = 0; i < count; i++) {
+            int hour = Arrays.binarySearch(hourCumulative, random.nextDouble());
+            hour = Math.min(hour >= 0 ? hour : -hour - 1, HOUR_WEIGHTS.length - 1);
+            seconds[i] = hour * 3600 + random.nextInt(3600);
+        }
+        Arrays.sort(seconds);
+        String date = "'" + firstDay.plusDays(day) + " ";
+
+        try (MultiRowInsert saleInsert = new MultiRowInsert(conn,
+                "INSERT INTO Sales (sale_id, product_id, quantity_sold, sale_date, total_price, price_version_id, user_id) VALUES ", batchSize);
+             MultiRowInsert movementInsert = movements ? new MultiRowInsert(conn,
+                     "INSERT INTO stock_movements (movement_id, product_id, kind, quantity_change, moved_at) VALUES ", batchSize) : null) {
+            for (int i = 0; i < count; i++) {
+                int product = productByRank[popularity.next(random)];
+                int quantity = random.nextDouble() < 0.7 ? 1 : 2 + random.nextInt(Math.max(1, maxQuantity - 1));
+                boolean promoted = promotionStart[product] >= 0 && day >= promotionStart[product] && day < promotionEnd[product];
+                long unitCents = promoted ? promotionPriceCents[product] : priceCents[product];
+                int versionId = promoted ? promotionVersionId[product] : firstVersionId + product;
+                int productId = firstProductId + product;
+                sold[product] += quantity;
+
+                StringBuilder row = saleInsert.row().append(firstSaleId + firstSale + i).append(',').append(productId).append(',').append(quantity).append(',');
+                appendTime(row, date, seconds[i]).append(',');
+                appendCents(row, unitCents * quantity);
+                row.append(',').append(versionId).append(',');
+                if (shoppers != null) {
+                    row.append(firstUserId + shoppers.next(random));
+                } else {
+                    row.append("NULL");
+                }
+                if (saleInsert.endRow()) {
+                    reportProgress(batchSize);
+                }
+                if (movementInsert != null) {
+                    StringBuilder movement = movementInsert.row().append(firstMovementId + firstSale + i).append(',').append(productId)
+                            .append(",'purchase',").append(-quantity).append(',');
+                    appendTime(movement, date, seconds[i]);
+                    movementInsert.endRow();
+                }
+            }
+            reportProgress(saleInsert.pending());
+        }
+    }
+
+    /**
+     * Writes an opening adjustment per product at the start of the period for the stock
+     * it had before the generated sales, so the ledger sums to the current stock. These
+     * rows get IDs after the sales movements, which point-in-time queries allow because
+     * they filter movements by time.
+     *
+     * @param conn the database connection
+     * @param sold the units sold of each product
+     * @throws SQLException if an SQL error occurs
+     */
+    private void writeOpeningStock(Connection conn, long[] sold) throws SQLException {
+        String opening = "'" + firstDay + " 00:00:00'";
+        long movementId = firstMovementId + sales;
+        withBulkSession(conn, () -> {
+            try (MultiRowInsert insert = new MultiRowInsert(conn,
+                    "INSERT INTO stock_movements (movement_id, product_id, kind, quantity_change, moved_at) VALUES ", batchSize)) {
+                long id = movementId;
+                for (int i = 0; i < products; i++) {
+                    long quantity = stock[i] + sold[i];
+                    if (quantity != 0) {
+                        insert.row().append(id++).append(',').append(firstProductId + i).append(",'adjustment',").append(quantity).append(',').append(opening);
+                        insert.endRow();
+                    }
+                }
+            }
+        });
+    }
+
+    private void reportProgress(long rows) {
+        long done = salesWritten.addAndGet(rows);
+        if (done / PROGRESS_INTERVAL != (done - rows) / PROGRESS_INTERVAL) {
+            System.out.printf("  %,d of %,d sales written%n", done, sales);
+        }
+    }
+
+    /**
+     * Returns the relative sales volume of a day: busier at the end of the week, peaking
+     * before Christmas, and growing by a fifth over the period.
+     */
+    private double dayWeight(LocalDate date, int dayIndex) {
+        double weekly;
+        DayOfWeek dow = date.getDayOfWeek();
+        switch (dow) {
+            case FRIDAY:
+                weekly = 1.15;
+                break;
+            case SATURDAY:
+                weekly = 1.3;
+                break;
+            case SUNDAY:
+                weekly = 0.8;
+                break;
+            default:
+                weekly = 0.9 + 0.05 * (dow.getValue() - 1);
+        }
+        double yearly = 1 + 0.25 * Math.cos(2 * Math.PI * (date.getDayOfYear() - 354) / 365.0);
+        double trend = 1 + 0.2 * dayIndex / days;
+        return weekly * yearly * trend;
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        double u = 1 - random.nextDouble();
+        double v = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+    }
+
+    private static StringBuilder appendCents(StringBuilder sb, long cents) {
+        long fraction = cents % 100;
+        return sb.append(cents / 100).append('.').append(fraction < 10 ? "0" : "").append(fraction);
+    }
+
+    private static StringBuilder appendTime(StringBuilder sb, String date, int secondOfDay) {
+        sb.append(date);
+        appendTwoDigits(sb, secondOfDay / 3600).append(':');
+        appendTwoDigits(sb, secondOfDay / 60 % 60).append(':');
+        return appendTwoDigits(sb, secondOfDay % 60).append('\'');
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder sb, int value) {
+        return sb.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    private static long nextId(Connection conn, String sql) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Runs bulk writes with unique and foreign key checks off and explicit commits, and
+     * restores the session afterwards since the connection goes back to the pool.
+     */
+    private static void withBulkSession(Connection conn, BulkWork work) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("SET unique_checks = 0, foreign_key_checks = 0");
+        }
+        conn.setAutoCommit(false);
+        try {
+            work.run();
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("SET unique_checks = 1, foreign_key_checks = 1");
+            }
+        }
+    }
+
+    private interface BulkWork {
+        void run() throws SQLException;
+    }
+
+    /**
+     * Accumulates rows into one multi-row INSERT and executes it every {@code batchSize}
+     * rows, committing each statement so transactions stay small.
+     */
+    private static final class MultiRowInsert implements AutoCloseable {
+        private final Connection conn;
+        private final Statement stmt;
+        private final String head;
+        private final int batchSize;
+        private final StringBuilder sql = new StringBuilder(1 << 16);
+        private int rows;
+
+        MultiRowInsert(Connection conn, String head, int batchSize) throws SQLException {
+            this.conn = conn;
+            this.stmt = conn.createStatement();
+            this.head = head;
+            this.batchSize = batchSize;
+            sql.append(head);
+        }
+
+        /**
+         * Starts a row.
+         *
+         * @return the statement text to append the row's values to
+         */
+        StringBuilder row() {
+            return sql.append(rows++ == 0 ? "(" : ",(");
+        }
+
+        /**
+         * Ends a row and executes the statement if the batch is full.
+         *
+         * @return true if the batch was executed
+         */
+        boolean endRow() throws SQLException {
+            sql.append(')');
+            if (rows < batchSize) {
+                return false;
+            }
+            flush();
+            return true;
+        }
+
+        int pending() {
+            return rows;
+        }
+
+        private void flush() throws SQLException {
+            if (rows == 0) {
+                return;
+            }
+            stmt.executeUpdate(sql.toString());
+            conn.commit();
+            sql.setLength(head.length());
+            rows = 0;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                flush();
+            } finally {
+                stmt.close();
+            }
+        }
+    }
+}
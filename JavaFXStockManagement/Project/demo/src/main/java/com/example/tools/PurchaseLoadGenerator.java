@@ -0,0 +1,243 @@
+package com.example.tools;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.example.model.DatabaseConnector;
+import com.example.model.PurchaseService;
+import com.example.util.Constants;
+import com.example.util.LatencyHistogram;
+import com.example.util.ZipfSampler;
+
+/**
+ * Headless load generator for the purchase path. Simulates concurrent buyers choosing
+ * products with Zipf-skewed popularity, records a latency histogram and throughput, and
+ * afterwards checks that no stock went negative, that every product's stock decrement, both in
+ * total and at the location bought from, equals the quantity recorded in new sales rows, and
+ * that the stock of every product's locations adds up to its total.
+ *
+ * <p>Run it against a dedicated local database, since concurrent restocks or deletions by
+ * anyone else would break the invariant check:</p>
+ * <pre>
+ * java -Dstock.dbUrl=jdbc:mysql://localhost:3306/javafx_load -Dstock.dbPoolSize=64 \
+ *      com.example.tools.PurchaseLoadGenerator --buyers 64 --seconds 60 --skew 1.1
+ * </pre>
+ * <p>Exits with status 1 if an invariant is violated, a purchase failed with an SQL error or
+ * the buyers did not finish in time.</p>
+ */
+public class PurchaseLoadGenerator {
+
+    private int buyers = 32;
+    private int seconds = 30;
+    private double skew = 1.0;
+    private int maxQuantity = 3;
+    private long seed = 42;
+    private int locationId = Constants.DEFAULT_LOCATION_ID;
+
+    public static void main(String[] args) throws Exception {
+        PurchaseLoadGenerator generator = new PurchaseLoadGenerator();
+        generator.parseArguments(args);
+        System.exit(generator.run() ? 0 : 1);
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--buyers":
+                    buyers = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--skew":
+                    skew = Double.parseDouble(args[i + 1]);
+                    break;
+                case "--max-quantity":
+                    maxQuantity = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[i + 1]);
+                    break;
+                case "--location":
+                    locationId = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+    }
+
+    private boolean run() throws SQLException, InterruptedException {
+        Map<Integer, Long> stockBefore = loadStock();
+        Map<Integer, Long> locationStockBefore = loadLocationStock(locationId);
+        Map<Integer, Long> soldBefore = loadSold();
+        List<String> products = loadProductNames();
+        if (products.isEmpty()) {
+            System.out.println("No products to buy.");
+            return true;
+        }
+        Collections.shuffle(products, new Random(seed));
+        ZipfSampler popularity = new ZipfSampler(products.size(), skew);
+
+        LatencyHistogram latencies = new LatencyHistogram();
+        AtomicLong purchased = new AtomicLong();
+        AtomicLong outOfStock = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        AtomicReference<SQLException> firstError = new AtomicReference<>();
+        SplittableRandom seeds = new SplittableRandom(seed);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        System.out.printf("Running %d buyers for %d s over %d products (skew %.2f)%n", buyers, seconds, products.size(), skew);
+        ExecutorService pool = Executors.newFixedThreadPool(buyers);
+        long started = System.nanoTime();
+        for (int b = 0; b < buyers; b++) {
+            SplittableRandom random = seeds.split();
+            pool.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    String product = products.get(popularity.next(random));
+                    int quantity = 1 + random.nextInt(maxQuantity);
+                    long begin = System.nanoTime();
+                    try (Connection conn = DatabaseConnector.getConnection()) {
+                        PurchaseService.Result result = PurchaseService.purchase(conn, product, quantity, locationId);
+                        if (result == PurchaseService.Result.PURCHASED) {
+                            purchased.incrementAndGet();
+                        } else {
+                            outOfStock.incrementAndGet();
+                        }
+                    } catch (SQLException ex) {
+                        errors.incrementAndGet();
+                        firstError.compareAndSet(null, ex);
+                    }
+                    latencies.record(System.nanoTime() - begin);
+                }
+            });
+        }
+        pool.shutdown();
+        boolean finished = pool.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+        if (!finished) {
+            System.out.println("FAILED: buyers still running 60 s after the deadline.");
+            pool.shutdownNow();
+        }
+        double elapsed = (System.nanoTime() - started) / 1e9;
+
+        long attempts = latencies.count();
+        System.out.printf("Attempts: %d (%.1f/s), purchased: %d, out of stock: %d, errors: %d%n",
+                attempts, attempts / elapsed, purchased.get(), outOfStock.get(), errors.get());
+        System.out.printf("Latency ms: p50 %.2f, p90 %.2f, p99 %.2f, p99.9 %.2f, max %.2f%n",
+                latencies.percentile(50) / 1e6, latencies.percentile(90) / 1e6, latencies.percentile(99) / 1e6,
+                latencies.percentile(99.9) / 1e6, latencies.max() / 1e6);
+        if (firstError.get() != null) {
+            System.out.println("FAILED: " + errors.get() + " purchases failed with an SQL error, the first being:");
+            firstError.get().printStackTrace();
+        }
+
+        boolean invariantsHold = verifyInvariants(stockBefore, locationStockBefore, soldBefore);
+        return invariantsHold && finished && errors.get() == 0;
+    }
+
+    private boolean verifyInvariants(Map<Integer, Long> stockBefore, Map<Integer, Long> locationStockBefore,
+                                     Map<Integer, Long> soldBefore) throws SQLException {
+        Map<Integer, Long> stockAfter = loadStock();
+        Map<Integer, Long> locationStockAfter = loadLocationStock(locationId);
+        Map<Integer, Long> soldAfter = loadSold();
+        boolean ok = true;
+        for (Map.Entry<Integer, Long> entry : stockAfter.entrySet()) {
+            int productId = entry.getKey();
+            long after = entry.getValue();
+            if (after < 0) {
+                System.out.printf("VIOLATION: product %d has negative stock %d%n", productId, after);
+                ok = false;
+            }
+            long decrement = stockBefore.getOrDefault(productId, after) - after;
+            long recorded = soldAfter.getOrDefault(productId, 0L) - soldBefore.getOrDefault(productId, 0L);
+            if (decrement != recorded) {
+                System.out.printf("VIOLATION: product %d stock fell by %d but sales record %d units%n", productId, decrement, recorded);
+                ok = false;
+            }
+            Long atLocation = locationStockAfter.get(productId);
+            long locationDecrement = atLocation == null ? 0
+                    : locationStockBefore.getOrDefault(productId, atLocation) - atLocation;
+            if (atLocation != null && atLocation < 0) {
+                System.out.printf("VIOLATION: product %d has negative stock %d at location %d%n", productId, atLocation, locationId);
+                ok = false;
+            }
+            if (locationDecrement != recorded) {
+                System.out.printf("VIOLATION: product %d stock at location %d fell by %d but sales record %d units%n",
+                        productId, locationId, locationDecrement, recorded);
+                ok = false;
+            }
+        }
+        for (Map.Entry<Integer, Long> entry : loadUnallocatedStock().entrySet()) {
+            System.out.printf("VIOLATION: product %d total stock differs from its locations' stock by %d%n",
+                    entry.getKey(), entry.getValue());
+            ok = false;
+        }
+        System.out.println(ok ? "Invariants hold: no negative stock, stock decrements match recorded sales, "
+                + "location stock adds up to the totals." : "Invariant check FAILED.");
+        return ok;
+    }
+
+    private static Map<Integer, Long> loadStock() throws SQLException {
+        return loadTotals("SELECT product_id, quantity FROM Products");
+    }
+
+    private static Map<Integer, Long> loadLocationStock(int locationId) throws SQLException {
+        return loadTotals("SELECT product_id, quantity FROM product_stock WHERE location_id = ?", locationId);
+    }
+
+    private static Map<Integer, Long> loadSold() throws SQLException {
+        return loadTotals("SELECT product_id, SUM(quantity_sold) FROM Sales GROUP BY product_id");
+    }
+
+    /**
+     * Returns the products whose total stock differs from the sum of their locations' stock,
+     * with the difference.
+     */
+    private static Map<Integer, Long> loadUnallocatedStock() throws SQLException {
+        return loadTotals("SELECT p.product_id, p.quantity - COALESCE(SUM(s.quantity), 0) AS difference FROM Products p "
+                + "LEFT JOIN product_stock s ON s.product_id = p.product_id WHERE p.deleted_at IS NULL "
+                + "GROUP BY p.product_id, p.quantity HAVING difference <> 0");
+    }
+
+    private static Map<Integer, Long> loadTotals(String sql, int... parameters) throws SQLException {
+        Map<Integer, Long> totals = new HashMap<>();
+        try (Connection conn = DatabaseConnector.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                stmt.setInt(i + 1, parameters[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    totals.put(rs.getInt(1), rs.getLong(2));
+                }
+            }
+        }
+        return totals;
+    }
+
+    private static List<String> loadProductNames() throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (Connection conn = DatabaseConnector.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT name FROM Products WHERE deleted_at IS NULL ORDER BY product_id");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                names.add(rs.getString(1));
+            }
+        }
+        return names;
+    }
+}
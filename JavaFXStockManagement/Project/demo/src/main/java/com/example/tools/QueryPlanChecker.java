@@ -0,0 +1,411 @@
+package com.example.tools;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.example.model.DatabaseConnector;
+import com.example.model.DeletionEngine;
+import com.example.util.Constants;
+
+/**
+ * Headless plan regression check for the application's queries. Runs {@code EXPLAIN} for
+ * every query in the catalog below with realistic parameters and fails when a plan
+ * <ul>
+ *   <li>reads a large table in full ({@code type = ALL}) without that being declared,</li>
+ *   <li>sorts a large row set with a filesort without that being declared, or</li>
+ *   <li>stops using the index the query was written for.</li>
+ * </ul>
+ * A table or sort counts as large from {@code --large-rows} estimated rows. Plans only mean
+ * something on realistic volumes, so the check refuses to run when {@code Sales} has fewer
+ * than {@code --min-sales} rows; arguments after {@code --} are passed to
+ * {@link DatasetGenerator} to fill the database first:
+ * <pre>
+ * java -Dstock.dbUrl=jdbc:mysql://localhost:3306/javafx_plans -Dstock.dbPoolSize=16 \
+ *      com.example.tools.QueryPlanChecker --verbose true -- --products 100000 --sales 2000000 --threads 8
+ * </pre>
+ * <p>The catalog mirrors the SQL of the named methods and must be updated with them. Exits
+ * with status 1 if a plan regressed and 2 if the dataset is too small.</p>
+ */
+public class QueryPlanChecker {
+
+    private long largeRows = 10_000;
+    private long minSales = 100_000;
+    private boolean verbose;
+    private String[] generatorArguments;
+
+    public static void main(String[] args) throws Exception {
+        QueryPlanChecker checker = new QueryPlanChecker();
+        checker.parseArguments(args);
+        System.exit(checker.run());
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i += 2) {
+            if (args[i].equals("--")) {
+                generatorArguments = Arrays.copyOfRange(args, i + 1, args.length);
+                return;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            }
+            switch (args[i]) {
+                case "--large-rows":
+                    largeRows = Long.parseLong(args[i + 1]);
+                    break;
+                case "--min-sales":
+                    minSales = Long.parseLong(args[i + 1]);
+                    break;
+                case "--verbose":
+                    verbose = Boolean.parseBoolean(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+    }
+
+    private int run() throws Exception {
+        if (generatorArguments != null) {
+            DatasetGenerator.generate(generatorArguments);
+        }
+        try (Connection conn = DatabaseConnector.getConnection()) {
+            long salesCount = queryLong(conn, "SELECT COUNT(*) FROM Sales");
+            if (salesCount < minSales) {
+                System.out.printf("Sales has %d rows, fewer than %d; plans on small tables are not meaningful. "
+                        + "Pass dataset generator arguments after -- to fill the database first.%n", salesCount, minSales);
+                return 2;
+            }
+            List<PlannedQuery> queries = catalog(new Samples(conn));
+            int failed = 0;
+            for (PlannedQuery query : queries) {
+                List<PlanRow> plan = explain(conn, query);
+                List<String> problems = check(query, plan);
+                System.out.println((problems.isEmpty() ? "OK    " : "FAIL  ") + query.name);
+                for (String problem : problems) {
+                    System.out.println("        " + problem);
+                }
+                if (verbose || !problems.isEmpty()) {
+                    for (PlanRow row : plan) {
+                        System.out.println("        | " + row);
+                    }
+                    for (String reason : query.reasons) {
+                        System.out.println("        allowed: " + reason);
+                    }
+                }
+                if (!problems.isEmpty()) {
+                    failed++;
+                }
+            }
+            System.out.printf("%d of %d query plans passed%n", queries.size() - failed, queries.size());
+            return failed == 0 ? 0 : 1;
+        }
+    }
+
+    /**
+     * Lists the application's queries with the indexes they rely on and the full reads
+     * and sorts they are allowed by design.
+     *
+     * @param s sample parameter values from the database
+     * @return the catalog
+     */
+    private static List<PlannedQuery> catalog(Samples s) {
+        List<PlannedQuery> queries = new ArrayList<>();
+        queries.add(new PlannedQuery("App.authenticate",
+                "SELECT password, role FROM users WHERE username = ?", s.username)
+                .expectKey("users", "username"));
+        queries.add(new PlannedQuery("UserPanel.loadProducts",
+                "SELECT p.product_id, p.name, p.price, ps.quantity FROM product_stock ps JOIN Products p ON p.product_id = ps.product_id "
+                        + "WHERE ps.location_id = ? AND ps.quantity > 0 AND p.deleted_at IS NULL", s.locationId)
+                .expectKey("ps", "location_quantity")
+                .expectKey("p", "PRIMARY"));
+        queries.add(new PlannedQuery("PurchaseService.findProductId",
+                "SELECT product_id FROM Products WHERE name = ? AND deleted_at IS NULL", s.productName)
+                .expectKey("Products", "name"));
+        queries.add(new PlannedQuery("PurchaseService.findProductPrice",
+                "SELECT price FROM Products WHERE product_id = ?", s.productId)
+                .expectKey("Products", "PRIMARY"));
+        queries.add(new PlannedQuery("LocationStock.take",
+                "UPDATE product_stock ps JOIN Products p ON p.product_id = ps.product_id SET ps.quantity = ps.quantity - ? "
+                        + "WHERE ps.product_id = ? AND ps.location_id = ? AND ps.quantity >= ? AND p.deleted_at IS NULL",
+                1, s.productId, s.locationId, 1)
+                .expectKey("ps", "PRIMARY")
+                .expectKey("p", "PRIMARY"));
+        queries.add(new PlannedQuery("LocationInventory.loadColumn",
+                "SELECT product_id, quantity FROM product_stock WHERE location_id = ?", s.locationId)
+                .expectKey("product_stock", "location_quantity"));
+        queries.add(new PlannedQuery("LocationInventory.loadLowRows",
+                "SELECT s.product_id, p.name, s.location_id, s.quantity FROM product_stock l "
+                        + "JOIN product_stock s ON s.product_id = l.product_id "
+                        + "JOIN Products p ON p.product_id = l.product_id "
+                        + "WHERE l.location_id = ? AND l.quantity <= ? AND p.deleted_at IS NULL",
+                s.locationId, Constants.LOW_STOCK_THRESHOLD)
+                .expectKey("l", "location_quantity")
+                .expectKey("s", "PRIMARY")
+                .expectKey("p", "PRIMARY"));
+        queries.add(new PlannedQuery("AdminPanel.loadProducts",
+                "SELECT product_id, name, price, quantity FROM Products WHERE deleted_at IS NULL ORDER BY name")
+                .allowScan("Products", "the product list shows every product")
+                .allowFilesort("the product list is sorted by name"));
+        queries.add(new PlannedQuery("StockCheck.run",
+                "SELECT product_id, name, quantity FROM Products WHERE deleted_at IS NULL")
+                .allowScan("Products", "the stock check scans every product"));
+        queries.add(new PlannedQuery("SkuIndex.load",
+                "SELECT p.product_id, p.name, p.sku, p.price, COALESCE(ps.quantity, 0) AS quantity FROM Products p "
+                        + "LEFT JOIN product_stock ps ON ps.product_id = p.product_id AND ps.location_id = ? "
+                        + "WHERE p.sku IS NOT NULL AND p.deleted_at IS NULL", s.locationId)
+                .allowScan("p", "the SKU index holds every product with a SKU")
+                .expectKey("ps", "PRIMARY"));
+        queries.add(new PlannedQuery("AdminPanel.loadSalesTrends",
+                "SELECT p.name, SUM(s.quantity_sold) AS total_sold, SUM(s.total_price) AS total_revenue FROM Sales s "
+                        + "JOIN Products p ON s.product_id = p.product_id WHERE " + DeletionEngine.visibleSales("s")
+                        + " GROUP BY p.name ORDER BY total_sold DESC")
+                .allowScan("p", "sales trends cover every product")
+                .allowFilesort("the per-product totals are sorted by units sold")
+                .expectKey("s", "sales_product_covering"));
+        queries.add(new PlannedQuery("SalesLogQuery.fetch (first page)",
+                "SELECT s.sale_id, s.product_id, p.name, s.quantity_sold, s.sale_date, s.total_price "
+                        + "FROM Sales s JOIN Products p ON s.product_id = p.product_id WHERE " + DeletionEngine.visibleSales("s")
+                        + " ORDER BY s.sale_date DESC, s.sale_id DESC LIMIT ?", 201)
+                .expectKey("s", "sales_date_covering")
+                .expectKey("p", "PRIMARY"));
+        queries.add(new PlannedQuery("SalesLogQuery.fetch (product, next page)",
+                "SELECT s.sale_id, s.product_id, p.name, s.quantity_sold, s.sale_date, s.total_price "
+                        + "FROM Sales s JOIN Products p ON s.product_id = p.product_id WHERE " + DeletionEngine.visibleSales("s")
+                        + " AND s.product_id = ? AND (s.sale_date < ? OR (s.sale_date = ? AND s.sale_id < ?))"
+                        + " ORDER BY s.sale_date DESC, s.sale_id DESC LIMIT ?",
+                s.productId, s.now, s.now, s.maxSaleId, 201)
+                .expectKey("s", "sales_product_covering"));
+        queries.add(new PlannedQuery("SalesLogQuery.fetch (user, next page)",
+                "SELECT s.sale_id, s.product_id, p.name, s.quantity_sold, s.sale_date, s.total_price "
+                        + "FROM Sales s JOIN Products p ON s.product_id = p.product_id WHERE " + DeletionEngine.visibleSales("s")
+                        + " AND s.user_id = ? AND (s.sale_date < ? OR (s.sale_date = ? AND s.sale_id < ?))"
+                        + " ORDER BY s.sale_date DESC, s.sale_id DESC LIMIT ?",
+                s.userId, s.now, s.now, s.maxSaleId, 101)
+                .expectKey("s", "sales_user_covering"));
+        queries.add(new PlannedQuery("ReorderEngine.pollSales",
+                "SELECT sale_id, product_id, UNIX_TIMESTAMP(sale_date) AS sale_time, quantity_sold FROM Sales WHERE sale_id > ? ORDER BY sale_id",
+                s.maxSaleId - 100)
+                .expectKey("Sales", "PRIMARY"));
+        queries.add(new PlannedQuery("ReorderEngine.warmUp",
+                "SELECT product_id, SUM(quantity_sold * EXP(-? * (? - UNIX_TIMESTAMP(sale_date)) / 86400)) AS decayed "
+                        + "FROM Sales WHERE sale_id <= ? AND sale_date >= FROM_UNIXTIME(?) AND " + DeletionEngine.visibleSales("Sales")
+                        + " GROUP BY product_id",
+                0.05, s.nowSeconds, s.maxSaleId, s.nowSeconds - 56 * 86_400L)
+                .expectKey("Sales", "sales_date_covering"));
+        queries.add(new PlannedQuery("SalesColumnStore.refresh",
+                "SELECT sale_id, product_id, UNIX_TIMESTAMP(sale_date) AS sale_time, quantity_sold, CAST(ROUND(total_price * 100) AS SIGNED) AS total_cents "
+                        + "FROM Sales WHERE sale_id > ? AND " + DeletionEngine.visibleSales("Sales") + " ORDER BY sale_id",
+                s.maxSaleId - 100)
+                .expectKey("Sales", "PRIMARY"));
+        queries.add(new PlannedQuery("ReportScheduler TOP_SELLERS",
+                "SELECT p.product_id, p.name, SUM(s.quantity_sold) AS units_sold, SUM(s.total_price) AS revenue "
+                        + "FROM Sales s JOIN Products p ON s.product_id = p.product_id "
+                        + "WHERE s.sale_date >= ? AND s.sale_date < ? AND " + DeletionEngine.visibleSales("s") + " "
+                        + "GROUP BY p.product_id, p.name ORDER BY units_sold DESC LIMIT 100",
+                s.dayAgo, s.now)
+                .allowFilesort("the per-product totals are sorted by units sold")
+                .expectKey("s", "sales_date_covering")
+                .expectKey("p", "PRIMARY"));
+        queries.add(new PlannedQuery("ReportScheduler SALES_BY_DAY",
+                "SELECT DATE(sale_date) AS day, COUNT(*) AS sales, SUM(quantity_sold) AS units_sold, SUM(total_price) AS revenue "
+                        + "FROM Sales WHERE sale_date >= ? AND sale_date < ? AND " + DeletionEngine.visibleSales("Sales")
+                        + " GROUP BY DATE(sale_date) ORDER BY day",
+                s.weekAgo, s.now)
+                .expectKey("Sales", "sales_date_covering"));
+        queries.add(new PlannedQuery("ReportScheduler LOW_STOCK",
+                "SELECT product_id, name, quantity FROM Products WHERE quantity < ? AND deleted_at IS NULL ORDER BY quantity, name", 3)
+                .allowScan("Products", "the nightly low-stock report checks every product")
+                .allowFilesort("the nightly low-stock report is sorted by quantity"));
+        queries.add(new PlannedQuery("StockLedger.recentMovements (product)",
+                "SELECT m.movement_id, m.product_id, p.name, m.kind, m.quantity_change, m.moved_at "
+                        + "FROM stock_movements m LEFT JOIN Products p ON p.product_id = m.product_id "
+                        + "WHERE m.product_id = ? ORDER BY m.movement_id DESC LIMIT ?", s.productId, 200)
+                .expectKey("m", "product_movement")
+                .expectKey("p", "PRIMARY"));
+        queries.add(new PlannedQuery("StockLedger.recentMovements (all)",
+                "SELECT m.movement_id, m.product_id, p.name, m.kind, m.quantity_change, m.moved_at "
+                        + "FROM stock_movements m LEFT JOIN Products p ON p.product_id = m.product_id "
+                        + "ORDER BY m.movement_id DESC LIMIT ?", 200)
+                .expectKey("m", "PRIMARY")
+                .expectKey("p", "PRIMARY"));
+        queries.add(new PlannedQuery("StockLedger.takeSnapshot (settled movement)",
+                "SELECT movement_id, moved_at FROM stock_movements WHERE moved_at <= NOW() - INTERVAL ? SECOND ORDER BY movement_id DESC LIMIT 1", 60)
+                .expectKey("stock_movements", "PRIMARY"));
+        queries.add(new PlannedQuery("PriceIndex.refresh",
+                "SELECT version_id, product_id, price, effective_from, effective_to FROM price_versions "
+                        + "WHERE version_id > ? AND (effective_to IS NULL OR effective_to > NOW()) ORDER BY version_id", s.maxVersionId - 10)
+                .expectKey("price_versions", "PRIMARY"));
+        queries.add(new PlannedQuery("PriceVersions.history",
+                "SELECT version_id, price, effective_from, effective_to, label FROM price_versions "
+                        + "WHERE product_id = ? ORDER BY effective_from DESC, version_id DESC LIMIT ?", s.productId, 100)
+                .expectKey("price_versions", "product_effective"));
+        return queries;
+    }
+
+    private static List<PlanRow> explain(Connection conn, PlannedQuery query) throws SQLException {
+        List<PlanRow> rows = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + query.sql)) {
+            for (int i = 0; i < query.parameters.length; i++) {
+                stmt.setObject(i + 1, query.parameters[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new PlanRow(rs.getString("table"), rs.getString("type"), rs.getString("key"),
+                            rs.getLong("rows"), rs.getString("Extra")));
+                }
+            }
+        }
+        return rows;
+    }
+
+    private List<String> check(PlannedQuery query, List<PlanRow> plan) {
+        List<String> problems = new ArrayList<>();
+        Map<String, PlanRow> byTable = new HashMap<>();
+        for (PlanRow row : plan) {
+            if (row.table == null || row.table.startsWith("<")) {
+                continue;
+            }
+            String table = row.table.toLowerCase(Locale.ROOT);
+            byTable.putIfAbsent(table, row);
+            if ("ALL".equals(row.type) && row.rows >= largeRows && !query.scansAllowed.contains(table)) {
+                problems.add("full scan of " + row.table + " (" + row.rows + " rows)");
+            }
+        }
+        for (PlanRow row : plan) {
+            if (row.extra != null && row.extra.contains("Using filesort") && row.rows >= largeRows && !query.filesortAllowed) {
+                problems.add("filesort over " + row.rows + " rows of " + row.table);
+            }
+        }
+        for (Map.Entry<String, String> expected : query.expectedKeys.entrySet()) {
+            PlanRow row = byTable.get(expected.getKey());
+            if (row == null) {
+                problems.add("table " + expected.getKey() + " is missing from the plan");
+            } else if (row.key == null || !row.key.equalsIgnoreCase(expected.getValue())) {
+                problems.add(row.table + " uses " + (row.key == null ? "no index" : "index " + row.key)
+                        + " instead of " + expected.getValue());
+            }
+        }
+        return problems;
+    }
+
+    private static long queryLong(Connection conn, String sql) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Parameter values taken from the data, so the optimizer sees realistic selectivity.
+     */
+    private static final class Samples {
+        final int productId;
+        final String productName;
+        final int locationId;
+        final int userId;
+        final String username;
+        final long maxSaleId;
+        final long maxVersionId;
+        final long nowSeconds = System.currentTimeMillis() / 1000;
+        final Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        final Timestamp dayAgo = Timestamp.valueOf(LocalDateTime.now().minusDays(1));
+        final Timestamp weekAgo = Timestamp.valueOf(LocalDateTime.now().minusDays(7));
+
+        Samples(Connection conn) throws SQLException {
+            maxSaleId = queryLong(conn, "SELECT COALESCE(MAX(sale_id), 0) FROM Sales");
+            productId = (int) queryLong(conn, "SELECT COALESCE(MAX(product_id), 0) FROM Sales WHERE sale_id > " + Math.max(0, maxSaleId - 1000));
+            locationId = (int) queryLong(conn, "SELECT COALESCE(MIN(location_id), 0) FROM locations");
+            maxVersionId = queryLong(conn, "SELECT COALESCE(MAX(version_id), 0) FROM price_versions");
+            productName = queryString(conn, "SELECT name FROM Products WHERE product_id = " + productId, "");
+            username = queryString(conn, "SELECT username FROM users ORDER BY id LIMIT 1", "admin");
+            userId = (int) queryLong(conn, "SELECT COALESCE(MAX(user_id), 0) FROM Sales WHERE sale_id > " + Math.max(0, maxSaleId - 1000));
+        }
+
+        private static String queryString(Connection conn, String sql, String defaultValue) throws SQLException {
+            try (PreparedStatement stmt = conn.prepareStatement(sql);
+                 ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : defaultValue;
+            }
+        }
+    }
+
+    /**
+     * One application query and what its plan must look like.
+     */
+    private static final class PlannedQuery {
+        final String name;
+        final String sql;
+        final Object[] parameters;
+        final Map<String, String> expectedKeys = new LinkedHashMap<>();
+        final List<String> scansAllowed = new ArrayList<>();
+        final List<String> reasons = new ArrayList<>();
+        boolean filesortAllowed;
+
+        PlannedQuery(String name, String sql, Object... parameters) {
+            this.name = name;
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+
+        /**
+         * Requires a table, by alias or name, to be read through an index.
+         */
+        PlannedQuery expectKey(String table, String key) {
+            expectedKeys.put(table.toLowerCase(Locale.ROOT), key);
+            return this;
+        }
+
+        /**
+         * Allows a full scan of a table that the query reads in full by design.
+         */
+        PlannedQuery allowScan(String table, String because) {
+            scansAllowed.add(table.toLowerCase(Locale.ROOT));
+            reasons.add("full scan of " + table + " because " + because);
+            return this;
+        }
+
+        /**
+         * Allows a filesort of a result that cannot be read in index order.
+         */
+        PlannedQuery allowFilesort(String because) {
+            filesortAllowed = true;
+            reasons.add("filesort because " + because);
+            return this;
+        }
+    }
+
+    /**
+     * One row of an {@code EXPLAIN} result.
+     */
+    private static final class PlanRow {
+        final String table;
+        final String type;
+        final String key;
+        final long rows;
+        final String extra;
+
+        PlanRow(String table, String type, String key, long rows, String extra) {
+            this.table = table;
+            this.type = type;
+            this.key = key;
+            this.rows = rows;
+            this.extra = extra;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-16s %-7s %-24s %10d  %s", table, type, key == null ? "-" : key, rows, extra == null ? "" : extra);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.tools;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.example.model.SnapshotArchive;
+import com.example.util.Constants;
+
+/**
+ * Headless backup and restore with {@link SnapshotArchive}, for cron jobs and for moving data
+ * between databases:
+ * <pre>
+ * java com.example.tools.SnapshotTool backup [--dir /var/backups/stock]
+ * java com.example.tools.SnapshotTool verify --snapshot /var/backups/stock/snapshot-20260101-020000
+ * java -Dstock.dbUrl=jdbc:mysql://localhost:3306/javafx_copy com.example.tools.SnapshotTool restore \
+ *      --snapshot /var/backups/stock/snapshot-20260101-020000
+ * </pre>
+ * <p>{@code backup} writes a new snapshot into {@code --dir}, by default
+ * {@link Constants#SNAPSHOT_DIR}. {@code verify} checks a snapshot without connecting to the
+ * database and {@code restore} replaces the snapshot's tables with its contents. Exits with
+ * status 1 if the command fails.</p>
+ */
+public class SnapshotTool {
+
+    private String command;
+    private Path dir = Paths.get(Constants.SNAPSHOT_DIR);
+    private Path snapshot;
+
+    public static void main(String[] args) {
+        SnapshotTool tool = new SnapshotTool();
+        tool.parseArguments(args);
+        try {
+            tool.run();
+        } catch (Exception ex) {
+            System.err.println(tool.command + " failed: " + ex.getMessage());
+            ex.printStackTrace();
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    private void parseArguments(String[] args) {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("Usage: SnapshotTool backup|verify|restore [--dir path] [--snapshot path]");
+        }
+        command = args[0];
+        for (int i = 1; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            }
+            switch (args[i]) {
+                case "--dir":
+                    dir = Paths.get(args[i + 1]);
+                    break;
+                case "--snapshot":
+                    snapshot = Paths.get(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (!command.equals("backup") && snapshot == null) {
+            throw new IllegalArgumentException(command + " needs --snapshot");
+        }
+    }
+
+    private void run() throws Exception {
+        SnapshotArchive.Summary summary;
+        switch (command) {
+            case "backup":
+                summary = SnapshotArchive.backup(dir);
+                break;
+            case "verify":
+                summary = SnapshotArchive.verify(snapshot);
+                break;
+            case "restore":
+                summary = SnapshotArchive.restore(snapshot);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command: " + command);
+        }
+        for (SnapshotArchive.TableSummary table : summary.getTables()) {
+            System.out.printf("%-16s %,12d rows %,12d bytes  crc32 %08x%n", table.getTable(), table.getRows(), table.getBytes(),
+                    table.getCrc32());
+        }
+        System.out.printf("%s %s: %,d rows, %,d bytes in %,d ms%n", command, summary.getDirectory(), summary.getRows(),
+                summary.getBytes(), summary.getElapsedMillis());
+    }
+}
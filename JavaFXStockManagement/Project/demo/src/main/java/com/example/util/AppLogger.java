@@ -27,6 +27,16 @@ public class AppLogger {
         logger.log(Level.WARNING, message);
     }
 
+    /**
+     * Logs a warning message along with a throwable.
+     *
+     * @param message   the message to log
+     * @param throwable the throwable to log
+     */
+    public static void logWarning(String message, Throwable throwable) {
+        logger.log(Level.WARNING, message, throwable);
+    }
+
     /**
      * Logs an error message along with a throwable.
      *
@@ -1,9 +1,85 @@
 package com.example.util;
 
 public class Constants {
-    public static final String DB_URL = "jdbc:mysql://localhost:3306/javafx_db";
+    public static final String DB_URL = System.getProperty("stock.dbUrl", "jdbc:mysql://localhost:3306/javafx_db");
     public static final String DB_USER = "root";
     public static final String DB_PASSWORD = "";
+    public static final int DB_POOL_SIZE = Integer.getInteger("stock.dbPoolSize", 8);
+    public static final long DB_POOL_WAIT_SECONDS = 10;
+    public static final int STATEMENT_CACHE_SIZE = 64;
+    public static final long STATEMENT_LEAK_THRESHOLD_SECONDS = Long.getLong("stock.statementLeakSeconds", 120);
+    public static final boolean STATEMENT_LEAK_TRACES = Boolean.getBoolean("stock.leakTraces");
+    public static final int STATEMENT_LEAK_TRACE_SAMPLE = Integer.getInteger("stock.leakTraceSample", 100);
+    public static final String DB_REPLICA_URL = System.getProperty("stock.dbReplicaUrl");
+    public static final long REPLICA_MAX_LAG_SECONDS = Long.getLong("stock.replicaMaxLagSeconds", 5);
+    public static final long REPLICA_HEARTBEAT_MILLIS = 1000;
+
+    public static final boolean OFFLINE_MODE = Boolean.getBoolean("stock.offlineMode");
+    public static final String LOCAL_DB_PATH = System.getProperty("stock.localDb",
+            System.getProperty("user.home") + "/.stockmanager/terminal.db");
+    public static final long SYNC_INTERVAL_SECONDS = 15;
+    public static final int SYNC_BATCH_SIZE = 200;
+    public static final int DEFAULT_LOCATION_ID = Integer.getInteger("stock.locationId", 1);
+    public static final int LOCATION_QUERY_PARALLELISM = 4;
+
+    public static final int LOW_STOCK_THRESHOLD = 3;
+    public static final double REORDER_LEAD_TIME_DAYS = 7;
+    public static final double REORDER_SAFETY_DAYS = 3;
+    public static final double REORDER_VELOCITY_HALF_LIFE_DAYS = 14;
+    public static final double REORDER_WARMUP_DAYS = 56;
+    public static final int REORDER_LIST_SIZE = 200;
+
+    public static final int SALE_GAP_LIMIT = 1000;
+    public static final long SALE_GAP_RETENTION_SECONDS = 300;
+
+    public static final int SALES_LOG_PAGE_SIZE = 200;
+    public static final int PURCHASE_HISTORY_PAGE_SIZE = 100;
+    public static final int PURGE_BATCH_SIZE = 500;
+    public static final long PURGE_PAUSE_MILLIS = 50;
+
+    public static final String REPORT_DIR = System.getProperty("stock.reportDir",
+            System.getProperty("user.home") + "/.stockmanager/reports");
+    public static final int REPORT_RUN_HOUR = Integer.getInteger("stock.reportHour", 2);
+    public static final String REPORT_WEEKLY_DAY = "MONDAY";
+    public static final int REPORT_HISTORY_SIZE = 100;
+
+    public static final String SNAPSHOT_DIR = System.getProperty("stock.snapshotDir",
+            System.getProperty("user.home") + "/.stockmanager/snapshots");
+    public static final int SNAPSHOT_PARALLELISM = 4;
+    public static final int SNAPSHOT_INSERT_ROWS = 500;
+    public static final int SNAPSHOT_COMMIT_ROWS = 20_000;
+
+    public static final long STOCK_SNAPSHOT_SETTLE_SECONDS = 60;
+    public static final int STOCK_MOVEMENT_HISTORY_SIZE = 200;
+    public static final long PRICE_INDEX_REFRESH_SECONDS = 5;
+    public static final long SKU_INDEX_RELOAD_SECONDS = 60;
+    public static final int PRICE_VERSION_HISTORY_SIZE = 100;
+
+    public static final int TASK_SCHEDULER_THREADS = 2;
+    public static final long STOCK_CHECK_INTERVAL_MILLIS = 5000;
+    public static final long TASK_VIEW_REFRESH_MILLIS = 1000;
+
+    public static final long FX_STALL_THRESHOLD_MILLIS = Long.getLong("stock.fxStallMillis", 250);
+    public static final long FX_STALL_PROBE_MILLIS = 50;
+    public static final int FX_STALL_HISTORY_SIZE = 100;
+    public static final String FX_STALL_DIR = System.getProperty("stock.fxStallDir",
+            System.getProperty("user.home") + "/.stockmanager/stalls");
+
+    public static final int KPI_WINDOW_MINUTES = 15;
+    public static final int KPI_PRODUCT_SLOTS = 1024;
+    public static final int KPI_TOP_PRODUCTS = 10;
+    public static final long KPI_REFRESH_MILLIS = 1000;
+    public static final long KPI_FLUSH_MILLIS = 5000;
+    public static final long KPI_SHARED_REFRESH_MILLIS = 30_000;
+    public static final int KPI_RETENTION_HOURS = 48;
+
+    public static final String PRODUCT_IMAGE_DIR = System.getProperty("stock.imageDir",
+            System.getProperty("user.home") + "/.stockmanager/images");
+    public static final int THUMBNAIL_SIZE = 48;
+    public static final long THUMBNAIL_CACHE_BYTES = Long.getLong("stock.thumbnailCacheBytes", 32L * 1024 * 1024);
+    public static final int THUMBNAIL_LOADER_THREADS = 2;
+    public static final int THUMBNAIL_QUEUE_SIZE = 64;
+    public static final double THUMBNAIL_HEAP_PRESSURE = 0.85;
 
     public static final String ICON_PATH = "/icons/image.png";
     public static final String STYLE_PATH = "/css/style.css";
@@ -0,0 +1,332 @@
+package com.example.util;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javafx.application.Platform;
+import javafx.collections.ListChangeListener;
+import javafx.event.ActionEvent;
+import javafx.event.Event;
+import javafx.scene.Node;
+import javafx.scene.control.Labeled;
+import javafx.scene.input.MouseEvent;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+
+/**
+ * Watches the FX application thread for stalls. A watchdog thread posts a probe to the FX
+ * thread every {@link Constants#FX_STALL_PROBE_MILLIS} and records how long it waits to run,
+ * which is how long any event or pulse posted at that moment would have waited. When a probe
+ * waits longer than {@link Constants#FX_STALL_THRESHOLD_MILLIS}, the watchdog captures the
+ * FX thread's stack trace and the name of the current operation and adds a {@link Stall} to a
+ * ring buffer of the last {@link Constants#FX_STALL_HISTORY_SIZE} stalls. The stall's
+ * duration is filled in once the FX thread runs the probe.
+ *
+ * <p>The current operation is the innermost name passed to {@link #begin(String)}, or
+ * otherwise the button or control whose action or click event is being handled, so stalls in
+ * event handlers are named without instrumenting them. Modal dialogs run a nested event loop
+ * and do not count as stalls while they are open.</p>
+ */
+public final class FxStallDetector {
+
+    private static final FxStallDetector SHARED = new FxStallDetector();
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    private static final DateTimeFormatter FILE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fx-stall-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final LatencyHistogram probeLatency = new LatencyHistogram();
+    private final Stall[] history = new Stall[Constants.FX_STALL_HISTORY_SIZE];
+    private final long thresholdNanos = TimeUnit.MILLISECONDS.toNanos(Constants.FX_STALL_THRESHOLD_MILLIS);
+    private int stallCount;
+    private long probePostedNanos;
+    private Stall currentStall;
+    private boolean started;
+    private volatile Thread fxThread;
+    private volatile String operation;
+    private volatile String eventOperation;
+
+    private FxStallDetector() {
+    }
+
+    /**
+     * Returns the detector of this process.
+     *
+     * @return the shared detector
+     */
+    public static FxStallDetector shared() {
+        return SHARED;
+    }
+
+    /**
+     * Starts watching the FX thread and names operations after the events of every window.
+     * Must be called on the FX thread; later calls do nothing.
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        fxThread = Thread.currentThread();
+        for (Window window : Window.getWindows()) {
+            watch(window);
+        }
+        Window.getWindows().addListener((ListChangeListener<Window>) change -> {
+            while (change.next()) {
+                for (Window window : change.getAddedSubList()) {
+                    watch(window);
+                }
+            }
+        });
+        watchdog.scheduleWithFixedDelay(this::probe, Constants.FX_STALL_PROBE_MILLIS, Constants.FX_STALL_PROBE_MILLIS,
+                TimeUnit.MILLISECONDS);
+        AppLogger.logInfo("Watching the FX thread for stalls over " + Constants.FX_STALL_THRESHOLD_MILLIS + " ms");
+    }
+
+    /**
+     * Names the work the FX thread does until the returned operation is closed, for stalls
+     * it causes. Operations nest; closing one restores the name of the enclosing operation.
+     *
+     * @param name the name of the operation, e.g. "Load products"
+     * @return the operation to close when the work is done
+     */
+    public Operation begin(String name) {
+        Operation op = new Operation(operation);
+        operation = name;
+        return op;
+    }
+
+    /**
+     * Returns the recorded stalls.
+     *
+     * @return the stalls, newest first
+     */
+    public synchronized List<Stall> recentStalls() {
+        List<Stall> stalls = new ArrayList<>();
+        for (int i = 1; i <= Math.min(stallCount, history.length); i++) {
+            stalls.add(history[(stallCount - i) % history.length]);
+        }
+        return stalls;
+    }
+
+    /**
+     * Finds a recorded stall by its number.
+     *
+     * @param number the number of the stall
+     * @return the stall, or null if it is not in the buffer any more
+     */
+    public synchronized Stall find(int number) {
+        if (number < 1 || number > stallCount || number <= stallCount - history.length) {
+            return null;
+        }
+        return history[(number - 1) % history.length];
+    }
+
+    /**
+     * Returns the total number of stalls since the application started, including the ones
+     * that have left the buffer.
+     *
+     * @return the number of stalls
+     */
+    public synchronized int stallCount() {
+        return stallCount;
+    }
+
+    /**
+     * Returns how long probes waited for the FX thread, in nanoseconds.
+     *
+     * @return the probe latency histogram
+     */
+    public LatencyHistogram probeLatency() {
+        return probeLatency;
+    }
+
+    /**
+     * Writes the probe latency and every recorded stall with its stack trace to a new file.
+     *
+     * @param directory the directory to write the file in
+     * @return the file
+     * @throws IOException if the file cannot be written
+     */
+    public Path dump(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve("fx-stalls-" + LocalDateTime.now().format(FILE_FORMAT) + ".txt");
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            writer.println(summary());
+            writer.println();
+            for (Stall stall : recentStalls()) {
+                writer.println(stall);
+                for (StackTraceElement element : stall.getStackTrace()) {
+                    writer.println("    at " + element);
+                }
+                writer.println();
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Describes the probe latency and the number of stalls in one line.
+     *
+     * @return the summary
+     */
+    public String summary() {
+        return String.format("FX thread probes: %d, latency p50 %.1f ms, p99 %.1f ms, max %.1f ms; stalls over %d ms: %d",
+                probeLatency.count(), probeLatency.percentile(50) / 1e6, probeLatency.percentile(99) / 1e6,
+                probeLatency.max() / 1e6, Constants.FX_STALL_THRESHOLD_MILLIS, stallCount());
+    }
+
+    private void watch(Window window) {
+        if (window.getProperties().putIfAbsent(FxStallDetector.class, Boolean.TRUE) != null) {
+            return;
+        }
+        window.addEventFilter(ActionEvent.ACTION, event -> eventOperation = describe(window, event));
+        window.addEventFilter(MouseEvent.MOUSE_CLICKED, event -> eventOperation = describe(window, event));
+    }
+
+    private static String describe(Window window, Event event) {
+        Object target = event.getTarget();
+        while (target instanceof Node && !(target instanceof Labeled) && ((Node) target).getParent() != null) {
+            target = ((Node) target).getParent();
+        }
+        String control = target instanceof Labeled
+                ? target.getClass().getSimpleName() + " '" + ((Labeled) target).getText() + "'"
+                : event.getTarget().getClass().getSimpleName();
+        String title = window instanceof Stage ? ((Stage) window).getTitle() : null;
+        return event.getEventType() + " on " + control + (title == null ? "" : " in " + title);
+    }
+
+    /**
+     * Posts a probe if none is waiting, or records a stall if the waiting one is over the
+     * threshold. Runs on the watchdog thread.
+     */
+    private synchronized void probe() {
+        long now = System.nanoTime();
+        if (probePostedNanos == 0) {
+            probePostedNanos = now;
+            Platform.runLater(this::probeArrived);
+            return;
+        }
+        long waited = now - probePostedNanos;
+        if (waited < thresholdNanos || currentStall != null) {
+            return;
+        }
+        String name = operation != null ? operation : eventOperation;
+        currentStall = new Stall(++stallCount, LocalDateTime.now().minusNanos(waited),
+                name == null ? "unnamed operation" : name, fxThread.getStackTrace());
+        history[(currentStall.number - 1) % history.length] = currentStall;
+        AppLogger.logWarning("FX thread blocked for " + TimeUnit.NANOSECONDS.toMillis(waited) + " ms in " + currentStall.operation);
+    }
+
+    /**
+     * Records the probe's latency and ends the current stall. Runs on the FX thread, after
+     * the event that was being handled when the probe was posted.
+     */
+    private synchronized void probeArrived() {
+        long latency = System.nanoTime() - probePostedNanos;
+        probeLatency.record(latency);
+        probePostedNanos = 0;
+        eventOperation = null;
+        if (currentStall != null) {
+            currentStall.durationMillis = TimeUnit.NANOSECONDS.toMillis(latency);
+            AppLogger.logWarning("FX thread stall #" + currentStall.number + " lasted " + currentStall.durationMillis + " ms");
+            currentStall = null;
+        }
+    }
+
+    /**
+     * A named piece of work on the FX thread.
+     */
+    public final class Operation implements AutoCloseable {
+        private final String enclosing;
+
+        private Operation(String enclosing) {
+            this.enclosing = enclosing;
+        }
+
+        @Override
+        public void close() {
+            operation = enclosing;
+        }
+    }
+
+    /**
+     * One period in which the FX thread did not process events.
+     */
+    public static final class Stall {
+        private final int number;
+        private final LocalDateTime startedAt;
+        private final String operation;
+        private final StackTraceElement[] stackTrace;
+        private volatile long durationMillis = -1;
+
+        Stall(int number, LocalDateTime startedAt, String operation, StackTraceElement[] stackTrace) {
+            this.number = number;
+            this.startedAt = startedAt;
+            this.operation = operation;
+            this.stackTrace = stackTrace;
+        }
+
+        public int getNumber() {
+            return number;
+        }
+
+        public LocalDateTime getStartedAt() {
+            return startedAt;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        /**
+         * Returns the FX thread's stack when the stall crossed the threshold.
+         *
+         * @return the stack trace, innermost frame first
+         */
+        public StackTraceElement[] getStackTrace() {
+            return stackTrace.clone();
+        }
+
+        /**
+         * Returns how long the FX thread was blocked.
+         *
+         * @return the duration in milliseconds, or -1 while the stall lasts
+         */
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        @Override
+        public String toString() {
+            String duration = durationMillis < 0 ? "still blocked" : durationMillis + " ms";
+            return String.format("#%d %s - %s - %s - %s", number, startedAt.format(TIME_FORMAT), duration, operation, applicationFrame());
+        }
+
+        /**
+         * Describes the innermost frame of application code, which is usually where the FX
+         * thread should not have been waiting.
+         */
+        private String applicationFrame() {
+            for (StackTraceElement element : stackTrace) {
+                if (element.getClassName().startsWith("com.example.") && !element.getClassName().startsWith("com.example.util.")) {
+                    return "at " + element;
+                }
+            }
+            return stackTrace.length == 0 ? "no stack" : "at " + stackTrace[0];
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free sums over a sliding time window. Time is cut into buckets of a fixed length kept
+ * in a ring, and each bucket holds a fixed number of fields, e.g. units and revenue. Adding is
+ * a single atomic increment on the current bucket; the only allocation is a fresh bucket when
+ * the ring moves on to a new time slot, never one per added value. Sums read the buckets
+ * without stopping writers, so they may miss values added while they run.
+ */
+public class RollingCounter {
+
+    private final long bucketMillis;
+    private final int fields;
+    private final AtomicReferenceArray<Bucket> ring;
+
+    /**
+     * Creates a counter.
+     *
+     * @param buckets      the number of buckets in the ring, which bounds the longest window
+     * @param bucketMillis the length of a bucket in milliseconds
+     * @param fields       the number of fields in each bucket
+     */
+    public RollingCounter(int buckets, long bucketMillis, int fields) {
+        this.bucketMillis = bucketMillis;
+        this.fields = fields;
+        this.ring = new AtomicReferenceArray<>(buckets);
+    }
+
+    /**
+     * Adds to a field of the bucket of a time.
+     *
+     * @param nowMillis the current time in epoch milliseconds
+     * @param field     the index of the field
+     * @param amount    the amount to add
+     */
+    public void add(long nowMillis, int field, long amount) {
+        bucket(nowMillis / bucketMillis).values.addAndGet(field, amount);
+    }
+
+    /**
+     * Sums a field over the complete buckets before the current one, so that rates are not
+     * diluted by the bucket that has only just started.
+     *
+     * @param nowMillis the current time in epoch milliseconds
+     * @param buckets   the number of complete buckets to sum, at most one less than the ring
+     * @param field     the index of the field
+     * @return the sum
+     */
+    public long sum(long nowMillis, int buckets, int field) {
+        return sumBetween(nowMillis - buckets * bucketMillis, nowMillis, field);
+    }
+
+    /**
+     * Sums a field over the buckets starting in a time range, e.g. one whole minute.
+     *
+     * @param fromMillis the start of the range in epoch milliseconds, inclusive
+     * @param toMillis   the end of the range in epoch milliseconds, exclusive
+     * @param field      the index of the field
+     * @return the sum, missing the buckets the ring has already reused
+     */
+    public long sumBetween(long fromMillis, long toMillis, int field) {
+        long from = fromMillis / bucketMillis;
+        long to = toMillis / bucketMillis;
+        long total = 0;
+        for (int i = 0; i < ring.length(); i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket != null && bucket.epoch >= from && bucket.epoch < to) {
+                total += bucket.values.get(field);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns the bucket of a time slot, replacing the bucket of the slot that last used its
+     * place in the ring. A caller that was delayed by a whole ring adds to the newer bucket.
+     */
+    private Bucket bucket(long epoch) {
+        int index = (int) (epoch % ring.length());
+        Bucket bucket = ring.get(index);
+        while (bucket == null || bucket.epoch < epoch) {
+            Bucket fresh = new Bucket(epoch, fields);
+            if (ring.compareAndSet(index, bucket, fresh)) {
+                return fresh;
+            }
+            bucket = ring.get(index);
+        }
+        return bucket;
+    }
+
+    private static final class Bucket {
+        private final long epoch;
+        private final AtomicLongArray values;
+
+        Bucket(long epoch, int fields) {
+            this.epoch = epoch;
+            this.values = new AtomicLongArray(fields);
+        }
+    }
+}
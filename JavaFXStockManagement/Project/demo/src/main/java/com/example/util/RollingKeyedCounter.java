@@ -0,0 +1,222 @@
+package com.example.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free per-key sums over a sliding time window, for rankings such as the top products
+ * of the last minutes. Like {@link RollingCounter} it keeps a ring of time buckets, and each
+ * bucket holds a fixed-capacity open-addressing table from positive int keys to a fixed
+ * number of fields. Keys claim a slot with a compare-and-set and values are atomic
+ * increments, so adding never locks and never allocates. When a bucket's table is full, values
+ * of new keys are only added to the bucket's overflow totals.
+ */
+public class RollingKeyedCounter {
+
+    private final long bucketMillis;
+    private final int fields;
+    private final int capacity;
+    private final AtomicReferenceArray<Bucket> ring;
+
+    /**
+     * Creates a counter.
+     *
+     * @param buckets      the number of buckets in the ring, which bounds the longest window
+     * @param bucketMillis the length of a bucket in milliseconds
+     * @param capacity     the number of keys each bucket holds, a power of two
+     * @param fields       the number of fields per key
+     */
+    public RollingKeyedCounter(int buckets, long bucketMillis, int capacity, int fields) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.bucketMillis = bucketMillis;
+        this.fields = fields;
+        this.capacity = capacity;
+        this.ring = new AtomicReferenceArray<>(buckets);
+    }
+
+    /**
+     * Adds to a field of a key in the bucket of a time.
+     *
+     * @param nowMillis the current time in epoch milliseconds
+     * @param key       the key, greater than 0
+     * @param field     the index of the field
+     * @param amount    the amount to add
+     */
+    public void add(long nowMillis, int key, int field, long amount) {
+        Bucket bucket = bucket(nowMillis / bucketMillis);
+        int slot = bucket.slotOf(key);
+        if (slot < 0) {
+            bucket.overflow.addAndGet(field, amount);
+        } else {
+            bucket.values.addAndGet(slot * fields + field, amount);
+        }
+    }
+
+    /**
+     * Sums every key over the buckets of the window and returns the keys with the largest
+     * sums of one field.
+     *
+     * @param nowMillis the current time in epoch milliseconds
+     * @param buckets   the number of buckets to sum, including the current one
+     * @param field     the index of the field to rank by
+     * @param limit     the maximum number of keys to return
+     * @return the keys with their summed fields, largest first
+     */
+    public List<Entry> top(long nowMillis, int buckets, int field, int limit) {
+        long end = (nowMillis / bucketMillis + 1) * bucketMillis;
+        List<Entry> entries = sumsBetween(end - buckets * bucketMillis, end);
+        entries.sort(Comparator.comparingLong((Entry entry) -> entry.get(field)).reversed());
+        return entries.size() > limit ? new ArrayList<>(entries.subList(0, limit)) : entries;
+    }
+
+    /**
+     * Sums every key over the buckets starting in a time range, e.g. one whole minute.
+     *
+     * @param fromMillis the start of the range in epoch milliseconds, inclusive
+     * @param toMillis   the end of the range in epoch milliseconds, exclusive
+     * @return the keys with their summed fields, in no particular order
+     */
+    public List<Entry> sumsBetween(long fromMillis, long toMillis) {
+        long from = fromMillis / bucketMillis;
+        long to = toMillis / bucketMillis;
+        Map<Integer, long[]> sums = new HashMap<>();
+        for (int i = 0; i < ring.length(); i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket == null || bucket.epoch < from || bucket.epoch >= to) {
+                continue;
+            }
+            for (int slot = 0; slot < capacity; slot++) {
+                int key = bucket.keys.get(slot);
+                if (key == 0) {
+                    continue;
+                }
+                long[] values = sums.computeIfAbsent(key, k -> new long[fields]);
+                for (int f = 0; f < fields; f++) {
+                    values[f] += bucket.values.get(slot * fields + f);
+                }
+            }
+        }
+        List<Entry> entries = new ArrayList<>(sums.size());
+        for (Map.Entry<Integer, long[]> sum : sums.entrySet()) {
+            entries.add(new Entry(sum.getKey(), sum.getValue()));
+        }
+        return entries;
+    }
+
+    /**
+     * Sums a field over the values added for keys that did not fit in their bucket's table.
+     *
+     * @param nowMillis the current time in epoch milliseconds
+     * @param buckets   the number of buckets to sum, including the current one
+     * @param field     the index of the field
+     * @return the overflow total
+     */
+    public long overflow(long nowMillis, int buckets, int field) {
+        long end = (nowMillis / bucketMillis + 1) * bucketMillis;
+        return overflowBetween(end - buckets * bucketMillis, end, field);
+    }
+
+    /**
+     * Sums a field of the overflow totals over the buckets starting in a time range.
+     *
+     * @param fromMillis the start of the range in epoch milliseconds, inclusive
+     * @param toMillis   the end of the range in epoch milliseconds, exclusive
+     * @param field      the index of the field
+     * @return the overflow total
+     */
+    public long overflowBetween(long fromMillis, long toMillis, int field) {
+        long from = fromMillis / bucketMillis;
+        long to = toMillis / bucketMillis;
+        long total = 0;
+        for (int i = 0; i < ring.length(); i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket != null && bucket.epoch >= from && bucket.epoch < to) {
+                total += bucket.overflow.get(field);
+            }
+        }
+        return total;
+    }
+
+    private Bucket bucket(long epoch) {
+        int index = (int) (epoch % ring.length());
+        Bucket bucket = ring.get(index);
+        while (bucket == null || bucket.epoch < epoch) {
+            Bucket fresh = new Bucket(epoch, capacity, fields);
+            if (ring.compareAndSet(index, bucket, fresh)) {
+                return fresh;
+            }
+            bucket = ring.get(index);
+        }
+        return bucket;
+    }
+
+    /**
+     * A key with its fields summed over a window.
+     */
+    public static final class Entry {
+        private final int key;
+        private final long[] values;
+
+        Entry(int key, long[] values) {
+            this.key = key;
+            this.values = values;
+        }
+
+        public int getKey() {
+            return key;
+        }
+
+        /**
+         * Returns one summed field.
+         *
+         * @param field the index of the field
+         * @return the sum
+         */
+        public long get(int field) {
+            return values[field];
+        }
+    }
+
+    private static final class Bucket {
+        private final long epoch;
+        private final AtomicIntegerArray keys;
+        private final AtomicLongArray values;
+        private final AtomicLongArray overflow;
+
+        Bucket(long epoch, int capacity, int fields) {
+            this.epoch = epoch;
+            this.keys = new AtomicIntegerArray(capacity);
+            this.values = new AtomicLongArray(capacity * fields);
+            this.overflow = new AtomicLongArray(fields);
+        }
+
+        /**
+         * Finds the slot of a key by linear probing, claiming an empty slot for it if the key
+         * is new.
+         *
+         * @return the slot, or -1 if the table is full
+         */
+        int slotOf(int key) {
+            int mask = keys.length() - 1;
+            int slot = (key * 0x9E3779B9) >>> 16 & mask;
+            for (int probe = 0; probe <= mask; probe++) {
+                if (keys.get(slot) == 0 && keys.compareAndSet(slot, 0, key)) {
+                    return slot;
+                }
+                if (keys.get(slot) == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.example.util;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javafx.stage.Window;
+import javafx.stage.WindowEvent;
+
+/**
+ * Runs the periodic background tasks of every open window on one shared pool and ties each
+ * task to the sessions using it. A session belongs to one window and is closed when the
+ * window is hidden, whether by logging out or by closing it, which cancels every task only
+ * that session was using.
+ *
+ * <p>Periodic tasks are identified by a key and an interval. When a second window schedules
+ * a task that is already running, it subscribes to the running task instead of starting
+ * another one: the task's producer runs once per interval and every subscribed session's
+ * consumer receives the result. Tasks with the same key must therefore compute the same
+ * thing; everything that differs per window belongs in the consumer.</p>
+ */
+public final class TaskScheduler {
+
+    private static final TaskScheduler SHARED = new TaskScheduler();
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(Constants.TASK_SCHEDULER_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "task-scheduler-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, PeriodicTask> tasks = new LinkedHashMap<>();
+    private final AtomicInteger sessionCount = new AtomicInteger();
+
+    private TaskScheduler() {
+    }
+
+    /**
+     * Returns the scheduler shared by every window of this process.
+     *
+     * @return the shared scheduler
+     */
+    public static TaskScheduler shared() {
+        return SHARED;
+    }
+
+    /**
+     * Opens a session for a window. The session is closed when the window is hidden.
+     *
+     * @param owner  a description of the session owner, shown in the task view
+     * @param window the window the session belongs to
+     * @return the new session
+     */
+    public Session openSession(String owner, Window window) {
+        Session session = new Session(sessionCount.incrementAndGet() + " " + owner);
+        window.addEventHandler(WindowEvent.WINDOW_HIDDEN, e -> session.close());
+        return session;
+    }
+
+    /**
+     * Describes the tasks that are currently scheduled.
+     *
+     * @return the tasks in the order they were first scheduled
+     */
+    public synchronized List<TaskInfo> activeTasks() {
+        List<TaskInfo> infos = new ArrayList<>(tasks.size());
+        for (PeriodicTask task : tasks.values()) {
+            infos.add(task.describe());
+        }
+        return infos;
+    }
+
+    private synchronized <T> PeriodicTask subscribe(Session session, String key, long periodMillis, Callable<T> producer, Consumer<T> consumer) {
+        String id = key + "@" + periodMillis;
+        PeriodicTask task = tasks.get(id);
+        if (task == null) {
+            task = new PeriodicTask(key, periodMillis, producer);
+            task.subscribe(session, consumer);
+            tasks.put(id, task);
+            task.future = executor.scheduleWithFixedDelay(task::run, 0, periodMillis, TimeUnit.MILLISECONDS);
+            AppLogger.logInfo("Scheduled task " + key + " every " + periodMillis + " ms for session " + session.name);
+        } else {
+            task.subscribe(session, consumer);
+            AppLogger.logInfo("Session " + session.name + " joined running task " + key);
+        }
+        return task;
+    }
+
+    private synchronized void unsubscribe(Session session, PeriodicTask task) {
+        if (task.unsubscribe(session)) {
+            tasks.remove(task.key + "@" + task.periodMillis);
+            task.future.cancel(false);
+            AppLogger.logInfo("Cancelled task " + task.key + " after its last session closed");
+        }
+    }
+
+    /**
+     * The background tasks of one window.
+     */
+    public final class Session {
+        private final String name;
+        private final List<PeriodicTask> subscriptions = new ArrayList<>();
+        private boolean closed;
+
+        private Session(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Schedules a periodic task, or subscribes to it if another session already runs
+         * a task with the same key and interval. The first run starts right away.
+         *
+         * @param key          identifies what the task computes
+         * @param periodMillis the delay between the end of one run and the start of the next
+         * @param producer     computes the result, once per interval for all sessions
+         * @param consumer     receives each result for this session, on a scheduler thread
+         * @param <T>          the type of the result
+         */
+        public synchronized <T> void schedulePeriodic(String key, long periodMillis, Callable<T> producer, Consumer<T> consumer) {
+            if (closed) {
+                throw new IllegalStateException("Session " + name + " is closed");
+            }
+            subscriptions.add(subscribe(this, key, periodMillis, producer, consumer));
+        }
+
+        /**
+         * Runs a task this session subscribes to as soon as a scheduler thread is free,
+         * without waiting for its next interval.
+         *
+         * @param key the key of the task
+         */
+        public synchronized void runNow(String key) {
+            for (PeriodicTask task : subscriptions) {
+                if (task.key.equals(key)) {
+                    executor.execute(task::run);
+                }
+            }
+        }
+
+        /**
+         * Stops receiving a task's results, cancelling the task if no other session
+         * subscribes to it.
+         *
+         * @param key the key of the task
+         */
+        public synchronized void cancel(String key) {
+            Iterator<PeriodicTask> iterator = subscriptions.iterator();
+            while (iterator.hasNext()) {
+                PeriodicTask task = iterator.next();
+                if (task.key.equals(key)) {
+                    unsubscribe(this, task);
+                    iterator.remove();
+                }
+            }
+        }
+
+        /**
+         * Closes the session and cancels every task no other session subscribes to.
+         * Closing a closed session does nothing.
+         */
+        public synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (PeriodicTask task : subscriptions) {
+                unsubscribe(this, task);
+            }
+            subscriptions.clear();
+        }
+    }
+
+    /**
+     * A periodic task and the sessions receiving its results.
+     */
+    private static final class PeriodicTask {
+        final String key;
+        final long periodMillis;
+        final Callable<?> producer;
+        final Map<Session, Consumer<Object>> consumers = new LinkedHashMap<>();
+        final Object runLock = new Object();
+        ScheduledFuture<?> future;
+        long runs;
+        long failures;
+        long lastDurationMillis;
+        LocalDateTime lastRun;
+
+        PeriodicTask(String key, long periodMillis, Callable<?> producer) {
+            this.key = key;
+            this.periodMillis = periodMillis;
+            this.producer = producer;
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized <T> void subscribe(Session session, Consumer<T> consumer) {
+            consumers.put(session, (Consumer<Object>) consumer);
+        }
+
+        /**
+         * Removes a session.
+         *
+         * @return true if no session is left
+         */
+        synchronized boolean unsubscribe(Session session) {
+            consumers.remove(session);
+            return consumers.isEmpty();
+        }
+
+        /**
+         * Runs the producer once and hands the result to every subscribed session. Runs of
+         * the same task never overlap, even when {@link Session#runNow} races the schedule.
+         * The task's own lock is only held to read the subscribers and update the counters,
+         * so a producer may describe the scheduler's tasks, including itself.
+         */
+        void run() {
+            synchronized (runLock) {
+                List<Map.Entry<Session, Consumer<Object>>> targets;
+                synchronized (this) {
+                    if (consumers.isEmpty()) {
+                        return;
+                    }
+                    targets = new ArrayList<>(consumers.entrySet());
+                    lastRun = LocalDateTime.now();
+                    runs++;
+                }
+                long start = System.nanoTime();
+                Object result;
+                try {
+                    result = producer.call();
+                } catch (Exception ex) {
+                    recordFailure();
+                    AppLogger.logError("Task " + key + " failed", ex);
+                    return;
+                } finally {
+                    recordDuration(System.nanoTime() - start);
+                }
+                for (Map.Entry<Session, Consumer<Object>> target : targets) {
+                    try {
+                        target.getValue().accept(result);
+                    } catch (RuntimeException ex) {
+                        recordFailure();
+                        AppLogger.logError("Task " + key + " failed for session " + target.getKey().name, ex);
+                    }
+                }
+            }
+        }
+
+        private synchronized void recordFailure() {
+            failures++;
+        }
+
+        private synchronized void recordDuration(long nanos) {
+            lastDurationMillis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        }
+
+        synchronized TaskInfo describe() {
+            List<String> owners = new ArrayList<>(consumers.size());
+            for (Session session : consumers.keySet()) {
+                owners.add(session.name);
+            }
+            return new TaskInfo(key, periodMillis, owners, runs, failures, lastRun, lastDurationMillis);
+        }
+    }
+
+    /**
+     * A snapshot of one scheduled task.
+     */
+    public static final class TaskInfo {
+        private final String key;
+        private final long periodMillis;
+        private final List<String> sessions;
+        private final long runs;
+        private final long failures;
+        private final LocalDateTime lastRun;
+        private final long lastDurationMillis;
+
+        TaskInfo(String key, long periodMillis, List<String> sessions, long runs, long failures,
+                 LocalDateTime lastRun, long lastDurationMillis) {
+            this.key = key;
+            this.periodMillis = periodMillis;
+            this.sessions = Collections.unmodifiableList(sessions);
+            this.runs = runs;
+            this.failures = failures;
+            this.lastRun = lastRun;
+            this.lastDurationMillis = lastDurationMillis;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getPeriodMillis() {
+            return periodMillis;
+        }
+
+        /**
+         * Returns the sessions subscribed to the task.
+         *
+         * @return the session names, each prefixed with its session number
+         */
+        public List<String> getSessions() {
+            return sessions;
+        }
+
+        public long getRuns() {
+            return runs;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * Returns when the task last started.
+         *
+         * @return the start of the last run, or null if it has not run yet
+         */
+        public LocalDateTime getLastRun() {
+            return lastRun;
+        }
+
+        public long getLastDurationMillis() {
+            return lastDurationMillis;
+        }
+    }
+}
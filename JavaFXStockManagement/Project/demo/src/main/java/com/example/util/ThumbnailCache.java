@@ -0,0 +1,140 @@
+package com.example.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.management.NotificationEmitter;
+
+import javafx.scene.image.Image;
+
+/**
+ * Least-recently-used cache of decoded thumbnails, bounded by the bytes their pixels take
+ * rather than by their number, since a decoded image costs four bytes per pixel whatever the
+ * size of its file. Adding an image past the bound evicts the least recently used ones.
+ *
+ * <p>Once {@link #trimOnMemoryPressure()} is called, the cache also drops its least recently
+ * used half whenever the heap is still more than {@link Constants#THUMBNAIL_HEAP_PRESSURE}
+ * full after a garbage collection, so thumbnails give way to the rest of the application.</p>
+ */
+public class ThumbnailCache {
+
+    private final long maxBytes;
+    private final LinkedHashMap<Integer, Image> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxBytes the most bytes of pixels to keep
+     */
+    public ThumbnailCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns a cached thumbnail and marks it as recently used.
+     *
+     * @param key the key of the thumbnail
+     * @return the thumbnail, or null if it is not cached
+     */
+    public synchronized Image get(int key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Caches a thumbnail, evicting the least recently used ones past the bound.
+     *
+     * @param key   the key of the thumbnail
+     * @param image the decoded thumbnail
+     */
+    public synchronized void put(int key, Image image) {
+        Image previous = entries.put(key, image);
+        if (previous != null) {
+            bytes -= costOf(previous);
+        }
+        bytes += costOf(image);
+        trim(maxBytes);
+    }
+
+    /**
+     * Removes a thumbnail, e.g. when its image was replaced.
+     *
+     * @param key the key of the thumbnail
+     */
+    public synchronized void remove(int key) {
+        Image previous = entries.remove(key);
+        if (previous != null) {
+            bytes -= costOf(previous);
+        }
+    }
+
+    /**
+     * Evicts the least recently used thumbnails until the cache holds at most a number of
+     * bytes.
+     *
+     * @param targetBytes the bytes to keep at most
+     */
+    public synchronized void trim(long targetBytes) {
+        Iterator<Map.Entry<Integer, Image>> iterator = entries.entrySet().iterator();
+        while (bytes > targetBytes && iterator.hasNext()) {
+            bytes -= costOf(iterator.next().getValue());
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Returns the bytes of pixels held.
+     *
+     * @return the bytes
+     */
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the number of thumbnails held.
+     *
+     * @return the number of thumbnails
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Halves the cache whenever a heap pool is still over
+     * {@link Constants#THUMBNAIL_HEAP_PRESSURE} of its maximum after a garbage collection.
+     * Pools whose collectors do not report usage after collection are not watched.
+     */
+    public void trimOnMemoryPressure() {
+        boolean watched = false;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            long max = pool.getUsage().getMax();
+            if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported() && max > 0) {
+                if (pool.getCollectionUsageThreshold() == 0) {
+                    pool.setCollectionUsageThreshold((long) (max * Constants.THUMBNAIL_HEAP_PRESSURE));
+                }
+                watched = true;
+            }
+        }
+        if (!watched) {
+            return;
+        }
+        NotificationEmitter emitter = (NotificationEmitter) ManagementFactory.getMemoryMXBean();
+        emitter.addNotificationListener((notification, handback) -> {
+            if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType())) {
+                long before = bytes();
+                trim(before / 2);
+                AppLogger.logWarning("Heap is low after garbage collection, thumbnail cache trimmed from " + before + " to " + bytes() + " bytes");
+            }
+        }, null, null);
+    }
+
+    private static long costOf(Image image) {
+        return (long) Math.ceil(image.getWidth()) * (long) Math.ceil(image.getHeight()) * 4;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.util;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+
+/**
+ * Decodes thumbnails on background threads so list cells never decode on the FX thread. A
+ * cell asks for a thumbnail with {@link #request(int, Consumer)}, which answers from the
+ * {@link ThumbnailCache} at once or queues the key and calls back on the FX thread once the
+ * image is decoded. Images are decoded straight to {@link Constants#THUMBNAIL_SIZE} pixels,
+ * so a large photo never exists at full size in memory.
+ *
+ * <p>Requests are served newest first, since while scrolling the newest ones are for the
+ * rows on screen, and only {@link Constants#THUMBNAIL_QUEUE_SIZE} are kept; older ones are
+ * dropped and asked for again if their rows come back into view. Keys without an image are
+ * remembered until {@link #invalidate(int)}, so rows without one cost nothing after the
+ * first look.</p>
+ */
+public class ThumbnailLoader {
+
+    private final IntFunction<Path> resolver;
+    private final ThumbnailCache cache;
+    private final Set<Integer> missing = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, List<Consumer<Image>>> pending = new HashMap<>();
+    private final LinkedBlockingDeque<Integer> queue = new LinkedBlockingDeque<>();
+
+    /**
+     * Creates a loader and starts its threads.
+     *
+     * @param name     the name of the loader's threads
+     * @param resolver finds the image file of a key, or returns null if it has none
+     * @param cache    the cache of decoded thumbnails
+     */
+    public ThumbnailLoader(String name, IntFunction<Path> resolver, ThumbnailCache cache) {
+        this.resolver = resolver;
+        this.cache = cache;
+        for (int i = 1; i <= Constants.THUMBNAIL_LOADER_THREADS; i++) {
+            Thread thread = new Thread(this::decodeLoop, name + "-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Returns the cached thumbnail of a key, or queues it for decoding. Must be called on the
+     * FX thread.
+     *
+     * @param key      the key of the image
+     * @param onLoaded called on the FX thread with the thumbnail once it is decoded; not
+     *                 called if the key has no image or the request is dropped
+     * @return the cached thumbnail, or null if it is not cached yet
+     */
+    public Image request(int key, Consumer<Image> onLoaded) {
+        Image cached = cache.get(key);
+        if (cached != null || missing.contains(key)) {
+            return cached;
+        }
+        synchronized (this) {
+            List<Consumer<Image>> waiting = pending.get(key);
+            if (waiting == null) {
+                waiting = new ArrayList<>();
+                pending.put(key, waiting);
+                queue.offerFirst(key);
+                while (queue.size() > Constants.THUMBNAIL_QUEUE_SIZE) {
+                    Integer dropped = queue.pollLast();
+                    if (dropped != null) {
+                        pending.remove(dropped);
+                    }
+                }
+            }
+            waiting.add(onLoaded);
+        }
+        return null;
+    }
+
+    /**
+     * Forgets the thumbnail of a key after its image was replaced or removed.
+     *
+     * @param key the key of the image
+     */
+    public void invalidate(int key) {
+        cache.remove(key);
+        missing.remove(key);
+    }
+
+    /**
+     * Returns the cache of decoded thumbnails.
+     *
+     * @return the cache
+     */
+    public ThumbnailCache cache() {
+        return cache;
+    }
+
+    private void decodeLoop() {
+        while (true) {
+            int key;
+            try {
+                key = queue.takeFirst();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            Image image = decode(key);
+            if (image == null) {
+                missing.add(key);
+            } else {
+                cache.put(key, image);
+            }
+            List<Consumer<Image>> waiting;
+            synchronized (this) {
+                waiting = pending.remove(key);
+            }
+            if (image != null && waiting != null) {
+                Platform.runLater(() -> waiting.forEach(callback -> callback.accept(image)));
+            }
+        }
+    }
+
+    /**
+     * Decodes the image of a key at thumbnail size on the calling thread.
+     *
+     * @return the thumbnail, or null if the key has no image or it cannot be decoded
+     */
+    private Image decode(int key) {
+        try {
+            Path file = resolver.apply(key);
+            if (file == null) {
+                return null;
+            }
+            Image image = new Image(file.toUri().toString(), Constants.THUMBNAIL_SIZE, Constants.THUMBNAIL_SIZE, true, true, false);
+            if (image.isError()) {
+                AppLogger.logWarning("Cannot decode image " + file, image.getException());
+                return null;
+            }
+            return image;
+        } catch (RuntimeException ex) {
+            AppLogger.logError("Error loading the image of " + key, ex);
+            return null;
+        }
+    }
+}
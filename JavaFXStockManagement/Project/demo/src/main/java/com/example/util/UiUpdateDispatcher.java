@@ -0,0 +1,200 @@
+package com.example.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+
+/**
+ * Collects UI changes posted from any thread and applies them on the FX thread at most once
+ * per pulse. List changes are deduplicated by row key and written to the observable list
+ * with a single {@code setAll}, so a burst of model changes costs one list change event and
+ * one layout instead of a queued {@code Platform.runLater} per row. Keyed updates such as
+ * status labels only run their latest version.
+ *
+ * <p>The pulse timer only runs while changes are pending: posting a change starts it, and it
+ * stops itself after a pulse that found nothing new, so an idle window does not wake up on
+ * every pulse.</p>
+ */
+public class UiUpdateDispatcher {
+
+    private final List<ListBinding<?, ?>> bindings = new CopyOnWriteArrayList<>();
+    private final Object updateLock = new Object();
+    private Map<Object, Runnable> pendingUpdates = new LinkedHashMap<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile boolean running;
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            // Cleared before flushing, so a change posted during the flush keeps the timer running.
+            scheduled.set(false);
+            flush();
+            if (!scheduled.get()) {
+                stop();
+            }
+        }
+    };
+
+    /**
+     * Starts applying changes on the pulse after they are posted. Must be called on the FX thread.
+     */
+    public void start() {
+        running = true;
+        scheduled.set(true);
+        timer.start();
+    }
+
+    /**
+     * Stops applying changes. Changes posted afterwards are dropped with the dispatcher.
+     */
+    public void stop() {
+        running = false;
+        timer.stop();
+    }
+
+    /**
+     * Binds an observable list to rows identified by a key.
+     *
+     * @param target the list shown in the UI
+     * @param <K>    the type of the row key
+     * @param <T>    the type of the list items
+     * @return the binding to post row changes to
+     */
+    public <K, T> ListBinding<K, T> bind(ObservableList<T> target) {
+        ListBinding<K, T> binding = new ListBinding<>(target, this::schedule);
+        bindings.add(binding);
+        return binding;
+    }
+
+    /**
+     * Schedules an update for the next pulse, replacing any pending update with the same key.
+     *
+     * @param key    identifies the updated UI element
+     * @param update the update to run on the FX thread
+     */
+    public void update(Object key, Runnable update) {
+        synchronized (updateLock) {
+            pendingUpdates.put(key, update);
+        }
+        schedule();
+    }
+
+    /**
+     * Starts the pulse timer for a posted change unless it is already running.
+     */
+    private void schedule() {
+        if (running && scheduled.compareAndSet(false, true)) {
+            Platform.runLater(() -> {
+                if (running) {
+                    timer.start();
+                }
+            });
+        }
+    }
+
+    private void flush() {
+        for (ListBinding<?, ?> binding : bindings) {
+            binding.flush();
+        }
+        Map<Object, Runnable> updates;
+        synchronized (updateLock) {
+            if (pendingUpdates.isEmpty()) {
+                return;
+            }
+            updates = pendingUpdates;
+            pendingUpdates = new LinkedHashMap<>();
+        }
+        for (Runnable update : updates.values()) {
+            update.run();
+        }
+    }
+
+    /**
+     * Keyed rows mirrored into an observable list. Rows keep the order they were first put in.
+     *
+     * @param <K> the type of the row key
+     * @param <T> the type of the list items
+     */
+    public static final class ListBinding<K, T> {
+        private final ObservableList<T> target;
+        private final Runnable onChange;
+        private final Map<K, T> rows = new LinkedHashMap<>();
+        private Map<K, T> pending = new LinkedHashMap<>();
+        private Map<K, T> replacement;
+
+        private ListBinding(ObservableList<T> target, Runnable onChange) {
+            this.target = target;
+            this.onChange = onChange;
+        }
+
+        /**
+         * Adds or replaces a row.
+         *
+         * @param key the row key
+         * @param row the row
+         */
+        public void put(K key, T row) {
+            synchronized (this) {
+                pending.put(key, row);
+            }
+            onChange.run();
+        }
+
+        /**
+         * Removes a row if present.
+         *
+         * @param key the row key
+         */
+        public void remove(K key) {
+            synchronized (this) {
+                pending.put(key, null);
+            }
+            onChange.run();
+        }
+
+        /**
+         * Replaces every row, discarding changes posted before.
+         *
+         * @param newRows the rows in display order
+         */
+        public void replaceAll(Map<K, T> newRows) {
+            synchronized (this) {
+                replacement = new LinkedHashMap<>(newRows);
+                pending = new LinkedHashMap<>();
+            }
+            onChange.run();
+        }
+
+        private void flush() {
+            Map<K, T> changes;
+            Map<K, T> replaced;
+            synchronized (this) {
+                if (replacement == null && pending.isEmpty()) {
+                    return;
+                }
+                changes = pending;
+                replaced = replacement;
+                pending = new LinkedHashMap<>();
+                replacement = null;
+            }
+            if (replaced != null) {
+                rows.clear();
+                rows.putAll(replaced);
+            }
+            for (Map.Entry<K, T> change : changes.entrySet()) {
+                if (change.getValue() == null) {
+                    rows.remove(change.getKey());
+                } else {
+                    rows.put(change.getKey(), change.getValue());
+                }
+            }
+            target.setAll(new ArrayList<>(rows.values()));
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.util;
 
 import javafx.scene.control.Alert;
+import javafx.scene.image.Image;
 import javafx.stage.Stage;
 
 import java.awt.*;
@@ -15,6 +16,8 @@ import java.nio.file.StandardCopyOption;
  */
 public class Utility {
 
+    private static Image appIcon;
+
     /**
      * Displays an alert dialog with the specified type, title, and message.
      *
@@ -30,6 +33,19 @@ public class Utility {
         alert.showAndWait();
     }
 
+    /**
+     * Returns the application icon, decoded the first time it is asked for and shared by
+     * every stage. Must be called on the FX thread.
+     *
+     * @return the icon
+     */
+    public static Image appIcon() {
+        if (appIcon == null) {
+            appIcon = new Image(Utility.class.getResourceAsStream(Constants.ICON_PATH));
+        }
+        return appIcon;
+    }
+
     /**
      * Opens the documentation file specified by the docPath.
      *
@@ -0,0 +1,47 @@
+package com.example.util;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Samples ranks from a Zipf distribution, where rank {@code k} (0-based) is drawn with
+ * probability proportional to {@code 1 / (k + 1)^exponent}. An exponent of 0 gives a
+ * uniform distribution; around 1 matches typical retail popularity skew.
+ */
+public class ZipfSampler {
+
+    private final double[] cumulative;
+
+    /**
+     * Constructor for ZipfSampler.
+     *
+     * @param size     the number of ranks
+     * @param exponent the skew exponent, 0 or greater
+     */
+    public ZipfSampler(int size, double exponent) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be positive: " + size);
+        }
+        cumulative = new double[size];
+        double sum = 0;
+        for (int k = 0; k < size; k++) {
+            sum += 1.0 / Math.pow(k + 1, exponent);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < size; k++) {
+            cumulative[k] /= sum;
+        }
+    }
+
+    /**
+     * Draws a rank.
+     *
+     * @param random the source of randomness
+     * @return a rank between 0 and size - 1
+     */
+    public int next(SplittableRandom random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cumulative.length - 1);
+    }
+}
@@ -1,5 +1,6 @@
 module com.example {
     requires java.desktop;
+    requires java.management;
     requires javafx.controls;
     requires java.sql;
     requires jbcrypt;
@@ -7,5 +8,6 @@ module com.example {
 
     exports com.example.controller;
     exports com.example.model;
+    exports com.example.tools;
     exports com.example.util;
 }
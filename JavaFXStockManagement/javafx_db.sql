@@ -23,6 +23,84 @@ SET time_zone = "+00:00";
 
 -- --------------------------------------------------------
 
+--
+-- Δομή πίνακα για τον πίνακα `deletion_jobs`
+--
+
+CREATE TABLE `deletion_jobs` (
+  `job_id` int(11) NOT NULL,
+  `kind` enum('sales','product','all_sales') NOT NULL,
+  `target_id` int(11) DEFAULT NULL,
+  `max_sale_id` int(11) DEFAULT NULL,
+  `last_key` int(11) NOT NULL DEFAULT 0,
+  `deleted_rows` bigint(20) NOT NULL DEFAULT 0,
+  `created_at` timestamp NOT NULL DEFAULT current_timestamp(),
+  `completed_at` timestamp NULL DEFAULT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=latin1 COLLATE=latin1_swedish_ci;
+
+-- --------------------------------------------------------
+
+--
+-- Δομή πίνακα για τον πίνακα `locations`
+--
+
+CREATE TABLE `locations` (
+  `location_id` int(11) NOT NULL,
+  `name` varchar(100) NOT NULL,
+  `kind` enum('store','warehouse') NOT NULL DEFAULT 'store'
+) ENGINE=InnoDB DEFAULT CHARSET=latin1 COLLATE=latin1_swedish_ci;
+
+--
+-- Άδειασμα δεδομένων του πίνακα `locations`
+--
+
+INSERT INTO `locations` (`location_id`, `name`, `kind`) VALUES
+(1, 'Main Store', 'store');
+
+-- --------------------------------------------------------
+
+--
+-- Δομή πίνακα για τον πίνακα `price_versions`
+--
+
+CREATE TABLE `price_versions` (
+  `version_id` int(11) NOT NULL,
+  `product_id` int(11) NOT NULL,
+  `price` decimal(10,2) NOT NULL,
+  `effective_from` timestamp NOT NULL DEFAULT current_timestamp(),
+  `effective_to` timestamp NULL DEFAULT NULL,
+  `label` varchar(100) DEFAULT NULL,
+  `created_at` timestamp NOT NULL DEFAULT current_timestamp()
+) ENGINE=InnoDB DEFAULT CHARSET=latin1 COLLATE=latin1_swedish_ci;
+
+--
+-- Άδειασμα δεδομένων του πίνακα `price_versions`
+--
+
+INSERT INTO `price_versions` (`version_id`, `product_id`, `price`, `effective_from`, `effective_to`, `label`, `created_at`) VALUES
+(1, 82, 1.00, '2024-05-30 14:45:13', NULL, NULL, '2024-05-30 14:45:13');
+
+-- --------------------------------------------------------
+
+--
+-- Δομή πίνακα για τον πίνακα `product_stock`
+--
+
+CREATE TABLE `product_stock` (
+  `product_id` int(11) NOT NULL,
+  `location_id` int(11) NOT NULL,
+  `quantity` int(11) NOT NULL DEFAULT 0
+) ENGINE=InnoDB DEFAULT CHARSET=latin1 COLLATE=latin1_swedish_ci;
+
+--
+-- Άδειασμα δεδομένων του πίνακα `product_stock`
+--
+
+INSERT INTO `product_stock` (`product_id`, `location_id`, `quantity`) VALUES
+(82, 1, 6);
+
+-- --------------------------------------------------------
+
 --
 -- Δομή πίνακα για τον πίνακα `products`
 --
@@ -33,7 +111,9 @@ CREATE TABLE `products` (
   `description` text DEFAULT NULL,
   `price` decimal(10,2) NOT NULL,
   `quantity` int(11) DEFAULT 0,
-  `created_at` timestamp NOT NULL DEFAULT current_timestamp()
+  `created_at` timestamp NOT NULL DEFAULT current_timestamp(),
+  `deleted_at` timestamp NULL DEFAULT NULL,
+  `sku` varchar(32) DEFAULT NULL
 ) ENGINE=InnoDB DEFAULT CHARSET=latin1 COLLATE=latin1_swedish_ci;
 
 --
@@ -45,6 +125,35 @@ INSERT INTO `products` (`product_id`, `name`, `description`, `price`, `quantity`
 
 -- --------------------------------------------------------
 
+--
+-- Δομή πίνακα για τον πίνακα `replica_heartbeat`
+--
+
+CREATE TABLE `replica_heartbeat` (
+  `id` tinyint(4) NOT NULL,
+  `beat_millis` bigint(20) NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=latin1 COLLATE=latin1_swedish_ci;
+
+-- --------------------------------------------------------
+
+--
+-- Δομή πίνακα για τον πίνακα `report_runs`
+--
+
+CREATE TABLE `report_runs` (
+  `run_id` int(11) NOT NULL,
+  `report` varchar(50) NOT NULL,
+  `period` varchar(20) NOT NULL,
+  `started_at` timestamp NOT NULL DEFAULT current_timestamp(),
+  `finished_at` timestamp NULL DEFAULT NULL,
+  `row_count` bigint(20) NOT NULL DEFAULT 0,
+  `file_path` varchar(512) NOT NULL,
+  `status` enum('completed','failed') NOT NULL,
+  `message` varchar(255) DEFAULT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=latin1 COLLATE=latin1_swedish_ci;
+
+-- --------------------------------------------------------
+
 --
 -- Δομή πίνακα για τον πίνακα `sales`
 --
@@ -54,7 +163,11 @@ CREATE TABLE `sales` (
   `product_id` int(11) NOT NULL,
   `quantity_sold` int(11) NOT NULL,
   `sale_date` timestamp NOT NULL DEFAULT current_timestamp(),
-  `total_price` decimal(10,2) NOT NULL
+  `total_price` decimal(10,2) NOT NULL,
+  `sync_ref` varchar(64) DEFAULT NULL,
+  `deleted_at` timestamp NULL DEFAULT NULL,
+  `price_version_id` int(11) DEFAULT NULL,
+  `user_id` int(11) DEFAULT NULL
 ) ENGINE=InnoDB DEFAULT CHARSET=latin1 COLLATE=latin1_swedish_ci;
 
 --
@@ -67,6 +180,47 @@ INSERT INTO `sales` (`sale_id`, `product_id`, `quantity_sold`, `sale_date`, `tot
 
 -- --------------------------------------------------------
 
+--
+-- Δομή πίνακα για τον πίνακα `sales_minute`
+--
+
+CREATE TABLE `sales_minute` (
+  `minute_start` datetime NOT NULL,
+  `product_id` int(11) NOT NULL,
+  `orders` int(11) NOT NULL DEFAULT 0,
+  `units` int(11) NOT NULL DEFAULT 0,
+  `revenue` decimal(12,2) NOT NULL DEFAULT 0.00
+) ENGINE=InnoDB DEFAULT CHARSET=latin1 COLLATE=latin1_swedish_ci;
+
+-- --------------------------------------------------------
+
+--
+-- Δομή πίνακα για τον πίνακα `stock_movements`
+--
+
+CREATE TABLE `stock_movements` (
+  `movement_id` bigint(20) NOT NULL,
+  `product_id` int(11) NOT NULL,
+  `kind` enum('purchase','restock','adjustment','delete','opening') NOT NULL,
+  `quantity_change` int(11) NOT NULL,
+  `moved_at` timestamp NOT NULL DEFAULT current_timestamp()
+) ENGINE=InnoDB DEFAULT CHARSET=latin1 COLLATE=latin1_swedish_ci;
+
+-- --------------------------------------------------------
+
+--
+-- Δομή πίνακα για τον πίνακα `stock_snapshots`
+--
+
+CREATE TABLE `stock_snapshots` (
+  `last_movement_id` bigint(20) NOT NULL,
+  `product_id` int(11) NOT NULL,
+  `taken_at` timestamp NOT NULL,
+  `quantity` int(11) NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=latin1 COLLATE=latin1_swedish_ci;
+
+-- --------------------------------------------------------
+
 --
 -- Δομή πίνακα για τον πίνακα `users`
 --
@@ -90,41 +244,143 @@ INSERT INTO `users` (`id`, `username`, `password`, `role`) VALUES
 -- Ευρετήρια για άχρηστους πίνακες
 --
 
+--
+-- Ευρετήρια για πίνακα `deletion_jobs`
+--
+ALTER TABLE `deletion_jobs`
+  ADD PRIMARY KEY (`job_id`),
+  ADD KEY `completed_at` (`completed_at`);
+
+--
+-- Ευρετήρια για πίνακα `locations`
+--
+ALTER TABLE `locations`
+  ADD PRIMARY KEY (`location_id`),
+  ADD UNIQUE KEY `name` (`name`);
+
+--
+-- Ευρετήρια για πίνακα `price_versions`
+--
+ALTER TABLE `price_versions`
+  ADD PRIMARY KEY (`version_id`),
+  ADD KEY `product_effective` (`product_id`,`effective_from`),
+  ADD KEY `effective_to` (`effective_to`);
+
+--
+-- Ευρετήρια για πίνακα `product_stock`
+--
+ALTER TABLE `product_stock`
+  ADD PRIMARY KEY (`product_id`,`location_id`),
+  ADD KEY `location_quantity` (`location_id`,`quantity`,`product_id`);
+
 --
 -- Ευρετήρια για πίνακα `products`
 --
 ALTER TABLE `products`
-  ADD PRIMARY KEY (`product_id`);
+  ADD PRIMARY KEY (`product_id`),
+  ADD UNIQUE KEY `sku` (`sku`),
+  ADD KEY `deleted_at` (`deleted_at`),
+  ADD KEY `name` (`name`);
+
+--
+-- Ευρετήρια για πίνακα `replica_heartbeat`
+--
+ALTER TABLE `replica_heartbeat`
+  ADD PRIMARY KEY (`id`);
+
+--
+-- Ευρετήρια για πίνακα `report_runs`
+--
+ALTER TABLE `report_runs`
+  ADD PRIMARY KEY (`run_id`);
 
 --
 -- Ευρετήρια για πίνακα `sales`
 --
 ALTER TABLE `sales`
   ADD PRIMARY KEY (`sale_id`),
-  ADD KEY `sales_ibfk_1` (`product_id`);
+  ADD UNIQUE KEY `sync_ref` (`sync_ref`),
+  ADD KEY `sales_ibfk_1` (`product_id`),
+  ADD KEY `sales_date_covering` (`sale_date`,`sale_id`,`product_id`,`quantity_sold`,`total_price`,`deleted_at`),
+  ADD KEY `sales_product_covering` (`product_id`,`sale_date`,`sale_id`,`quantity_sold`,`total_price`,`deleted_at`),
+  ADD KEY `deleted_at` (`deleted_at`),
+  ADD KEY `price_version_id` (`price_version_id`),
+  ADD KEY `sales_user_covering` (`user_id`,`sale_date`,`sale_id`,`product_id`,`quantity_sold`,`total_price`,`deleted_at`);
+
+--
+-- Ευρετήρια για πίνακα `sales_minute`
+--
+ALTER TABLE `sales_minute`
+  ADD PRIMARY KEY (`minute_start`,`product_id`);
+
+--
+-- Ευρετήρια για πίνακα `stock_movements`
+--
+ALTER TABLE `stock_movements`
+  ADD PRIMARY KEY (`movement_id`),
+  ADD KEY `product_movement` (`product_id`,`movement_id`),
+  ADD KEY `moved_at` (`moved_at`);
+
+--
+-- Ευρετήρια για πίνακα `stock_snapshots`
+--
+ALTER TABLE `stock_snapshots`
+  ADD PRIMARY KEY (`last_movement_id`,`product_id`),
+  ADD KEY `taken_at` (`taken_at`,`last_movement_id`);
 
 --
 -- Ευρετήρια για πίνακα `users`
 --
 ALTER TABLE `users`
-  ADD PRIMARY KEY (`id`);
+  ADD PRIMARY KEY (`id`),
+  ADD UNIQUE KEY `username` (`username`);
 
 --
 -- AUTO_INCREMENT για άχρηστους πίνακες
 --
 
+--
+-- AUTO_INCREMENT για πίνακα `deletion_jobs`
+--
+ALTER TABLE `deletion_jobs`
+  MODIFY `job_id` int(11) NOT NULL AUTO_INCREMENT;
+
+--
+-- AUTO_INCREMENT για πίνακα `locations`
+--
+ALTER TABLE `locations`
+  MODIFY `location_id` int(11) NOT NULL AUTO_INCREMENT, AUTO_INCREMENT=2;
+
+--
+-- AUTO_INCREMENT για πίνακα `price_versions`
+--
+ALTER TABLE `price_versions`
+  MODIFY `version_id` int(11) NOT NULL AUTO_INCREMENT, AUTO_INCREMENT=2;
+
 --
 -- AUTO_INCREMENT για πίνακα `products`
 --
 ALTER TABLE `products`
   MODIFY `product_id` int(11) NOT NULL AUTO_INCREMENT, AUTO_INCREMENT=83;
 
+--
+-- AUTO_INCREMENT για πίνακα `report_runs`
+--
+ALTER TABLE `report_runs`
+  MODIFY `run_id` int(11) NOT NULL AUTO_INCREMENT;
+
 --
 -- AUTO_INCREMENT για πίνακα `sales`
 --
 ALTER TABLE `sales`
   MODIFY `sale_id` int(11) NOT NULL AUTO_INCREMENT, AUTO_INCREMENT=53;
 
+--
+-- AUTO_INCREMENT για πίνακα `stock_movements`
+--
+ALTER TABLE `stock_movements`
+  MODIFY `movement_id` bigint(20) NOT NULL AUTO_INCREMENT;
+
 --
 -- AUTO_INCREMENT για πίνακα `users`
 --
@@ -135,11 +391,26 @@ ALTER TABLE `users`
 -- Περιορισμοί για άχρηστους πίνακες
 --
 
+--
+-- Περιορισμοί για πίνακα `price_versions`
+--
+ALTER TABLE `price_versions`
+  ADD CONSTRAINT `price_versions_ibfk_1` FOREIGN KEY (`product_id`) REFERENCES `products` (`product_id`) ON DELETE CASCADE;
+
+--
+-- Περιορισμοί για πίνακα `product_stock`
+--
+ALTER TABLE `product_stock`
+  ADD CONSTRAINT `product_stock_ibfk_1` FOREIGN KEY (`product_id`) REFERENCES `products` (`product_id`) ON DELETE CASCADE,
+  ADD CONSTRAINT `product_stock_ibfk_2` FOREIGN KEY (`location_id`) REFERENCES `locations` (`location_id`);
+
 --
 -- Περιορισμοί για πίνακα `sales`
 --
 ALTER TABLE `sales`
-  ADD CONSTRAINT `sales_ibfk_1` FOREIGN KEY (`product_id`) REFERENCES `products` (`product_id`) ON DELETE CASCADE;
+  ADD CONSTRAINT `sales_ibfk_1` FOREIGN KEY (`product_id`) REFERENCES `products` (`product_id`) ON DELETE CASCADE,
+  ADD CONSTRAINT `sales_ibfk_2` FOREIGN KEY (`price_version_id`) REFERENCES `price_versions` (`version_id`) ON DELETE SET NULL,
+  ADD CONSTRAINT `sales_ibfk_3` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`) ON DELETE SET NULL;
 COMMIT;
 
 /*!40101 SET CHARACTER_SET_CLIENT=@OLD_CHARACTER_SET_CLIENT */;